@@ -31,6 +31,11 @@ public class DeepSeekConfig {
     private BigDecimal confidenceThreshold;
     private boolean enabled;
     private int rateLimitPerMinute;
+    private int cacheSize = 10000;
+    private long cacheTtlMinutes = 60;
+    private int batchSize = 8;
+    private long batchWindowMs = 25;
+    private int maxConcurrentRequests = 4;
 
     @Bean(name = "deepSeekWebClient")
     public WebClient deepSeekWebClient() {
@@ -0,0 +1,45 @@
+package com.my.challenger.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.rekognition.RekognitionClient;
+
+/**
+ * Single Rekognition client for photo verification; its HTTP connection pool is shared by
+ * all verifications and closed with the context.
+ */
+@Configuration
+public class RekognitionConfig {
+
+    @Value("${aws.access-key:}")
+    private String accessKey;
+
+    @Value("${aws.secret-key:}")
+    private String secretKey;
+
+    @Value("${aws.region:us-east-1}")
+    private String region;
+
+    @Bean(destroyMethod = "close")
+    public RekognitionClient rekognitionClient() {
+        return RekognitionClient.builder()
+                .region(Region.of(region))
+                .credentialsProvider(getCredentialsProvider())
+                .build();
+    }
+
+    private AwsCredentialsProvider getCredentialsProvider() {
+        // If access key and secret are provided, use them
+        if (!accessKey.isEmpty() && !secretKey.isEmpty()) {
+            return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+        }
+        // Otherwise, use default credential chain (IAM roles, environment variables, etc.)
+        return DefaultCredentialsProvider.create();
+    }
+}
@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.provider.jdbctemplate.JdbcTemplateLockProvider;
 import net.javacrumbs.shedlock.spring.annotation.EnableSchedulerLock;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -47,6 +48,17 @@ public class SchedulerConfig {
         return scheduler;
     }
 
+    @Bean("puzzleSpectatorScheduler")
+    public ThreadPoolTaskScheduler puzzleSpectatorScheduler() {
+        // The 100 ms spectator tick gets its own thread so locked jobs and flushes on the
+        // shared scheduler cannot delay it, nor it them
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("puzzle-spectator-");
+        scheduler.setErrorHandler(t -> log.error("Puzzle spectator tick failed: {}", t.getMessage()));
+        return scheduler;
+    }
+
     @Bean("scoringTaskExecutor")
     public Executor scoringTaskExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
@@ -58,4 +70,70 @@ public class SchedulerConfig {
         executor.initialize();
         return executor;
     }
+
+    @Bean("screenTimeResetExecutor")
+    public Executor screenTimeResetExecutor(@Value("${screen-time.reset.parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, parallelism));
+        executor.setMaxPoolSize(Math.max(1, parallelism));
+        // Timezones beyond the queue run on the calling scheduler thread
+        executor.setQueueCapacity(500);
+        executor.setThreadNamePrefix("screen-time-reset-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean("quizAnswerExecutor")
+    public Executor quizAnswerExecutor(@Value("${app.quiz-answers.parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, parallelism));
+        executor.setMaxPoolSize(Math.max(1, parallelism));
+        // Deferred AI validation beyond the queue is rejected; its round stays pending until
+        // the stale sweep settles it on the local result
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("quiz-answer-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean("photoAnalysisExecutor")
+    public Executor photoAnalysisExecutor(
+            @Value("${app.photo-analysis.parallelism:0}") int parallelism,
+            @Value("${app.photo-analysis.queue-capacity:100}") int queueCapacity) {
+        // One OpenCV stage per core; 0 sizes the pool to the available processors
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        // Stages beyond the queue are rejected rather than run on the caller, keeping the
+        // number of decoded images in native memory bounded
+        executor.setQueueCapacity(Math.max(1, queueCapacity));
+        executor.setThreadNamePrefix("photo-analysis-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean("photoVerificationExecutor")
+    public Executor photoVerificationExecutor(
+            @Value("${app.photo-verification.workers:8}") int workers,
+            @Value("${app.photo-verification.queue-capacity:200}") int queueCapacity) {
+        // Workers mostly wait on Rekognition and the photo analysis pool
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, workers));
+        executor.setMaxPoolSize(Math.max(1, workers));
+        // A full queue rejects new submissions, which are answered with 503 so clients back off
+        executor.setQueueCapacity(Math.max(1, queueCapacity));
+        executor.setThreadNamePrefix("photo-verification-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
 }
@@ -1,5 +1,6 @@
 package com.my.challenger.config;
 
+import com.my.challenger.websocket.codec.PayloadCodecInterceptor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Configuration;
@@ -28,9 +29,11 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final JwtTokenUtil jwtTokenUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final PayloadCodecInterceptor payloadCodecInterceptor;
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
+        // Each node runs its own simple broker; room topics are fanned out across nodes by RoomBroadcaster
         config.enableSimpleBroker("/topic", "/queue", "/user");
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
@@ -70,6 +73,11 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 }
                 return message;
             }
-        });
+        }, payloadCodecInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(payloadCodecInterceptor);
     }
 }
@@ -0,0 +1,34 @@
+package com.my.challenger.dto.challenge;
+
+import java.math.BigDecimal;
+
+/**
+ * Flat projection of a challenge search hit. Enum columns are returned as their names and
+ * dates as epoch milliseconds.
+ */
+public interface ChallengeSearchRow {
+    Long getId();
+    String getTitle();
+    String getDescription();
+    String getType();
+    String getStatus();
+    Boolean getIsPublic();
+    Long getCreatorId();
+    String getCreatorUsername();
+    String getPaymentType();
+    Boolean getHasEntryFee();
+    BigDecimal getEntryFeeAmount();
+    String getEntryFeeCurrency();
+    Boolean getHasPrize();
+    BigDecimal getPrizeAmount();
+    String getPrizeCurrency();
+    BigDecimal getPrizePool();
+    Long getStartEpochMillis();
+    Long getEndEpochMillis();
+    Boolean getRequiresApproval();
+
+    /**
+     * Start date as PostgreSQL timestamp text (full precision), used to build seek cursors
+     */
+    String getSeekStart();
+}
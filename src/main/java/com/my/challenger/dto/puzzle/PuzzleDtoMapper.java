@@ -48,6 +48,8 @@ public class PuzzleDtoMapper {
                 .svgClipPath(piece.getSvgClipPath())
                 .widthPx(piece.getWidthPx())
                 .heightPx(piece.getHeightPx())
+                .atlasX(piece.getAtlasX())
+                .atlasY(piece.getAtlasY())
                 .build();
     }
 
@@ -22,4 +22,6 @@ public class PuzzlePieceDTO {
     private String svgClipPath; // SVG path data for rendering jigsaw shape on frontend
     private int widthPx;
     private int heightPx;
+    private Integer atlasX;     // offset into the sprite atlas at imageUrl (null when imageUrl is the piece itself)
+    private Integer atlasY;
 }
@@ -31,6 +31,7 @@ public class QuizRoundDTO {
     private Boolean aiAccepted;
     private BigDecimal aiConfidence;
     private String aiExplanation;
+    private Boolean aiValidationPending;
 
     private LocalDateTime createdAt;
     private Boolean voiceRecordingUsed;
@@ -25,6 +25,8 @@ public class QuizRoundResultDTO {
     private boolean aiAccepted;
     private BigDecimal aiConfidence;
     private String aiExplanation;
+    // AI validation still running; the final result is pushed to the host's personal queue
+    private boolean aiValidationPending;
 
     private int sessionScore;
     @JsonProperty("isSessionComplete")
@@ -0,0 +1,28 @@
+package com.my.challenger.dto.verification;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for a batch of GPS check-ins collected by the client for a location challenge
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationBatchVerificationRequest {
+
+    @NotNull(message = "Challenge ID is required")
+    private Long challengeId;
+
+    @NotEmpty(message = "At least one check-in is required")
+    @Size(max = 500, message = "At most 500 check-ins per batch")
+    private List<LocationCheckIn> checkIns;
+}
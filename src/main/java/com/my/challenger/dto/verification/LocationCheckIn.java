@@ -0,0 +1,19 @@
+package com.my.challenger.dto.verification;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One GPS fix reported by the client
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationCheckIn {
+    private double latitude;
+    private double longitude;
+    private String timestamp;
+}
@@ -0,0 +1,39 @@
+package com.my.challenger.dto.verification;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Progress of an asynchronous photo verification; returned by the job endpoints and pushed
+ * to the submitting user's personal queue on every state change
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class PhotoVerificationJobStatus {
+
+    public enum State {
+        QUEUED, DETECTING, COMPARING, PERSISTING, RETRYING, COMPLETED, FAILED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == FAILED;
+        }
+    }
+
+    @Builder.Default
+    private String type = "PHOTO_VERIFICATION_JOB";
+    private String jobId;
+    private Long challengeId;
+    private State state;
+    private Integer attempt;
+    private Boolean isVerified;
+    private String message;
+    private Map<String, Object> details;
+    private LocalDateTime updatedAt;
+}
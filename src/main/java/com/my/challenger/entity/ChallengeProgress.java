@@ -3,6 +3,7 @@ package com.my.challenger.entity;
 import com.my.challenger.entity.challenge.Challenge;
 import com.my.challenger.entity.enums.ProgressStatus;
 import com.my.challenger.entity.enums.VerificationStatus;
+import com.my.challenger.entity.listener.ChallengeProgressEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -27,6 +28,7 @@ import java.util.List;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@EntityListeners(ChallengeProgressEntityListener.class)
 @Table(name = "challenge_progress",
         uniqueConstraints = @UniqueConstraint(columnNames = {"challenge_id", "user_id"}))
 public class ChallengeProgress {
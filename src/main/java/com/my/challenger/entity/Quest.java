@@ -3,6 +3,7 @@ package com.my.challenger.entity;// Quest.java
 import com.my.challenger.entity.enums.QuestStatus;
 import com.my.challenger.entity.enums.QuestType;
 import com.my.challenger.entity.enums.VisibilityType;
+import com.my.challenger.entity.listener.QuestEntityListener;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -22,6 +23,7 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "quests")
+@EntityListeners(QuestEntityListener.class)
 public class Quest {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -44,6 +44,15 @@ public class ScreenTimeResetLog {
     @Column(name = "duration_ms")
     private Long durationMs;
 
+    @Column(name = "chunks_processed", nullable = false)
+    private Integer chunksProcessed = 0;
+
+    @Column(name = "slowest_chunk_ms")
+    private Long slowestChunkMs;
+
+    @Column(name = "rows_per_second")
+    private Double rowsPerSecond;
+
     @Column(name = "status", nullable = false, length = 20)
     private String status = "IN_PROGRESS";
 
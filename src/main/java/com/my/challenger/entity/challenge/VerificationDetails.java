@@ -24,6 +24,14 @@ public class VerificationDetails {
     @Column(name = "radius")
     private Double radius;
 
+    // Polygon target area as "lat,lon;lat,lon;..."; overrides locationCoordinates and radius
+    @Column(name = "boundary", columnDefinition = "TEXT")
+    private String boundary;
+
+    // Continuous time the user must stay inside the target area
+    @Column(name = "dwell_seconds")
+    private Integer dwellSeconds;
+
     // Fixed relationship with Challenge entity
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "challenge_id", nullable = false)
@@ -0,0 +1,63 @@
+package com.my.challenger.entity.listener;
+
+import com.my.challenger.entity.ChallengeProgress;
+import com.my.challenger.entity.enums.ProgressStatus;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes a {@link ChallengeProgressSavedEvent} whenever a progress row is inserted or
+ * updated, and a {@link ChallengeProgressRemovedEvent} when one is deleted, wherever in the
+ * code base that happens.
+ * <p>
+ * Only identifiers and the status are read here: JPA callbacks must not trigger queries, so
+ * listeners resolve anything else after the transaction has committed.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChallengeProgressEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class ChallengeProgressSavedEvent {
+        private final Long userId;
+        private final Long challengeId;
+        private final boolean completed;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class ChallengeProgressRemovedEvent {
+        private final Long userId;
+        private final Long challengeId;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(ChallengeProgress progress) {
+        if (progress.getUser() == null || progress.getChallenge() == null) {
+            return;
+        }
+        eventPublisher.publishEvent(new ChallengeProgressSavedEvent(
+                progress.getUser().getId(),
+                progress.getChallenge().getId(),
+                progress.getStatus() == ProgressStatus.COMPLETED));
+    }
+
+    @PostRemove
+    public void onRemoved(ChallengeProgress progress) {
+        if (progress.getUser() == null || progress.getChallenge() == null) {
+            return;
+        }
+        eventPublisher.publishEvent(new ChallengeProgressRemovedEvent(
+                progress.getUser().getId(),
+                progress.getChallenge().getId()));
+    }
+}
@@ -0,0 +1,33 @@
+package com.my.challenger.entity.listener;
+
+import com.my.challenger.entity.Quest;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes a {@link QuestChangedEvent} whenever a quest is inserted, updated or deleted.
+ */
+@Component
+@RequiredArgsConstructor
+public class QuestEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class QuestChangedEvent {
+        private final Long questId;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChanged(Quest quest) {
+        eventPublisher.publishEvent(new QuestChangedEvent(quest.getId()));
+    }
+}
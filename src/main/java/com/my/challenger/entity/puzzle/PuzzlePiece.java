@@ -71,6 +71,13 @@ public class PuzzlePiece {
     @Column(name = "height_px", nullable = false)
     private int heightPx;
 
+    // Top-left corner of the piece in the shared sprite atlas; null when the piece has its own image
+    @Column(name = "atlas_x")
+    private Integer atlasX;
+
+    @Column(name = "atlas_y")
+    private Integer atlasY;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -1,12 +1,48 @@
 package com.my.challenger.repository;
 
 import com.my.challenger.entity.quiz.BrainRingRoundState;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.Optional;
 
 @Repository
 public interface BrainRingRoundStateRepository extends JpaRepository<BrainRingRoundState, Long> {
     Optional<BrainRingRoundState> findByQuizRoundId(Long quizRoundId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM BrainRingRoundState s WHERE s.quizRound.id = :quizRoundId")
+    Optional<BrainRingRoundState> findByQuizRoundIdForUpdate(@Param("quizRoundId") Long quizRoundId);
+
+    /**
+     * Claims the buzzer for a round that is still waiting for its first buzz. The guard in
+     * the WHERE clause makes the claim atomic across nodes: of concurrent claims only one
+     * row update succeeds, the others see the new status and update nothing.
+     *
+     * @return 1 if the user now holds the buzzer, 0 otherwise
+     */
+    @Modifying
+    @Query(value = "UPDATE brain_ring_round_state SET " +
+            "round_status = 'PLAYER_ANSWERING', " +
+            "current_buzzer_user_id = :userId, " +
+            "buzzer_timestamp = :buzzerTimestamp, " +
+            "answer_deadline = :answerDeadline, " +
+            "buzz_order = COALESCE(buzz_order, CAST('[]' AS jsonb)) || jsonb_build_array(jsonb_build_object(" +
+            "'userId', CAST(:userId AS bigint), 'timestamp', CAST(:timestampText AS text))), " +
+            "updated_at = CURRENT_TIMESTAMP " +
+            "WHERE quiz_round_id = :quizRoundId " +
+            "AND round_status = 'WAITING_FOR_BUZZ' " +
+            "AND NOT COALESCE(locked_out_players, CAST('[]' AS jsonb)) @> to_jsonb(CAST(:userId AS bigint))",
+            nativeQuery = true)
+    int claimBuzzer(@Param("quizRoundId") Long quizRoundId,
+                    @Param("userId") Long userId,
+                    @Param("buzzerTimestamp") Instant buzzerTimestamp,
+                    @Param("timestampText") String timestampText,
+                    @Param("answerDeadline") Instant answerDeadline);
 }
@@ -1,5 +1,6 @@
 package com.my.challenger.repository;
 
+import com.my.challenger.dto.challenge.ChallengeSearchRow;
 import com.my.challenger.entity.challenge.Challenge;
 import com.my.challenger.entity.enums.ChallengeDifficulty;
 import com.my.challenger.entity.enums.ChallengeStatus;
@@ -108,6 +109,60 @@ public interface ChallengeRepository extends JpaRepository<Challenge, Long>,
             "LOWER(c.description) LIKE LOWER(CONCAT('%', :query, '%'))")
     List<Challenge> searchByKeyword(@Param("query") String query);
 
+    /**
+     * Access-aware challenge search with keyset pagination, newest start date first.
+     * <p>
+     * Only challenges the user may see are returned: public ones, their own, and private ones
+     * with an active {@code challenge_access} grant; the {@code private} visibility lists only
+     * the granted ones. Absent string filters are passed as empty strings. Callers page either
+     * by seek (with {@code offset} 0) or by offset from {@code ('infinity', Long.MAX_VALUE)}.
+     */
+    @Query(value = "SELECT c.id AS \"id\", c.title AS \"title\", c.description AS \"description\", " +
+            "CAST(c.type AS TEXT) AS \"type\", CAST(c.status AS TEXT) AS \"status\", " +
+            "c.is_public AS \"isPublic\", c.creator_id AS \"creatorId\", u.username AS \"creatorUsername\", " +
+            "CAST(c.payment_type AS TEXT) AS \"paymentType\", c.has_entry_fee AS \"hasEntryFee\", " +
+            "c.entry_fee_amount AS \"entryFeeAmount\", CAST(c.entry_fee_currency AS TEXT) AS \"entryFeeCurrency\", " +
+            "c.has_prize AS \"hasPrize\", c.prize_amount AS \"prizeAmount\", " +
+            "CAST(c.prize_currency AS TEXT) AS \"prizeCurrency\", c.prize_pool AS \"prizePool\", " +
+            "CAST(EXTRACT(EPOCH FROM c.start_date) * 1000 AS BIGINT) AS \"startEpochMillis\", " +
+            "CAST(EXTRACT(EPOCH FROM c.end_date) * 1000 AS BIGINT) AS \"endEpochMillis\", " +
+            "c.requires_approval AS \"requiresApproval\", CAST(c.start_date AS TEXT) AS \"seekStart\" " +
+            "FROM challenges c JOIN users u ON u.id = c.creator_id " +
+            "WHERE (:keyword = '' OR c.search_vector @@ " +
+            "       (websearch_to_tsquery('russian', :keyword) || websearch_to_tsquery('english', :keyword))) " +
+            "AND (:type = '' OR CAST(c.type AS TEXT) = :type) " +
+            "AND (:status = '' OR CAST(c.status AS TEXT) = :status) " +
+            "AND (:paymentType = '' OR CAST(c.payment_type AS TEXT) = :paymentType) " +
+            "AND (:freeOnly = FALSE OR CAST(c.payment_type AS TEXT) = 'FREE') " +
+            "AND (:paidOnly = FALSE OR c.has_entry_fee = TRUE) " +
+            "AND (:visibility = '' OR (:visibility = 'public' AND c.is_public = TRUE) " +
+            "     OR (:visibility = 'private' AND c.is_public = FALSE AND EXISTS (" +
+            "         SELECT 1 FROM challenge_access pa " +
+            "         WHERE pa.challenge_id = c.id AND pa.user_id = :userId AND pa.status = 'ACTIVE'))) " +
+            "AND (c.is_public = TRUE OR c.creator_id = :userId OR EXISTS (" +
+            "     SELECT 1 FROM challenge_access ca " +
+            "     WHERE ca.challenge_id = c.id AND ca.user_id = :userId AND ca.status = 'ACTIVE')) " +
+            "AND (:excludeJoined = FALSE OR NOT EXISTS (" +
+            "     SELECT 1 FROM challenge_progress cp WHERE cp.challenge_id = c.id AND cp.user_id = :userId)) " +
+            "AND (COALESCE(c.start_date, CAST('-infinity' AS TIMESTAMPTZ)), c.id) " +
+            "    < (CAST(:seekStart AS TIMESTAMPTZ), :seekId) " +
+            "ORDER BY COALESCE(c.start_date, CAST('-infinity' AS TIMESTAMPTZ)) DESC, c.id DESC " +
+            "OFFSET :offset LIMIT :limit",
+            nativeQuery = true)
+    List<ChallengeSearchRow> searchAccessible(@Param("userId") Long userId,
+                                              @Param("keyword") String keyword,
+                                              @Param("type") String type,
+                                              @Param("status") String status,
+                                              @Param("paymentType") String paymentType,
+                                              @Param("freeOnly") boolean freeOnly,
+                                              @Param("paidOnly") boolean paidOnly,
+                                              @Param("visibility") String visibility,
+                                              @Param("excludeJoined") boolean excludeJoined,
+                                              @Param("seekStart") String seekStart,
+                                              @Param("seekId") Long seekId,
+                                              @Param("offset") int offset,
+                                              @Param("limit") int limit);
+
     /**
      * Count challenges for a specific user (created by them)
      */
@@ -320,6 +375,32 @@ public interface ChallengeRepository extends JpaRepository<Challenge, Long>,
             "AND c.status = com.my.challenger.entity.enums.ChallengeStatus.COMPLETED")
     Optional<ChallengeDifficulty> getUserHighestCompletedDifficulty(@Param("userId") Long userId);
 
+    /**
+     * Recommendation candidates: active public challenges with a difficulty, newest start
+     * date first. Rows are {@code [id, difficulty]}.
+     */
+    @Query("SELECT c.id, c.difficulty FROM Challenge c " +
+            "WHERE c.status = com.my.challenger.entity.enums.ChallengeStatus.ACTIVE " +
+            "AND c.isPublic = true " +
+            "AND c.difficulty IS NOT NULL " +
+            "ORDER BY c.startDate DESC, c.id DESC")
+    List<Object[]> findRecommendationCandidates();
+
+    /**
+     * Every challenge the user has progress on, as
+     * {@code [challengeId, difficulty, completed]}. A challenge counts as completed when the
+     * user's progress or the challenge itself is completed.
+     */
+    @Query("SELECT c.id, c.difficulty, " +
+            "CASE WHEN cp.status = com.my.challenger.entity.enums.ProgressStatus.COMPLETED " +
+            "  OR c.status = com.my.challenger.entity.enums.ChallengeStatus.COMPLETED THEN true ELSE false END " +
+            "FROM ChallengeProgress cp JOIN cp.challenge c " +
+            "WHERE cp.user.id = :userId")
+    List<Object[]> findUserProgressFeatures(@Param("userId") Long userId);
+
+    @Query("SELECT c.difficulty FROM Challenge c WHERE c.id = :challengeId")
+    Optional<ChallengeDifficulty> findDifficultyById(@Param("challengeId") Long challengeId);
+
     /**
      * Find challenges that need attention (low participation or completion)
      */
@@ -3,11 +3,16 @@ package com.my.challenger.repository;
 import com.my.challenger.entity.competitive.MatchmakingQueueEntry;
 import com.my.challenger.entity.enums.AudioChallengeType;
 import com.my.challenger.entity.enums.MatchmakingStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +27,18 @@ public interface MatchmakingQueueRepository extends JpaRepository<MatchmakingQue
 
     Optional<MatchmakingQueueEntry> findByUserId(Long userId);
 
+    List<MatchmakingQueueEntry> findByStatusOrderByQueuedAtAsc(MatchmakingStatus status);
+
+    List<MatchmakingQueueEntry> findByStatusAndQueuedAtGreaterThanEqualOrderByQueuedAtAsc(
+            MatchmakingStatus status, LocalDateTime queuedAt);
+
+    /**
+     * Locks the given entries (in id order, so concurrent pairings cannot deadlock)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM MatchmakingQueueEntry e WHERE e.id IN :ids ORDER BY e.id")
+    List<MatchmakingQueueEntry> findAllForUpdateByIdIn(@Param("ids") Collection<Long> ids);
+
     @Modifying
     int deleteByExpiresAtBefore(LocalDateTime expiryTime);
 }
@@ -55,4 +55,20 @@ public interface QuestRepository extends JpaRepository<Quest, Long> {
      */
     @Query("SELECT q FROM Quest q LEFT JOIN FETCH q.audioMedia WHERE q.id = :questId")
     Optional<Quest> findByIdWithAudioMedia(@Param("questId") Long questId);
+
+    /**
+     * Minimum score requirement of a challenge, as {@code [questId, minimumScorePercentage]}
+     * of its first linked quest that sets one (at most one row)
+     */
+    @Query(value = "SELECT q.id, q.minimum_score_percentage FROM challenge_quests cq " +
+            "JOIN quests q ON q.id = cq.quest_id " +
+            "WHERE cq.challenge_id = :challengeId AND q.minimum_score_percentage > 0 " +
+            "ORDER BY q.id LIMIT 1", nativeQuery = true)
+    List<Object[]> findMinimumScoreRequirement(@Param("challengeId") Long challengeId);
+
+    /**
+     * Counter bumped by every change to {@code challenge_quests} or to a quest's minimum score
+     */
+    @Query(value = "SELECT version FROM quest_requirement_version WHERE id = 1", nativeQuery = true)
+    Long findRequirementVersion();
 }
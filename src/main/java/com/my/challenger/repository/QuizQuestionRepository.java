@@ -182,19 +182,51 @@ public interface QuizQuestionRepository extends JpaRepository<QuizQuestion, Long
     // ========== SEARCH METHODS (FIXED) ==========
 
     /**
-     * Search questions by keyword across multiple fields
-     * This is the FIXED method that replaces the problematic searchByKeyword
-     */
-    @EntityGraph(attributePaths = {"creator", "topic"})
-    @Query("SELECT q FROM QuizQuestion q WHERE " +
-            "LOWER(q.question) LIKE %:keyword% OR " +
-            "LOWER(q.answer) LIKE %:keyword% OR " +
-            "LOWER(q.topic) LIKE %:keyword% OR " +
-            "LOWER(q.source) LIKE %:keyword% OR " +
-            "LOWER(q.additionalInfo) LIKE %:keyword% " +
-            "ORDER BY q.createdAt DESC")
+     * Ranked full-text search across question, answer, topic, source and additional info.
+     * Uses the search_vector column maintained by trigger (V55) with Russian and English
+     * stemming; the keyword accepts web-search syntax ("quoted phrases", -exclusions, or).
+     */
+    @Query(value = "SELECT q.* FROM quiz_questions q, " +
+            "(SELECT websearch_to_tsquery('russian', :keyword) || websearch_to_tsquery('english', :keyword) AS query) s " +
+            "WHERE q.search_vector @@ s.query " +
+            "ORDER BY ts_rank_cd(q.search_vector, s.query) DESC, q.created_at DESC",
+            nativeQuery = true)
     List<QuizQuestion> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
 
+    /**
+     * Typo-tolerant fallback for {@link #searchByKeyword}: trigram word similarity against
+     * the question text, served by the lower(question) trigram index (V55)
+     */
+    @Query(value = "SELECT q.* FROM quiz_questions q " +
+            "WHERE LOWER(:keyword) <% LOWER(q.question) " +
+            "ORDER BY word_similarity(LOWER(:keyword), LOWER(q.question)) DESC, q.created_at DESC",
+            nativeQuery = true)
+    List<QuizQuestion> searchByKeywordFuzzy(@Param("keyword") String keyword, Pageable pageable);
+
+    /**
+     * Ranked full-text search with filters. Absent filters are passed as empty strings.
+     */
+    @Query(value = "SELECT q.* FROM quiz_questions q " +
+            "LEFT JOIN topics t ON t.id = q.topic_id, " +
+            "(SELECT websearch_to_tsquery('russian', :keyword) || websearch_to_tsquery('english', :keyword) AS query) s " +
+            "WHERE q.search_vector @@ s.query " +
+            "AND (:difficulty = '' OR CAST(q.difficulty AS TEXT) = :difficulty) " +
+            "AND (:topic = '' OR LOWER(t.name) = :topic) " +
+            "AND (:isUserCreated = '' OR CAST(q.is_user_created AS TEXT) = :isUserCreated) " +
+            "ORDER BY ts_rank_cd(q.search_vector, s.query) DESC, q.created_at DESC",
+            countQuery = "SELECT COUNT(*) FROM quiz_questions q " +
+                    "LEFT JOIN topics t ON t.id = q.topic_id " +
+                    "WHERE q.search_vector @@ (websearch_to_tsquery('russian', :keyword) || websearch_to_tsquery('english', :keyword)) " +
+                    "AND (:difficulty = '' OR CAST(q.difficulty AS TEXT) = :difficulty) " +
+                    "AND (:topic = '' OR LOWER(t.name) = :topic) " +
+                    "AND (:isUserCreated = '' OR CAST(q.is_user_created AS TEXT) = :isUserCreated)",
+            nativeQuery = true)
+    Page<QuizQuestion> searchRankedWithFilters(@Param("keyword") String keyword,
+                                               @Param("difficulty") String difficulty,
+                                               @Param("topic") String topic,
+                                               @Param("isUserCreated") String isUserCreated,
+                                               Pageable pageable);
+
     /**
      * BEST SOLUTION #2: Advanced search with clean syntax
      */
@@ -242,6 +274,17 @@ public interface QuizQuestionRepository extends JpaRepository<QuizQuestion, Long
     @Query("SELECT q.topic, COUNT(q) FROM QuizQuestion q WHERE q.topic IS NOT NULL GROUP BY q.topic ORDER BY COUNT(q) DESC")
     List<Object[]> getQuestionCountByTopic();
 
+    /**
+     * Trigger-maintained question counters as {@code [dimension, bucket, count]} rows; topic
+     * buckets are resolved to topic names
+     */
+    @Query(value = "SELECT c.dimension, COALESCE(t.name, c.bucket), c.question_count " +
+            "FROM quiz_question_counters c " +
+            "LEFT JOIN topics t ON c.dimension = 'topic' AND CAST(t.id AS VARCHAR) = c.bucket " +
+            "WHERE c.question_count > 0",
+            nativeQuery = true)
+    List<Object[]> findQuestionCounters();
+
     /**
      * Get most used questions
      */
@@ -258,25 +301,12 @@ public interface QuizQuestionRepository extends JpaRepository<QuizQuestion, Long
     // ========== RANDOM SELECTION METHODS ==========
 
     /**
-     * Get random questions by difficulty
-     */
-    @Query(value = "SELECT * FROM quiz_questions q WHERE q.difficulty = :difficulty ORDER BY RANDOM() LIMIT :limit",
-            nativeQuery = true)
-    List<QuizQuestion> findRandomByDifficulty(@Param("difficulty") String difficulty, @Param("limit") int limit);
-
-    /**
-     * Get random questions from multiple difficulties
-     */
-    @Query(value = "SELECT * FROM quiz_questions q WHERE q.difficulty IN :difficulties ORDER BY RANDOM() LIMIT :limit",
-            nativeQuery = true)
-    List<QuizQuestion> findRandomByDifficulties(@Param("difficulties") List<String> difficulties, @Param("limit") int limit);
-
-    /**
-     * Get random questions by topic
+     * Id, difficulty and topic name of active questions with id above {@code afterId}, used to
+     * build the in-memory sampling pools (see RandomQuestionSampler)
      */
-    @Query(value = "SELECT * FROM quiz_questions q WHERE q.topic.name = :topic ORDER BY RANDOM() LIMIT :limit",
-            nativeQuery = true)
-    List<QuizQuestion> findRandomByTopic(@Param("topic") String topic, @Param("limit") int limit);
+    @Query("SELECT q.id, q.difficulty, t.name FROM QuizQuestion q LEFT JOIN q.topic t " +
+            "WHERE q.isActive = true AND q.id > :afterId ORDER BY q.id")
+    List<Object[]> findActiveSamplingRowsAfter(@Param("afterId") Long afterId);
 
     // ========== UTILITY METHODS ==========
 
@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +27,19 @@ public interface QuizRoundRepository extends JpaRepository<QuizRound, Long> {
      */
     Optional<QuizRound> findByQuizSessionIdAndRoundNumber(Long quizSessionId, Integer roundNumber);
 
+    /**
+     * Id of the session a round belongs to
+     */
+    @Query("SELECT qr.quizSession.id FROM QuizRound qr WHERE qr.id = :roundId")
+    Optional<Long> findSessionIdById(@Param("roundId") Long roundId);
+
+    /**
+     * Id of a session's round by its number, read without loading the round or its session
+     */
+    @Query("SELECT qr.id FROM QuizRound qr WHERE qr.quizSession.id = :sessionId AND qr.roundNumber = :roundNumber")
+    Optional<Long> findIdByQuizSessionIdAndRoundNumber(@Param("sessionId") Long sessionId,
+                                                       @Param("roundNumber") Integer roundNumber);
+
     /**
      * Count completed rounds for a session
      */
@@ -36,6 +50,18 @@ public interface QuizRoundRepository extends JpaRepository<QuizRound, Long> {
      */
     long countByQuizSessionIdAndIsCorrectTrue(Long quizSessionId);
 
+    /**
+     * Count submitted rounds of a session whose AI validation has not finished yet
+     */
+    long countByQuizSessionIdAndAiValidationUsedTrueAndAiAcceptedIsNull(Long quizSessionId);
+
+    /**
+     * Rounds still waiting for AI validation that were submitted before the cutoff
+     */
+    @Query("SELECT qr.id FROM QuizRound qr WHERE qr.aiValidationUsed = true AND qr.aiAccepted IS NULL " +
+            "AND qr.answerSubmittedAt < :cutoff")
+    List<Long> findPendingAiValidationIds(@Param("cutoff") LocalDateTime cutoff);
+
     /**
      * Find rounds where a specific player answered
      */
@@ -48,6 +74,12 @@ public interface QuizRoundRepository extends JpaRepository<QuizRound, Long> {
             "FROM QuizRound qr WHERE qr.question.id = :questionId")
     Object[] getQuestionStatistics(@Param("questionId") Long questionId);
 
+    /**
+     * Ids of every question already played in sessions hosted by the user
+     */
+    @Query("SELECT DISTINCT qr.question.id FROM QuizRound qr WHERE qr.quizSession.hostUser.id = :userId")
+    List<Long> findPlayedQuestionIdsByHostUser(@Param("userId") Long userId);
+
     /**
      * Find rounds that used hints
      */
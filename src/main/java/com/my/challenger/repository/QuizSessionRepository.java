@@ -6,7 +6,9 @@ import com.my.challenger.entity.enums.QuizSessionStatus;
 import com.my.challenger.entity.quiz.QuizSession;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -19,6 +21,14 @@ import java.util.Optional;
 @Repository
 public interface QuizSessionRepository extends JpaRepository<QuizSession, Long> {
 
+    /**
+     * Lock a session for the rest of the transaction, so answer submissions and their deferred
+     * evaluation update its counters one at a time
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM QuizSession s WHERE s.id = :id")
+    Optional<QuizSession> findByIdForUpdate(@Param("id") Long id);
+
     /**
      * Count all sessions by creator
      */
@@ -2,6 +2,8 @@ package com.my.challenger.repository;
 
 import com.my.challenger.entity.ScreenTimeBudget;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -18,6 +20,10 @@ public interface ScreenTimeBudgetRepository extends JpaRepository<ScreenTimeBudg
 
     Optional<ScreenTimeBudget> findByUserId(Long userId);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ScreenTimeBudget s WHERE s.user.id = :userId")
+    Optional<ScreenTimeBudget> findByUserIdForUpdate(@Param("userId") Long userId);
+
     List<ScreenTimeBudget> findByLastResetDateBefore(LocalDate date);
 
     @Modifying
@@ -45,6 +51,41 @@ public interface ScreenTimeBudgetRepository extends JpaRepository<ScreenTimeBudg
         @Param("today") LocalDate today
     );
 
+    /**
+     * Next chunk of ids needing reset in a timezone, in id order after {@code afterId}.
+     * Only the first page of the pageable is meaningful; chunks are keyset-paginated.
+     */
+    @Query("SELECT s.id FROM ScreenTimeBudget s WHERE s.timezone = :timezone AND s.lastResetDate < :today " +
+           "AND s.screenTimeEnabled = TRUE AND s.id > :afterId ORDER BY s.id")
+    List<Long> findIdsNeedingReset(
+        @Param("timezone") String timezone,
+        @Param("today") LocalDate today,
+        @Param("afterId") Long afterId,
+        Pageable pageable
+    );
+
+    /**
+     * Set-based reset of every budget in a timezone whose id lies in {@code (fromId, toId]}.
+     * Bumps the version so concurrently loaded entities fail their optimistic lock instead of
+     * overwriting the reset.
+     */
+    @Modifying
+    @Query("UPDATE ScreenTimeBudget s SET " +
+           "s.availableMinutes = s.dailyBudgetMinutes, " +
+           "s.lostTodayMinutes = 0, " +
+           "s.wonTodayMinutes = 0, " +
+           "s.lastResetDate = :today, " +
+           "s.updatedAt = CURRENT_TIMESTAMP, " +
+           "s.version = s.version + 1 " +
+           "WHERE s.timezone = :timezone AND s.lastResetDate < :today AND s.screenTimeEnabled = TRUE " +
+           "AND s.id > :fromId AND s.id <= :toId")
+    int resetRange(
+        @Param("timezone") String timezone,
+        @Param("today") LocalDate today,
+        @Param("fromId") Long fromId,
+        @Param("toId") Long toId
+    );
+
     /**
      * Get distinct timezones with users needing reset
      */
@@ -12,6 +12,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -102,6 +103,15 @@ public interface UserRelationshipRepository extends JpaRepository<UserRelationsh
            ")")
     List<User> findSuggestedConnections(@Param("userId") Long userId);
 
+    /**
+     * All relationships touching any of the given users, as
+     * {@code [userId, relatedUserId, status, relationshipType]}
+     */
+    @Query("SELECT ur.user.id, ur.relatedUser.id, ur.status, ur.relationshipType " +
+           "FROM UserRelationship ur WHERE " +
+           "ur.user.id IN :userIds OR ur.relatedUser.id IN :userIds")
+    List<Object[]> findEdgesForUsers(@Param("userIds") Collection<Long> userIds);
+
     /**
      * Find accepted friends and family for a user
      */
@@ -2,6 +2,9 @@ package com.my.challenger.repository.puzzle;
 
 import com.my.challenger.entity.puzzle.PuzzleParticipant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,4 +18,16 @@ public interface PuzzleParticipantRepository extends JpaRepository<PuzzlePartici
     List<PuzzleParticipant> findByPuzzleGameIdOrderByScoreDesc(Long puzzleGameId);
 
     long countByPuzzleGameId(Long puzzleGameId);
+
+    /**
+     * Checkpoint of the in-memory board, written without loading the participant
+     */
+    @Modifying
+    @Query("UPDATE PuzzleParticipant p SET p.currentBoardState = :boardState, " +
+           "p.piecesPlacedCorrectly = :piecesPlacedCorrectly, p.totalMoves = :totalMoves " +
+           "WHERE p.id = :id")
+    int updateBoardProgress(@Param("id") Long id,
+                            @Param("boardState") String boardState,
+                            @Param("piecesPlacedCorrectly") int piecesPlacedCorrectly,
+                            @Param("totalMoves") int totalMoves);
 }
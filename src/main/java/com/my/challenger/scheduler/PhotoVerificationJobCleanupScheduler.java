@@ -0,0 +1,28 @@
+package com.my.challenger.scheduler;
+
+import com.my.challenger.service.impl.photo.PhotoVerificationJobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PhotoVerificationJobCleanupScheduler {
+
+    private final PhotoVerificationJobService jobService;
+
+    /**
+     * Remove saved photo verification job states past their retention
+     */
+    @Scheduled(fixedDelayString = "${app.photo-verification.cleanup-interval-ms:600000}")
+    @SchedulerLock(name = "PhotoVerificationJobCleanupScheduler_purgeExpired", lockAtLeastFor = "PT1M", lockAtMostFor = "PT10M")
+    public void purgeExpired() {
+        int purged = jobService.purgeExpired();
+        if (purged > 0) {
+            log.info("Purged {} expired photo verification jobs", purged);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.my.challenger.scheduler;
+
+import com.my.challenger.service.impl.QuizService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class QuizAiValidationSweepScheduler {
+
+    private final QuizService quizService;
+
+    /**
+     * Settle quiz rounds whose deferred AI validation did not finish, so their sessions complete
+     */
+    @Scheduled(fixedDelayString = "${app.quiz-answers.pending-sweep-interval-ms:60000}")
+    @SchedulerLock(name = "QuizAiValidationSweepScheduler_settleStale", lockAtLeastFor = "PT30S", lockAtMostFor = "PT5M")
+    public void settleStaleAiValidations() {
+        int settled = quizService.settleStaleAiValidations();
+        if (settled > 0) {
+            log.info("Settled {} quiz rounds with stale AI validation", settled);
+        }
+    }
+}
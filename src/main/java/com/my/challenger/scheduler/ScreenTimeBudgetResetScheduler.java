@@ -43,16 +43,7 @@ public class ScreenTimeBudgetResetScheduler {
             
             log.info("Found {} timezones at midnight: {}", timezones.size(), timezones);
             
-            int totalReset = 0;
-            for (String timezone : timezones) {
-                try {
-                    LocalDate today = LocalDate.now(ZoneId.of(timezone));
-                    int reset = resetService.resetBudgetsForTimezone(timezone, today);
-                    totalReset += reset;
-                } catch (Exception e) {
-                    log.error("Failed to reset timezone {}: {}", timezone, e.getMessage());
-                }
-            }
+            int totalReset = resetService.resetTimezones(timezones);
             
             log.info("Hourly reset complete: {} users reset across {} timezones", 
                     totalReset, timezones.size());
@@ -1,6 +1,7 @@
 package com.my.challenger.service;
 
 import com.my.challenger.dto.quiz.AiValidationResult;
+import reactor.core.publisher.Mono;
 
 /**
  * Service for AI-powered answer validation
@@ -8,15 +9,16 @@ import com.my.challenger.dto.quiz.AiValidationResult;
 public interface AiAnswerValidationService {
     /**
      * Validate if a user's answer is semantically equivalent to the correct answer
-     * using DeepSeek AI. Returns a result with confidence and explanation.
-     * Falls back to local validation if AI is unavailable.
+     * using DeepSeek AI, without blocking the caller. Identical pairs are answered from
+     * a verdict cache, and concurrent identical pairs share one model call.
      *
      * @param userAnswer    The user's answer
      * @param correctAnswer The correct answer
      * @param language      The language context (e.g., "en", "ru")
-     * @return Validation result
+     * @return Validation result with confidence and explanation; never fails, falling back
+     * to local validation if AI is unavailable
      */
-    AiValidationResult validateAnswerWithAi(String userAnswer, String correctAnswer, String language);
+    Mono<AiValidationResult> validateAnswerWithAiAsync(String userAnswer, String correctAnswer, String language);
 
     /**
      * Check if the AI validation service is available and configured
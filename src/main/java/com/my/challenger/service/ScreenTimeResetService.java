@@ -2,6 +2,8 @@ package com.my.challenger.service;
 
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
 
 public interface ScreenTimeResetService {
     
@@ -10,6 +12,12 @@ public interface ScreenTimeResetService {
      * @return number of users reset
      */
     int resetBudgetsForTimezone(String timezone, LocalDate resetDate);
+
+    /**
+     * Reset several timezones concurrently, each at its own local date
+     * @return total users reset across the timezones
+     */
+    int resetTimezones(Collection<String> timezones);
     
     /**
      * Reset all budgets that are overdue (catch-up reset)
@@ -25,5 +33,5 @@ public interface ScreenTimeResetService {
     /**
      * Get all timezones that are currently at midnight (within the hour)
      */
-    java.util.List<String> getTimezonesAtMidnight();
+    List<String> getTimezonesAtMidnight();
 }
@@ -2,6 +2,7 @@
 package com.my.challenger.service;
 
 import com.my.challenger.entity.quiz.QuizRound;
+import reactor.core.publisher.Mono;
 
 /**
  * Service interface for WWW Game logic operations
@@ -41,15 +42,25 @@ public interface WWWGameService {
     double calculateAnswerSimilarity(String answer1, String answer2);
 
     /**
-     * Validate answer with optional AI-powered semantic matching
+     * Validate answer with optional AI-powered semantic matching, without blocking the caller
+     * while the AI is consulted
      * @param teamAnswer The answer provided by the team
      * @param correctAnswer The correct answer
      * @param enableAiValidation Whether to use AI for semantic matching
      * @param language Language context for better matching (en/ru)
      * @return ValidationResult with isCorrect, aiUsed, explanation
      */
-    com.my.challenger.dto.quiz.AnswerValidationResult validateAnswerEnhanced(String teamAnswer, String correctAnswer, 
+    Mono<com.my.challenger.dto.quiz.AnswerValidationResult> validateAnswerEnhancedAsync(String teamAnswer, String correctAnswer,
                                                 boolean enableAiValidation, String language);
+
+    /**
+     * Whether an answer that failed local validation would be sent to the AI by
+     * {@link #validateAnswerEnhancedAsync}
+     * @param teamAnswer The answer provided by the team
+     * @param enableAiValidation Whether AI validation is enabled for the session
+     * @return true if AI validation is enabled, available and accepts the answer
+     */
+    boolean isAiValidationApplicable(String teamAnswer, boolean enableAiValidation);
 }
 
 
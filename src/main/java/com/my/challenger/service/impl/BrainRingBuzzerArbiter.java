@@ -0,0 +1,243 @@
+package com.my.challenger.service.impl;
+
+import com.my.challenger.entity.enums.BrainRingRoundStatus;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * In-process buzzer arbitration for Brain Ring rounds.
+ * <p>
+ * Each live round holds its buzzer claim in an {@link AtomicReference}: the first player
+ * whose compare-and-set succeeds owns the round, everyone else racing in the same window
+ * is recorded as late. Accepted buzzes are appended to a lock-free log and the round is
+ * marked dirty so that {@link BrainRingServiceImpl} can persist it write-behind.
+ * <p>
+ * State is per JVM, so the arbiter is only authoritative when a single node serves the
+ * rounds; in the {@code postgres} game room mode rounds are arbitrated on the database row
+ * instead and the arbiter stays empty.
+ */
+@Component
+public class BrainRingBuzzerArbiter {
+
+    private final ConcurrentHashMap<Long, RoundBuzzer> rounds = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyRounds = ConcurrentHashMap.newKeySet();
+
+    public enum BuzzOutcome {
+        FIRST_BUZZER,
+        LATE,
+        ROUND_NOT_OPEN,
+        LOCKED_OUT
+    }
+
+    public record BuzzEntry(Long userId, Instant timestamp) {}
+
+    public record BuzzerClaim(Long userId, Instant buzzerTimestamp, Instant answerDeadline) {}
+
+    public record BuzzResult(BuzzOutcome outcome, BuzzerClaim claim) {}
+
+    public record RoundSnapshot(
+            BrainRingRoundStatus status,
+            BuzzerClaim claim,
+            Long winnerUserId,
+            List<Long> lockedOutPlayers,
+            List<BuzzEntry> buzzOrder) {}
+
+    /**
+     * Registers a fresh round that is waiting for its first buzz.
+     */
+    public RoundBuzzer register(Long roundId, int answerTimeSeconds) {
+        RoundBuzzer buzzer = new RoundBuzzer(roundId, answerTimeSeconds);
+        rounds.put(roundId, buzzer);
+        return buzzer;
+    }
+
+    /**
+     * Installs a buzzer rebuilt with {@link #restore} unless another thread got there first.
+     * Loading happens before this call so no I/O runs under the map's bin lock.
+     *
+     * @return the buzzer that is live for the round after the call
+     */
+    public RoundBuzzer installIfAbsent(RoundBuzzer buzzer) {
+        RoundBuzzer existing = rounds.putIfAbsent(buzzer.roundId, buzzer);
+        return existing != null ? existing : buzzer;
+    }
+
+    /**
+     * Applies {@code action} to the live buzzer of a round while holding its map entry, so
+     * {@link #evictInactive} cannot drop the round while the mutation is in flight.
+     *
+     * @return the action's result, or empty if the round is not live
+     */
+    public <T> Optional<T> withRound(Long roundId, Function<RoundBuzzer, T> action) {
+        List<T> result = new ArrayList<>(1);
+        rounds.computeIfPresent(roundId, (id, buzzer) -> {
+            result.add(action.apply(buzzer));
+            return buzzer;
+        });
+        return result.stream().findFirst();
+    }
+
+    public Optional<RoundBuzzer> find(Long roundId) {
+        return Optional.ofNullable(rounds.get(roundId));
+    }
+
+    /**
+     * Rebuilds a round from its persisted state without marking it dirty.
+     */
+    public RoundBuzzer restore(Long roundId, int answerTimeSeconds, RoundSnapshot snapshot) {
+        RoundBuzzer buzzer = new RoundBuzzer(roundId, answerTimeSeconds);
+        buzzer.claim.set(snapshot.claim());
+        buzzer.lockedOut.addAll(snapshot.lockedOutPlayers());
+        buzzer.buzzLog.addAll(snapshot.buzzOrder());
+        buzzer.winnerUserId = snapshot.winnerUserId();
+        buzzer.closed = snapshot.status() == BrainRingRoundStatus.CORRECT_ANSWER
+                || snapshot.status() == BrainRingRoundStatus.ALL_LOCKED_OUT;
+        return buzzer;
+    }
+
+    public void markDirty(Long roundId) {
+        dirtyRounds.add(roundId);
+    }
+
+    private void markDirty(RoundBuzzer buzzer) {
+        // Detached buzzers (restored but never installed) have nothing to write behind
+        if (rounds.get(buzzer.roundId) == buzzer) {
+            dirtyRounds.add(buzzer.roundId);
+        }
+    }
+
+    /**
+     * Removes and returns the rounds changed since the previous drain.
+     */
+    public Collection<Long> drainDirtyRounds() {
+        List<Long> drained = new ArrayList<>();
+        for (Long roundId : dirtyRounds) {
+            if (dirtyRounds.remove(roundId)) {
+                drained.add(roundId);
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Drops rounds that are closed or have been idle since {@code cutoff}, unless they
+     * still have unpersisted changes.
+     */
+    public int evictInactive(Instant cutoff) {
+        AtomicInteger evicted = new AtomicInteger();
+        for (Long roundId : rounds.keySet()) {
+            // Re-checked under the entry's lock, which withRound holds during mutations
+            rounds.computeIfPresent(roundId, (id, buzzer) -> {
+                if (!dirtyRounds.contains(id) && (buzzer.isClosed() || buzzer.getLastActivity().isBefore(cutoff))) {
+                    evicted.incrementAndGet();
+                    return null;
+                }
+                return buzzer;
+            });
+        }
+        return evicted.get();
+    }
+
+    public int size() {
+        return rounds.size();
+    }
+
+    public final class RoundBuzzer {
+        private final Long roundId;
+        private final int answerTimeSeconds;
+        private final AtomicReference<BuzzerClaim> claim = new AtomicReference<>();
+        private final Set<Long> lockedOut = ConcurrentHashMap.newKeySet();
+        private final ConcurrentLinkedQueue<BuzzEntry> buzzLog = new ConcurrentLinkedQueue<>();
+        private volatile Long winnerUserId;
+        private volatile boolean closed;
+        private volatile Instant lastActivity = Instant.now();
+
+        private RoundBuzzer(Long roundId, int answerTimeSeconds) {
+            this.roundId = roundId;
+            this.answerTimeSeconds = answerTimeSeconds;
+        }
+
+        public BuzzResult buzz(Long userId, Instant timestamp) {
+            lastActivity = Instant.now();
+            if (closed || claim.get() != null) {
+                return new BuzzResult(BuzzOutcome.ROUND_NOT_OPEN, null);
+            }
+            if (lockedOut.contains(userId)) {
+                return new BuzzResult(BuzzOutcome.LOCKED_OUT, null);
+            }
+
+            buzzLog.add(new BuzzEntry(userId, timestamp));
+            BuzzerClaim candidate = new BuzzerClaim(userId, timestamp, lastActivity.plusSeconds(answerTimeSeconds));
+            BuzzResult result = claim.compareAndSet(null, candidate)
+                    ? new BuzzResult(BuzzOutcome.FIRST_BUZZER, candidate)
+                    : new BuzzResult(BuzzOutcome.LATE, claim.get());
+            markDirty(this);
+            return result;
+        }
+
+        /**
+         * Locks the player out for the rest of the round and, if they held the buzzer,
+         * reopens the round for the remaining players.
+         */
+        public void lockOut(Long userId) {
+            lastActivity = Instant.now();
+            lockedOut.add(userId);
+            claim.getAndUpdate(current -> current != null && current.userId().equals(userId) ? null : current);
+            markDirty(this);
+        }
+
+        public void complete(Long winnerUserId) {
+            lastActivity = Instant.now();
+            this.winnerUserId = winnerUserId;
+            this.closed = true;
+            markDirty(this);
+        }
+
+        public Long getRoundId() {
+            return roundId;
+        }
+
+        public BuzzerClaim currentClaim() {
+            return claim.get();
+        }
+
+        public boolean isLockedOut(Long userId) {
+            return lockedOut.contains(userId);
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        public Instant getLastActivity() {
+            return lastActivity;
+        }
+
+        public BrainRingRoundStatus status() {
+            if (closed) {
+                return winnerUserId != null ? BrainRingRoundStatus.CORRECT_ANSWER : BrainRingRoundStatus.ALL_LOCKED_OUT;
+            }
+            return claim.get() != null ? BrainRingRoundStatus.PLAYER_ANSWERING : BrainRingRoundStatus.WAITING_FOR_BUZZ;
+        }
+
+        public RoundSnapshot snapshot() {
+            return new RoundSnapshot(
+                    status(),
+                    claim.get(),
+                    winnerUserId,
+                    new ArrayList<>(lockedOut),
+                    new ArrayList<>(buzzLog));
+        }
+    }
+}
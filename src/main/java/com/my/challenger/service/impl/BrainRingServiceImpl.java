@@ -20,135 +20,159 @@ import com.my.challenger.repository.QuizSessionRepository;
 import com.my.challenger.repository.UserRepository;
 import com.my.challenger.service.BrainRingService;
 import com.my.challenger.service.WWWGameService;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class BrainRingServiceImpl implements BrainRingService {
 
+    private static final Duration IDLE_ROUND_TTL = Duration.ofHours(2);
+
     private final BrainRingRoundStateRepository brainRingRoundStateRepository;
     private final QuizRoundRepository quizRoundRepository;
     private final QuizSessionRepository quizSessionRepository;
     private final UserRepository userRepository;
     private final WWWGameService gameService;
     private final ObjectMapper objectMapper;
+    private final BrainRingBuzzerArbiter buzzerArbiter;
+    private final TransactionTemplate transactionTemplate;
+
+    // With rooms spread over several nodes the in-process arbiter is not authoritative, so
+    // rounds are arbitrated with conditional updates on their state row instead
+    @Value("${app.game-rooms.mode:local}")
+    private String gameRoomsMode;
 
     @Override
-    @Transactional(isolation = Isolation.SERIALIZABLE)
     public BuzzResponse processBuzz(Long sessionId, Long roundId, Long userId, Instant clientTimestamp) {
-        log.info("Processing buzz for session {}, round {}, user {}", sessionId, roundId, userId);
+        log.debug("Processing buzz for session {}, round {}, user {}", sessionId, roundId, userId);
 
-        BrainRingRoundState state = brainRingRoundStateRepository.findByQuizRoundId(roundId)
-                .orElseThrow(() -> new ResourceNotFoundException("Brain Ring state not found for round " + roundId));
+        Instant timestamp = clientTimestamp != null ? clientTimestamp : Instant.now();
+        BrainRingBuzzerArbiter.BuzzResult result = isClustered()
+                ? claimOnDatabase(roundId, userId, timestamp)
+                : buzzLocally(roundId, userId, timestamp);
 
-        if (state.getRoundStatus() != BrainRingRoundStatus.WAITING_FOR_BUZZ) {
-            return BuzzResponse.builder()
-                    .success(false)
+        return switch (result.outcome()) {
+            case FIRST_BUZZER -> BuzzResponse.builder()
+                    .success(true)
+                    .isFirstBuzzer(true)
+                    .answerDeadline(result.claim().answerDeadline())
+                    .message("You are the buzzer!")
+                    .build();
+            case LATE -> BuzzResponse.builder()
+                    .success(true)
                     .isFirstBuzzer(false)
-                    .message("Round is not in waiting for buzz status")
+                    .message("Recorded, but someone else was faster")
                     .build();
-        }
-
-        List<Long> lockedOut = getLockedOutPlayers(state);
-        if (lockedOut.contains(userId)) {
-            return BuzzResponse.builder()
+            case LOCKED_OUT -> BuzzResponse.builder()
                     .success(false)
                     .isFirstBuzzer(false)
                     .message("Player is locked out for this round")
                     .build();
-        }
-
-        // Record buzz in order
-        List<Map<String, Object>> buzzOrder = getBuzzOrder(state);
-        buzzOrder.add(Map.of("userId", userId, "timestamp", clientTimestamp.toString()));
-        state.setBuzzOrder(toJson(buzzOrder));
-
-        // If no current buzzer, this user becomes the buzzer
-        if (state.getCurrentBuzzer() == null) {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userId));
-            
-            state.setCurrentBuzzer(user);
-            state.setBuzzerTimestamp(clientTimestamp);
-            state.setRoundStatus(BrainRingRoundStatus.PLAYER_ANSWERING);
-            
-            QuizSession session = state.getQuizRound().getQuizSession();
-            int answerTime = session.getAnswerTimeSeconds() != null ? session.getAnswerTimeSeconds() : 20;
-            state.setAnswerDeadline(Instant.now().plusSeconds(answerTime));
-
-            brainRingRoundStateRepository.save(state);
-
-            return BuzzResponse.builder()
-                    .success(true)
-                    .isFirstBuzzer(true)
-                    .answerDeadline(state.getAnswerDeadline())
-                    .message("You are the buzzer!")
+            case ROUND_NOT_OPEN -> BuzzResponse.builder()
+                    .success(false)
+                    .isFirstBuzzer(false)
+                    .message("Round is not in waiting for buzz status")
                     .build();
-        }
-
-        brainRingRoundStateRepository.save(state);
-        return BuzzResponse.builder()
-                .success(true)
-                .isFirstBuzzer(false)
-                .message("Recorded, but someone else was faster")
-                .build();
+        };
     }
 
     @Override
-    @Transactional
-    public BrainRingAnswerResponse submitAnswer(Long sessionId, Long roundId, Long userId, String answer) {
+    public Mono<BrainRingAnswerResponse> submitAnswer(Long sessionId, Long roundId, Long userId, String answer) {
         log.info("Submitting Brain Ring answer for session {}, round {}, user {}", sessionId, roundId, userId);
 
-        BrainRingRoundState state = brainRingRoundStateRepository.findByQuizRoundId(roundId)
-                .orElseThrow(() -> new ResourceNotFoundException("Brain Ring state not found for round " + roundId));
+        // The answer is validated before the round is locked, so a slow AI validation never holds
+        // the row lock (or the arbiter entry) that the other players' buzzes wait on
+        PendingAnswer pending = transactionTemplate.execute(tx -> pendingAnswer(roundId, userId));
+        Mono<AnswerValidationResult> validation = pending.timedOut()
+                // Timeout - treat as wrong answer
+                ? Mono.just(AnswerValidationResult.builder().correct(false).exactMatch(false).aiUsed(false).build())
+                : gameService.validateAnswerEnhancedAsync(answer, pending.correctAnswer(), pending.enableAiValidation(), "en");
+
+        return validation
+                // The verdict may arrive on a reactor thread; the transition does blocking JDBC
+                .publishOn(Schedulers.boundedElastic())
+                .map(validationResult -> transactionTemplate.execute(tx -> applyAnswer(roundId, userId, answer, validationResult)));
+    }
 
-        if (state.getRoundStatus() != BrainRingRoundStatus.PLAYER_ANSWERING) {
-            throw new IllegalStateException("Round is not in player answering status");
+    private BrainRingAnswerResponse applyAnswer(Long roundId, Long userId, String answer, AnswerValidationResult validationResult) {
+        BrainRingRoundState state;
+        BrainRingBuzzerArbiter.RoundBuzzer buzzer;
+        if (isClustered()) {
+            // The row lock keeps concurrent claims on other nodes from interleaving with the answer
+            state = brainRingRoundStateRepository.findByQuizRoundIdForUpdate(roundId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Brain Ring state not found for round " + roundId));
+            buzzer = buzzerArbiter.restore(roundId, answerTimeSeconds(state.getQuizRound().getQuizSession()), toSnapshot(state));
+        } else {
+            buzzer = roundBuzzer(roundId);
+            state = brainRingRoundStateRepository.findByQuizRoundId(roundId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Brain Ring state not found for round " + roundId));
         }
 
-        if (state.getCurrentBuzzer() == null || !state.getCurrentBuzzer().getId().equals(userId)) {
-            throw new IllegalStateException("Only the current buzzer can submit an answer");
+        if (validationResult.isCorrect()) {
+            return handleCorrectAnswer(state, buzzer, userId, answer, validationResult);
+        } else {
+            return handleWrongAnswer(state, buzzer, userId);
         }
+    }
 
-        if (Instant.now().isAfter(state.getAnswerDeadline())) {
-            // Timeout - treat as wrong answer
-            return handleWrongAnswer(state, userId, "Time expired");
-        }
+    /**
+     * Checks that {@code userId} holds the round without locking it, and reads what the
+     * answer is validated against. The claim is checked again when the answer is applied.
+     */
+    private PendingAnswer pendingAnswer(Long roundId, Long userId) {
+        BrainRingRoundState state = brainRingRoundStateRepository.findByQuizRoundId(roundId)
+                .orElseThrow(() -> new ResourceNotFoundException("Brain Ring state not found for round " + roundId));
+        BrainRingBuzzerArbiter.RoundBuzzer buzzer = isClustered()
+                ? buzzerArbiter.restore(roundId, answerTimeSeconds(state.getQuizRound().getQuizSession()), toSnapshot(state))
+                : roundBuzzer(roundId);
+        requireClaim(buzzer, userId);
+
+        BrainRingBuzzerArbiter.BuzzerClaim claim = buzzer.currentClaim();
+        boolean timedOut = claim.answerDeadline() != null && Instant.now().isAfter(claim.answerDeadline());
 
         QuizRound round = state.getQuizRound();
-        boolean enableAiValidation = round.getQuizSession().getEnableAiAnswerValidation() != null 
+        boolean enableAiValidation = round.getQuizSession().getEnableAiAnswerValidation() != null
                 && round.getQuizSession().getEnableAiAnswerValidation();
-        
-        AnswerValidationResult validationResult = gameService.validateAnswerEnhanced(
-                answer,
-                round.getQuestion().getAnswer(),
-                enableAiValidation,
-                "en"
-        );
+        return new PendingAnswer(round.getQuestion().getAnswer(), enableAiValidation, timedOut);
+    }
 
-        if (validationResult.isCorrect()) {
-            return handleCorrectAnswer(state, userId, answer, validationResult);
-        } else {
-            return handleWrongAnswer(state, userId, answer);
+    private void requireClaim(BrainRingBuzzerArbiter.RoundBuzzer buzzer, Long userId) {
+        if (buzzer.status() != BrainRingRoundStatus.PLAYER_ANSWERING) {
+            throw new IllegalStateException("Round is not in player answering status");
+        }
+
+        BrainRingBuzzerArbiter.BuzzerClaim claim = buzzer.currentClaim();
+        if (claim == null || !claim.userId().equals(userId)) {
+            throw new IllegalStateException("Only the current buzzer can submit an answer");
         }
     }
 
-    private BrainRingAnswerResponse handleCorrectAnswer(BrainRingRoundState state, Long userId, String answer, AnswerValidationResult validationResult) {
-        state.setRoundStatus(BrainRingRoundStatus.CORRECT_ANSWER);
-        state.setWinner(state.getCurrentBuzzer());
-        
+    private BrainRingAnswerResponse handleCorrectAnswer(BrainRingRoundState state, BrainRingBuzzerArbiter.RoundBuzzer buzzer,
+                                                        Long userId, String answer, AnswerValidationResult validationResult) {
+        applySnapshot(state, mutate(buzzer, b -> {
+            requireClaim(b, userId);
+            b.complete(userId);
+        }));
+
         QuizRound round = state.getQuizRound();
         round.setTeamAnswer(answer);
         round.setIsCorrect(true);
@@ -169,20 +193,14 @@ public class BrainRingServiceImpl implements BrainRingService {
                 .build();
     }
 
-    private BrainRingAnswerResponse handleWrongAnswer(BrainRingRoundState state, Long userId, String answer) {
-        List<Long> lockedOut = getLockedOutPlayers(state);
-        lockedOut.add(userId);
-        state.setLockedOutPlayers(toJson(lockedOut));
-        
-        state.setCurrentBuzzer(null);
-        state.setBuzzerTimestamp(null);
-        state.setAnswerDeadline(null);
-
-        // Check if all players are locked out
-        // For simplicity, we assume we know the total players or just allow more buzzes
+    private BrainRingAnswerResponse handleWrongAnswer(BrainRingRoundState state, BrainRingBuzzerArbiter.RoundBuzzer buzzer, Long userId) {
+        // Locking the buzzer out reopens the round for the remaining players.
         // A better implementation would check against session participant count
-        
-        state.setRoundStatus(BrainRingRoundStatus.WAITING_FOR_BUZZ);
+        // and close the round with ALL_LOCKED_OUT.
+        applySnapshot(state, mutate(buzzer, b -> {
+            requireClaim(b, userId);
+            b.lockOut(userId);
+        }));
         brainRingRoundStateRepository.save(state);
 
         return BrainRingAnswerResponse.builder()
@@ -199,13 +217,35 @@ public class BrainRingServiceImpl implements BrainRingService {
         BrainRingRoundState state = brainRingRoundStateRepository.findByQuizRoundId(roundId)
                 .orElseThrow(() -> new ResourceNotFoundException("Brain Ring state not found for round " + roundId));
 
+        Optional<BrainRingBuzzerArbiter.RoundBuzzer> live = buzzerArbiter.find(roundId);
+        if (live.isEmpty()) {
+            return BrainRingStateDTO.builder()
+                    .currentBuzzerUserId(state.getCurrentBuzzer() != null ? state.getCurrentBuzzer().getId() : null)
+                    .currentBuzzerName(state.getCurrentBuzzer() != null ? state.getCurrentBuzzer().getUsername() : null)
+                    .lockedOutPlayers(getLockedOutPlayers(state))
+                    .answerDeadline(state.getAnswerDeadline())
+                    .roundStatus(state.getRoundStatus())
+                    .winnerUserId(state.getWinner() != null ? state.getWinner().getId() : null)
+                    .build();
+        }
+
+        // The persisted row may lag behind the arbiter, so live rounds are answered from memory
+        BrainRingBuzzerArbiter.RoundSnapshot snapshot = live.get().snapshot();
+        BrainRingBuzzerArbiter.BuzzerClaim claim = snapshot.claim();
+        String buzzerName = null;
+        if (claim != null) {
+            buzzerName = state.getCurrentBuzzer() != null && state.getCurrentBuzzer().getId().equals(claim.userId())
+                    ? state.getCurrentBuzzer().getUsername()
+                    : userRepository.findById(claim.userId()).map(User::getUsername).orElse(null);
+        }
+
         return BrainRingStateDTO.builder()
-                .currentBuzzerUserId(state.getCurrentBuzzer() != null ? state.getCurrentBuzzer().getId() : null)
-                .currentBuzzerName(state.getCurrentBuzzer() != null ? state.getCurrentBuzzer().getUsername() : null)
-                .lockedOutPlayers(getLockedOutPlayers(state))
-                .answerDeadline(state.getAnswerDeadline())
-                .roundStatus(state.getRoundStatus())
-                .winnerUserId(state.getWinner() != null ? state.getWinner().getId() : null)
+                .currentBuzzerUserId(claim != null ? claim.userId() : null)
+                .currentBuzzerName(buzzerName)
+                .lockedOutPlayers(snapshot.lockedOutPlayers())
+                .answerDeadline(claim != null ? claim.answerDeadline() : null)
+                .roundStatus(snapshot.status())
+                .winnerUserId(snapshot.winnerUserId())
                 .build();
     }
 
@@ -219,15 +259,170 @@ public class BrainRingServiceImpl implements BrainRingService {
                 .buzzOrder("[]")
                 .build();
         brainRingRoundStateRepository.save(state);
+        if (!isClustered()) {
+            buzzerArbiter.register(round.getId(), answerTimeSeconds(round.getQuizSession()));
+        }
     }
 
     @Override
     @Transactional(readOnly = true)
     public boolean isPlayerLockedOut(Long roundId, Long userId) {
+        Optional<BrainRingBuzzerArbiter.RoundBuzzer> live = buzzerArbiter.find(roundId);
+        if (live.isPresent()) {
+            return live.get().isLockedOut(userId);
+        }
         Optional<BrainRingRoundState> state = brainRingRoundStateRepository.findByQuizRoundId(roundId);
         return state.map(s -> getLockedOutPlayers(s).contains(userId)).orElse(false);
     }
 
+    /**
+     * Write-behind persistence of arbiter state. Every buzzer mutation marks its round dirty
+     * after applying the change, so the latest snapshot always reaches the database even if
+     * an earlier flush raced with it.
+     */
+    @Scheduled(fixedDelayString = "${app.brain-ring.flush-interval-ms:250}")
+    public void flushBuzzerState() {
+        for (Long roundId : buzzerArbiter.drainDirtyRounds()) {
+            try {
+                transactionTemplate.executeWithoutResult(tx -> persistRound(roundId));
+            } catch (RuntimeException e) {
+                log.warn("Failed to persist Brain Ring state for round {}, will retry: {}", roundId, e.getMessage());
+                buzzerArbiter.markDirty(roundId);
+            }
+        }
+
+        int evicted = buzzerArbiter.evictInactive(Instant.now().minus(IDLE_ROUND_TTL));
+        if (evicted > 0) {
+            log.debug("Evicted {} inactive Brain Ring rounds from the arbiter", evicted);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing pending Brain Ring state before shutdown");
+        flushBuzzerState();
+    }
+
+    private void persistRound(Long roundId) {
+        buzzerArbiter.find(roundId).ifPresent(buzzer ->
+                brainRingRoundStateRepository.findByQuizRoundId(roundId).ifPresent(state -> {
+                    applySnapshot(state, buzzer.snapshot());
+                    brainRingRoundStateRepository.save(state);
+                }));
+    }
+
+    private boolean isClustered() {
+        return "postgres".equals(gameRoomsMode);
+    }
+
+    private BrainRingBuzzerArbiter.BuzzResult buzzLocally(Long roundId, Long userId, Instant timestamp) {
+        while (true) {
+            Optional<BrainRingBuzzerArbiter.BuzzResult> result =
+                    buzzerArbiter.withRound(roundId, buzzer -> buzzer.buzz(userId, timestamp));
+            if (result.isPresent()) {
+                return result.get();
+            }
+            // Not live (first use after a restart, or evicted since): restore and retry
+            roundBuzzer(roundId);
+        }
+    }
+
+    private BrainRingBuzzerArbiter.BuzzResult claimOnDatabase(Long roundId, Long userId, Instant timestamp) {
+        return transactionTemplate.execute(tx -> {
+            BrainRingRoundState state = brainRingRoundStateRepository.findByQuizRoundId(roundId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Brain Ring state not found for round " + roundId));
+            Instant deadline = Instant.now().plusSeconds(answerTimeSeconds(state.getQuizRound().getQuizSession()));
+
+            if (brainRingRoundStateRepository.claimBuzzer(roundId, userId, timestamp, timestamp.toString(), deadline) == 1) {
+                return new BrainRingBuzzerArbiter.BuzzResult(BrainRingBuzzerArbiter.BuzzOutcome.FIRST_BUZZER,
+                        new BrainRingBuzzerArbiter.BuzzerClaim(userId, timestamp, deadline));
+            }
+            return new BrainRingBuzzerArbiter.BuzzResult(getLockedOutPlayers(state).contains(userId)
+                    ? BrainRingBuzzerArbiter.BuzzOutcome.LOCKED_OUT
+                    : BrainRingBuzzerArbiter.BuzzOutcome.ROUND_NOT_OPEN, null);
+        });
+    }
+
+    /**
+     * Applies a buzzer mutation and returns the resulting snapshot. Live rounds are mutated
+     * under the arbiter's entry lock; detached buzzers restored from the row in cluster mode
+     * are mutated directly.
+     */
+    private BrainRingBuzzerArbiter.RoundSnapshot mutate(BrainRingBuzzerArbiter.RoundBuzzer buzzer,
+                                                        Consumer<BrainRingBuzzerArbiter.RoundBuzzer> mutation) {
+        if (isClustered()) {
+            mutation.accept(buzzer);
+            return buzzer.snapshot();
+        }
+        Long roundId = buzzer.getRoundId();
+        while (true) {
+            Optional<BrainRingBuzzerArbiter.RoundSnapshot> snapshot = buzzerArbiter.withRound(roundId, live -> {
+                mutation.accept(live);
+                return live.snapshot();
+            });
+            if (snapshot.isPresent()) {
+                return snapshot.get();
+            }
+            roundBuzzer(roundId);
+        }
+    }
+
+    private BrainRingBuzzerArbiter.RoundBuzzer roundBuzzer(Long roundId) {
+        Optional<BrainRingBuzzerArbiter.RoundBuzzer> live = buzzerArbiter.find(roundId);
+        if (live.isPresent()) {
+            return live.get();
+        }
+        // Load outside the arbiter's map so repository I/O never blocks its bins
+        BrainRingRoundState state = brainRingRoundStateRepository.findByQuizRoundId(roundId)
+                .orElseThrow(() -> new ResourceNotFoundException("Brain Ring state not found for round " + roundId));
+        return buzzerArbiter.installIfAbsent(
+                buzzerArbiter.restore(roundId, answerTimeSeconds(state.getQuizRound().getQuizSession()), toSnapshot(state)));
+    }
+
+    private BrainRingBuzzerArbiter.RoundSnapshot toSnapshot(BrainRingRoundState state) {
+        BrainRingBuzzerArbiter.BuzzerClaim claim = null;
+        if (state.getRoundStatus() == BrainRingRoundStatus.PLAYER_ANSWERING && state.getCurrentBuzzer() != null) {
+            claim = new BrainRingBuzzerArbiter.BuzzerClaim(
+                    state.getCurrentBuzzer().getId(), state.getBuzzerTimestamp(), state.getAnswerDeadline());
+        }
+
+        List<BrainRingBuzzerArbiter.BuzzEntry> buzzOrder = new ArrayList<>();
+        for (Map<String, Object> entry : getBuzzOrder(state)) {
+            Object userId = entry.get("userId");
+            Object timestamp = entry.get("timestamp");
+            if (userId instanceof Number number && timestamp != null) {
+                buzzOrder.add(new BrainRingBuzzerArbiter.BuzzEntry(number.longValue(), Instant.parse(timestamp.toString())));
+            }
+        }
+
+        return new BrainRingBuzzerArbiter.RoundSnapshot(
+                state.getRoundStatus(),
+                claim,
+                state.getWinner() != null ? state.getWinner().getId() : null,
+                getLockedOutPlayers(state),
+                buzzOrder);
+    }
+
+    private void applySnapshot(BrainRingRoundState state, BrainRingBuzzerArbiter.RoundSnapshot snapshot) {
+        BrainRingBuzzerArbiter.BuzzerClaim claim = snapshot.claim();
+        state.setRoundStatus(snapshot.status());
+        state.setCurrentBuzzer(claim != null ? userRepository.getReferenceById(claim.userId()) : null);
+        state.setBuzzerTimestamp(claim != null ? claim.buzzerTimestamp() : null);
+        state.setAnswerDeadline(claim != null ? claim.answerDeadline() : null);
+        state.setWinner(snapshot.winnerUserId() != null ? userRepository.getReferenceById(snapshot.winnerUserId()) : null);
+        state.setLockedOutPlayers(toJson(snapshot.lockedOutPlayers()));
+
+        List<Map<String, Object>> buzzOrder = new ArrayList<>();
+        for (BrainRingBuzzerArbiter.BuzzEntry entry : snapshot.buzzOrder()) {
+            buzzOrder.add(Map.of("userId", entry.userId(), "timestamp", entry.timestamp().toString()));
+        }
+        state.setBuzzOrder(toJson(buzzOrder));
+    }
+
+    private int answerTimeSeconds(QuizSession session) {
+        return session.getAnswerTimeSeconds() != null ? session.getAnswerTimeSeconds() : 20;
+    }
+
     private List<Long> getLockedOutPlayers(BrainRingRoundState state) {
         try {
             if (state.getLockedOutPlayers() == null || state.getLockedOutPlayers().isEmpty()) {
@@ -277,4 +472,7 @@ public class BrainRingServiceImpl implements BrainRingService {
 
         quizSessionRepository.save(session);
     }
+
+    private record PendingAnswer(String correctAnswer, boolean enableAiValidation, boolean timedOut) {
+    }
 }
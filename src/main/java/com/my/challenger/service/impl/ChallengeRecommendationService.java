@@ -2,6 +2,7 @@ package com.my.challenger.service.impl;
 
 import com.my.challenger.entity.challenge.Challenge;
 import com.my.challenger.entity.enums.ChallengeDifficulty;
+import com.my.challenger.entity.enums.ChallengeStatus;
 import com.my.challenger.repository.ChallengeRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,17 +12,26 @@ import org.springframework.stereotype.Service;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service for providing intelligent challenge recommendations based on user history
+ * <p>
+ * User skill profiles and candidate challenges come from {@link RecommendationFeatureStore};
+ * the database is only asked for the challenges finally picked.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ChallengeRecommendationService {
 
+    // Candidate batches fetched at most to fill one page when many candidates went stale
+    private static final int MAX_FILL_ROUNDS = 4;
+
     private final ChallengeRepository challengeRepository;
+    private final RecommendationFeatureStore featureStore;
 
     /**
      * Find recommended challenges based on user's completed difficulty levels
@@ -31,20 +41,13 @@ public class ChallengeRecommendationService {
         log.debug("Finding recommended challenges for user: {}", userId);
 
         // Check if user has completed any challenges
-        if (!challengeRepository.hasUserCompletedAnyChallenge(userId)) {
+        RecommendationFeatureStore.UserSkillProfile profile = featureStore.getProfile(userId);
+        if (!profile.hasCompleted()) {
             log.debug("User {} has no completed challenges, recommending BEGINNER level", userId);
-            return challengeRepository.findRecommendedByDifficulty(userId, ChallengeDifficulty.BEGINNER, pageable);
-        }
-
-        // Get user's average difficulty
-        Optional<Double> avgDifficultyOpt = challengeRepository.getAverageDifficultyForUser(userId);
-
-        if (avgDifficultyOpt.isEmpty()) {
-            log.debug("No average difficulty found for user {}, defaulting to BEGINNER", userId);
-            return challengeRepository.findRecommendedByDifficulty(userId, ChallengeDifficulty.BEGINNER, pageable);
+            return recommend(userId, List.of(ChallengeDifficulty.BEGINNER), pageable);
         }
 
-        double avgDifficulty = avgDifficultyOpt.get();
+        double avgDifficulty = profile.averageDifficulty();
         log.debug("User {} average difficulty: {}", userId, avgDifficulty);
 
         // Determine recommended difficulty based on average
@@ -53,8 +56,7 @@ public class ChallengeRecommendationService {
         log.debug("Recommended difficulty for user {}: {}", userId, recommendedDifficulty);
 
         // Get challenges at recommended difficulty
-        List<Challenge> recommendations = challengeRepository.findRecommendedByDifficulty(
-                userId, recommendedDifficulty, pageable);
+        List<Challenge> recommendations = recommend(userId, List.of(recommendedDifficulty), pageable);
 
         // If no challenges found at recommended level, try adjacent levels
         if (recommendations.isEmpty()) {
@@ -74,22 +76,17 @@ public class ChallengeRecommendationService {
     public List<Challenge> findAdaptiveRecommendations(Long userId, Pageable pageable) {
         log.debug("Finding adaptive recommendations for user: {}", userId);
 
-        if (!challengeRepository.hasUserCompletedAnyChallenge(userId)) {
+        RecommendationFeatureStore.UserSkillProfile profile = featureStore.getProfile(userId);
+        if (!profile.hasCompleted()) {
             // New user - recommend beginner and easy levels
             List<ChallengeDifficulty> difficulties = Arrays.asList(
                     ChallengeDifficulty.BEGINNER, ChallengeDifficulty.EASY);
-            return challengeRepository.findRecommendedByMultipleDifficulties(userId, difficulties, pageable);
+            return recommend(userId, difficulties, pageable);
         }
 
-        Optional<Double> avgDifficultyOpt = challengeRepository.getAverageDifficultyForUser(userId);
-        if (avgDifficultyOpt.isEmpty()) {
-            return challengeRepository.findRecommendedByDifficulty(userId, ChallengeDifficulty.BEGINNER, pageable);
-        }
-
-        double avgDifficulty = avgDifficultyOpt.get();
-        List<ChallengeDifficulty> recommendedDifficulties = getAdaptiveDifficulties(avgDifficulty);
+        List<ChallengeDifficulty> recommendedDifficulties = getAdaptiveDifficulties(profile.averageDifficulty());
 
-        return challengeRepository.findRecommendedByMultipleDifficulties(userId, recommendedDifficulties, pageable);
+        return recommend(userId, recommendedDifficulties, pageable);
     }
 
     /**
@@ -98,18 +95,52 @@ public class ChallengeRecommendationService {
     public List<Challenge> findProgressiveRecommendations(Long userId, Pageable pageable) {
         log.debug("Finding progressive recommendations for user: {}", userId);
 
-        Optional<ChallengeDifficulty> highestCompleted = challengeRepository.getUserHighestCompletedDifficulty(userId);
+        ChallengeDifficulty highestCompleted = featureStore.getProfile(userId).highestCompleted();
 
-        if (highestCompleted.isEmpty()) {
+        if (highestCompleted == null) {
             // Start with beginner
-            return challengeRepository.findRecommendedByDifficulty(userId, ChallengeDifficulty.BEGINNER, pageable);
+            return recommend(userId, List.of(ChallengeDifficulty.BEGINNER), pageable);
         }
 
-        ChallengeDifficulty nextDifficulty = getNextProgressiveDifficulty(highestCompleted.get());
+        ChallengeDifficulty nextDifficulty = getNextProgressiveDifficulty(highestCompleted);
         log.debug("User {} highest completed: {}, next progressive: {}",
-                userId, highestCompleted.get(), nextDifficulty);
+                userId, highestCompleted, nextDifficulty);
 
-        return challengeRepository.findRecommendedByDifficulty(userId, nextDifficulty, pageable);
+        return recommend(userId, List.of(nextDifficulty), pageable);
+    }
+
+    /**
+     * Picks candidate ids from the feature store and loads just those challenges, keeping
+     * the candidate order. Challenges that stopped being active or public since the last
+     * candidate refresh are left out, and further candidates are fetched until the page is
+     * full or the pool is exhausted.
+     */
+    private List<Challenge> recommend(Long userId, List<ChallengeDifficulty> difficulties, Pageable pageable) {
+        int pageSize = pageable.getPageSize();
+        List<Challenge> page = new ArrayList<>(pageSize);
+        long offset = pageable.getOffset();
+        for (int round = 0; round < MAX_FILL_ROUNDS && page.size() < pageSize; round++) {
+            // Over-fetch a little: a few candidates per refresh interval go stale
+            int wanted = (pageSize - page.size()) * 2;
+            List<Long> ids = featureStore.findCandidates(userId, difficulties, offset, wanted);
+            if (ids.isEmpty()) {
+                break;
+            }
+            offset += ids.size();
+
+            Map<Long, Challenge> byId = challengeRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Challenge::getId, Function.identity()));
+            ids.stream()
+                    .map(byId::get)
+                    .filter(c -> c != null && c.isPublic() && c.getStatus() == ChallengeStatus.ACTIVE)
+                    .limit(pageSize - page.size())
+                    .forEach(page::add);
+
+            if (ids.size() < wanted) {
+                break;
+            }
+        }
+        return page;
     }
 
     /**
@@ -182,8 +213,7 @@ public class ChallengeRecommendationService {
 
         // Try one level below first
         if (primaryIndex > 0) {
-            List<Challenge> alternatives = challengeRepository.findRecommendedByDifficulty(
-                    userId, allDifficulties[primaryIndex - 1], pageable);
+            List<Challenge> alternatives = recommend(userId, List.of(allDifficulties[primaryIndex - 1]), pageable);
             if (!alternatives.isEmpty()) {
                 return alternatives;
             }
@@ -191,32 +221,31 @@ public class ChallengeRecommendationService {
 
         // Try one level above
         if (primaryIndex < allDifficulties.length - 1) {
-            List<Challenge> alternatives = challengeRepository.findRecommendedByDifficulty(
-                    userId, allDifficulties[primaryIndex + 1], pageable);
+            List<Challenge> alternatives = recommend(userId, List.of(allDifficulties[primaryIndex + 1]), pageable);
             if (!alternatives.isEmpty()) {
                 return alternatives;
             }
         }
 
         // Fallback to any available challenges (excluding user's current challenges)
-        return challengeRepository.findRecommendedByMultipleDifficulties(
-                userId, Arrays.asList(allDifficulties), pageable);
+        return recommend(userId, Arrays.asList(allDifficulties), pageable);
     }
 
     /**
      * Get user's completion statistics for analysis
      */
     public UserDifficultyStats getUserDifficultyStats(Long userId) {
-        List<Object[]> stats = challengeRepository.getUserCompletedChallengesByDifficulty(userId);
-        Optional<Double> avgDifficulty = challengeRepository.getAverageDifficultyForUser(userId);
-        Optional<ChallengeDifficulty> highest = challengeRepository.getUserHighestCompletedDifficulty(userId);
+        RecommendationFeatureStore.UserSkillProfile profile = featureStore.getProfile(userId);
+        List<Object[]> stats = profile.completedByDifficulty().entrySet().stream()
+                .map(e -> new Object[]{e.getKey(), e.getValue().longValue()})
+                .collect(Collectors.toList());
 
         return UserDifficultyStats.builder()
                 .userId(userId)
                 .completedByDifficulty(stats)
-                .averageDifficulty(avgDifficulty.orElse(0.0))
-                .highestCompleted(highest.orElse(null))
-                .hasCompletedChallenges(challengeRepository.hasUserCompletedAnyChallenge(userId))
+                .averageDifficulty(profile.averageDifficulty())
+                .highestCompleted(profile.highestCompleted())
+                .hasCompletedChallenges(profile.hasCompleted())
                 .build();
     }
 
@@ -1,240 +1,272 @@
 package com.my.challenger.service.impl;
 
 import com.my.challenger.dto.ChallengeDTO;
-import com.my.challenger.entity.challenge.Challenge;
+import com.my.challenger.dto.challenge.ChallengeSearchRow;
 import com.my.challenger.entity.enums.ChallengeStatus;
 import com.my.challenger.entity.enums.ChallengeType;
+import com.my.challenger.entity.enums.CurrencyType;
 import com.my.challenger.entity.enums.PaymentType;
-import com.my.challenger.repository.ChallengeAccessRepository;
 import com.my.challenger.repository.ChallengeRepository;
+import lombok.Builder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
 import java.util.List;
 import java.util.stream.Collectors;
 
 /**
  * Advanced Challenge Search Service with Access Control
+ * <p>
+ * Every search is one query: keyword (full-text index), filters and challenge visibility
+ * are evaluated in the database, results come back as flat projections, and pages are
+ * addressed by an opaque seek cursor over (start date, id) so deep pages cost the same as
+ * the first one. Plain page numbers are still accepted and fall back to an offset.
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class ChallengeSearchService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String FIRST_SEEK_START = "infinity";
+    private static final String NULL_SEEK_START = "-infinity";
+    // The only order the seek index supports
+    private static final String SORT_BY_START_DATE = "startDate";
+    private static final String SORT_DESC = "desc";
+
     private final ChallengeRepository challengeRepository;
-    private final ChallengeAccessRepository accessRepository;
 
     /**
-     * Search challenges with keyword and filters
+     * One page of search results; {@code nextCursor} is null on the last page.
      */
-    public List<ChallengeDTO> searchChallenges(ChallengeSearchRequest request, Long userId) {
-        log.info("Searching challenges for user {} with filters: {}", userId, request);
-
-        List<Challenge> challenges;
+    public record ChallengeSearchPage(List<ChallengeDTO> items, String nextCursor) {}
 
-        if (request.getKeyword() != null && !request.getKeyword().trim().isEmpty()) {
-            // Keyword search
-            challenges = challengeRepository.searchByKeyword(request.getKeyword());
-        } else {
-            // Get all challenges
-            Pageable pageable = createPageable(request);
-            Page<Challenge> page = challengeRepository.findAll(pageable);
-            challenges = page.getContent();
-        }
-
-        // Apply filters
-        challenges = applyFilters(challenges, request);
+    /**
+     * Filters for a single search. Null fields do not filter.
+     */
+    @Builder
+    record Criteria(String keyword, ChallengeType type, ChallengeStatus status, PaymentType paymentType,
+                    boolean freeOnly, boolean paidOnly, String visibility, boolean excludeJoined) {}
 
-        // Filter by access control
-        challenges = filterByAccess(challenges, userId);
+    /**
+     * Search challenges with keyword and filters
+     */
+    public ChallengeSearchPage searchChallenges(ChallengeSearchRequest request, Long userId) {
+        log.info("Searching challenges for user {} with filters: {}", userId, request);
+        warnIgnoredSort(request.getSortBy(), request.getSortDirection());
+
+        Criteria criteria = Criteria.builder()
+                .keyword(request.getKeyword())
+                .type(request.getType())
+                .status(request.getStatus())
+                .paymentType(request.getPaymentType())
+                .freeOnly(Boolean.TRUE.equals(request.getFreeOnly()))
+                .paidOnly(Boolean.TRUE.equals(request.getPaidOnly()))
+                .build();
+
+        return search(criteria, userId, request.getCursor(),
+                request.getPage() != null ? request.getPage() : 0,
+                request.getSize() != null ? request.getSize() : 20);
+    }
 
-        // Convert to DTOs
-        return challenges.stream()
-                .map(challenge -> convertToDTO(challenge, userId))
-                .collect(Collectors.toList());
+    /**
+     * Public challenges plus private ones the user created or was granted
+     */
+    public ChallengeSearchPage getAccessibleChallenges(Long userId, String cursor, int page, int size) {
+        return search(Criteria.builder().build(), userId, cursor, page, size);
     }
 
     /**
      * Get public challenges only
      */
-    public List<ChallengeDTO> getPublicChallenges(int page, int size, Long userId) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("startDate").descending());
-        
-        List<Challenge> challenges = challengeRepository.findAll(pageable).getContent()
-                .stream()
-                .filter(Challenge::isPublic)
-                .filter(c -> c.getStatus() == ChallengeStatus.ACTIVE)
-                .collect(Collectors.toList());
-
-        return challenges.stream()
-                .map(challenge -> convertToDTO(challenge, userId))
-                .collect(Collectors.toList());
+    public ChallengeSearchPage getPublicChallenges(String cursor, int page, int size, Long userId) {
+        Criteria criteria = Criteria.builder()
+                .visibility("public")
+                .status(ChallengeStatus.ACTIVE)
+                .build();
+        return search(criteria, userId, cursor, page, size);
     }
 
     /**
-     * Get private challenges user has access to
+     * Get private challenges user was granted access to
      */
-    public List<ChallengeDTO> getPrivateChallengesForUser(Long userId, int page, int size) {
-        return accessRepository.findActiveByUserId(userId).stream()
-                .map(access -> access.getChallenge())
-                .filter(challenge -> !challenge.isPublic())
-                .map(challenge -> convertToDTO(challenge, userId))
-                .collect(Collectors.toList());
+    public ChallengeSearchPage getPrivateChallengesForUser(Long userId, String cursor, int page, int size) {
+        return search(Criteria.builder().visibility("private").build(), userId, cursor, page, size);
     }
 
     /**
      * Search free challenges
      */
-    public List<ChallengeDTO> searchFreeChallenges(String keyword, Long userId, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        
-        List<Challenge> challenges = keyword != null && !keyword.isEmpty()
-                ? challengeRepository.searchByKeyword(keyword)
-                : challengeRepository.findAll(pageable).getContent();
-
-        return challenges.stream()
-                .filter(c -> c.getPaymentType() == PaymentType.FREE)
-                .filter(c -> canUserAccessChallenge(c, userId))
-                .map(challenge -> convertToDTO(challenge, userId))
-                .collect(Collectors.toList());
+    public ChallengeSearchPage searchFreeChallenges(String keyword, Long userId, String cursor, int page, int size) {
+        Criteria criteria = Criteria.builder()
+                .keyword(keyword)
+                .paymentType(PaymentType.FREE)
+                .build();
+        return search(criteria, userId, cursor, page, size);
     }
 
     /**
      * Search paid challenges
      */
-    public List<ChallengeDTO> searchPaidChallenges(String keyword, Long userId, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        
-        List<Challenge> challenges = keyword != null && !keyword.isEmpty()
-                ? challengeRepository.searchByKeyword(keyword)
-                : challengeRepository.findAll(pageable).getContent();
-
-        return challenges.stream()
-                .filter(c -> c.isHasEntryFee())
-                .filter(c -> canUserAccessChallenge(c, userId))
-                .map(challenge -> convertToDTO(challenge, userId))
-                .collect(Collectors.toList());
+    public ChallengeSearchPage searchPaidChallenges(String keyword, Long userId, String cursor, int page, int size) {
+        Criteria criteria = Criteria.builder()
+                .keyword(keyword)
+                .paidOnly(true)
+                .build();
+        return search(criteria, userId, cursor, page, size);
     }
 
     /**
      * Get recommended challenges for user
      */
     public List<ChallengeDTO> getRecommendedChallenges(Long userId, int limit) {
-        // Simple recommendation: return active public challenges user hasn't joined
-        Pageable pageable = PageRequest.of(0, limit);
-        
-        return challengeRepository.findAll(pageable).getContent().stream()
-                .filter(Challenge::isPublic)
-                .filter(c -> c.getStatus() == ChallengeStatus.ACTIVE)
-                .filter(c -> !hasUserJoined(c, userId))
-                .map(challenge -> convertToDTO(challenge, userId))
-                .limit(limit)
-                .collect(Collectors.toList());
+        // Simple recommendation: active public challenges user hasn't joined
+        Criteria criteria = Criteria.builder()
+                .visibility("public")
+                .status(ChallengeStatus.ACTIVE)
+                .excludeJoined(true)
+                .build();
+        return search(criteria, userId, null, 0, limit).items();
     }
 
     /**
      * Search by category/type
      */
-    public List<ChallengeDTO> searchByType(ChallengeType type, Long userId, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        
-        List<Challenge> challenges = challengeRepository.findAll(pageable).getContent().stream()
-                .filter(c -> c.getType() == type)
-                .filter(c -> canUserAccessChallenge(c, userId))
-                .collect(Collectors.toList());
-
-        return challenges.stream()
-                .map(challenge -> convertToDTO(challenge, userId))
-                .collect(Collectors.toList());
+    public ChallengeSearchPage searchByType(ChallengeType type, Long userId, String cursor, int page, int size) {
+        return search(Criteria.builder().type(type).build(), userId, cursor, page, size);
     }
 
     // ========== HELPER METHODS ==========
 
-    private List<Challenge> applyFilters(List<Challenge> challenges, ChallengeSearchRequest request) {
-        return challenges.stream()
-                .filter(c -> request.getType() == null || c.getType() == request.getType())
-                .filter(c -> request.getStatus() == null || c.getStatus() == request.getStatus())
-                .filter(c -> request.getPaymentType() == null || c.getPaymentType() == request.getPaymentType())
-                .filter(c -> !Boolean.TRUE.equals(request.getFreeOnly()) || c.getPaymentType() == PaymentType.FREE)
-                .filter(c -> !Boolean.TRUE.equals(request.getPaidOnly()) || c.isHasEntryFee())
-                .collect(Collectors.toList());
-    }
-
-    private List<Challenge> filterByAccess(List<Challenge> challenges, Long userId) {
-        return challenges.stream()
-                .filter(c -> canUserAccessChallenge(c, userId))
-                .collect(Collectors.toList());
+    /**
+     * Results are always ordered newest start date first. Other sort parameters are still
+     * accepted so existing clients keep working, but they are deprecated and ignored.
+     */
+    private static void warnIgnoredSort(String sortBy, String sortDirection) {
+        boolean otherSortBy = sortBy != null && !sortBy.isBlank() && !SORT_BY_START_DATE.equals(sortBy);
+        boolean otherDirection = sortDirection != null && !sortDirection.isBlank()
+                && !SORT_DESC.equalsIgnoreCase(sortDirection);
+        if (otherSortBy || otherDirection) {
+            log.warn("Deprecated challenge search sort sortBy={} sortDirection={} ignored; results are ordered by startDate desc",
+                    sortBy, sortDirection);
+        }
     }
 
-    private boolean canUserAccessChallenge(Challenge challenge, Long userId) {
-        // Public challenges are accessible to all
-        if (challenge.isPublic()) {
-            return true;
+    /**
+     * Pages either by cursor (seek) or by page number (offset from the first row), never both.
+     */
+    private ChallengeSearchPage search(Criteria criteria, Long userId, String cursor, int page, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        boolean seeking = cursor != null && !cursor.isBlank();
+        if (seeking && page > 0) {
+            throw new IllegalArgumentException("Use either cursor or page, not both");
         }
-
-        // Creator always has access
-        if (challenge.getCreator().getId().equals(userId)) {
-            return true;
+        Seek seek = seeking ? Seek.decode(cursor) : new Seek(FIRST_SEEK_START, Long.MAX_VALUE);
+
+        List<ChallengeSearchRow> rows = challengeRepository.searchAccessible(
+                userId,
+                orEmpty(criteria.keyword() != null ? criteria.keyword().trim() : null),
+                orEmpty(criteria.type()),
+                orEmpty(criteria.status()),
+                orEmpty(criteria.paymentType()),
+                criteria.freeOnly(),
+                criteria.paidOnly(),
+                orEmpty(criteria.visibility()),
+                criteria.excludeJoined(),
+                seek.start(),
+                seek.id(),
+                seeking ? 0 : Math.max(0, page) * limit,
+                limit + 1);
+
+        boolean hasMore = rows.size() > limit;
+        List<ChallengeSearchRow> pageRows = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            ChallengeSearchRow last = pageRows.get(pageRows.size() - 1);
+            nextCursor = new Seek(last.getSeekStart() != null ? last.getSeekStart() : NULL_SEEK_START, last.getId())
+                    .encode();
         }
 
-        // Check access list for private challenges
-        return accessRepository.hasAccess(challenge.getId(), userId);
+        List<ChallengeDTO> items = pageRows.stream()
+                .map(row -> convertToDTO(row, userId))
+                .collect(Collectors.toList());
+        return new ChallengeSearchPage(items, nextCursor);
     }
 
-    private boolean hasUserJoined(Challenge challenge, Long userId) {
-        return challenge.getProgress().stream()
-                .anyMatch(progress -> progress.getUser().getId().equals(userId));
+    private static String orEmpty(Object value) {
+        if (value == null) {
+            return "";
+        }
+        return value instanceof Enum<?> e ? e.name() : value.toString();
     }
 
-    private Pageable createPageable(ChallengeSearchRequest request) {
-        Sort sort = Sort.by(Sort.Direction.DESC, "startDate");
-        
-        if (request.getSortBy() != null) {
-            Sort.Direction direction = "asc".equalsIgnoreCase(request.getSortDirection()) 
-                    ? Sort.Direction.ASC : Sort.Direction.DESC;
-            sort = Sort.by(direction, request.getSortBy());
+    /**
+     * Position after the last returned row. Encoded as base64url of {@code start|id}.
+     */
+    record Seek(String start, long id) {
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((start + "|" + id).getBytes(StandardCharsets.UTF_8));
         }
 
-        return PageRequest.of(
-                request.getPage() != null ? request.getPage() : 0,
-                request.getSize() != null ? request.getSize() : 20,
-                sort
-        );
+        static Seek decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new Seek(raw.substring(0, separator), Long.parseLong(raw.substring(separator + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid search cursor");
+            }
+        }
     }
 
-    private ChallengeDTO convertToDTO(Challenge challenge, Long userId) {
+    private ChallengeDTO convertToDTO(ChallengeSearchRow row, Long userId) {
         ChallengeDTO dto = new ChallengeDTO();
-        dto.setId(challenge.getId());
-        dto.setTitle(challenge.getTitle());
-        dto.setDescription(challenge.getDescription());
-        dto.setType(challenge.getType());
-        dto.setStatus(challenge.getStatus());
-        dto.setIsPublic(challenge.isPublic());
-        dto.setCreator_id(challenge.getCreator().getId());
-        dto.setCreatorUsername(challenge.getCreator().getUsername());
-        
+        dto.setId(row.getId());
+        dto.setTitle(row.getTitle());
+        dto.setDescription(row.getDescription());
+        dto.setType(enumOrNull(ChallengeType.class, row.getType()));
+        dto.setStatus(enumOrNull(ChallengeStatus.class, row.getStatus()));
+        dto.setIsPublic(row.getIsPublic());
+        dto.setCreator_id(row.getCreatorId());
+        dto.setCreatorUsername(row.getCreatorUsername());
+        dto.setStartDate(toLocalDateTime(row.getStartEpochMillis()));
+        dto.setEndDate(toLocalDateTime(row.getEndEpochMillis()));
+        dto.setRequiresApproval(row.getRequiresApproval());
+
         // Payment info
-        dto.setPaymentType(challenge.getPaymentType());
-        dto.setHasEntryFee(challenge.isHasEntryFee());
-        dto.setEntryFeeAmount(challenge.getEntryFeeAmount());
-        dto.setEntryFeeCurrency(challenge.getEntryFeeCurrency());
-        dto.setHasPrize(challenge.isHasPrize());
-        dto.setPrizeAmount(challenge.getPrizeAmount());
-        dto.setPrizeCurrency(challenge.getPrizeCurrency());
-        dto.setPrizePool(challenge.getPrizePool());
-        
-        // Access info
-        dto.setUserHasAccess(canUserAccessChallenge(challenge, userId));
-        dto.setUserIsCreator(challenge.getCreator().getId().equals(userId));
-        
+        dto.setPaymentType(enumOrNull(PaymentType.class, row.getPaymentType()));
+        dto.setHasEntryFee(row.getHasEntryFee());
+        dto.setEntryFeeAmount(row.getEntryFeeAmount());
+        dto.setEntryFeeCurrency(enumOrNull(CurrencyType.class, row.getEntryFeeCurrency()));
+        dto.setHasPrize(row.getHasPrize());
+        dto.setPrizeAmount(row.getPrizeAmount());
+        dto.setPrizeCurrency(enumOrNull(CurrencyType.class, row.getPrizeCurrency()));
+        dto.setPrizePool(row.getPrizePool());
+
+        // Access info: the query only returns challenges the user can see
+        dto.setUserHasAccess(true);
+        dto.setUserIsCreator(row.getCreatorId() != null && row.getCreatorId().equals(userId));
+
         return dto;
     }
 
+    private static <E extends Enum<E>> E enumOrNull(Class<E> type, String name) {
+        return name != null ? Enum.valueOf(type, name) : null;
+    }
+
+    private static LocalDateTime toLocalDateTime(Long epochMillis) {
+        return epochMillis != null
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault())
+                : null;
+    }
+
     /**
      * Search Request DTO
      */
@@ -249,6 +281,7 @@ public class ChallengeSearchService {
         private Integer size;
         private String sortBy;
         private String sortDirection;
+        private String cursor;
 
         // Getters and Setters
         public String getKeyword() { return keyword; }
@@ -271,5 +304,7 @@ public class ChallengeSearchService {
         public void setSortBy(String sortBy) { this.sortBy = sortBy; }
         public String getSortDirection() { return sortDirection; }
         public void setSortDirection(String sortDirection) { this.sortDirection = sortDirection; }
+        public String getCursor() { return cursor; }
+        public void setCursor(String cursor) { this.cursor = cursor; }
     }
 }
\ No newline at end of file
@@ -46,6 +46,7 @@ public class ChallengeServiceImpl implements ChallengeService {
     private final ChallengeAccessRepository accessRepository;
     private final PaymentService paymentService;
     private final QuizSessionRepository quizSessionRepository;
+    private final ChallengeSearchService challengeSearchService;
 
     @Override
     @Transactional(readOnly = true)
@@ -206,18 +207,9 @@ public class ChallengeServiceImpl implements ChallengeService {
      */
     @Transactional(readOnly = true)
     public List<ChallengeDTO> getAccessibleChallenges(Long userId, Pageable pageable) {
-        List<Challenge> publicChallenges = challengeRepository.findAll(pageable).getContent();
-
-        List<ChallengeAccess> privateAccess = accessRepository.findActiveByUserId(userId);
-        List<Challenge> privateChallenges = privateAccess.stream()
-                .map(ChallengeAccess::getChallenge)
-                .collect(Collectors.toList());
-
-        // Combine and filter
-        return publicChallenges.stream()
-                .filter(Challenge::isPublic)
-                .map(challenge -> convertToDTO(challenge, userId))
-                .collect(Collectors.toList());
+        return challengeSearchService
+                .getAccessibleChallenges(userId, null, pageable.getPageNumber(), pageable.getPageSize())
+                .items();
     }
 
     /**
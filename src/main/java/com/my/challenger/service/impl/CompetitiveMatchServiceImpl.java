@@ -18,6 +18,7 @@ import com.my.challenger.service.WagerService;
 import com.my.challenger.service.integration.KaraokeScoringClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -48,6 +49,7 @@ public class CompetitiveMatchServiceImpl implements CompetitiveMatchService {
     private final KaraokeScoringClient karaokeClient;
     private final MatchmakingService matchmakingService;
     private final StorageProperties storageProperties;
+    private final ApplicationEventPublisher eventPublisher;
 
     // ==================================================================================
     // MATCH CREATION
@@ -127,7 +129,9 @@ public class CompetitiveMatchServiceImpl implements CompetitiveMatchService {
                 .expiresAt(LocalDateTime.now().plusHours(1))
                 .build();
 
-        matchmakingQueueRepository.save(entry);
+        entry = matchmakingQueueRepository.save(entry);
+        // Matched by the engine as soon as this transaction commits
+        eventPublisher.publishEvent(new MatchmakingService.EntryQueuedEvent(entry.getId()));
 
         return matchmakingService.getQueueStatus(userId);
     }
@@ -136,6 +140,7 @@ public class CompetitiveMatchServiceImpl implements CompetitiveMatchService {
     @Transactional
     public void cancelMatchmaking(Long userId) {
         log.info("User {} cancelling matchmaking", userId);
+        matchmakingService.removeFromQueue(userId);
         Optional<MatchmakingQueueEntry> entry = matchmakingQueueRepository.findByUserId(userId);
         entry.ifPresent(e -> {
             e.setStatus(MatchmakingStatus.CANCELLED);
@@ -53,7 +53,7 @@ public class EnhancedQuizService extends QuizService {
             ChallengeRepository challengeRepository,
             UserRepository userRepository,
             MediaFileRepository mediaFileRepository,
-            QuestRepository questRepository,
+            QuestRequirementResolver questRequirements,
             WWWGameService gameService,
             MinioMediaStorageService mediaStorageService,
             ObjectMapper objectMapper,
@@ -64,11 +64,15 @@ public class EnhancedQuizService extends QuizService {
             QuizQuestionDTOEnricher dtoEnricher,
             WagerService wagerService,
             BrainRingService brainRingService,
-            ChallengeQuestionAssignmentRepository challengeQuestionAssignmentRepository) {
+            ChallengeQuestionAssignmentRepository challengeQuestionAssignmentRepository,
+            RandomQuestionSampler questionSampler,
+            QuestionAccessService accessService,
+            QuizAnswerPipeline answerPipeline) {
 
         super(quizQuestionRepository, quizSessionRepository, quizRoundRepository,
-                challengeRepository, userRepository, mediaFileRepository, questRepository, gameService,
-                mediaStorageService, topicService, dtoEnricher, wagerService, brainRingService);
+                challengeRepository, userRepository, mediaFileRepository, questRequirements, gameService,
+                mediaStorageService, topicService, dtoEnricher, wagerService, brainRingService, questionSampler,
+                accessService, answerPipeline);
 
         this.objectMapper = objectMapper;
         this.taskRepository = taskRepository;
@@ -486,15 +490,16 @@ public class EnhancedQuizService extends QuizService {
     }
 
     private void assignSelectedQuestions(Challenge challenge, List<Long> questionIds, User assignedBy) {
-        List<QuizQuestion> existingQuestions = quizQuestionRepository.findAllById(questionIds);
+        List<QuizQuestion> existingQuestions = accessService.filterAccessible(
+                quizQuestionRepository.findAllById(questionIds), assignedBy.getId());
 
         if (existingQuestions.isEmpty()) {
-            log.warn("None of the provided question IDs were found for challenge {}: {}", challenge.getId(), questionIds);
+            log.warn("None of the provided question IDs were found or accessible for challenge {}: {}", challenge.getId(), questionIds);
             return;
         }
 
         if (existingQuestions.size() < questionIds.size()) {
-            log.warn("Some question IDs were not found. Requested: {}, Found: {}",
+            log.warn("Some question IDs were not found or not accessible. Requested: {}, Found: {}",
                     questionIds.size(), existingQuestions.size());
         }
 
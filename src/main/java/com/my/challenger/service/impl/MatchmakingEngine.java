@@ -0,0 +1,369 @@
+package com.my.challenger.service.impl;
+
+import com.my.challenger.entity.enums.AudioChallengeType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory matchmaking queues.
+ * <p>
+ * Waiting players are bucketed by challenge type and round count, and within a bucket
+ * indexed by skill rating. A new ticket is paired immediately with the closest-rated
+ * waiting player inside the acceptable rating window; the window of every ticket widens
+ * with its wait time, and {@link #sweep(Instant)} re-runs pairing so long waiters
+ * eventually match anyone. Each bucket also keeps an arrival index for queue positions and
+ * a moving average of observed waits for estimates. Pairs whose match could not be written
+ * can be kept apart for a while with {@link #avoid(Pair, Instant)}, so the same two players
+ * are not paired against the same failure on every sweep.
+ * <p>
+ * The engine holds no persistence; {@link MatchmakingService} claims pairs in the database.
+ */
+@Component
+public class MatchmakingEngine {
+
+    private static final double WAIT_EMA_ALPHA = 0.2;
+
+    private final int baseWindow;
+    private final int widenPerSecond;
+    private final int maxWindow;
+    private final long defaultWaitSeconds;
+
+    private final Map<BucketKey, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Map<Long, BucketKey> bucketByUser = new ConcurrentHashMap<>();
+    private final Map<UserPair, Instant> avoidedUntil = new ConcurrentHashMap<>();
+
+    public MatchmakingEngine(
+            @Value("${app.matchmaking.rating-window.base:100}") int baseWindow,
+            @Value("${app.matchmaking.rating-window.widen-per-second:20}") int widenPerSecond,
+            @Value("${app.matchmaking.rating-window.max:1000}") int maxWindow,
+            @Value("${app.matchmaking.default-wait-seconds:30}") long defaultWaitSeconds) {
+        this.baseWindow = baseWindow;
+        this.widenPerSecond = widenPerSecond;
+        this.maxWindow = Math.max(baseWindow, maxWindow);
+        this.defaultWaitSeconds = defaultWaitSeconds;
+    }
+
+    record BucketKey(AudioChallengeType type, int rounds) {}
+
+    record UserPair(Long low, Long high) {
+        static UserPair of(Long a, Long b) {
+            return a < b ? new UserPair(a, b) : new UserPair(b, a);
+        }
+    }
+
+    /**
+     * A queued player. {@code entryId} refers to the persisted queue row.
+     */
+    public record Ticket(Long entryId, Long userId, AudioChallengeType type, int rounds, int rating,
+                         Instant queuedAt, Instant expiresAt) {
+        BucketKey bucket() {
+            return new BucketKey(type, rounds);
+        }
+    }
+
+    public record Pair(Ticket first, Ticket second) {}
+
+    public record Standing(int position, int queueSize, long estimatedWaitSeconds) {}
+
+    /**
+     * Queues the ticket, replacing any ticket the user already had, and pairs it right away
+     * if a compatible opponent is waiting.
+     */
+    public Optional<Pair> enqueue(Ticket ticket, Instant now) {
+        remove(ticket.userId());
+        Bucket bucket = buckets.computeIfAbsent(ticket.bucket(), k -> new Bucket());
+        synchronized (bucket) {
+            Waiting partner = findPartner(bucket, ticket, now);
+            if (partner != null) {
+                bucket.remove(partner);
+                bucketByUser.remove(partner.ticket.userId());
+                bucket.recordWait(partner.ticket, now);
+                bucket.recordWait(ticket, now);
+                return Optional.of(new Pair(partner.ticket, ticket));
+            }
+            bucket.add(ticket);
+            bucketByUser.put(ticket.userId(), ticket.bucket());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Puts a ticket back without pairing it, e.g. after its match could not be written.
+     * It is considered again by the next {@link #sweep(Instant)}.
+     */
+    public void requeue(Ticket ticket) {
+        remove(ticket.userId());
+        Bucket bucket = buckets.computeIfAbsent(ticket.bucket(), k -> new Bucket());
+        synchronized (bucket) {
+            bucket.add(ticket);
+            bucketByUser.put(ticket.userId(), ticket.bucket());
+        }
+    }
+
+    /**
+     * Keeps the two players of a pair from being paired with each other until {@code until}.
+     * Either of them can still be paired with anyone else.
+     */
+    public void avoid(Pair pair, Instant until) {
+        avoidedUntil.put(UserPair.of(pair.first().userId(), pair.second().userId()), until);
+    }
+
+    /**
+     * Pairs tickets whose rating windows have widened enough since they were queued and
+     * drops expired tickets. Oldest tickets pick first.
+     */
+    public List<Pair> sweep(Instant now) {
+        avoidedUntil.values().removeIf(until -> !until.isAfter(now));
+        List<Pair> pairs = new ArrayList<>();
+        for (Bucket bucket : buckets.values()) {
+            synchronized (bucket) {
+                for (Waiting waiting : new ArrayList<>(bucket.byUser.values())) {
+                    if (!bucket.contains(waiting)) {
+                        continue;
+                    }
+                    if (waiting.ticket.expiresAt() != null && waiting.ticket.expiresAt().isBefore(now)) {
+                        bucket.remove(waiting);
+                        bucketByUser.remove(waiting.ticket.userId());
+                        continue;
+                    }
+                    Waiting partner = findPartner(bucket, waiting.ticket, now);
+                    if (partner == null) {
+                        continue;
+                    }
+                    bucket.remove(waiting);
+                    bucket.remove(partner);
+                    bucketByUser.remove(waiting.ticket.userId());
+                    bucketByUser.remove(partner.ticket.userId());
+                    bucket.recordWait(waiting.ticket, now);
+                    bucket.recordWait(partner.ticket, now);
+                    pairs.add(new Pair(waiting.ticket, partner.ticket));
+                }
+            }
+        }
+        return pairs;
+    }
+
+    public boolean remove(Long userId) {
+        BucketKey key = bucketByUser.remove(userId);
+        if (key == null) {
+            return false;
+        }
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            return false;
+        }
+        synchronized (bucket) {
+            Waiting waiting = bucket.byUser.get(userId);
+            if (waiting == null) {
+                return false;
+            }
+            bucket.remove(waiting);
+            return true;
+        }
+    }
+
+    public boolean contains(Long userId) {
+        return bucketByUser.containsKey(userId);
+    }
+
+    /**
+     * Position in the bucket by arrival (1 = longest waiting) and the expected remaining
+     * wait, based on how long recently matched players in the same bucket waited.
+     */
+    public Optional<Standing> standing(Long userId, Instant now) {
+        BucketKey key = bucketByUser.get(userId);
+        Bucket bucket = key != null ? buckets.get(key) : null;
+        if (bucket == null) {
+            return Optional.empty();
+        }
+        synchronized (bucket) {
+            Waiting waiting = bucket.byUser.get(userId);
+            if (waiting == null) {
+                return Optional.empty();
+            }
+            long expectedMillis = bucket.avgWaitMillis >= 0
+                    ? (long) bucket.avgWaitMillis
+                    : Duration.ofSeconds(defaultWaitSeconds).toMillis();
+            long waitedMillis = Duration.between(waiting.ticket.queuedAt(), now).toMillis();
+            long remainingSeconds = Math.max(0, (expectedMillis - waitedMillis + 999) / 1000);
+            return Optional.of(new Standing(bucket.arrivals.prefix(waiting.slot), bucket.size(), remainingSeconds));
+        }
+    }
+
+    public int size() {
+        return bucketByUser.size();
+    }
+
+    int window(Ticket ticket, Instant now) {
+        long waitedSeconds = Math.max(0, Duration.between(ticket.queuedAt(), now).getSeconds());
+        return (int) Math.min(maxWindow, baseWindow + waitedSeconds * widenPerSecond);
+    }
+
+    /**
+     * Closest-rated waiting ticket that either side's window accepts; the oldest ticket
+     * wins among equal ratings. Only ratings within the maximum window are inspected, and
+     * players the ticket's owner is currently avoided with are skipped.
+     */
+    private Waiting findPartner(Bucket bucket, Ticket ticket, Instant now) {
+        int ownWindow = window(ticket, now);
+        Waiting best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (Map.Entry<Integer, ArrayDeque<Waiting>> entry
+                : bucket.byRating.subMap(ticket.rating() - maxWindow, true, ticket.rating() + maxWindow, true).entrySet()) {
+            Waiting candidate = oldestOther(entry.getValue(), ticket.userId(), now);
+            if (candidate == null) {
+                continue;
+            }
+            int distance = Math.abs(entry.getKey() - ticket.rating());
+            if (distance > Math.max(ownWindow, window(candidate.ticket, now))) {
+                continue;
+            }
+            if (distance < bestDistance
+                    || (distance == bestDistance && candidate.ticket.queuedAt().isBefore(best.ticket.queuedAt()))) {
+                best = candidate;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    private Waiting oldestOther(ArrayDeque<Waiting> sameRating, Long userId, Instant now) {
+        for (Waiting waiting : sameRating) {
+            if (!waiting.ticket.userId().equals(userId) && !isAvoided(userId, waiting.ticket.userId(), now)) {
+                return waiting;
+            }
+        }
+        return null;
+    }
+
+    private boolean isAvoided(Long userId, Long otherUserId, Instant now) {
+        if (avoidedUntil.isEmpty()) {
+            return false;
+        }
+        Instant until = avoidedUntil.get(UserPair.of(userId, otherUserId));
+        return until != null && until.isAfter(now);
+    }
+
+    private static final class Waiting {
+        private final Ticket ticket;
+        private int slot;
+
+        private Waiting(Ticket ticket) {
+            this.ticket = ticket;
+        }
+    }
+
+    /**
+     * One (type, rounds) queue. Guarded by its own monitor.
+     */
+    private static final class Bucket {
+        private final NavigableMap<Integer, ArrayDeque<Waiting>> byRating = new TreeMap<>();
+        // Insertion order is arrival order, which is also slot order
+        private final LinkedHashMap<Long, Waiting> byUser = new LinkedHashMap<>();
+        private final ArrivalIndex arrivals = new ArrivalIndex();
+        private double avgWaitMillis = -1;
+
+        void add(Ticket ticket) {
+            Waiting waiting = new Waiting(ticket);
+            if (!arrivals.hasFreeSlot()) {
+                compact();
+            }
+            waiting.slot = arrivals.take();
+            index(waiting);
+        }
+
+        void remove(Waiting waiting) {
+            if (byUser.remove(waiting.ticket.userId(), waiting)) {
+                arrivals.add(waiting.slot, -1);
+                ArrayDeque<Waiting> sameRating = byRating.get(waiting.ticket.rating());
+                sameRating.remove(waiting);
+                if (sameRating.isEmpty()) {
+                    byRating.remove(waiting.ticket.rating());
+                }
+            }
+        }
+
+        boolean contains(Waiting waiting) {
+            return byUser.get(waiting.ticket.userId()) == waiting;
+        }
+
+        int size() {
+            return byUser.size();
+        }
+
+        void recordWait(Ticket ticket, Instant now) {
+            long waited = Math.max(0, Duration.between(ticket.queuedAt(), now).toMillis());
+            avgWaitMillis = avgWaitMillis < 0 ? waited : avgWaitMillis + WAIT_EMA_ALPHA * (waited - avgWaitMillis);
+        }
+
+        private void index(Waiting waiting) {
+            arrivals.add(waiting.slot, 1);
+            byUser.put(waiting.ticket.userId(), waiting);
+            byRating.computeIfAbsent(waiting.ticket.rating(), r -> new ArrayDeque<>()).addLast(waiting);
+        }
+
+        /**
+         * Renumbers waiting tickets into slots 0..n-1 (keeping their order) once the index
+         * runs out of slots.
+         */
+        private void compact() {
+            List<Waiting> waiting = new ArrayList<>(byUser.values());
+            arrivals.reset(Math.max(64, waiting.size() * 2));
+            for (Waiting w : waiting) {
+                w.slot = arrivals.take();
+                arrivals.add(w.slot, 1);
+            }
+        }
+    }
+
+    /**
+     * Fenwick tree over arrival slots: marks which slots are still waiting, so the number of
+     * tickets ahead of a slot is a prefix sum.
+     */
+    static final class ArrivalIndex {
+        private int[] tree = new int[65];
+        private int nextSlot;
+
+        boolean hasFreeSlot() {
+            return nextSlot < tree.length - 1;
+        }
+
+        int take() {
+            return nextSlot++;
+        }
+
+        void reset(int capacity) {
+            tree = new int[capacity + 1];
+            nextSlot = 0;
+        }
+
+        void add(int slot, int delta) {
+            for (int i = slot + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        /**
+         * Count of occupied slots in {@code [0, slot]}.
+         */
+        int prefix(int slot) {
+            int sum = 0;
+            for (int i = slot + 1; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+    }
+}
@@ -4,24 +4,53 @@ import com.my.challenger.dto.competitive.MatchmakingStatusDTO;
 import com.my.challenger.entity.User;
 import com.my.challenger.entity.competitive.CompetitiveMatch;
 import com.my.challenger.entity.competitive.MatchmakingQueueEntry;
-import com.my.challenger.entity.enums.AudioChallengeType;
 import com.my.challenger.entity.enums.CompetitiveMatchStatus;
 import com.my.challenger.entity.enums.CompetitiveMatchType;
 import com.my.challenger.entity.enums.MatchmakingStatus;
 import com.my.challenger.repository.CompetitiveMatchRepository;
 import com.my.challenger.repository.MatchmakingQueueRepository;
-import com.my.challenger.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Random matchmaking on top of {@link MatchmakingEngine}.
+ * <p>
+ * Queue entries are still persisted in {@code matchmaking_queue}; once the joining
+ * transaction commits the entry is handed to the engine, which pairs it on the spot when a
+ * compatible opponent is waiting. Both rows of a pair are locked and re-checked before the
+ * match is written, so a player can never be matched twice even when several nodes hold
+ * the same entry. Each node periodically imports entries queued elsewhere (and all of them
+ * on startup), which keeps the engines in sync and recovers the queue after a restart.
+ * Imports select by {@code queued_at} and reach back an overlap window behind the newest
+ * entry seen, because rows do not commit in id or {@code queued_at} order.
+ */
 @Service
 @Slf4j
 @RequiredArgsConstructor
@@ -29,73 +58,75 @@ public class MatchmakingService {
 
     private final MatchmakingQueueRepository queueRepository;
     private final CompetitiveMatchRepository matchRepository;
-    private final UserRepository userRepository;
+    private final MatchmakingEngine engine;
+    private final PlatformTransactionManager transactionManager;
 
-    @Scheduled(fixedRate = 5000) // Every 5 seconds
-    @SchedulerLock(name = "MatchmakingService_processQueue", lockAtLeastFor = "PT2S", lockAtMostFor = "PT4S")
-    @Transactional
-    public void processMatchmakingQueue() {
-        // We iterate through challenge types to find matches
-        // In a real production system, this would be more optimized (e.g. database query for pairs)
-        for (AudioChallengeType type : AudioChallengeType.values()) {
-            // Process common round counts
-            processQueueForTypeAndRounds(type, 1);
-            processQueueForTypeAndRounds(type, 3);
-            processQueueForTypeAndRounds(type, 5);
-        }
-    }
+    @Value("${app.matchmaking.default-rating:1000}")
+    private int defaultRating;
 
-    private void processQueueForTypeAndRounds(AudioChallengeType type, Integer rounds) {
-        List<MatchmakingQueueEntry> entries = queueRepository
-                .findByStatusAndAudioChallengeTypeAndPreferredRounds(
-                        MatchmakingStatus.QUEUED, type, rounds);
-
-        if (entries.size() < 2) {
-            return;
-        }
+    @Value("${app.matchmaking.import-overlap-seconds:60}")
+    private long importOverlapSeconds;
 
-        log.info("Found {} players for {} ({} rounds)", entries.size(), type, rounds);
+    @Value("${app.matchmaking.failed-pair-backoff-seconds:30}")
+    private long failedPairBackoffSeconds;
 
-        // Simple FIFO matching
-        for (int i = 0; i < entries.size() - 1; i += 2) {
-            MatchmakingQueueEntry entry1 = entries.get(i);
-            MatchmakingQueueEntry entry2 = entries.get(i + 1);
+    private TransactionTemplate requiresNew;
+    // Newest queued_at imported so far; null until the full import on startup has run
+    private volatile LocalDateTime importedUpTo;
+    // Entries imported within the overlap window, by queued_at, so re-reads skip them
+    private final Map<Long, LocalDateTime> recentlyImported = new ConcurrentHashMap<>();
 
-            createMatch(entry1, entry2, type, rounds);
-        }
+    /**
+     * Published by {@code CompetitiveMatchServiceImpl} when a player joins the queue.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class EntryQueuedEvent {
+        private final Long entryId;
     }
 
-    private void createMatch(MatchmakingQueueEntry entry1, MatchmakingQueueEntry entry2, 
-                             AudioChallengeType type, Integer rounds) {
-        log.debug("Matching users {} and {}", entry1.getUser().getId(), entry2.getUser().getId());
+    @PostConstruct
+    void init() {
+        // Matching runs after the joining transaction has committed
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
 
-        // Create match
-        CompetitiveMatch match = CompetitiveMatch.builder()
-                .matchType(CompetitiveMatchType.RANDOM_MATCHMAKING)
-                .status(CompetitiveMatchStatus.READY)
-                .player1(entry1.getUser())
-                .player2(entry2.getUser())
-                .totalRounds(rounds)
-                .currentRound(0)
-                .audioChallengeType(type)
-                .startedAt(null) // Starts when players acknowledge? Or immediately?
-                                 // Instructions say "startMatch: Verify both players ready... Change status to IN_PROGRESS"
-                                 // But for random match, they just joined. Let's set to READY.
-                .build();
+    @TransactionalEventListener
+    public void handleEntryQueued(EntryQueuedEvent event) {
+        Optional<MatchmakingEngine.Ticket> ticket = requiresNew.execute(tx -> queueRepository
+                .findById(event.getEntryId())
+                .filter(entry -> entry.getStatus() == MatchmakingStatus.QUEUED)
+                .map(this::toTicket));
+        if (ticket != null && ticket.isPresent()) {
+            engine.enqueue(ticket.get(), Instant.now()).ifPresent(this::matchOrRequeue);
+        }
+    }
 
-        match = matchRepository.save(match);
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverQueue() {
+        int imported = importQueuedEntries();
+        if (imported > 0) {
+            log.info("Restored {} matchmaking queue entries", imported);
+        }
+    }
 
-        // Update queue entries
-        updateEntryMatched(entry1, entry2.getUser(), match);
-        updateEntryMatched(entry2, entry1.getUser(), match);
+    /**
+     * Widens rating windows of waiting players and pairs the ones that now fit. Runs on
+     * in-memory state only.
+     */
+    @Scheduled(fixedDelayString = "${app.matchmaking.sweep-interval-ms:1000}")
+    public void sweepQueue() {
+        engine.sweep(Instant.now()).forEach(this::matchOrRequeue);
     }
 
-    private void updateEntryMatched(MatchmakingQueueEntry entry, User opponent, CompetitiveMatch match) {
-        entry.setStatus(MatchmakingStatus.MATCHED);
-        entry.setMatchedWithUser(opponent);
-        entry.setMatchedMatch(match);
-        entry.setMatchedAt(LocalDateTime.now());
-        queueRepository.save(entry);
+    /**
+     * Picks up entries queued through other nodes since the last import, including ones
+     * that committed late within the overlap window.
+     */
+    @Scheduled(fixedDelayString = "${app.matchmaking.sync-interval-ms:5000}")
+    public void syncQueue() {
+        importQueuedEntries();
     }
 
     @Scheduled(fixedRate = 60000) // Every minute
@@ -108,45 +139,192 @@ public class MatchmakingService {
         }
     }
 
+    public void removeFromQueue(Long userId) {
+        engine.remove(userId);
+    }
+
     @Transactional(readOnly = true)
     public MatchmakingStatusDTO getQueueStatus(Long userId) {
         Optional<MatchmakingQueueEntry> entryOpt = queueRepository.findByUserId(userId);
-        
+
         if (entryOpt.isEmpty()) {
             return null;
         }
-        
+
         MatchmakingQueueEntry entry = entryOpt.get();
-        
-        // Calculate position (naive)
-        int position = 0;
-        if (entry.getStatus() == MatchmakingStatus.QUEUED) {
-             // This is expensive, but for MVP acceptable
-             List<MatchmakingQueueEntry> preceding = queueRepository
-                     .findByStatusAndAudioChallengeTypeAndPreferredRounds(
-                             MatchmakingStatus.QUEUED, 
-                             entry.getAudioChallengeType(), 
-                             entry.getPreferredRounds());
-             
-             for (MatchmakingQueueEntry e : preceding) {
-                 position++;
-                 if (e.getId().equals(entry.getId())) break;
-             }
-        }
-        
-        return MatchmakingStatusDTO.builder()
+        MatchmakingStatusDTO.MatchmakingStatusDTOBuilder status = MatchmakingStatusDTO.builder()
                 .status(entry.getStatus().name())
                 .queuedAt(entry.getQueuedAt())
                 .audioChallengeType(entry.getAudioChallengeType().name())
                 .preferredRounds(entry.getPreferredRounds())
-                .queuePosition(position)
-                .estimatedWaitSeconds(position * 10) // Mock estimation
-                .build();
+                .queuePosition(0)
+                .estimatedWaitSeconds(0);
+
+        if (entry.getStatus() == MatchmakingStatus.QUEUED) {
+            // Not yet handed to the engine (joining transaction still open): count as last in line
+            engine.standing(userId, Instant.now()).ifPresentOrElse(
+                    standing -> status
+                            .queuePosition(standing.position())
+                            .estimatedWaitSeconds((int) Math.min(Integer.MAX_VALUE, standing.estimatedWaitSeconds())),
+                    () -> status.queuePosition(1));
+        }
+        return status.build();
     }
-    
-    @Transactional(readOnly = true)
+
     public int getEstimatedQueuePosition(Long userId) {
-         MatchmakingStatusDTO status = getQueueStatus(userId);
-         return status != null ? status.getQueuePosition() : 0;
+        MatchmakingStatusDTO status = getQueueStatus(userId);
+        return status != null ? status.getQueuePosition() : 0;
+    }
+
+    private synchronized int importQueuedEntries() {
+        LocalDateTime upTo = importedUpTo;
+        LocalDateTime since = upTo != null ? upTo.minusSeconds(importOverlapSeconds) : null;
+        List<MatchmakingQueueEntry> entries = since != null
+                ? queueRepository.findByStatusAndQueuedAtGreaterThanEqualOrderByQueuedAtAsc(MatchmakingStatus.QUEUED, since)
+                : queueRepository.findByStatusOrderByQueuedAtAsc(MatchmakingStatus.QUEUED);
+
+        Instant now = Instant.now();
+        LocalDateTime nowLocal = LocalDateTime.now();
+        LocalDateTime newest = upTo != null ? upTo : nowLocal;
+        int imported = 0;
+        for (MatchmakingQueueEntry entry : entries) {
+            LocalDateTime queuedAt = entry.getQueuedAt();
+            if (queuedAt != null && queuedAt.isAfter(newest)) {
+                newest = queuedAt;
+            }
+            if (recentlyImported.putIfAbsent(entry.getId(), queuedAt != null ? queuedAt : nowLocal) != null) {
+                continue;
+            }
+            if (entry.getExpiresAt().isBefore(nowLocal) || engine.contains(entry.getUser().getId())) {
+                continue;
+            }
+            imported++;
+            engine.enqueue(toTicket(entry), now).ifPresent(this::matchOrRequeue);
+        }
+
+        // Without new entries the watermark still follows the clock, keeping the re-read short
+        LocalDateTime floor = nowLocal.minusSeconds(importOverlapSeconds);
+        importedUpTo = newest.isAfter(floor) ? newest : floor;
+        LocalDateTime windowStart = importedUpTo.minusSeconds(importOverlapSeconds);
+        recentlyImported.values().removeIf(queuedAt -> queuedAt.isBefore(windowStart));
+        return imported;
+    }
+
+    /**
+     * Writes the match for a pair, re-pairing in a loop when one side turns out to be gone.
+     * Each attempt runs in its own transaction, so a failed attempt never poisons the next.
+     */
+    private void matchOrRequeue(MatchmakingEngine.Pair initial) {
+        Deque<MatchmakingEngine.Pair> pending = new ArrayDeque<>();
+        pending.add(initial);
+        while (!pending.isEmpty()) {
+            MatchmakingEngine.Pair pair = pending.poll();
+            List<MatchmakingEngine.Ticket> stillQueued;
+            try {
+                stillQueued = requiresNew.execute(tx -> createMatch(pair));
+            } catch (RuntimeException e) {
+                log.error("Failed to create match for users {} and {}: {}",
+                        pair.first().userId(), pair.second().userId(), e.getMessage());
+                // Pairing the same two players again would likely hit the same failure; they
+                // are kept apart for a while and remain free to match anyone else
+                engine.avoid(pair, Instant.now().plusSeconds(failedPairBackoffSeconds));
+                stillQueuedTickets(pair).forEach(engine::requeue);
+                continue;
+            }
+
+            Instant now = Instant.now();
+            for (MatchmakingEngine.Ticket ticket : stillQueued) {
+                engine.enqueue(ticket, now).ifPresent(pending::add);
+            }
+        }
+    }
+
+    /**
+     * Locks both queue rows and creates the match. If either row is no longer queued
+     * (cancelled, expired, or matched by another node) nothing is written.
+     *
+     * @return the tickets whose rows are still queued when no match was written; empty
+     * when the match was created
+     */
+    private List<MatchmakingEngine.Ticket> createMatch(MatchmakingEngine.Pair pair) {
+        MatchmakingEngine.Ticket first = pair.first();
+        MatchmakingEngine.Ticket second = pair.second();
+
+        Map<Long, MatchmakingQueueEntry> entries = lockEntries(pair);
+        MatchmakingQueueEntry entry1 = entries.get(first.entryId());
+        MatchmakingQueueEntry entry2 = entries.get(second.entryId());
+        if (!isQueued(entry1) || !isQueued(entry2)) {
+            List<MatchmakingEngine.Ticket> stillQueued = new ArrayList<>(1);
+            if (isQueued(entry1)) {
+                stillQueued.add(first);
+            }
+            if (isQueued(entry2)) {
+                stillQueued.add(second);
+            }
+            return stillQueued;
+        }
+
+        log.debug("Matching users {} and {}", first.userId(), second.userId());
+        CompetitiveMatch match = matchRepository.save(CompetitiveMatch.builder()
+                .matchType(CompetitiveMatchType.RANDOM_MATCHMAKING)
+                .status(CompetitiveMatchStatus.READY)
+                .player1(entry1.getUser())
+                .player2(entry2.getUser())
+                .totalRounds(first.rounds())
+                .currentRound(0)
+                .audioChallengeType(first.type())
+                .startedAt(null) // Players acknowledge the match before it starts
+                .build());
+
+        LocalDateTime now = LocalDateTime.now();
+        updateEntryMatched(entry1, entry2.getUser(), match, now);
+        updateEntryMatched(entry2, entry1.getUser(), match, now);
+        return List.of();
+    }
+
+    private List<MatchmakingEngine.Ticket> stillQueuedTickets(MatchmakingEngine.Pair pair) {
+        try {
+            Map<Long, MatchmakingQueueEntry> entries = requiresNew.execute(tx -> lockEntries(pair));
+            return Stream.of(pair.first(), pair.second())
+                    .filter(ticket -> isQueued(entries.get(ticket.entryId())))
+                    .toList();
+        } catch (RuntimeException e) {
+            // Rows unreadable too; the periodic import cannot see old entries, so keep both
+            log.warn("Could not re-check queue entries {} and {}: {}",
+                    pair.first().entryId(), pair.second().entryId(), e.getMessage());
+            return List.of(pair.first(), pair.second());
+        }
+    }
+
+    private Map<Long, MatchmakingQueueEntry> lockEntries(MatchmakingEngine.Pair pair) {
+        return queueRepository
+                .findAllForUpdateByIdIn(List.of(pair.first().entryId(), pair.second().entryId())).stream()
+                .collect(Collectors.toMap(MatchmakingQueueEntry::getId, Function.identity()));
+    }
+
+    private static boolean isQueued(MatchmakingQueueEntry entry) {
+        return entry != null && entry.getStatus() == MatchmakingStatus.QUEUED;
+    }
+
+    private void updateEntryMatched(MatchmakingQueueEntry entry, User opponent, CompetitiveMatch match,
+                                    LocalDateTime matchedAt) {
+        entry.setStatus(MatchmakingStatus.MATCHED);
+        entry.setMatchedWithUser(opponent);
+        entry.setMatchedMatch(match);
+        entry.setMatchedAt(matchedAt);
+        queueRepository.save(entry);
+    }
+
+    private MatchmakingEngine.Ticket toTicket(MatchmakingQueueEntry entry) {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDateTime queuedAt = entry.getQueuedAt() != null ? entry.getQueuedAt() : LocalDateTime.now();
+        return new MatchmakingEngine.Ticket(
+                entry.getId(),
+                entry.getUser().getId(),
+                entry.getAudioChallengeType(),
+                entry.getPreferredRounds(),
+                entry.getSkillRating() != null ? entry.getSkillRating() : defaultRating,
+                queuedAt.atZone(zone).toInstant(),
+                entry.getExpiresAt().atZone(zone).toInstant());
     }
 }
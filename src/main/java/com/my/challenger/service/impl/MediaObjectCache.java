@@ -0,0 +1,256 @@
+package com.my.challenger.service.impl;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Size-bounded local disk cache of hot media objects.
+ * <p>
+ * Objects are downloaded from MinIO once and kept as files under
+ * {@code app.media.cache.directory}; the index is a Caffeine cache weighed by file size, and
+ * evicted entries delete their file. Concurrent misses on the same key share one download:
+ * the first caller fetches the object while the others wait on its future. Cached files are
+ * served through {@link FileChannel#transferTo}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MediaObjectCache {
+
+    private static final long MB = 1024L * 1024L;
+
+    private final S3Client s3Client;
+
+    @Value("${app.media.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.media.cache.directory:${java.io.tmpdir}/challenger-media-cache}")
+    private String directory;
+
+    @Value("${app.media.cache.max-disk-mb:2048}")
+    private long maxDiskMb;
+
+    @Value("${app.media.cache.max-object-mb:64}")
+    private long maxObjectMb;
+
+    @Value("${app.media.cache.idle-ttl-minutes:60}")
+    private long idleTtlMinutes;
+
+    private Path cacheDir;
+    private AsyncCache<String, CachedObject> objects;
+
+    record CachedObject(Path file, long size) {}
+
+    @PostConstruct
+    void init() throws IOException {
+        cacheDir = Files.createDirectories(Path.of(directory));
+        // Files left by a previous run are not indexed, so they would never be evicted
+        clearDirectory();
+
+        objects = Caffeine.newBuilder()
+                .maximumWeight(maxDiskMb * MB)
+                .weigher((String key, CachedObject object) -> (int) Math.min(Integer.MAX_VALUE, object.size()))
+                .expireAfterAccess(Duration.ofMinutes(idleTtlMinutes))
+                .removalListener((String key, CachedObject object, RemovalCause cause) -> {
+                    if (object != null) {
+                        deleteQuietly(object.file());
+                    }
+                })
+                .buildAsync();
+        log.info("Media object cache {} at {} (max {} MB, objects up to {} MB)",
+                enabled ? "enabled" : "disabled", cacheDir, maxDiskMb, maxObjectMb);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        clearDirectory();
+    }
+
+    /**
+     * Opens {@code count} bytes of the object starting at {@code position} from the disk
+     * cache, downloading the object first on a miss.
+     *
+     * @return empty if the object is not cacheable (cache disabled or object too large) or
+     *         the download failed; callers then stream from MinIO directly
+     */
+    public Optional<InputStream> open(String bucket, String s3Key, long objectSize, long position, long count) {
+        if (!enabled || objectSize > maxObjectMb * MB) {
+            return Optional.empty();
+        }
+
+        CachedObject object;
+        try {
+            object = load(bucket, s3Key).join();
+        } catch (CompletionException e) {
+            log.warn("Media cache fill failed for {}/{}: {}", bucket, s3Key, e.getCause().getMessage());
+            return Optional.empty();
+        }
+
+        long end = position + Math.min(Math.max(0, count), Math.max(0, object.size() - position));
+        try {
+            return Optional.of(new FileRegionInputStream(
+                    FileChannel.open(object.file(), StandardOpenOption.READ), position, end));
+        } catch (IOException e) {
+            // Evicted between lookup and open
+            log.debug("Cached media file for {} vanished, streaming from storage", s3Key);
+            return Optional.empty();
+        }
+    }
+
+    public void invalidate(String s3Key) {
+        objects.synchronous().invalidate(s3Key);
+    }
+
+    private CompletableFuture<CachedObject> load(String bucket, String s3Key) {
+        CompletableFuture<CachedObject> loading = new CompletableFuture<>();
+        CompletableFuture<CachedObject> existing = objects.asMap().putIfAbsent(s3Key, loading);
+        if (existing != null) {
+            return existing;
+        }
+
+        // This caller won the race and downloads on its own thread; failed futures are
+        // dropped from the cache automatically so the next request retries
+        try {
+            loading.complete(download(bucket, s3Key));
+        } catch (RuntimeException e) {
+            loading.completeExceptionally(e);
+        }
+        return loading;
+    }
+
+    private CachedObject download(String bucket, String s3Key) {
+        Path file = cacheDir.resolve(UUID.randomUUID() + ".bin");
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(s3Key)
+                .build();
+
+        try (ResponseInputStream<GetObjectResponse> in = s3Client.getObject(request)) {
+            long size = Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            log.debug("Cached media object {}/{} ({} bytes)", bucket, s3Key, size);
+            return new CachedObject(file, size);
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw new UncheckedIOException("Failed to cache media object " + s3Key, e);
+        } catch (RuntimeException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+    }
+
+    private void clearDirectory() {
+        if (cacheDir == null) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDir, "*.bin")) {
+            files.forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("Could not clear media cache directory {}: {}", cacheDir, e.getMessage());
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete cached media file {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a byte range of a cached file. {@link #transferTo(OutputStream)}, which Spring uses
+     * to copy resource bodies to the response, hands the range to the channel in one call.
+     */
+    static final class FileRegionInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        FileRegionInputStream(FileChannel channel, long position, long end) {
+            this.channel = channel;
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == 1 ? single[0] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int toRead = (int) Math.min(len, end - position);
+            int read = channel.read(ByteBuffer.wrap(b, off, toRead), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, end - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(0, end - position));
+        }
+
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            WritableByteChannel target = Channels.newChannel(out);
+            long transferred = 0;
+            while (position < end) {
+                long n = channel.transferTo(position, end - position, target);
+                if (n <= 0) {
+                    break;
+                }
+                position += n;
+                transferred += n;
+            }
+            return transferred;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
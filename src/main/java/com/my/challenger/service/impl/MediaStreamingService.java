@@ -1,19 +1,32 @@
 package com.my.challenger.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.my.challenger.entity.MediaFile;
+import com.my.challenger.entity.enums.MediaType;
+import com.my.challenger.entity.quiz.QuizQuestion;
 import com.my.challenger.exception.MediaProcessingException;
 import com.my.challenger.exception.ResourceNotFoundException;
 import com.my.challenger.repository.MediaFileRepository;
+import com.my.challenger.repository.QuizQuestionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
 import java.io.InputStream;
+import java.time.Duration;
+import java.util.Optional;
 
+/**
+ * Streams media from S3/MinIO for the proxy endpoints.
+ * <p>
+ * Question media resolution, bucket lookups and object metadata are cached in Caffeine,
+ * and object bodies are served from {@link MediaObjectCache} when they fit in it, so a
+ * quiz round where every player fetches the same media costs one storage round trip.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -21,10 +34,44 @@ public class MediaStreamingService {
 
     private final S3Client s3Client;
     private final MediaFileRepository mediaFileRepository;
+    private final QuizQuestionRepository quizQuestionRepository;
+    private final MediaObjectCache objectCache;
 
     @Value("${app.storage.s3.bucket-name}")
     private String defaultBucketName;
 
+    // Short TTL: a question's media can be replaced while editing
+    private final Cache<Long, QuestionMedia> questionMediaCache = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofSeconds(60))
+            .build();
+
+    // Keys are UUID based and never reused, so key -> bucket never goes stale
+    private final Cache<String, String> bucketCache = Caffeine.newBuilder()
+            .maximumSize(50_000)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    private final Cache<String, HeadObjectResponse> metadataCache = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(5))
+            .build();
+
+    /**
+     * Storage coordinates of a question's media.
+     *
+     * @param s3Key        key of the media object, {@code null} if the question has none
+     * @param thumbnailKey key of the thumbnail, {@code null} if there is none
+     */
+    public record QuestionMedia(String s3Key, String thumbnailKey, MediaType mediaType) {}
+
+    /**
+     * Resolve question -> media file -> key, cached for a short time.
+     */
+    public QuestionMedia getQuestionMedia(Long questionId) {
+        return questionMediaCache.get(questionId, this::loadQuestionMedia);
+    }
+
     /**
      * Get media file entity by ID
      */
@@ -45,6 +92,11 @@ public class MediaStreamingService {
      * Stream full file from S3/MinIO
      */
     public InputStream streamMedia(String s3Key) {
+        Optional<InputStream> cached = openCached(s3Key, 0, Long.MAX_VALUE);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
         try {
             String bucket = resolveBucket(s3Key);
             GetObjectRequest request = GetObjectRequest.builder()
@@ -65,13 +117,18 @@ public class MediaStreamingService {
     /**
      * Stream partial content (for Range requests)
      */
-    public ResponseInputStream<GetObjectResponse> streamMediaRange(String s3Key, String rangeHeader) {
+    public InputStream streamMediaRange(String s3Key, long rangeStart, long rangeEnd) {
+        Optional<InputStream> cached = openCached(s3Key, rangeStart, rangeEnd - rangeStart + 1);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
         try {
             String bucket = resolveBucket(s3Key);
             GetObjectRequest request = GetObjectRequest.builder()
                     .bucket(bucket)
                     .key(s3Key)
-                    .range(rangeHeader)
+                    .range(String.format("bytes=%d-%d", rangeStart, rangeEnd))
                     .build();
 
             return s3Client.getObject(request);
@@ -84,10 +141,23 @@ public class MediaStreamingService {
         }
     }
 
+    /**
+     * Drops everything cached for {@code s3Key}; called when the object is deleted.
+     */
+    public void invalidate(String s3Key) {
+        metadataCache.invalidate(s3Key);
+        bucketCache.invalidate(s3Key);
+        objectCache.invalidate(s3Key);
+    }
+
     /**
      * Get file metadata from S3 (for Content-Length, ETag)
      */
     public HeadObjectResponse getObjectMetadata(String s3Key) {
+        return metadataCache.get(s3Key, this::headObject);
+    }
+
+    private HeadObjectResponse headObject(String s3Key) {
         try {
             String bucket = resolveBucket(s3Key);
             HeadObjectRequest request = HeadObjectRequest.builder()
@@ -109,8 +179,37 @@ public class MediaStreamingService {
      * Falls back to the default bucket name if no record is found.
      */
     private String resolveBucket(String s3Key) {
-        return mediaFileRepository.findByS3Key(s3Key)
-                .map(MediaFile::getBucketName)
-                .orElse(defaultBucketName);
+        return bucketCache.get(s3Key, key -> mediaFileRepository.findByS3Key(key)
+                .map(this::bucketOf)
+                .orElse(defaultBucketName));
+    }
+
+    private String bucketOf(MediaFile mediaFile) {
+        return mediaFile.getBucketName() != null ? mediaFile.getBucketName() : defaultBucketName;
+    }
+
+    private QuestionMedia loadQuestionMedia(Long questionId) {
+        QuizQuestion question = quizQuestionRepository.findById(questionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Question not found: " + questionId));
+
+        // Use questionMediaId if available, as it's more robust for bucket resolution
+        String s3Key = question.getQuestionMediaUrl();
+        if (question.getQuestionMediaId() != null) {
+            MediaFile mediaFile = mediaFileRepository.findById(question.getQuestionMediaId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Media file not found for ID: " + question.getQuestionMediaId()));
+            s3Key = mediaFile.getS3Key();
+            bucketCache.put(s3Key, bucketOf(mediaFile));
+        }
+
+        return new QuestionMedia(
+                s3Key != null && !s3Key.isEmpty() ? s3Key : null,
+                question.getQuestionThumbnailUrl() != null && !question.getQuestionThumbnailUrl().isEmpty()
+                        ? question.getQuestionThumbnailUrl() : null,
+                question.getQuestionMediaType());
+    }
+
+    private Optional<InputStream> openCached(String s3Key, long position, long count) {
+        long objectSize = getObjectMetadata(s3Key).contentLength();
+        return objectCache.open(resolveBucket(s3Key), s3Key, objectSize, position, count);
     }
 }
@@ -23,18 +23,24 @@ import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HexFormat;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -57,6 +63,7 @@ public class MinioMediaStorageService {
     private final S3KeyGenerator s3KeyGenerator;
     private final BucketResolver bucketResolver;
     private final StorageProperties storageProperties;
+    private final MediaStreamingService mediaStreamingService;
 
     // Legacy bucket name for backward compatibility
     @Value("${app.storage.s3.bucket-name}")
@@ -81,6 +88,9 @@ public class MinioMediaStorageService {
     private static final Set<String> DOCUMENT_TYPES = Set.of("application/pdf", "application/msword", "text/plain",
             "application/vnd.openxmlformats-officedocument.wordprocessingml.document");
 
+    // Heap buffered per upload; MinIO/S3 require at least 5 MB for every part but the last
+    private static final int MULTIPART_PART_SIZE = 8 * 1024 * 1024;
+
     private static final int THUMBNAIL_WIDTH = 300;
     private static final int THUMBNAIL_HEIGHT = 300;
 
@@ -108,23 +118,6 @@ public class MinioMediaStorageService {
             log.info("   - Category: {}", category);
 
             validateFile(file);
-            
-            byte[] fileContent = file.getBytes();
-            
-            // Calculate content hash for deduplication and integrity
-            String contentHash = calculateContentHash(fileContent);
-            
-            // Optional: Check for duplicate content from same user
-            if (contentHash != null) {
-                Optional<MediaFile> existing = mediaFileRepository
-                    .findByContentHashAndUploadedBy(contentHash, uploadedBy)
-                    .stream().findFirst();
-                if (existing.isPresent()) {
-                    log.info("Duplicate file detected for user {}, returning existing media {}", 
-                        uploadedBy, existing.get().getId());
-                    return existing.get();
-                }
-            }
 
             // Determine MediaType from content type with fallback
             String contentType = file.getContentType();
@@ -147,10 +140,28 @@ public class MinioMediaStorageService {
             );
             log.info("   - Generated S3 Key: {}", s3Key);
 
-            // Upload to MinIO
-            uploadToMinio(bucket, s3Key, fileContent, contentType);
+            // Stream to MinIO, hashing the content on the way for deduplication and integrity
+            MessageDigest digest = newContentDigest();
+            try (InputStream content = file.getInputStream()) {
+                streamToMinio(bucket, s3Key, content, file.getSize(), contentType, digest);
+            }
+            String contentHash = digest != null ? HexFormat.of().formatHex(digest.digest()) : null;
             log.info("   - Upload to MinIO: SUCCESS");
 
+            // Optional: Check for duplicate content from same user. The hash is only known once
+            // the content has been streamed, so the fresh object is dropped again on a hit.
+            if (contentHash != null) {
+                Optional<MediaFile> existing = mediaFileRepository
+                    .findByContentHashAndUploadedBy(contentHash, uploadedBy)
+                    .stream().findFirst();
+                if (existing.isPresent()) {
+                    log.info("Duplicate file detected for user {}, returning existing media {}", 
+                        uploadedBy, existing.get().getId());
+                    deleteQuietly(bucket, s3Key);
+                    return existing.get();
+                }
+            }
+
             // Create and save media file entity
             // Use entityId (questionId) if available, otherwise 0 or appropriate mapping
             Long entityRefId = (questionId != null) ? questionId : (quizId != null ? quizId : 0L);
@@ -272,6 +283,95 @@ public class MinioMediaStorageService {
         }
     }
 
+    /**
+     * Stream content to MinIO without holding the whole file on heap. Content that fits in
+     * one part goes out as a single PUT, anything larger as a multipart upload, so at most
+     * {@link #MULTIPART_PART_SIZE} bytes are buffered per request regardless of file size.
+     * The first buffer is sized from {@code declaredSize}, so small files do not allocate a
+     * full part. Every byte read is fed through {@code digest} when one is given.
+     */
+    private void streamToMinio(String bucket, String s3Key, InputStream content, long declaredSize,
+                               String contentType, MessageDigest digest) {
+        InputStream in = digest != null ? new DigestInputStream(content, digest) : content;
+        // One byte over the declared size tells a complete read from a longer stream
+        byte[] part = new byte[(int) Math.min(Math.max(0, declaredSize) + 1, MULTIPART_PART_SIZE)];
+        String uploadId = null;
+        try {
+            int read = in.readNBytes(part, 0, part.length);
+            if (read == part.length && part.length < MULTIPART_PART_SIZE) {
+                // Longer than declared: keep filling a full part
+                part = Arrays.copyOf(part, MULTIPART_PART_SIZE);
+                read += in.readNBytes(part, read, part.length - read);
+            }
+            if (read < MULTIPART_PART_SIZE) {
+                PutObjectRequest putRequest = PutObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(s3Key)
+                        .contentType(contentType)
+                        .build();
+                s3Client.putObject(putRequest, RequestBody.fromInputStream(new ByteArrayInputStream(part, 0, read), read));
+                log.debug("Uploaded file to MinIO bucket {}: {}", bucket, s3Key);
+                return;
+            }
+
+            uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(s3Key)
+                    .contentType(contentType)
+                    .build()).uploadId();
+
+            List<CompletedPart> completedParts = new ArrayList<>();
+            for (int partNumber = 1; read > 0; partNumber++) {
+                UploadPartRequest partRequest = UploadPartRequest.builder()
+                        .bucket(bucket)
+                        .key(s3Key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength((long) read)
+                        .build();
+                UploadPartResponse partResponse = s3Client.uploadPart(partRequest,
+                        RequestBody.fromInputStream(new ByteArrayInputStream(part, 0, read), read));
+                completedParts.add(CompletedPart.builder().partNumber(partNumber).eTag(partResponse.eTag()).build());
+                read = in.readNBytes(part, 0, part.length);
+            }
+
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(s3Key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                    .build());
+            log.debug("Uploaded file to MinIO bucket {} in {} parts: {}", bucket, completedParts.size(), s3Key);
+
+        } catch (Exception e) {
+            log.error("Failed to upload to MinIO: {}/{}", bucket, s3Key, e);
+            if (uploadId != null) {
+                abortMultipartUpload(bucket, s3Key, uploadId);
+            }
+            throw new MediaProcessingException("Failed to upload to MinIO", e);
+        }
+    }
+
+    private void abortMultipartUpload(String bucket, String s3Key, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(s3Key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (Exception e) {
+            log.warn("Failed to abort multipart upload {} for {}/{}", uploadId, bucket, s3Key, e);
+        }
+    }
+
+    private void deleteQuietly(String bucket, String s3Key) {
+        try {
+            deleteFromMinio(bucket, s3Key);
+        } catch (MediaProcessingException e) {
+            log.warn("Could not remove duplicate upload {}/{}", bucket, s3Key);
+        }
+    }
+
     /**
      * Get media file by ID
      */
@@ -363,6 +463,11 @@ public class MinioMediaStorageService {
             log.error("Error deleting files from MinIO for media {}", mediaFile.getId(), e);
             // Continue with database deletion even if MinIO deletion fails
         }
+        // Proxies would otherwise keep serving the deleted objects from their caches
+        mediaStreamingService.invalidate(mediaFile.getS3Key());
+        if (mediaFile.getThumbnailPath() != null) {
+            mediaStreamingService.invalidate(mediaFile.getThumbnailPath());
+        }
 
         mediaFileRepository.delete(mediaFile);
     }
@@ -679,11 +784,9 @@ public class MinioMediaStorageService {
         return (lastDotIndex == -1) ? "" : filename.substring(lastDotIndex + 1).toLowerCase();
     }
 
-    private String calculateContentHash(byte[] content) {
+    private MessageDigest newContentDigest() {
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(content);
-            return HexFormat.of().formatHex(hashBytes);
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
             log.warn("SHA-256 not available, skipping content hash");
             return null;
@@ -730,13 +833,26 @@ public class MinioMediaStorageService {
         return mediaFile;
     }
 
+    /**
+     * Reads the image dimensions from the file header only; the pixel data is never decoded.
+     */
     private void setImageMetadata(MediaFile mediaFile, MultipartFile file) throws IOException {
-        try {
-            BufferedImage image = ImageIO.read(new ByteArrayInputStream(file.getBytes()));
-            if (image != null) {
-                mediaFile.setWidth(image.getWidth());
-                mediaFile.setHeight(image.getHeight());
-                mediaFile.setResolution(image.getWidth() + "x" + image.getHeight());
+        try (InputStream content = file.getInputStream();
+             ImageInputStream imageStream = ImageIO.createImageInputStream(content)) {
+            Iterator<ImageReader> readers = imageStream != null ? ImageIO.getImageReaders(imageStream) : null;
+            if (readers == null || !readers.hasNext()) {
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageStream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                mediaFile.setWidth(width);
+                mediaFile.setHeight(height);
+                mediaFile.setResolution(width + "x" + height);
+            } finally {
+                reader.dispose();
             }
         } catch (IOException e) {
             log.warn("Could not read image metadata for file: {}", file.getOriginalFilename());
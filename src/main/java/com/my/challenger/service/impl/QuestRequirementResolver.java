@@ -0,0 +1,97 @@
+package com.my.challenger.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.my.challenger.entity.listener.QuestEntityListener.QuestChangedEvent;
+import com.my.challenger.repository.QuestRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Minimum score requirements of challenges, indexed by challenge id.
+ * <p>
+ * A challenge's requirement comes from the first quest linked to it through
+ * {@code challenge_quests} that sets a minimum score. Lookups are cached per challenge,
+ * including challenges without a requirement; the whole index is dropped when a quest changes.
+ * Links are written without JPA and quests may change on other nodes, so the index is also
+ * dropped when the {@code quest_requirement_version} counter, bumped by a trigger on both
+ * tables, moves.
+ */
+@Slf4j
+@Component
+public class QuestRequirementResolver {
+
+    private final Function<Long, Optional<Requirement>> loader;
+    private final LongSupplier versionLoader;
+    private final Cache<Long, Optional<Requirement>> requirements;
+
+    // Counter seen by the last poll; the first poll always drops the index
+    private volatile long seenVersion = Long.MIN_VALUE;
+
+    @Autowired
+    public QuestRequirementResolver(
+            QuestRepository questRepository,
+            @Value("${app.quest-requirements.cache-size:20000}") long cacheSize,
+            @Value("${app.quest-requirements.ttl-minutes:30}") long ttlMinutes) {
+        this(challengeId -> toRequirement(questRepository.findMinimumScoreRequirement(challengeId)),
+                () -> Optional.ofNullable(questRepository.findRequirementVersion()).orElse(0L),
+                cacheSize, ttlMinutes);
+    }
+
+    QuestRequirementResolver(Function<Long, Optional<Requirement>> loader, LongSupplier versionLoader,
+                             long cacheSize, long ttlMinutes) {
+        this.loader = loader;
+        this.versionLoader = versionLoader;
+        this.requirements = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                // Backstop for links changed outside JPA
+                .expireAfterWrite(Duration.ofMinutes(Math.max(1, ttlMinutes)))
+                .build();
+    }
+
+    public record Requirement(Long questId, int minimumScorePercentage) {}
+
+    public Optional<Requirement> find(Long challengeId) {
+        return requirements.get(challengeId, loader);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQuestChanged(QuestChangedEvent event) {
+        log.debug("Quest {} changed, dropping cached score requirements", event.getQuestId());
+        requirements.invalidateAll();
+    }
+
+    @Scheduled(fixedDelayString = "${app.quest-requirements.version-poll-ms:10000}")
+    public void pollVersion() {
+        long version;
+        try {
+            version = versionLoader.getAsLong();
+        } catch (RuntimeException e) {
+            log.warn("Could not read quest requirement version: {}", e.getMessage());
+            return;
+        }
+        if (version != seenVersion) {
+            log.debug("Quest requirement version moved to {}, dropping cached score requirements", version);
+            requirements.invalidateAll();
+            seenVersion = version;
+        }
+    }
+
+    private static Optional<Requirement> toRequirement(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = rows.get(0);
+        return Optional.of(new Requirement(((Number) row[0]).longValue(), ((Number) row[1]).intValue()));
+    }
+}
@@ -0,0 +1,168 @@
+package com.my.challenger.service.impl;
+
+import com.my.challenger.entity.enums.QuestionAccessType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind pipeline for {@code question_access_log}.
+ * <p>
+ * Request threads only offer an entry to a bounded buffer; a scheduled flush drains it and
+ * writes JDBC batch inserts outside any caller transaction. When the buffer is full new
+ * entries are dropped and counted rather than blocking the request. A batch that fails
+ * (for example because a question was deleted in the meantime) is retried row by row so
+ * one bad entry does not lose the others. Pending entries are flushed on shutdown.
+ */
+@Slf4j
+@Component
+public class QuestionAccessLogWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO question_access_log (question_id, accessed_by_user_id, access_type, accessed_at) " +
+                    "VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final BlockingQueue<Entry> buffer;
+    private final int batchSize;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private Counter enqueuedCounter;
+    private Counter droppedCounter;
+    private Counter writtenCounter;
+    private Counter failedCounter;
+
+    public QuestionAccessLogWriter(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Autowired(required = false) MeterRegistry meterRegistry,
+            @Value("${app.question-access-log.buffer-capacity:10000}") int bufferCapacity,
+            @Value("${app.question-access-log.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Each batch commits or rolls back as a whole, so the row-by-row retry cannot duplicate rows
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, bufferCapacity));
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    record Entry(long questionId, long userId, QuestionAccessType accessType, LocalDateTime accessedAt) {}
+
+    @PostConstruct
+    void initMetrics() {
+        if (meterRegistry == null) {
+            return;
+        }
+        enqueuedCounter = Counter.builder("question.access.log.enqueued")
+                .description("Question access log entries accepted into the buffer")
+                .register(meterRegistry);
+        droppedCounter = Counter.builder("question.access.log.dropped")
+                .description("Question access log entries dropped because the buffer was full")
+                .register(meterRegistry);
+        writtenCounter = Counter.builder("question.access.log.written")
+                .description("Question access log entries written to the database")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("question.access.log.failed")
+                .description("Question access log entries that could not be written")
+                .register(meterRegistry);
+        Gauge.builder("question.access.log.buffered", buffer, BlockingQueue::size)
+                .description("Question access log entries waiting to be written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues an entry without blocking. Returns {@code false} if the buffer is full and the
+     * entry was dropped.
+     */
+    public boolean enqueue(long questionId, long userId, QuestionAccessType accessType) {
+        if (buffer.offer(new Entry(questionId, userId, accessType, LocalDateTime.now()))) {
+            increment(enqueuedCounter, 1);
+            return true;
+        }
+        long total = dropped.incrementAndGet();
+        increment(droppedCounter, 1);
+        // Power-of-two sampling keeps the warning visible without flooding the log
+        if (Long.bitCount(total) == 1) {
+            log.warn("Question access log buffer full, {} entries dropped so far", total);
+        }
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${app.question-access-log.flush-interval-ms:1000}")
+    public void flush() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing {} pending question access log entries before shutdown", buffer.size());
+        flush();
+    }
+
+    public int pending() {
+        return buffer.size();
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    private void write(List<Entry> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(tx ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, entry) -> {
+                        ps.setLong(1, entry.questionId());
+                        ps.setLong(2, entry.userId());
+                        ps.setString(3, entry.accessType().name());
+                        ps.setTimestamp(4, Timestamp.valueOf(entry.accessedAt()));
+                    }));
+            increment(writtenCounter, batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Batch insert of {} question access log entries failed, retrying individually: {}",
+                    batch.size(), e.getMessage());
+            batch.forEach(this::writeSingle);
+        }
+    }
+
+    private void writeSingle(Entry entry) {
+        try {
+            transactionTemplate.executeWithoutResult(tx ->
+                    jdbcTemplate.update(INSERT_SQL, entry.questionId(), entry.userId(), entry.accessType().name(),
+                            Timestamp.valueOf(entry.accessedAt())));
+            increment(writtenCounter, 1);
+        } catch (RuntimeException e) {
+            increment(failedCounter, 1);
+            log.debug("Dropping question access log entry for question {}: {}", entry.questionId(), e.getMessage());
+        }
+    }
+
+    private static void increment(Counter counter, long amount) {
+        if (counter != null) {
+            counter.increment(amount);
+        }
+    }
+}
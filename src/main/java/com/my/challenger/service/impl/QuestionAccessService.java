@@ -12,7 +12,10 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -21,12 +24,47 @@ public class QuestionAccessService {
 
     private final QuestionAccessLogRepository accessLogRepository;
     private final UserRelationshipService relationshipService;
+    private final QuestionAccessLogWriter accessLogWriter;
 
     /**
      * Check if a user can access a question
      */
     @Transactional(readOnly = true)
     public boolean canAccessQuestion(QuizQuestion question, Long userId) {
+        return isAccessible(question, userId, new Connections(userId));
+    }
+
+    /**
+     * Check access to several questions at once. Bit {@code i} of the result is set when the
+     * user can access {@code questions.get(i)}; the user's connections are resolved at most
+     * once for the whole batch.
+     */
+    @Transactional(readOnly = true)
+    public BitSet canAccessQuestions(List<QuizQuestion> questions, Long userId) {
+        BitSet visible = new BitSet(questions.size());
+        Connections connections = new Connections(userId);
+        for (int i = 0; i < questions.size(); i++) {
+            if (isAccessible(questions.get(i), userId, connections)) {
+                visible.set(i);
+            }
+        }
+        return visible;
+    }
+
+    /**
+     * The questions the user can access, in their original order
+     */
+    @Transactional(readOnly = true)
+    public List<QuizQuestion> filterAccessible(List<QuizQuestion> questions, Long userId) {
+        BitSet visible = canAccessQuestions(questions, userId);
+        List<QuizQuestion> accessible = new ArrayList<>(visible.cardinality());
+        for (int i = visible.nextSetBit(0); i >= 0; i = visible.nextSetBit(i + 1)) {
+            accessible.add(questions.get(i));
+        }
+        return accessible;
+    }
+
+    private boolean isAccessible(QuizQuestion question, Long userId, Connections connections) {
         if (question == null || userId == null) {
             return false;
         }
@@ -47,7 +85,7 @@ public class QuestionAccessService {
 
             case FRIENDS_FAMILY:
                 // Check if user is connected to creator
-                return relationshipService.areUsersConnected(question.getCreator().getId(), userId);
+                return question.getCreator() != null && connections.get().contains(question.getCreator().getId());
 
             case QUIZ_ONLY:
                 // Check if user has access to the original quiz
@@ -64,6 +102,25 @@ public class QuestionAccessService {
         }
     }
 
+    /**
+     * The user's connected user ids, looked up on first use
+     */
+    private final class Connections {
+        private final Long userId;
+        private Set<Long> ids;
+
+        private Connections(Long userId) {
+            this.userId = userId;
+        }
+
+        Set<Long> get() {
+            if (ids == null) {
+                ids = relationshipService.getConnectedUserIdSet(userId);
+            }
+            return ids;
+        }
+    }
+
     /**
      * Verify access and throw exception if denied
      */
@@ -83,18 +140,13 @@ public class QuestionAccessService {
     }
 
     /**
-     * Log access to a question
+     * Log access to a question. The entry is buffered and written asynchronously by
+     * {@link QuestionAccessLogWriter}, so this never touches the caller's transaction.
      */
-    @Transactional
     public void logAccess(QuizQuestion question, User user, QuestionAccessType accessType) {
-        QuestionAccessLog accessLog = QuestionAccessLog.builder()
-                .question(question)
-                .accessedByUser(user)
-                .accessType(accessType)
-                .build();
-
-        accessLogRepository.save(accessLog);
-        log.info("Logged {} access to question {} by user {}", accessType, question.getId(), user.getId());
+        if (accessLogWriter.enqueue(question.getId(), user.getId(), accessType)) {
+            log.debug("Queued {} access to question {} by user {}", accessType, question.getId(), user.getId());
+        }
     }
 
     /**
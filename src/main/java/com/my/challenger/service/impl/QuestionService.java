@@ -58,6 +58,7 @@ public class QuestionService {
     private final TaskRepository taskRepository;
     private final ChallengeProgressRepository challengeProgressRepository;
     private final com.my.challenger.service.BrainRingService brainRingService;
+    private final QuizService quizService;
 
     @Transactional
     public QuizQuestionDTO createQuestionWithMedia(
@@ -441,58 +442,20 @@ public class QuestionService {
         log.info("Submitting answer for session {} round {} by user: {}",
                 sessionId, request.getRoundNumber(), userId);
 
-        QuizSession session = findUserSession(sessionId, userId);
-
-        if (session.getStatus() != QuizSessionStatus.IN_PROGRESS) {
-            throw new IllegalStateException("Session must be in progress to submit answers");
-        }
-
-        QuizRound round = quizRoundRepository
-                .findByQuizSessionIdAndRoundNumber(sessionId, request.getRoundNumber())
+        // Only the id is read here: the session must first be loaded under the lock taken by
+        // submitRoundAnswerById, which checks access and status, validates locally and defers
+        // AI validation of a rejected answer until after commit
+        Long roundId = quizRoundRepository
+                .findIdByQuizSessionIdAndRoundNumber(sessionId, request.getRoundNumber())
                 .orElseThrow(() -> new IllegalArgumentException("Round not found"));
 
-        if (round.getAnswerSubmittedAt() != null) {
-            throw new IllegalStateException("Answer already submitted for this round");
-        }
-
-        // Validate answer
-        boolean enableAiValidation = session.getEnableAiAnswerValidation() != null && session.getEnableAiAnswerValidation();
-        AnswerValidationResult validationResult = gameService.validateAnswerEnhanced(
-                request.getTeamAnswer(),
-                round.getQuestion().getAnswer(),
-                enableAiValidation,
-                "en" // Default to English, could be parameterized
-        );
-        
-        boolean isCorrect = validationResult.isCorrect();
-
-        // Update round
-        round.setTeamAnswer(request.getTeamAnswer());
-        round.setIsCorrect(isCorrect);
-        round.setPlayerWhoAnswered(request.getPlayerWhoAnswered());
-        round.setDiscussionNotes(request.getDiscussionNotes());
-        round.setHintUsed(request.getHintUsed() != null ? request.getHintUsed() : false);
-        round.setVoiceRecordingUsed(request.getVoiceRecordingUsed() != null ? request.getVoiceRecordingUsed() : false);
-        round.setAnswerSubmittedAt(LocalDateTime.now());
-        
-        // Set AI validation metadata
-        round.setAiValidationUsed(validationResult.isAiUsed());
-        round.setAiAccepted(validationResult.isAiAccepted());
-        round.setAiConfidence(validationResult.getAiConfidence());
-        round.setAiExplanation(validationResult.getAiExplanation());
-
-        // Generate AI feedback if enabled
-        if (session.getEnableAiHost() != null && session.getEnableAiHost()) {
-            String feedback = gameService.generateRoundFeedback(round, isCorrect);
-            round.setAiFeedback(feedback);
-        }
-
-        QuizRound savedRound = quizRoundRepository.save(round);
-
-        // Update session progress
-        updateSessionProgress(session);
-
-        return convertRoundToDTO(savedRound);
+        return quizService.submitRoundAnswerById(sessionId, roundId, SubmitRoundAnswerByIdRequest.builder()
+                .teamAnswer(request.getTeamAnswer())
+                .playerWhoAnswered(request.getPlayerWhoAnswered())
+                .discussionNotes(request.getDiscussionNotes())
+                .hintUsed(request.getHintUsed())
+                .voiceRecordingUsed(request.getVoiceRecordingUsed())
+                .build(), userId);
     }
 
     @Transactional
@@ -739,9 +702,10 @@ public class QuestionService {
 
         if (QuestionSource.user.equals(request.getQuestionSource()) && request.getCustomQuestionIds() != null && !request.getCustomQuestionIds().isEmpty()) {
             log.info("Using {} custom questions for session {}", request.getCustomQuestionIds().size(), session.getId());
-            questions = quizQuestionRepository.findAllById(request.getCustomQuestionIds());
+            questions = accessService.filterAccessible(
+                    quizQuestionRepository.findAllById(request.getCustomQuestionIds()), session.getHostUser().getId());
             if (questions.isEmpty()) {
-                throw new IllegalArgumentException("No custom questions found for the provided IDs");
+                throw new IllegalArgumentException("No accessible custom questions found for the provided IDs");
             }
             if (questions.size() < request.getTotalRounds()) {
                 log.info("Adjusting totalRounds from {} to {} to match available custom questions for session {}", 
@@ -793,24 +757,6 @@ public class QuestionService {
         log.info("Successfully created {} rounds for session {}", roundsToCreate, session.getId());
     }
 
-    private void updateSessionProgress(QuizSession session) {
-        long completedRounds = quizRoundRepository
-                .countByQuizSessionIdAndAnswerSubmittedAtIsNotNull(session.getId());
-        long correctAnswers = quizRoundRepository
-                .countByQuizSessionIdAndIsCorrectTrue(session.getId());
-
-        session.setCompletedRounds((int) completedRounds);
-        session.setCorrectAnswers((int) correctAnswers);
-
-        // If all rounds completed, mark session as complete
-        if (completedRounds >= session.getTotalRounds()) {
-            session.setStatus(QuizSessionStatus.COMPLETED);
-            session.setCompletedAt(LocalDateTime.now());
-        }
-
-        quizSessionRepository.save(session);
-    }
-
     // =============================================================================
     // DTO CONVERSION METHODS
     // =============================================================================
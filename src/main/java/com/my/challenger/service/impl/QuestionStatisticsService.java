@@ -0,0 +1,110 @@
+package com.my.challenger.service.impl;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.my.challenger.entity.enums.MediaType;
+import com.my.challenger.entity.enums.QuizDifficulty;
+import com.my.challenger.repository.QuizQuestionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read model over the {@code quiz_question_counters} table.
+ * <p>
+ * The counters are maintained by a database trigger on every insert, delete and
+ * difficulty/topic/media-type change of a question, so a snapshot is a single query over a
+ * few dozen rows. The total is the sum of the per-difficulty rows. Snapshots are cached
+ * briefly because dashboards poll them.
+ */
+@Slf4j
+@Service
+public class QuestionStatisticsService {
+
+    private static final String SNAPSHOT_KEY = "counters";
+    // Difficulty bucket of questions without a difficulty; counted in the total only
+    private static final String UNSPECIFIED_DIFFICULTY = "UNSPECIFIED";
+
+    private final QuizQuestionRepository quizQuestionRepository;
+    private final LoadingCache<String, QuestionCounts> snapshots;
+
+    public QuestionStatisticsService(
+            QuizQuestionRepository quizQuestionRepository,
+            @Value("${app.quiz.statistics.cache-ttl-seconds:30}") long cacheTtlSeconds) {
+        this.quizQuestionRepository = quizQuestionRepository;
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(1)
+                .refreshAfterWrite(Duration.ofSeconds(Math.max(1, cacheTtlSeconds)))
+                .build(key -> load());
+    }
+
+    /**
+     * Question counts overall and per difficulty, topic name and media type. Topic and
+     * media-type maps are ordered by count descending.
+     */
+    public record QuestionCounts(
+            long total,
+            Map<QuizDifficulty, Long> byDifficulty,
+            Map<String, Long> byTopic,
+            Map<MediaType, Long> byMediaType) {}
+
+    public QuestionCounts getCounts() {
+        return snapshots.get(SNAPSHOT_KEY);
+    }
+
+    private QuestionCounts load() {
+        long total = 0;
+        Map<QuizDifficulty, Long> byDifficulty = new EnumMap<>(QuizDifficulty.class);
+        Map<String, Long> byTopic = new LinkedHashMap<>();
+        Map<MediaType, Long> byMediaType = new EnumMap<>(MediaType.class);
+
+        for (Object[] row : quizQuestionRepository.findQuestionCounters()) {
+            String dimension = (String) row[0];
+            String bucket = (String) row[1];
+            long count = ((Number) row[2]).longValue();
+            try {
+                switch (dimension) {
+                    case "difficulty" -> {
+                        // There is no single total row; every question has exactly one difficulty bucket
+                        total += count;
+                        if (!UNSPECIFIED_DIFFICULTY.equals(bucket)) {
+                            byDifficulty.put(QuizDifficulty.valueOf(bucket), count);
+                        }
+                    }
+                    case "topic" -> byTopic.merge(bucket, count, Long::sum);
+                    case "media_type" -> byMediaType.put(MediaType.valueOf(bucket), count);
+                    default -> log.warn("Unknown question counter dimension: {}", dimension);
+                }
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping question counter {}/{}: {}", dimension, bucket, e.getMessage());
+            }
+        }
+
+        return new QuestionCounts(
+                total,
+                Collections.unmodifiableMap(byDifficulty),
+                Collections.unmodifiableMap(sortedByCountDesc(byTopic)),
+                Collections.unmodifiableMap(sortedByCountDesc(byMediaType)));
+    }
+
+    private static <K> Map<K, Long> sortedByCountDesc(Map<K, Long> counts) {
+        Map<K, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<K, Long>comparingByValue().reversed())
+                .forEach(e -> sorted.put(e.getKey(), e.getValue()));
+        return sorted;
+    }
+
+    static List<Object[]> toRows(Map<?, Long> counts) {
+        return counts.entrySet().stream()
+                .map(e -> new Object[]{e.getKey(), e.getValue()})
+                .toList();
+    }
+}
@@ -0,0 +1,152 @@
+package com.my.challenger.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs the slow part of quiz answer submission off the request thread.
+ * <p>
+ * A submission commits the locally validated answer and hands the remaining work (AI
+ * validation, feedback generation) to {@link #afterCommit}; the task starts only once the
+ * submission is visible to other transactions. Non-blocking calls such as AI validation are
+ * only subscribed there, so no executor thread waits on them. Tasks persist their results through
+ * {@link #inTransaction} and report them to the player over the personal STOMP queue. Rounds
+ * whose task never completed (executor shutdown, instance restart) are considered stale after
+ * {@code pending-timeout-seconds} and settled on their local result by a sweep; so are rounds
+ * whose task was rejected by a full executor.
+ */
+@Slf4j
+@Component
+public class QuizAnswerPipeline {
+
+    static final String PERSONAL_QUEUE = "/queue/personal";
+
+    private final Executor executor;
+    private final TransactionTemplate transactionTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MeterRegistry meterRegistry;
+    private final long pendingTimeoutSeconds;
+
+    private Counter rejectedCounter;
+
+    public QuizAnswerPipeline(
+            @Qualifier("quizAnswerExecutor") Executor executor,
+            PlatformTransactionManager transactionManager,
+            SimpMessagingTemplate messagingTemplate,
+            @Autowired(required = false) MeterRegistry meterRegistry,
+            @Value("${app.quiz-answers.pending-timeout-seconds:120}") long pendingTimeoutSeconds) {
+        this.executor = executor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.messagingTemplate = messagingTemplate;
+        this.meterRegistry = meterRegistry;
+        this.pendingTimeoutSeconds = Math.max(1, pendingTimeoutSeconds);
+    }
+
+    @PostConstruct
+    void initMetrics() {
+        if (meterRegistry == null) {
+            return;
+        }
+        rejectedCounter = Counter.builder("quiz.answers.deferred.rejected")
+                .description("Deferred quiz answer tasks rejected because the answer executor was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code task} on the answer executor after the current transaction commits; it is
+     * dropped if the transaction rolls back. Without a transaction the task is submitted
+     * immediately.
+     */
+    public void afterCommit(Runnable task) {
+        onCommit(() -> submit(task));
+    }
+
+    /**
+     * Subscribes to {@code call} after the current transaction commits and runs {@code then}
+     * with its result on the answer executor. An empty or failed call runs nothing, leaving the
+     * round to the stale sweep.
+     */
+    public <T> void afterCommit(Supplier<Mono<T>> call, Consumer<T> then) {
+        onCommit(() -> Mono.defer(call).subscribe(
+                result -> submit(() -> then.accept(result)),
+                e -> log.error("Deferred quiz answer call failed", e)));
+    }
+
+    public void inTransaction(Runnable work) {
+        transactionTemplate.executeWithoutResult(tx -> work.run());
+    }
+
+    /**
+     * Sends {@code payload} to the user's personal queue once the current transaction commits,
+     * so a client reacting to it reads the committed round. Delivery is best effort; clients
+     * that were not connected read the result from the session on their next fetch.
+     */
+    public void pushAfterCommit(String username, Object payload) {
+        onCommit(() -> push(username, payload));
+    }
+
+    /**
+     * Submission time before which a round still waiting for AI validation is stale.
+     */
+    public LocalDateTime pendingCutoff() {
+        return LocalDateTime.now().minusSeconds(pendingTimeoutSeconds);
+    }
+
+    private void onCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void push(String username, Object payload) {
+        try {
+            messagingTemplate.convertAndSendToUser(username, PERSONAL_QUEUE, payload);
+        } catch (Exception e) {
+            log.warn("Failed to push quiz answer result to {}: {}", username, e.getMessage());
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("Deferred quiz answer processing failed", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Never run on the caller: the round stays pending until the stale sweep settles it
+            if (rejectedCounter != null) {
+                rejectedCounter.increment();
+            }
+            log.warn("Quiz answer executor full, leaving the round for the stale sweep");
+        }
+    }
+}
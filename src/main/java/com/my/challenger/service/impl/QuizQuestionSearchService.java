@@ -28,6 +28,8 @@ import java.util.stream.Collectors;
 public class QuizQuestionSearchService {
 
     private final QuizQuestionRepository quizQuestionRepository;
+    private final RandomQuestionSampler randomQuestionSampler;
+    private final QuestionStatisticsService questionStatisticsService;
 
 
 
@@ -45,35 +47,28 @@ public class QuizQuestionSearchService {
      * Get total question count
      */
     public long getTotalQuestionCount() {
-        return quizQuestionRepository.count();
+        return questionStatisticsService.getCounts().total();
     }
 
     /**
      * Get count by difficulty
      */
     public long getCountByDifficulty(QuizDifficulty difficulty) {
-        return quizQuestionRepository.countByDifficulty(difficulty);
+        return questionStatisticsService.getCounts().byDifficulty().getOrDefault(difficulty, 0L);
     }
 
     /**
      * Get count by topic
      */
     public Map<String, Long> getCountByTopic() {
-        List<QuizQuestion> allQuestions = quizQuestionRepository.findAll();
-
-        return allQuestions.stream()
-                .filter(q -> q.getTopic() != null && !q.getTopic().getName().trim().isEmpty())
-                .collect(Collectors.groupingBy(
-                        quizQuestion -> quizQuestion.getTopic().getName(),
-                        Collectors.counting()
-                ));
+        return questionStatisticsService.getCounts().byTopic();
     }
 
     /**
      * Get random questions by difficulty
      */
     public List<QuizQuestion> getRandomQuestionsByDifficulty(QuizDifficulty difficulty, int count) {
-        return quizQuestionRepository.findRandomByDifficulty(difficulty.name(), count);
+        return randomQuestionSampler.sample(difficulty, null, count);
     }
 
     /**
@@ -93,11 +88,7 @@ public class QuizQuestionSearchService {
             Boolean isUserCreated,
             Pageable pageable) {
 
-        // Clean inputs
-        String cleanKeyword = StringUtils.hasText(keyword) ? keyword.trim().toLowerCase() : null;
-        String cleanTopic = StringUtils.hasText(topic) ? topic.trim().toLowerCase() : null;
-        String difficultyStr = difficulty != null ? difficulty.name() : null;
-        return quizQuestionRepository.searchWithFilters(cleanKeyword, difficultyStr, cleanTopic, isUserCreated, pageable);
+        return filteredSearch(keyword, difficulty, topic, isUserCreated, pageable);
     }
 
     /**
@@ -117,6 +108,12 @@ public class QuizQuestionSearchService {
 
         Pageable pageable = PageRequest.of(page, size);
         List<QuizQuestion> results = quizQuestionRepository.searchByKeyword(keyword.trim(), pageable);
+
+        // Nothing matched after stemming: retry with trigram similarity to tolerate typos
+        if (results.isEmpty() && page == 0) {
+            results = quizQuestionRepository.searchByKeywordFuzzy(keyword.trim(), pageable);
+            log.debug("Full-text search found nothing for '{}', fuzzy fallback found {}", keyword, results.size());
+        }
         
         log.debug("Found {} questions for keyword: '{}'", results.size(), keyword);
         return results;
@@ -134,13 +131,7 @@ public class QuizQuestionSearchService {
         log.debug("Advanced search - keyword: '{}', difficulty: {}, topic: '{}', userCreated: {}", 
                 keyword, difficulty, topic, isUserCreated);
         
-        Pageable pageable = PageRequest.of(page, size);
-        
-        // Clean up parameters
-        String cleanKeyword = StringUtils.hasText(keyword) ? keyword.trim().toLowerCase() : null;
-        String cleanTopic = StringUtils.hasText(topic) ? topic.trim().toLowerCase() : null;
-        String difficultyStr = difficulty != null ? difficulty.name() : null;
-        return quizQuestionRepository.searchWithFilters(cleanKeyword, difficultyStr, cleanTopic, isUserCreated, pageable);
+        return filteredSearch(keyword, difficulty, topic, isUserCreated, PageRequest.of(page, size));
     }
 
     /**
@@ -149,26 +140,7 @@ public class QuizQuestionSearchService {
     public List<QuizQuestion> searchForQuiz(String topic, QuizDifficulty difficulty, int count) {
         log.debug("Searching questions for quiz - topic: '{}', difficulty: {}, count: {}", topic, difficulty, count);
 
-        String normalizedTopic = topic != null && !topic.trim().isEmpty()
-                ? topic.toLowerCase().trim()
-                : null;
-        String difficultyStr = difficulty != null ? difficulty.name() : null;
-        if (StringUtils.hasText(topic) && difficulty != null) {
-            // Search by both topic and difficulty
-            Page<QuizQuestion> quizQuestions = quizQuestionRepository.searchWithFilters(normalizedTopic, difficultyStr, topic, null, PageRequest.of(0, count));
-            return quizQuestions.toList();
-        } else if (difficulty != null) {
-            // Search by difficulty only
-            return quizQuestionRepository.findRandomByDifficulty(difficulty.name(), count);
-        } else if (StringUtils.hasText(topic)) {
-            // Search by topic only  
-            return quizQuestionRepository.findRandomByTopic(normalizedTopic, count);
-        } else {
-            // Random questions
-            return quizQuestionRepository.findRandomByDifficulties(
-                Arrays.stream(QuizDifficulty.values()).map(Enum::name).collect(Collectors.toList()), 
-                count);
-        }
+        return randomQuestionSampler.sample(difficulty, topic, count);
     }
 
     /**
@@ -177,11 +149,7 @@ public class QuizQuestionSearchService {
     public List<QuizQuestion> getRandomQuestions(List<QuizDifficulty> difficulties, int count) {
         log.debug("Getting {} random questions with difficulties: {}", count, difficulties);
         
-        List<String> difficultyNames = difficulties.stream()
-                .map(Enum::name)
-                .collect(Collectors.toList());
-                
-        return quizQuestionRepository.findRandomByDifficulties(difficultyNames, count);
+        return randomQuestionSampler.sample(difficulties, count);
     }
 
     /**
@@ -224,7 +192,7 @@ public class QuizQuestionSearchService {
         
         if (StringUtils.hasText(keyword)) {
             // First get all user questions, then filter by keyword
-            return quizQuestionRepository.searchWithFilters(keyword.trim().toLowerCase(), null, null, true, pageable);
+            return filteredSearch(keyword, null, null, true, pageable);
         } else {
             // Just get user's questions
             return quizQuestionRepository.findByCreatorId(userId, pageable);
@@ -284,18 +252,37 @@ public class QuizQuestionSearchService {
      */
     public QuestionStatistics getQuestionStatistics() {
         log.debug("Getting question statistics");
-        
-        List<Object[]> difficultyStats = quizQuestionRepository.getQuestionCountByDifficulty();
-        List<Object[]> topicStats = quizQuestionRepository.getQuestionCountByTopic();
-        long totalQuestions = quizQuestionRepository.count();
-        
+
+        QuestionStatisticsService.QuestionCounts counts = questionStatisticsService.getCounts();
+
         return QuestionStatistics.builder()
-                .totalQuestions(totalQuestions)
-                .difficultyDistribution(difficultyStats)
-                .topicDistribution(topicStats)
+                .totalQuestions(counts.total())
+                .difficultyDistribution(QuestionStatisticsService.toRows(counts.byDifficulty()))
+                .topicDistribution(QuestionStatisticsService.toRows(counts.byTopic()))
+                .mediaTypeDistribution(QuestionStatisticsService.toRows(counts.byMediaType()))
                 .build();
     }
 
+    /**
+     * Keyword searches go through the ranked full-text index; filter-only searches keep the
+     * plain JPQL query ordered by creation time.
+     */
+    private Page<QuizQuestion> filteredSearch(String keyword, QuizDifficulty difficulty, String topic,
+                                              Boolean isUserCreated, Pageable pageable) {
+        String cleanTopic = StringUtils.hasText(topic) ? topic.trim().toLowerCase() : null;
+        String difficultyStr = difficulty != null ? difficulty.name() : null;
+
+        if (!StringUtils.hasText(keyword)) {
+            return quizQuestionRepository.searchWithFilters(null, difficultyStr, cleanTopic, isUserCreated, pageable);
+        }
+        return quizQuestionRepository.searchRankedWithFilters(
+                keyword.trim(),
+                difficultyStr != null ? difficultyStr : "",
+                cleanTopic != null ? cleanTopic : "",
+                isUserCreated != null ? isUserCreated.toString() : "",
+                pageable);
+    }
+
     /**
      * Validate and clean search input
      */
@@ -343,5 +330,6 @@ public class QuizQuestionSearchService {
         private long totalQuestions;
         private List<Object[]> difficultyDistribution;
         private List<Object[]> topicDistribution;
+        private List<Object[]> mediaTypeDistribution;
     }
 }
\ No newline at end of file
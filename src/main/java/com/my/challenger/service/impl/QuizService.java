@@ -17,6 +17,7 @@ import com.my.challenger.repository.*;
 import com.my.challenger.service.BrainRingService;
 import com.my.challenger.service.WWWGameService;
 import com.my.challenger.service.WagerService;
+import com.my.challenger.websocket.dto.QuizRoundEvaluatedMessage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -25,29 +26,39 @@ import org.springframework.data.domain.Sort;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class QuizService {
 
+    private static final Set<QuizSessionStatus> FINISHED_STATUSES = EnumSet.of(
+            QuizSessionStatus.COMPLETED, QuizSessionStatus.ABANDONED,
+            QuizSessionStatus.CANCELLED, QuizSessionStatus.ARCHIVED);
+
     protected final QuizQuestionRepository quizQuestionRepository;
     protected final QuizSessionRepository quizSessionRepository;
     protected final QuizRoundRepository quizRoundRepository;
     protected final ChallengeRepository challengeRepository;
     protected final UserRepository userRepository;
     protected final MediaFileRepository mediaFileRepository;
-    protected final QuestRepository questRepository;
+    protected final QuestRequirementResolver questRequirements;
     protected final WWWGameService gameService;
     protected final MinioMediaStorageService mediaStorageService;
     protected final TopicService topicService;
     protected final QuizQuestionDTOEnricher dtoEnricher;
     protected final WagerService wagerService;
     protected final com.my.challenger.service.BrainRingService brainRingService;
+    protected final RandomQuestionSampler questionSampler;
+    protected final QuestionAccessService accessService;
+    protected final QuizAnswerPipeline answerPipeline;
 
     public QuizService(
             QuizQuestionRepository quizQuestionRepository,
@@ -56,26 +67,32 @@ public class QuizService {
             ChallengeRepository challengeRepository,
             UserRepository userRepository,
             MediaFileRepository mediaFileRepository,
-            QuestRepository questRepository,
+            QuestRequirementResolver questRequirements,
             WWWGameService gameService,
             MinioMediaStorageService mediaStorageService,
             TopicService topicService,
             QuizQuestionDTOEnricher dtoEnricher,
             WagerService wagerService,
-            BrainRingService brainRingService) {
+            BrainRingService brainRingService,
+            RandomQuestionSampler questionSampler,
+            QuestionAccessService accessService,
+            QuizAnswerPipeline answerPipeline) {
         this.quizQuestionRepository = quizQuestionRepository;
         this.quizSessionRepository = quizSessionRepository;
         this.quizRoundRepository = quizRoundRepository;
         this.challengeRepository = challengeRepository;
         this.userRepository = userRepository;
         this.mediaFileRepository = mediaFileRepository;
-        this.questRepository = questRepository;
+        this.questRequirements = questRequirements;
         this.gameService = gameService;
         this.mediaStorageService = mediaStorageService;
         this.topicService = topicService;
         this.dtoEnricher = dtoEnricher;
         this.wagerService = wagerService;
         this.brainRingService = brainRingService;
+        this.questionSampler = questionSampler;
+        this.accessService = accessService;
+        this.answerPipeline = answerPipeline;
     }
 
     /**
@@ -271,9 +288,10 @@ public class QuizService {
 
         if (QuestionSource.user.equals(request.getQuestionSource()) && request.getCustomQuestionIds() != null && !request.getCustomQuestionIds().isEmpty()) {
             log.info("Using {} custom questions for session {}", request.getCustomQuestionIds().size(), session.getId());
-            questions = quizQuestionRepository.findAllById(request.getCustomQuestionIds());
+            questions = accessService.filterAccessible(
+                    quizQuestionRepository.findAllById(request.getCustomQuestionIds()), session.getHostUser().getId());
             if (questions.isEmpty()) {
-                throw new IllegalArgumentException("No custom questions found for the provided IDs");
+                throw new IllegalArgumentException("No accessible custom questions found for the provided IDs");
             }
             if (questions.size() < request.getTotalRounds()) {
                 log.info("Adjusting totalRounds from {} to {} to match available custom questions for session {}", 
@@ -285,9 +303,12 @@ public class QuizService {
             log.info("Fetching {} random questions by difficulty: {} for session {}", 
                     request.getTotalRounds(), request.getDifficulty(), session.getId());
             
-            PageRequest pageRequest = PageRequest.of(0, request.getTotalRounds());
-            questions = quizQuestionRepository.findByDifficultyOrderByUsageCountAsc(
-                    request.getDifficulty(), pageRequest);
+            questions = questionSampler.sampleUnplayed(
+                    request.getDifficulty(), null, request.getTotalRounds(), session.getHostUser().getId());
+            if (questions.size() < request.getTotalRounds()) {
+                // The host has played most of this difficulty already: allow repeats
+                questions = questionSampler.sample(request.getDifficulty(), null, request.getTotalRounds());
+            }
             
             if (questions.isEmpty()) {
                 log.error("No questions found in database for difficulty {}", request.getDifficulty());
@@ -347,6 +368,9 @@ public class QuizService {
     public QuizRoundDTO submitRoundAnswerById(Long sessionId, Long roundId, SubmitRoundAnswerByIdRequest request, Long userId) {
         log.info("Submitting answer for session {} round ID {} by user: {}", sessionId, roundId, userId);
         
+        // Lock first, so the session is read with its latest counters
+        quizSessionRepository.findByIdForUpdate(sessionId);
+
         // Verify user has access to session
         QuizSession session = findUserSession(sessionId, userId);
         
@@ -368,16 +392,10 @@ public class QuizService {
             throw new IllegalStateException("Answer already submitted for this round");
         }
         
-        // Validate answer with AI support if enabled
+        // Local validation answers immediately; AI validation of a rejected answer is deferred
         boolean enableAiValidation = session.getEnableAiAnswerValidation() != null && session.getEnableAiAnswerValidation();
-        AnswerValidationResult validationResult = gameService.validateAnswerEnhanced(
-            request.getTeamAnswer(),
-            round.getQuestion().getAnswer(),
-            enableAiValidation,
-            "en" // Default to English, could be parameterized
-        );
-        
-        boolean isCorrect = validationResult.isCorrect();
+        boolean isCorrect = gameService.validateAnswer(request.getTeamAnswer(), round.getQuestion().getAnswer());
+        boolean aiPending = !isCorrect && gameService.isAiValidationApplicable(request.getTeamAnswer(), enableAiValidation);
         
         // Update round
         round.setTeamAnswer(request.getTeamAnswer());
@@ -387,55 +405,29 @@ public class QuizService {
         round.setHintUsed(request.getHintUsed() != null ? request.getHintUsed() : false);
         round.setVoiceRecordingUsed(request.getVoiceRecordingUsed() != null ? request.getVoiceRecordingUsed() : false);
         round.setAnswerSubmittedAt(LocalDateTime.now());
+        markAiValidation(round, aiPending);
         
-        // Set AI validation metadata
-        round.setAiValidationUsed(validationResult.isAiUsed());
-        round.setAiAccepted(validationResult.isAiAccepted());
-        round.setAiConfidence(validationResult.getAiConfidence());
-        round.setAiExplanation(validationResult.getAiExplanation());
-        
-        // Generate AI feedback if enabled
-        if (session.getEnableAiHost() != null && session.getEnableAiHost()) {
-            String feedback = gameService.generateRoundFeedback(round, isCorrect);
-            round.setAiFeedback(feedback);
-        }
-        
-        QuizRound savedRound = quizRoundRepository.save(round);
-        
-        // Update session progress
-        updateSessionProgress(session);
-        
-        return convertRoundToDTO(savedRound);
-    }
-
-    private void updateSessionProgress(QuizSession session) {
-        // Find all rounds for this session
-        List<QuizRound> rounds = quizRoundRepository.findByQuizSessionIdOrderByRoundNumber(session.getId());
-        
-        // Count completed rounds and correct answers
-        long completedCount = rounds.stream()
-                .filter(r -> r.getAnswerSubmittedAt() != null)
-                .count();
-        
-        long correctCount = rounds.stream()
-                .filter(r -> Boolean.TRUE.equals(r.getIsCorrect()))
-                .count();
+        // Round and session are managed; both are written by the flush at commit
+        recordAnswer(session, isCorrect);
         
-        session.setCompletedRounds((int) completedCount);
-        session.setCorrectAnswers((int) correctCount);
-        
-        // Check if all rounds are completed
-        if (completedCount >= session.getTotalRounds()) {
-            completeSession(session);
+        boolean generateFeedback = session.getEnableAiHost() != null && session.getEnableAiHost();
+        if (generateFeedback) {
+            round.setAiFeedback(gameService.generateRoundFeedback(round, isCorrect));
         }
+        deferEvaluation(round, aiPending, generateFeedback);
         
-        quizSessionRepository.save(session);
+        return convertRoundToDTO(round);
     }
 
     @Transactional
     public QuizRoundResultDTO submitAnswer(SubmitAnswerRequest request, Long userId) {
         log.info("Submitting answer for round {} by user: {}", request.getRoundId(), userId);
 
+        // Lock the session before the round (and with it the session) is loaded
+        Long sessionId = quizRoundRepository.findSessionIdById(request.getRoundId())
+                .orElseThrow(() -> new IllegalArgumentException("Round not found"));
+        quizSessionRepository.findByIdForUpdate(sessionId);
+
         QuizRound round = quizRoundRepository.findById(request.getRoundId())
                 .orElseThrow(() -> new IllegalArgumentException("Round not found"));
 
@@ -451,16 +443,10 @@ public class QuizService {
             throw new IllegalStateException("Answer already submitted for this round");
         }
 
-        // Validate and score the answer with AI support if enabled
+        // Score locally; only AI validation of a rejected answer is deferred
         boolean enableAiValidation = session.getEnableAiAnswerValidation() != null && session.getEnableAiAnswerValidation();
-        AnswerValidationResult validationResult = gameService.validateAnswerEnhanced(
-            request.getAnswer(),
-            round.getQuestion().getAnswer(),
-            enableAiValidation,
-            "en"
-        );
-        
-        boolean isCorrect = validationResult.isCorrect();
+        boolean isCorrect = gameService.validateAnswer(request.getAnswer(), round.getQuestion().getAnswer());
+        boolean aiPending = !isCorrect && gameService.isAiValidationApplicable(request.getAnswer(), enableAiValidation);
 
         // Update round
         round.setTeamAnswer(request.getAnswer());
@@ -468,12 +454,7 @@ public class QuizService {
         round.setIsCorrect(isCorrect);
         round.setPlayerWhoAnswered(request.getPlayerWhoAnswered());
         round.setDiscussionNotes(request.getDiscussionNotes());
-        
-        // Set AI validation metadata
-        round.setAiValidationUsed(validationResult.isAiUsed());
-        round.setAiAccepted(validationResult.isAiAccepted());
-        round.setAiConfidence(validationResult.getAiConfidence());
-        round.setAiExplanation(validationResult.getAiExplanation());
+        markAiValidation(round, aiPending);
 
         if (request.getTimeToAnswer() != null) {
             round.setTotalRoundDurationSeconds(request.getTimeToAnswer());
@@ -487,65 +468,192 @@ public class QuizService {
             round.setVoiceRecordingUsed(request.getVoiceRecordingUsed());
         }
 
-        // Update session statistics
+        // Round and session are managed; both are written by the flush at commit
+        recordAnswer(session, isCorrect);
+
+        String feedback = gameService.generateRoundFeedback(round, isCorrect);
+        round.setAiFeedback(feedback);
+        deferEvaluation(round, aiPending, true);
+
+        return QuizRoundResultDTO.builder()
+                .roundId(round.getId())
+                .isCorrect(isCorrect)
+                .correctAnswer(round.getQuestion().getAnswer())
+                .feedback(feedback)
+                .aiValidationPending(aiPending)
+                .sessionScore(session.getCorrectAnswers())
+                .isSessionComplete(session.getStatus() == QuizSessionStatus.COMPLETED)
+                .build();
+    }
+
+    // =============================================================================
+    // DEFERRED ANSWER EVALUATION
+    // =============================================================================
+
+    /**
+     * Verdict that keeps the round's local result
+     */
+    private static AnswerValidationResult localResult() {
+        return AnswerValidationResult.builder()
+                .correct(false)
+                .aiUsed(false)
+                .build();
+    }
+
+    private static boolean isAiValidationPending(QuizRound round) {
+        return Boolean.TRUE.equals(round.getAiValidationUsed()) && round.getAiAccepted() == null;
+    }
+
+    /**
+     * A round waiting for AI validation is stored with {@code aiValidationUsed} set and no
+     * {@code aiAccepted} verdict yet.
+     */
+    private static void markAiValidation(QuizRound round, boolean pending) {
+        round.setAiValidationUsed(pending);
+        round.setAiAccepted(pending ? null : false);
+        round.setAiConfidence(null);
+        round.setAiExplanation(null);
+    }
+
+    private void recordAnswer(QuizSession session, boolean isCorrect) {
         if (isCorrect) {
             session.setCorrectAnswers(session.getCorrectAnswers() + 1);
         }
         session.setCompletedRounds(session.getCompletedRounds() + 1);
+        completeIfSettled(session);
+    }
 
-        quizRoundRepository.save(round);
+    /**
+     * Completes the session once every round is answered and no AI validation is outstanding,
+     * so wagers are settled on the final score. Called with the session locked.
+     */
+    private void completeIfSettled(QuizSession session) {
+        if (FINISHED_STATUSES.contains(session.getStatus())
+                || session.getCompletedRounds() < session.getTotalRounds()) {
+            return;
+        }
+        if (quizRoundRepository.countByQuizSessionIdAndAiValidationUsedTrueAndAiAcceptedIsNull(session.getId()) > 0) {
+            log.debug("Session {} answered completely, waiting for AI validation before completing", session.getId());
+            return;
+        }
+        completeSession(session);
+    }
 
-        // Check if session is complete
-        if (session.getCompletedRounds() >= session.getTotalRounds()) {
-            completeSession(session);
+    /**
+     * Queues AI validation of a rejected answer. Feedback is written with the local result;
+     * {@code refreshFeedback} rewrites it once the verdict is in.
+     */
+    private void deferEvaluation(QuizRound round, boolean aiPending, boolean refreshFeedback) {
+        if (!aiPending) {
+            return;
         }
+        Long roundId = round.getId();
+        String teamAnswer = round.getTeamAnswer();
+        String correctAnswer = round.getQuestion().getAnswer();
+        // The AI call runs outside any transaction and without the session lock
+        answerPipeline.afterCommit(
+                () -> validateWithAi(teamAnswer, correctAnswer),
+                aiResult -> answerPipeline.inTransaction(() -> applyEvaluation(roundId, aiResult, refreshFeedback)));
+    }
 
-        quizSessionRepository.save(session);
+    private Mono<AnswerValidationResult> validateWithAi(String teamAnswer, String correctAnswer) {
+        return gameService.validateAnswerEnhancedAsync(teamAnswer, correctAnswer, true, "en")
+                .onErrorResume(e -> {
+                    log.warn("AI validation failed, keeping the local result: {}", e.getMessage());
+                    return Mono.just(localResult());
+                });
+    }
 
-        // Generate AI feedback
-        String feedback = gameService.generateRoundFeedback(round, isCorrect);
-        round.setAiFeedback(feedback);
-        quizRoundRepository.save(round);
+    /**
+     * Applies the AI verdict to a submitted round, completes the session if this was the last
+     * outstanding round and pushes the round's final result to the host. A verdict for a round
+     * that is no longer pending (settled by the stale sweep) is ignored.
+     */
+    private void applyEvaluation(Long roundId, AnswerValidationResult aiResult, boolean refreshFeedback) {
+        Optional<Long> sessionId = quizRoundRepository.findSessionIdById(roundId);
+        if (sessionId.isEmpty()) {
+            return;
+        }
+        QuizSession session = quizSessionRepository.findByIdForUpdate(sessionId.get()).orElse(null);
+        QuizRound round = quizRoundRepository.findById(roundId).orElse(null);
+        if (session == null || round == null) {
+            return;
+        }
 
-        return QuizRoundResultDTO.builder()
+        if (aiResult != null && isAiValidationPending(round)) {
+            round.setAiValidationUsed(aiResult.isAiUsed());
+            round.setAiAccepted(aiResult.isAiAccepted());
+            round.setAiConfidence(aiResult.getAiConfidence());
+            round.setAiExplanation(aiResult.getAiExplanation());
+            if (aiResult.isCorrect() && !Boolean.TRUE.equals(round.getIsCorrect())) {
+                round.setIsCorrect(true);
+                session.setCorrectAnswers(session.getCorrectAnswers() + 1);
+            }
+            if (refreshFeedback) {
+                // The feedback sent with the answer was written for the local result
+                round.setAiFeedback(gameService.generateRoundFeedback(round, Boolean.TRUE.equals(round.getIsCorrect())));
+            }
+        }
+
+        completeIfSettled(session);
+
+        answerPipeline.pushAfterCommit(session.getHostUser().getUsername(), QuizRoundEvaluatedMessage.builder()
+                .sessionId(session.getId())
                 .roundId(round.getId())
-                .isCorrect(isCorrect)
-                .correctAnswer(round.getQuestion().getAnswer())
-                .feedback(feedback)
-                .aiValidationUsed(validationResult.isAiUsed())
-                .aiAccepted(validationResult.isAiAccepted())
-                .aiConfidence(validationResult.getAiConfidence())
-                .aiExplanation(validationResult.getAiExplanation())
+                .roundNumber(round.getRoundNumber())
+                .isCorrect(round.getIsCorrect())
+                .aiValidationUsed(round.getAiValidationUsed())
+                .aiAccepted(round.getAiAccepted())
+                .aiConfidence(round.getAiConfidence())
+                .aiExplanation(round.getAiExplanation())
+                .feedback(round.getAiFeedback())
                 .sessionScore(session.getCorrectAnswers())
                 .isSessionComplete(session.getStatus() == QuizSessionStatus.COMPLETED)
-                .build();
+                .build());
+    }
+
+    /**
+     * Settles rounds whose AI validation never finished on their local result, so their
+     * sessions can complete.
+     *
+     * @return number of rounds found pending
+     */
+    public int settleStaleAiValidations() {
+        List<Long> roundIds = quizRoundRepository.findPendingAiValidationIds(answerPipeline.pendingCutoff());
+        if (roundIds.isEmpty()) {
+            return 0;
+        }
+        log.warn("Settling {} quiz rounds whose AI validation did not finish", roundIds.size());
+        for (Long roundId : roundIds) {
+            try {
+                answerPipeline.inTransaction(() -> applyEvaluation(roundId, localResult(), false));
+            } catch (Exception e) {
+                log.error("Failed to settle AI validation of round {}", roundId, e);
+            }
+        }
+        return roundIds.size();
     }
 
     protected void completeSession(QuizSession session) {
         // Calculate score percentage before validation
         Double scorePercentage = calculateScorePercentage(session);
-        final boolean[] meetsScoreRequirement = {true}; // Using array for final effectively in lambda
+        boolean meetsScoreRequirement = true;
 
-        // Validate minimum score requirement if quest has audio config
+        // Validate minimum score requirement of the challenge's quest, if any
         Challenge challenge = session.getChallenge();
         if (challenge != null) {
-            // Check if challenge has associated quests with minimum score requirements
-            // Note: Challenges can have multiple quests via challenge_quests junction table
-            // For now, we validate against the first quest found with a minimum score requirement
-            questRepository.findAll().stream()
-                    .filter(quest -> quest.getMinimumScorePercentage() != null && quest.getMinimumScorePercentage() > 0)
-                    .findFirst()
-                    .ifPresent(quest -> {
-                        Integer minScore = quest.getMinimumScorePercentage();
-                        if (scorePercentage < minScore) {
-                            log.warn("❌ Score {}% is below minimum required {}% for quest ID: {}",
-                                    scorePercentage, minScore, quest.getId());
-                            meetsScoreRequirement[0] = false;
-                        } else {
-                            log.info("✅ Score {}% meets minimum requirement {}% for quest ID: {}",
-                                    scorePercentage, minScore, quest.getId());
-                        }
-                    });
+            Optional<QuestRequirementResolver.Requirement> requirement = questRequirements.find(challenge.getId());
+            if (requirement.isPresent()) {
+                int minScore = requirement.get().minimumScorePercentage();
+                if (scorePercentage < minScore) {
+                    log.warn("❌ Score {}% is below minimum required {}% for quest ID: {}",
+                            scorePercentage, minScore, requirement.get().questId());
+                    meetsScoreRequirement = false;
+                } else {
+                    log.info("✅ Score {}% meets minimum requirement {}% for quest ID: {}",
+                            scorePercentage, minScore, requirement.get().questId());
+                }
+            }
         }
 
         // Set completion status
@@ -561,7 +669,7 @@ public class QuizService {
         settleWagersForSession(session);
 
         // Call post-completion hook
-        onSessionCompleted(session, meetsScoreRequirement[0]);
+        onSessionCompleted(session, meetsScoreRequirement);
     }
 
     /**
@@ -848,6 +956,7 @@ public class QuizService {
                 .aiAccepted(round.getAiAccepted())
                 .aiConfidence(round.getAiConfidence())
                 .aiExplanation(round.getAiExplanation())
+                .aiValidationPending(isAiValidationPending(round))
                 .build();
 
         // Don't include the answer unless the round is complete
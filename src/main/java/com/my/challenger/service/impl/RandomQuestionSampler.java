@@ -0,0 +1,282 @@
+package com.my.challenger.service.impl;
+
+import com.my.challenger.entity.enums.QuizDifficulty;
+import com.my.challenger.entity.quiz.QuizQuestion;
+import com.my.challenger.repository.QuizQuestionRepository;
+import com.my.challenger.repository.QuizRoundRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Random question selection without {@code ORDER BY RANDOM()}.
+ * <p>
+ * Ids of active questions are kept in memory, pooled per difficulty, per topic and per
+ * (difficulty, topic). A sample picks random positions from the pool, so its cost depends on
+ * the requested count rather than the size of the question bank; only the sampled rows are
+ * then loaded. New questions are appended incrementally and the pools are rebuilt
+ * periodically to pick up edits and deletions; rows that stopped matching in between are
+ * dropped when the sampled entities are loaded.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RandomQuestionSampler {
+
+    private static final int MAX_TOP_UP_ROUNDS = 2;
+
+    private final QuizQuestionRepository quizQuestionRepository;
+    private final QuizRoundRepository quizRoundRepository;
+
+    private final Object refreshLock = new Object();
+    private volatile Map<PoolKey, long[]> pools;
+    private volatile long maxIndexedId;
+
+    /**
+     * Pool selector; {@code null} components mean "any".
+     */
+    record PoolKey(QuizDifficulty difficulty, String topic) {
+        static PoolKey of(QuizDifficulty difficulty, String topic) {
+            return new PoolKey(difficulty, topic != null && !topic.isBlank() ? topic.trim().toLowerCase() : null);
+        }
+    }
+
+    /**
+     * Random distinct active questions, optionally restricted to a difficulty and/or topic name.
+     */
+    public List<QuizQuestion> sample(QuizDifficulty difficulty, String topic, int count) {
+        return sample(List.of(PoolKey.of(difficulty, topic)), count, Set.of());
+    }
+
+    /**
+     * Like {@link #sample(QuizDifficulty, String, int)} but never returns a question the user
+     * has already played in one of their quiz sessions. May return fewer than {@code count}.
+     */
+    public List<QuizQuestion> sampleUnplayed(QuizDifficulty difficulty, String topic, int count, Long userId) {
+        Set<Long> played = new HashSet<>(quizRoundRepository.findPlayedQuestionIdsByHostUser(userId));
+        return sample(List.of(PoolKey.of(difficulty, topic)), count, played);
+    }
+
+    /**
+     * Random distinct active questions from any of the given difficulties.
+     */
+    public List<QuizQuestion> sample(Collection<QuizDifficulty> difficulties, int count) {
+        List<PoolKey> keys = difficulties.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(d -> PoolKey.of(d, null))
+                .toList();
+        return sample(keys.isEmpty() ? List.of(PoolKey.of(null, null)) : keys, count, Set.of());
+    }
+
+    @Scheduled(fixedDelayString = "${app.quiz.sampler.append-interval-ms:30000}")
+    public void appendNewQuestions() {
+        if (pools == null) {
+            return;
+        }
+        synchronized (refreshLock) {
+            List<Object[]> rows = quizQuestionRepository.findActiveSamplingRowsAfter(maxIndexedId);
+            if (rows.isEmpty()) {
+                return;
+            }
+            Map<PoolKey, long[]> additions = group(rows);
+            Map<PoolKey, long[]> merged = new HashMap<>(pools);
+            additions.forEach((key, ids) -> merged.merge(key, ids, RandomQuestionSampler::concat));
+            pools = merged;
+            maxIndexedId = Math.max(maxIndexedId, maxId(rows));
+            log.debug("Appended {} new questions to the sampling pools", rows.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.quiz.sampler.rebuild-interval-ms:600000}")
+    public void rebuildPools() {
+        if (pools == null) {
+            return;
+        }
+        rebuild();
+    }
+
+    private Map<PoolKey, long[]> pools() {
+        Map<PoolKey, long[]> current = pools;
+        if (current == null) {
+            synchronized (refreshLock) {
+                if (pools == null) {
+                    rebuild();
+                }
+                current = pools;
+            }
+        }
+        return current;
+    }
+
+    private void rebuild() {
+        synchronized (refreshLock) {
+            long started = System.currentTimeMillis();
+            List<Object[]> rows = quizQuestionRepository.findActiveSamplingRowsAfter(0L);
+            pools = group(rows);
+            maxIndexedId = maxId(rows);
+            log.info("Rebuilt question sampling pools: {} questions, {} pools in {} ms",
+                    rows.size(), pools.size(), System.currentTimeMillis() - started);
+        }
+    }
+
+    private List<QuizQuestion> sample(List<PoolKey> keys, int count, Set<Long> excluded) {
+        if (count <= 0) {
+            return List.of();
+        }
+        Map<PoolKey, long[]> current = pools();
+        List<long[]> segments = keys.stream()
+                .map(current::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        Set<Long> skip = new HashSet<>(excluded);
+        List<QuizQuestion> result = new ArrayList<>(count);
+        Random random = ThreadLocalRandom.current();
+        for (int round = 0; round <= MAX_TOP_UP_ROUNDS && result.size() < count; round++) {
+            long[] ids = sampleIds(segments, count - result.size(), skip, random);
+            if (ids.length == 0) {
+                break;
+            }
+            for (long id : ids) {
+                skip.add(id);
+            }
+            // Pools lag behind edits until the next rebuild, so re-check what was loaded
+            result.addAll(loadMatching(ids, keys));
+        }
+        return result;
+    }
+
+    private List<QuizQuestion> loadMatching(long[] ids, List<PoolKey> keys) {
+        Map<Long, QuizQuestion> byId = quizQuestionRepository
+                .findAllById(Arrays.stream(ids).boxed().toList())
+                .stream()
+                .collect(Collectors.toMap(QuizQuestion::getId, Function.identity()));
+
+        List<QuizQuestion> loaded = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            QuizQuestion question = byId.get(id);
+            if (question != null && Boolean.TRUE.equals(question.getIsActive())
+                    && keys.stream().anyMatch(key -> matches(question, key))) {
+                loaded.add(question);
+            }
+        }
+        return loaded;
+    }
+
+    private static boolean matches(QuizQuestion question, PoolKey key) {
+        if (key.difficulty() != null && key.difficulty() != question.getDifficulty()) {
+            return false;
+        }
+        return key.topic() == null || (question.getTopic() != null
+                && key.topic().equals(question.getTopic().getName().trim().toLowerCase()));
+    }
+
+    /**
+     * Picks up to {@code count} distinct ids from the concatenation of {@code segments},
+     * skipping {@code excluded}. Random positions are drawn until enough ids are found, which
+     * takes O(count) draws while the pool is much larger than the exclusions; when draws keep
+     * missing (small or mostly excluded pool) the remaining candidates are enumerated and
+     * shuffled instead.
+     */
+    static long[] sampleIds(List<long[]> segments, int count, Set<Long> excluded, Random random) {
+        int total = segments.stream().mapToInt(s -> s.length).sum();
+        if (total == 0 || count <= 0) {
+            return new long[0];
+        }
+
+        Set<Long> chosen = new LinkedHashSet<>();
+        int maxDraws = count * 8 + 32;
+        for (int draw = 0; draw < maxDraws && chosen.size() < count; draw++) {
+            long id = idAt(segments, random.nextInt(total));
+            if (!excluded.contains(id)) {
+                chosen.add(id);
+            }
+        }
+
+        if (chosen.size() < count) {
+            List<Long> remaining = new ArrayList<>();
+            for (long[] segment : segments) {
+                for (long id : segment) {
+                    if (!excluded.contains(id) && !chosen.contains(id)) {
+                        remaining.add(id);
+                    }
+                }
+            }
+            Collections.shuffle(remaining, random);
+            for (Long id : remaining) {
+                if (chosen.size() >= count) {
+                    break;
+                }
+                chosen.add(id);
+            }
+        }
+        return chosen.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long idAt(List<long[]> segments, int index) {
+        for (long[] segment : segments) {
+            if (index < segment.length) {
+                return segment[index];
+            }
+            index -= segment.length;
+        }
+        throw new IndexOutOfBoundsException(index);
+    }
+
+    /**
+     * Rows are {@code [id, difficulty, topicName]}; each id goes into its difficulty pool,
+     * its topic pool, their combination and the catch-all pool.
+     */
+    static Map<PoolKey, long[]> group(List<Object[]> rows) {
+        Map<PoolKey, LongStream.Builder> builders = new HashMap<>();
+        for (Object[] row : rows) {
+            long id = ((Number) row[0]).longValue();
+            QuizDifficulty difficulty = (QuizDifficulty) row[1];
+            String topic = (String) row[2];
+
+            builders.computeIfAbsent(PoolKey.of(null, null), k -> LongStream.builder()).add(id);
+            if (difficulty != null) {
+                builders.computeIfAbsent(PoolKey.of(difficulty, null), k -> LongStream.builder()).add(id);
+            }
+            if (topic != null && !topic.isBlank()) {
+                builders.computeIfAbsent(PoolKey.of(null, topic), k -> LongStream.builder()).add(id);
+                if (difficulty != null) {
+                    builders.computeIfAbsent(PoolKey.of(difficulty, topic), k -> LongStream.builder()).add(id);
+                }
+            }
+        }
+
+        Map<PoolKey, long[]> grouped = new HashMap<>();
+        builders.forEach((key, builder) -> grouped.put(key, builder.build().toArray()));
+        return grouped;
+    }
+
+    private static long[] concat(long[] a, long[] b) {
+        long[] merged = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, merged, a.length, b.length);
+        return merged;
+    }
+
+    private static long maxId(List<Object[]> rows) {
+        return rows.stream().mapToLong(row -> ((Number) row[0]).longValue()).max().orElse(0L);
+    }
+}
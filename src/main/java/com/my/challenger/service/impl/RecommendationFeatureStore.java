@@ -0,0 +1,238 @@
+package com.my.challenger.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.my.challenger.entity.enums.ChallengeDifficulty;
+import com.my.challenger.entity.listener.ChallengeProgressEntityListener.ChallengeProgressRemovedEvent;
+import com.my.challenger.entity.listener.ChallengeProgressEntityListener.ChallengeProgressSavedEvent;
+import com.my.challenger.repository.ChallengeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory inputs for {@link ChallengeRecommendationService}.
+ * <p>
+ * Per-user skill profiles (completed challenges by difficulty, plus every challenge the user
+ * already takes part in) are loaded once per user and then kept current from
+ * {@link ChallengeProgressSavedEvent}s, so the completion aggregates are never recomputed on
+ * the read path. Removed progress drops the profile, and profiles expire a fixed time after
+ * they were last written, which bounds staleness on nodes that never see a user's events.
+ * Candidate challenges (active, public) are held as id lists per difficulty in
+ * the repository's recommendation order and refreshed periodically.
+ */
+@Slf4j
+@Component
+public class RecommendationFeatureStore {
+
+    private static final int LEVELS = ChallengeDifficulty.values().length;
+
+    private final ChallengeRepository challengeRepository;
+    private final Cache<Long, Features> profiles;
+
+    private final Object refreshLock = new Object();
+    private volatile Map<ChallengeDifficulty, long[]> candidates;
+
+    public RecommendationFeatureStore(
+            ChallengeRepository challengeRepository,
+            @Value("${app.recommendations.profile-cache-size:50000}") long profileCacheSize,
+            @Value("${app.recommendations.profile-ttl-minutes:60}") long profileTtlMinutes) {
+        this.challengeRepository = challengeRepository;
+        this.profiles = Caffeine.newBuilder()
+                .maximumSize(profileCacheSize)
+                .expireAfterWrite(Duration.ofMinutes(Math.max(1, profileTtlMinutes)))
+                .build();
+    }
+
+    /**
+     * Completion summary of a user; an empty profile for users without completed challenges.
+     */
+    public record UserSkillProfile(
+            int completedCount,
+            double averageDifficulty,
+            ChallengeDifficulty highestCompleted,
+            Map<ChallengeDifficulty, Integer> completedByDifficulty) {
+
+        public boolean hasCompleted() {
+            return completedCount > 0;
+        }
+    }
+
+    public UserSkillProfile getProfile(Long userId) {
+        return features(userId).snapshot();
+    }
+
+    /**
+     * Candidate challenge ids at the given difficulties that the user has not joined, ordered
+     * by difficulty level and then newest start date, after skipping {@code offset} of them.
+     */
+    public List<Long> findCandidates(Long userId, Collection<ChallengeDifficulty> difficulties,
+                                     long offset, int limit) {
+        Features features = features(userId);
+        Map<ChallengeDifficulty, long[]> pools = candidates();
+        List<Long> ids = new ArrayList<>(Math.max(0, limit));
+        long skipped = 0;
+        for (ChallengeDifficulty difficulty : ChallengeDifficulty.values()) {
+            if (!difficulties.contains(difficulty)) {
+                continue;
+            }
+            for (long id : pools.getOrDefault(difficulty, new long[0])) {
+                if (ids.size() >= limit) {
+                    return ids;
+                }
+                if (features.hasJoined(id)) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                    continue;
+                }
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Applies a progress change to the user's profile once it is committed. The update goes
+     * through the cache's map, which waits for a load of the same user that is in flight, so
+     * the event is not lost to it. Users whose profile is not loaded are skipped; their next
+     * read loads the committed state.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProgressSaved(ChallengeProgressSavedEvent event) {
+        ChallengeDifficulty difficulty = null;
+        if (event.isCompleted()) {
+            // Resolved up front: no repository I/O while holding the cache entry
+            Features loaded = profiles.getIfPresent(event.getUserId());
+            if (loaded == null || !loaded.hasCompleted(event.getChallengeId())) {
+                difficulty = challengeRepository.findDifficultyById(event.getChallengeId()).orElse(null);
+            }
+        }
+        ChallengeDifficulty completedDifficulty = difficulty;
+        profiles.asMap().computeIfPresent(event.getUserId(), (userId, features) -> {
+            features.apply(event.getChallengeId(), completedDifficulty, event.isCompleted());
+            return features;
+        });
+    }
+
+    /**
+     * Features only ever add, so a removed progress row is handled by reloading the profile.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProgressRemoved(ChallengeProgressRemovedEvent event) {
+        profiles.invalidate(event.getUserId());
+    }
+
+    @Scheduled(fixedDelayString = "${app.recommendations.candidate-refresh-ms:60000}")
+    public void refreshCandidates() {
+        if (candidates == null) {
+            return;
+        }
+        rebuildCandidates();
+    }
+
+    private Features features(Long userId) {
+        return profiles.get(userId, this::loadFeatures);
+    }
+
+    private Features loadFeatures(Long userId) {
+        Features features = new Features();
+        for (Object[] row : challengeRepository.findUserProgressFeatures(userId)) {
+            features.apply((Long) row[0], (ChallengeDifficulty) row[1], Boolean.TRUE.equals(row[2]));
+        }
+        return features;
+    }
+
+    private Map<ChallengeDifficulty, long[]> candidates() {
+        Map<ChallengeDifficulty, long[]> current = candidates;
+        if (current == null) {
+            synchronized (refreshLock) {
+                if (candidates == null) {
+                    rebuildCandidates();
+                }
+                current = candidates;
+            }
+        }
+        return current;
+    }
+
+    private void rebuildCandidates() {
+        synchronized (refreshLock) {
+            candidates = group(challengeRepository.findRecommendationCandidates());
+            log.debug("Rebuilt recommendation candidate pools: {}", candidates.keySet());
+        }
+    }
+
+    /**
+     * Groups {@code [id, difficulty]} rows per difficulty, keeping row order.
+     */
+    static Map<ChallengeDifficulty, long[]> group(List<Object[]> rows) {
+        Map<ChallengeDifficulty, List<Long>> grouped = new EnumMap<>(ChallengeDifficulty.class);
+        for (Object[] row : rows) {
+            grouped.computeIfAbsent((ChallengeDifficulty) row[1], d -> new ArrayList<>()).add((Long) row[0]);
+        }
+        Map<ChallengeDifficulty, long[]> pools = new EnumMap<>(ChallengeDifficulty.class);
+        grouped.forEach((difficulty, ids) -> pools.put(difficulty, ids.stream().mapToLong(Long::longValue).toArray()));
+        return Collections.unmodifiableMap(pools);
+    }
+
+    /**
+     * Mutable per-user features. Updates are keyed by challenge id and only ever add, so they
+     * are idempotent and an event that races with the initial load is harmless. Removals
+     * invalidate the whole profile instead.
+     */
+    static final class Features {
+        private final Set<Long> joined = new HashSet<>();
+        private final Map<Long, ChallengeDifficulty> completed = new HashMap<>();
+        // Index 0 counts completed challenges without a difficulty
+        private final int[] completedByLevel = new int[LEVELS + 1];
+        private long levelSum;
+
+        synchronized void apply(Long challengeId, ChallengeDifficulty difficulty, boolean isCompleted) {
+            joined.add(challengeId);
+            if (isCompleted && !completed.containsKey(challengeId)) {
+                completed.put(challengeId, difficulty);
+                int level = difficulty != null ? difficulty.getLevel() : 0;
+                completedByLevel[level]++;
+                levelSum += level;
+            }
+        }
+
+        synchronized boolean hasJoined(long challengeId) {
+            return joined.contains(challengeId);
+        }
+
+        synchronized boolean hasCompleted(Long challengeId) {
+            return completed.containsKey(challengeId);
+        }
+
+        synchronized UserSkillProfile snapshot() {
+            int count = completed.size();
+            Map<ChallengeDifficulty, Integer> byDifficulty = new EnumMap<>(ChallengeDifficulty.class);
+            ChallengeDifficulty highest = null;
+            for (ChallengeDifficulty difficulty : ChallengeDifficulty.values()) {
+                int n = completedByLevel[difficulty.getLevel()];
+                if (n > 0) {
+                    byDifficulty.put(difficulty, n);
+                    highest = difficulty;
+                }
+            }
+            return new UserSkillProfile(count, count > 0 ? (double) levelSum / count : 0.0,
+                    highest, Collections.unmodifiableMap(byDifficulty));
+        }
+    }
+}
@@ -9,18 +9,24 @@ import com.my.challenger.exception.ScreenTimeLockedException;
 import com.my.challenger.repository.ScreenTimeBudgetRepository;
 import com.my.challenger.repository.UserRepository;
 import com.my.challenger.service.ScreenTimeBudgetService;
-import jakarta.persistence.OptimisticLockException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -30,15 +36,18 @@ public class ScreenTimeBudgetServiceImpl implements ScreenTimeBudgetService {
     private final ScreenTimeBudgetRepository screenTimeBudgetRepository;
     private final UserRepository userRepository;
     private final com.my.challenger.repository.UserParentalSettingsRepository parentalRepository;
+    private final ScreenTimeLedger ledger;
+    private final PlatformTransactionManager transactionManager;
+
+    private static final int LEDGER_LOAD_ATTEMPTS = 3;
+
+    // With several instances no instance's ledger holds the authoritative balance
+    @Value("${app.game-rooms.mode:local}")
+    private String gameRoomsMode;
 
     @Override
-    @Transactional
     public ScreenTimeBudgetDTO getOrCreateBudget(Long userId) {
-        ScreenTimeBudget budget = screenTimeBudgetRepository.findByUserId(userId)
-                .orElseGet(() -> createDefaultBudget(userId));
-
-        checkAndPerformDailyReset(budget);
-        return convertToDTO(budget);
+        return onLedger(userId, account -> convertToDTO(account));
     }
 
     @Override
@@ -70,130 +79,95 @@ public class ScreenTimeBudgetServiceImpl implements ScreenTimeBudgetService {
         // We won't retroactive update available unless reset happens.
         
         ScreenTimeBudget saved = screenTimeBudgetRepository.save(budget);
+        invalidateAfterCommit(budget.getUser().getId());
         log.info("SCREEN_TIME_AUDIT userId={} action=CONFIGURE dailyBudget={}", userId, saved.getDailyBudgetMinutes());
         
         return convertToDTO(saved);
     }
 
     @Override
-    @Transactional
-    @Retryable(value = OptimisticLockException.class, maxAttempts = 3, backoff = @Backoff(delay = 100))
     public ScreenTimeBudgetDTO deductTime(Long userId, int minutes) {
-        if (minutes <= 0) return getOrCreateBudget(userId);
-
-        ScreenTimeBudget budget = getBudgetEntity(userId);
-        
-        if (!Boolean.TRUE.equals(budget.getScreenTimeEnabled())) {
-            return convertToDTO(budget);
-        }
-
-        checkAndPerformDailyReset(budget);
-
-        if (budget.isFullyLocked()) {
-            throw new ScreenTimeLockedException("Screen time is locked due to penalty");
-        }
+        return onLedger(userId, account -> {
+            if (minutes <= 0 || !account.screenTimeEnabled) {
+                return convertToDTO(account);
+            }
+            if (account.isFullyLocked()) {
+                throw new ScreenTimeLockedException("Screen time is locked due to penalty");
+            }
+            if (account.available < minutes) {
+                throw new InsufficientScreenTimeException("Insufficient screen time available. Requested: " + minutes + ", Available: " + account.available);
+            }
 
-        if (budget.getAvailableMinutes() < minutes) {
-            throw new InsufficientScreenTimeException("Insufficient screen time available. Requested: " + minutes + ", Available: " + budget.getAvailableMinutes());
-        }
+            int before = account.available;
+            ledger.apply(account, new ScreenTimeLedger.Change(-minutes, 0, 0, 0, 0, 0));
+            account.markActivity(LocalDateTime.now());
 
-        int before = budget.getAvailableMinutes();
-        budget.setAvailableMinutes(budget.getAvailableMinutes() - minutes);
-        budget.setLastActivityAt(LocalDateTime.now());
-        
-        ScreenTimeBudget saved = screenTimeBudgetRepository.save(budget);
-        
-        log.info("SCREEN_TIME_AUDIT userId={} action=DEDUCT minutes={} availableBefore={} availableAfter={}",
-                userId, minutes, before, saved.getAvailableMinutes());
+            log.info("SCREEN_TIME_AUDIT userId={} action=DEDUCT minutes={} availableBefore={} availableAfter={}",
+                    userId, minutes, before, account.available);
 
-        return convertToDTO(saved);
+            return convertToDTO(account);
+        });
     }
 
     @Override
-    @Transactional
     public ScreenTimeBudgetDTO syncUsage(Long userId, SyncTimeRequest request) {
-        ScreenTimeBudget budget = getBudgetEntity(userId);
-        if (!Boolean.TRUE.equals(budget.getScreenTimeEnabled())) {
-            return convertToDTO(budget);
-        }
         return deductTime(userId, request.getUsedMinutes());
     }
 
     @Override
-    @Transactional(readOnly = true)
     public ScreenTimeStatusDTO getStatus(Long userId) {
-        ScreenTimeBudget budget = screenTimeBudgetRepository.findByUserId(userId)
-                .orElseGet(() -> createDefaultBudget(userId)); 
-        
-        return convertToStatusDTO(getOrCreateBudget(userId));
+        return onLedger(userId, this::convertToStatusDTO);
     }
 
     @Override
-    @Transactional
     public void lockTime(Long userId, int minutes) {
-        ScreenTimeBudget budget = getBudgetEntity(userId);
-        checkAndPerformDailyReset(budget);
+        onLedger(userId, account -> {
+            int available = account.available;
 
-        int available = budget.getAvailableMinutes();
-        
-        if (available < minutes) {
-            throw new InsufficientScreenTimeException("Cannot lock " + minutes + " minutes. Available: " + available);
-        }
+            if (available < minutes) {
+                throw new InsufficientScreenTimeException("Cannot lock " + minutes + " minutes. Available: " + available);
+            }
 
-        budget.setAvailableMinutes(available - minutes);
-        budget.setLockedMinutes(budget.getLockedMinutes() + minutes);
-        
-        screenTimeBudgetRepository.save(budget);
-        log.info("SCREEN_TIME_AUDIT userId={} action=LOCK minutes={}", userId, minutes);
+            ledger.apply(account, new ScreenTimeLedger.Change(-minutes, minutes, 0, 0, 0, 0));
+            log.info("SCREEN_TIME_AUDIT userId={} action=LOCK minutes={}", userId, minutes);
+            return minutes;
+        });
     }
 
     @Override
-    @Transactional
     public void unlockTime(Long userId, int minutes) {
-        ScreenTimeBudget budget = getBudgetEntity(userId);
-        
-        if (budget.getLockedMinutes() < minutes) {
-            log.warn("Attempting to unlock more minutes than locked. User: {}, Locked: {}, Unlock: {}", 
-                    userId, budget.getLockedMinutes(), minutes);
-            minutes = budget.getLockedMinutes();
-        }
+        onLedger(userId, account -> {
+            int unlocked = minutes;
+            if (account.locked < minutes) {
+                log.warn("Attempting to unlock more minutes than locked. User: {}, Locked: {}, Unlock: {}",
+                        userId, account.locked, minutes);
+                unlocked = account.locked;
+            }
 
-        budget.setLockedMinutes(budget.getLockedMinutes() - minutes);
-        budget.setAvailableMinutes(budget.getAvailableMinutes() + minutes);
-        
-        screenTimeBudgetRepository.save(budget);
-        log.info("SCREEN_TIME_AUDIT userId={} action=UNLOCK minutes={}", userId, minutes);
+            ledger.apply(account, new ScreenTimeLedger.Change(unlocked, -unlocked, 0, 0, 0, 0));
+            log.info("SCREEN_TIME_AUDIT userId={} action=UNLOCK minutes={}", userId, unlocked);
+            return unlocked;
+        });
     }
 
     @Override
-    @Transactional
     public void loseTime(Long userId, int minutes) {
-        ScreenTimeBudget budget = getBudgetEntity(userId);
-        checkAndPerformDailyReset(budget);
+        onLedger(userId, account -> {
+            int effectiveDeduction = Math.min(account.available, minutes);
 
-        int available = budget.getAvailableMinutes();
-        int effectiveDeduction = Math.min(available, minutes);
-        
-        budget.setAvailableMinutes(available - effectiveDeduction);
-        budget.setLostTodayMinutes(budget.getLostTodayMinutes() + minutes);
-        budget.setTotalLostMinutes(budget.getTotalLostMinutes() + minutes);
-        
-        screenTimeBudgetRepository.save(budget);
-        log.info("SCREEN_TIME_AUDIT userId={} action=LOSE_WAGER minutes={}", userId, minutes);
+            ledger.apply(account, new ScreenTimeLedger.Change(-effectiveDeduction, 0, minutes, 0, minutes, 0));
+            log.info("SCREEN_TIME_AUDIT userId={} action=LOSE_WAGER minutes={}", userId, minutes);
+            return minutes;
+        });
     }
 
     @Override
-    @Transactional
     public void winTime(Long userId, int minutes) {
-        ScreenTimeBudget budget = getBudgetEntity(userId);
-        checkAndPerformDailyReset(budget);
-
-        budget.setAvailableMinutes(budget.getAvailableMinutes() + minutes);
-        budget.setWonTodayMinutes(budget.getWonTodayMinutes() + minutes);
-        budget.setTotalWonMinutes(budget.getTotalWonMinutes() + minutes);
-        
-        screenTimeBudgetRepository.save(budget);
-        log.info("SCREEN_TIME_AUDIT userId={} action=WIN_WAGER minutes={}", userId, minutes);
+        onLedger(userId, account -> {
+            ledger.apply(account, new ScreenTimeLedger.Change(minutes, 0, 0, minutes, 0, minutes));
+            log.info("SCREEN_TIME_AUDIT userId={} action=WIN_WAGER minutes={}", userId, minutes);
+            return minutes;
+        });
     }
 
     @Override
@@ -212,6 +186,7 @@ public class ScreenTimeBudgetServiceImpl implements ScreenTimeBudgetService {
         
         budget.setScreenTimeEnabled(enabled);
         ScreenTimeBudget saved = screenTimeBudgetRepository.save(budget);
+        invalidateAfterCommit(budget.getUser().getId());
         
         log.info("SCREEN_TIME_AUDIT userId={} action=TOGGLE_ENABLED enabled={} calledBy={}", 
                 userId, enabled, callerId);
@@ -234,6 +209,7 @@ public class ScreenTimeBudgetServiceImpl implements ScreenTimeBudgetService {
         budget.setScreenTimeControlLocked(true);
         
         ScreenTimeBudget saved = screenTimeBudgetRepository.save(budget);
+        invalidateAfterCommit(budget.getUser().getId());
         log.info("SCREEN_TIME_AUDIT userId={} action=DELEGATE_CONTROL controllerId={}", userId, controllerUserId);
         
         return convertToDTO(saved);
@@ -252,6 +228,7 @@ public class ScreenTimeBudgetServiceImpl implements ScreenTimeBudgetService {
         budget.setScreenTimeControlLocked(false);
         
         ScreenTimeBudget saved = screenTimeBudgetRepository.save(budget);
+        invalidateAfterCommit(budget.getUser().getId());
         log.info("SCREEN_TIME_AUDIT userId={} action=RELEASE_CONTROL targetUserId={} releasedBy={}", 
                 targetUserId, targetUserId, callerId);
                 
@@ -277,6 +254,7 @@ public class ScreenTimeBudgetServiceImpl implements ScreenTimeBudgetService {
         
         budget.setScreenTimeEnabled(enabled);
         ScreenTimeBudget saved = screenTimeBudgetRepository.save(budget);
+        invalidateAfterCommit(budget.getUser().getId());
         
         log.info("SCREEN_TIME_AUDIT userId={} action=CONTROLLED_TOGGLE enabled={} calledBy={}", 
                 targetUserId, enabled, callerId);
@@ -297,6 +275,71 @@ public class ScreenTimeBudgetServiceImpl implements ScreenTimeBudgetService {
         }
     }
 
+    /**
+     * Runs {@code action} on the user's ledger account, loading the budget first if needed.
+     */
+    private <T> T onLedger(Long userId, Function<ScreenTimeLedger.Account, T> action) {
+        if (isClustered()) {
+            return onLockedRow(userId, action);
+        }
+        for (int attempt = 1; ; attempt++) {
+            Optional<T> result = ledger.withAccount(userId, action);
+            if (result.isPresent()) {
+                return result.get();
+            }
+            long loadEpoch = ledger.epoch();
+            ScreenTimeLedger.Account account = loadAccount(userId);
+            // A load that keeps overlapping flushes is taken as is; it is refreshed after max-age
+            ledger.register(account, loadEpoch, attempt >= LEDGER_LOAD_ATTEMPTS);
+        }
+    }
+
+    private ScreenTimeLedger.Account loadAccount(Long userId) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template.execute(tx -> {
+            ScreenTimeBudget budget = getBudgetEntity(userId);
+            checkAndPerformDailyReset(budget);
+            return new ScreenTimeLedger.Account(budget);
+        });
+    }
+
+    /**
+     * Runs {@code action} on an account read from the locked budget row and writes its change in
+     * the same transaction, so withdrawals on other instances wait for it and see its result.
+     */
+    private <T> T onLockedRow(Long userId, Function<ScreenTimeLedger.Account, T> action) {
+        return new TransactionTemplate(transactionManager).execute(tx -> {
+            // Lock first, so the budget is read with the latest balance
+            screenTimeBudgetRepository.findByUserIdForUpdate(userId);
+            ScreenTimeBudget budget = getBudgetEntity(userId);
+            checkAndPerformDailyReset(budget);
+            // Entity changes go first; the change below is a relative update of the same row
+            screenTimeBudgetRepository.flush();
+
+            ScreenTimeLedger.Account account = new ScreenTimeLedger.Account(budget);
+            T result = action.apply(account);
+            ledger.writeDetached(account);
+            return result;
+        });
+    }
+
+    private boolean isClustered() {
+        return "postgres".equals(gameRoomsMode);
+    }
+
+    /**
+     * Drops the ledger account once the entity change is committed, so it is reloaded with it.
+     */
+    private void invalidateAfterCommit(Long userId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ledger.invalidate(userId);
+            }
+        });
+    }
+
     private ScreenTimeBudget getBudgetEntity(Long userId) {
         ScreenTimeBudget budget = screenTimeBudgetRepository.findByUserId(userId)
                 .orElseGet(() -> createDefaultBudget(userId));
@@ -333,7 +376,7 @@ public class ScreenTimeBudgetServiceImpl implements ScreenTimeBudgetService {
                 .wonTodayMinutes(0)
                 .totalLostMinutes(0L)
                 .totalWonMinutes(0L)
-                .lastResetDate(LocalDate.now())
+                .lastResetDate(LocalDate.now(ZoneOffset.UTC))
                 .timezone("UTC")
                 .screenTimeEnabled(true)
                 .screenTimeControlLocked(false)
@@ -347,7 +390,7 @@ public class ScreenTimeBudgetServiceImpl implements ScreenTimeBudgetService {
             return;
         }
 
-        LocalDate today = LocalDate.now(); 
+        LocalDate today = LocalDate.now(ScreenTimeLedger.zoneOf(budget.getTimezone()));
         
         if (budget.getLastResetDate().isBefore(today)) {
             // Reset logic
@@ -378,18 +421,30 @@ public class ScreenTimeBudgetServiceImpl implements ScreenTimeBudgetService {
                 .build();
     }
     
-    private ScreenTimeStatusDTO convertToStatusDTO(ScreenTimeBudgetDTO dto) {
-        return ScreenTimeStatusDTO.builder()
-                .isLocked(dto.getLockedMinutes() > 0 && dto.getAvailableMinutes() == 0) // or just locked > 0? "isLocked" usually implies blocked.
-                .availableMinutes(dto.getAvailableMinutes())
+    private ScreenTimeBudgetDTO convertToDTO(ScreenTimeLedger.Account account) {
+        return ScreenTimeBudgetDTO.builder()
+                .id(account.budgetId)
+                .userId(account.userId)
+                .dailyBudgetMinutes(account.dailyBudgetMinutes)
+                .availableMinutes(account.available)
+                .lockedMinutes(account.locked)
+                .lostMinutes(account.lostToday)
+                .totalWonMinutes(account.totalWon)
+                .totalLostMinutes(account.totalLost)
+                .lastResetDate(account.lastResetDate.toString())
+                .screenTimeEnabled(account.screenTimeEnabled)
+                .controlledBy(account.controlledBy)
+                .controllerUsername(account.controllerUsername)
+                .controlLocked(account.controlLocked)
+                .createdAt(account.createdAt)
+                .updatedAt(account.updatedAt)
                 .build();
     }
-    
-    // Direct entity to status DTO
-    private ScreenTimeStatusDTO convertToStatusDTO(ScreenTimeBudget budget) {
+
+    private ScreenTimeStatusDTO convertToStatusDTO(ScreenTimeLedger.Account account) {
         return ScreenTimeStatusDTO.builder()
-                .isLocked(budget.isFullyLocked())
-                .availableMinutes(budget.getAvailableMinutes())
+                .isLocked(account.isFullyLocked())
+                .availableMinutes(account.available)
                 .build();
     }
 }
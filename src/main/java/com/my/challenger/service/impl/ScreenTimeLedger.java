@@ -0,0 +1,470 @@
+package com.my.challenger.service.impl;
+
+import com.my.challenger.entity.ScreenTimeBudget;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * In-memory screen time balances with write-behind persistence.
+ * <p>
+ * Each user's budget is held as an {@link Account} once loaded. Deductions, locks and wager
+ * results change the account in memory and accumulate a coalesced delta that a scheduled flush
+ * writes as relative UPDATEs, so concurrent requests never race on the entity version. Accounts
+ * are guarded by a fixed set of monitors striped by user id; critical sections are arithmetic
+ * only. Accounts are dropped after {@code max-age-seconds} or when idle, and reloaded on the
+ * first access of a new day in the user's timezone, so changes made outside the ledger
+ * (configuration, daily reset jobs) are picked up. The daily reset of a timezone drops its
+ * accounts as well, writing their pending changes first.
+ * <p>
+ * A change applied inside a transaction that later rolls back is reverted.
+ * <p>
+ * Balances held here are only authoritative while this is the only instance. With several
+ * instances ({@code app.game-rooms.mode=postgres}) accounts are not registered at all: each
+ * operation runs on a {@link #writeDetached detached} account read from the locked row, and its
+ * change is written in the same transaction.
+ */
+@Slf4j
+@Component
+public class ScreenTimeLedger {
+
+    // Available and today's counters only apply to the day the change was made on; the daily
+    // reset may have replaced them in the meantime
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE screen_time_budgets SET " +
+                    "available_minutes = CASE WHEN last_reset_date = ? THEN GREATEST(0, available_minutes + ?) ELSE available_minutes END, " +
+                    "lost_today_minutes = CASE WHEN last_reset_date = ? THEN GREATEST(0, lost_today_minutes + ?) ELSE lost_today_minutes END, " +
+                    "won_today_minutes = CASE WHEN last_reset_date = ? THEN GREATEST(0, won_today_minutes + ?) ELSE won_today_minutes END, " +
+                    "locked_minutes = GREATEST(0, locked_minutes + ?), " +
+                    "total_lost_minutes = total_lost_minutes + ?, " +
+                    "total_won_minutes = total_won_minutes + ?, " +
+                    "last_activity_at = COALESCE(?, last_activity_at), " +
+                    "updated_at = CURRENT_TIMESTAMP, " +
+                    "version = version + 1 " +
+                    "WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, Account> accounts = new ConcurrentHashMap<>();
+    private final Object[] stripes;
+    private final long maxAgeMillis;
+    private final long idleMillis;
+
+    // Advanced whenever deltas reach the database; loads that overlap it are retried
+    private final AtomicLong epoch = new AtomicLong();
+    // Users with a drained change still being written; a load of theirs may not include it yet
+    private final Map<Long, Integer> writing = new ConcurrentHashMap<>();
+
+    public ScreenTimeLedger(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.screen-time-ledger.stripes:64}") int stripes,
+            @Value("${app.screen-time-ledger.max-age-seconds:120}") long maxAgeSeconds,
+            @Value("${app.screen-time-ledger.idle-seconds:600}") long idleSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Deltas are written on their own, never as part of a caller's transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.stripes = new Object[Math.max(1, stripes)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Object();
+        }
+        this.maxAgeMillis = Math.max(1, maxAgeSeconds) * 1000;
+        this.idleMillis = Math.max(1, idleSeconds) * 1000;
+    }
+
+    /**
+     * Change to a budget's counters; positive values add minutes.
+     */
+    record Change(int available, int locked, int lostToday, int wonToday, long totalLost, long totalWon) {
+
+        static final Change NONE = new Change(0, 0, 0, 0, 0, 0);
+
+        Change negate() {
+            return new Change(-available, -locked, -lostToday, -wonToday, -totalLost, -totalWon);
+        }
+
+        Change plus(Change other) {
+            return new Change(available + other.available, locked + other.locked,
+                    lostToday + other.lostToday, wonToday + other.wonToday,
+                    totalLost + other.totalLost, totalWon + other.totalWon);
+        }
+
+        boolean isEmpty() {
+            return equals(NONE);
+        }
+    }
+
+    /**
+     * Pending change of one budget, as written by a flush.
+     */
+    record Delta(Long userId, long budgetId, LocalDate resetDate, Change change, LocalDateTime lastActivityAt) {}
+
+    public long epoch() {
+        return epoch.get();
+    }
+
+    /**
+     * Runs {@code action} on the user's account under its stripe. Returns empty if the account
+     * is not loaded or has to be reloaded, in which case the caller loads the budget and
+     * {@link #register registers} it.
+     */
+    public <T> Optional<T> withAccount(Long userId, Function<Account, T> action) {
+        Delta retired;
+        synchronized (stripe(userId)) {
+            Account account = accounts.get(userId);
+            if (account == null) {
+                return Optional.empty();
+            }
+            if (!account.loadedOn.isBefore(LocalDate.now(account.zone))) {
+                account.lastAccess = System.currentTimeMillis();
+                return Optional.of(action.apply(account));
+            }
+            retired = retire(account);
+        }
+        writeRetired(retired == null ? List.of() : List.of(retired));
+        return Optional.empty();
+    }
+
+    /**
+     * Adds a freshly loaded account unless deltas reached the database since {@code loadEpoch}
+     * or a change of the user is still being written, in which case the load may be stale and
+     * {@code false} is returned; {@code force} accepts it regardless. An account that is
+     * already present is kept.
+     */
+    public boolean register(Account account, long loadEpoch, boolean force) {
+        synchronized (stripe(account.userId)) {
+            if (!force && (epoch.get() != loadEpoch || writing.containsKey(account.userId))) {
+                return false;
+            }
+            accounts.putIfAbsent(account.userId, account);
+            return true;
+        }
+    }
+
+    /**
+     * Writes the user's pending change and drops the account, so the next access reloads it.
+     */
+    public void invalidate(Long userId) {
+        Delta retired = null;
+        synchronized (stripe(userId)) {
+            Account account = accounts.get(userId);
+            if (account != null) {
+                retired = retire(account);
+            }
+        }
+        writeRetired(retired == null ? List.of() : List.of(retired));
+    }
+
+    /**
+     * Writes the pending changes of the accounts in {@code timezone} and drops them, so the
+     * daily reset of that timezone neither discards them as changes of the previous day nor
+     * leaves the balances it replaced in memory. Called before and after the reset.
+     */
+    public void invalidateTimezone(String timezone) {
+        writeRetired(retireWhere(account -> account.timezone.equals(timezone)));
+    }
+
+    /**
+     * Applies {@code change} to the account in memory and records it for the next flush. Inside
+     * a transaction the change is reverted if that transaction does not commit; a detached
+     * account is written by that transaction, whose rollback undoes it.
+     */
+    void apply(Account account, Change change) {
+        account.apply(change);
+        if (accounts.get(account.userId) == account && TransactionSynchronizationManager.isSynchronizationActive()) {
+            Long userId = account.userId;
+            long budgetId = account.budgetId;
+            LocalDate resetDate = account.lastResetDate;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        revert(userId, budgetId, resetDate, change);
+                    }
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.screen-time-ledger.flush-interval-ms:1000}")
+    public void flush() {
+        List<Delta> deltas = new ArrayList<>();
+        for (Account account : accounts.values()) {
+            synchronized (stripe(account.userId)) {
+                Delta delta = take(account);
+                if (delta != null) {
+                    deltas.add(delta);
+                }
+            }
+        }
+        if (!deltas.isEmpty()) {
+            write(deltas);
+        }
+        writeRetired(evictExpired());
+    }
+
+    /**
+     * Writes the change of an account that was never registered as part of the caller's
+     * transaction, which must hold the budget row's lock.
+     */
+    void writeDetached(Account account) {
+        Delta delta = account.drain();
+        if (delta != null) {
+            jdbcTemplate.update(APPLY_DELTA_SQL, ps -> bind(ps, delta));
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing screen time ledger ({} accounts) before shutdown", accounts.size());
+        flush();
+    }
+
+    public int size() {
+        return accounts.size();
+    }
+
+    /**
+     * Drops expired accounts and returns their pending changes, to be written by the caller.
+     */
+    private List<Delta> evictExpired() {
+        long now = System.currentTimeMillis();
+        return retireWhere(account -> now - account.loadedAt >= maxAgeMillis || now - account.lastAccess >= idleMillis);
+    }
+
+    /**
+     * Drops the accounts matching {@code condition} and returns their pending changes, to be
+     * written by the caller.
+     */
+    private List<Delta> retireWhere(Predicate<Account> condition) {
+        List<Delta> retired = new ArrayList<>();
+        for (Account account : accounts.values()) {
+            if (!condition.test(account)) {
+                continue;
+            }
+            synchronized (stripe(account.userId)) {
+                // Anything changed since the drain is written with the retire
+                if (accounts.get(account.userId) == account) {
+                    Delta delta = retire(account);
+                    if (delta != null) {
+                        retired.add(delta);
+                    }
+                }
+            }
+        }
+        return retired;
+    }
+
+    private void revert(Long userId, long budgetId, LocalDate resetDate, Change change) {
+        Change reverse = change.negate();
+        synchronized (stripe(userId)) {
+            Account account = accounts.get(userId);
+            if (account != null && account.budgetId == budgetId) {
+                account.apply(reverse);
+                return;
+            }
+        }
+        // The change may already have been flushed with its account; write the reversal directly
+        writing.merge(userId, 1, Integer::sum);
+        write(List.of(new Delta(userId, budgetId, resetDate, reverse, null)));
+    }
+
+    /**
+     * Removes the account and takes its pending change, which the caller writes once the
+     * stripe is released. Called under the account's stripe.
+     */
+    private Delta retire(Account account) {
+        accounts.remove(account.userId, account);
+        return take(account);
+    }
+
+    /**
+     * Drains the account's pending change and marks the user as being written until the change
+     * reaches the database, so a reload cannot miss it. Called under the account's stripe.
+     */
+    private Delta take(Account account) {
+        Delta delta = account.drain();
+        if (delta != null) {
+            writing.merge(account.userId, 1, Integer::sum);
+        }
+        return delta;
+    }
+
+    private void writeRetired(List<Delta> deltas) {
+        if (!deltas.isEmpty()) {
+            write(deltas);
+        }
+    }
+
+    /**
+     * Writes deltas taken with {@link #take}; never called under a stripe.
+     */
+    private void write(List<Delta> deltas) {
+        try {
+            transactionTemplate.executeWithoutResult(tx ->
+                    jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, deltas, deltas.size(), ScreenTimeLedger::bind));
+        } catch (RuntimeException e) {
+            log.warn("Batch write of {} screen time deltas failed, retrying individually: {}",
+                    deltas.size(), e.getMessage());
+            deltas.forEach(this::writeSingle);
+        } finally {
+            epoch.incrementAndGet();
+            deltas.forEach(delta -> writing.computeIfPresent(delta.userId(), (id, count) -> count > 1 ? count - 1 : null));
+        }
+    }
+
+    private void writeSingle(Delta delta) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.update(APPLY_DELTA_SQL, ps -> bind(ps, delta)));
+        } catch (RuntimeException e) {
+            log.error("Dropping screen time delta for budget {} ({}): {}", delta.budgetId(), delta.change(), e.getMessage());
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Delta delta) throws SQLException {
+        Date resetDate = Date.valueOf(delta.resetDate());
+        Change change = delta.change();
+        ps.setDate(1, resetDate);
+        ps.setInt(2, change.available());
+        ps.setDate(3, resetDate);
+        ps.setInt(4, change.lostToday());
+        ps.setDate(5, resetDate);
+        ps.setInt(6, change.wonToday());
+        ps.setInt(7, change.locked());
+        ps.setLong(8, change.totalLost());
+        ps.setLong(9, change.totalWon());
+        ps.setTimestamp(10, delta.lastActivityAt() != null ? Timestamp.valueOf(delta.lastActivityAt()) : null);
+        ps.setLong(11, delta.budgetId());
+    }
+
+    private Object stripe(Long userId) {
+        return stripes[Math.floorMod(Long.hashCode(userId), stripes.length)];
+    }
+
+    /**
+     * Zone of a budget's timezone setting; unknown settings count as UTC, as in the daily reset.
+     */
+    static ZoneId zoneOf(String timezone) {
+        try {
+            return timezone != null ? ZoneId.of(timezone) : ZoneOffset.UTC;
+        } catch (DateTimeException e) {
+            return ZoneOffset.UTC;
+        }
+    }
+
+    /**
+     * A user's budget as seen by this instance, plus the change not yet written. Built from a
+     * managed entity inside the loading transaction; guarded by the user's stripe afterwards.
+     */
+    static final class Account {
+        final Long userId;
+        final long budgetId;
+        final String timezone;
+        final ZoneId zone;
+        // The user's date at load time
+        final LocalDate loadedOn;
+        final long loadedAt = System.currentTimeMillis();
+        volatile long lastAccess = loadedAt;
+
+        // Settings, changed only outside the ledger
+        final int dailyBudgetMinutes;
+        final boolean screenTimeEnabled;
+        final Long controlledBy;
+        final String controllerUsername;
+        final boolean controlLocked;
+        final LocalDate lastResetDate;
+        final LocalDateTime createdAt;
+
+        int available;
+        int locked;
+        int lostToday;
+        int wonToday;
+        long totalLost;
+        long totalWon;
+        LocalDateTime updatedAt;
+
+        private Change pending = Change.NONE;
+        private LocalDateTime pendingActivityAt;
+
+        Account(ScreenTimeBudget budget) {
+            this.userId = budget.getUser().getId();
+            this.budgetId = budget.getId();
+            this.timezone = budget.getTimezone() != null ? budget.getTimezone() : "UTC";
+            this.zone = zoneOf(timezone);
+            this.loadedOn = LocalDate.now(zone);
+            this.dailyBudgetMinutes = budget.getDailyBudgetMinutes();
+            this.screenTimeEnabled = Boolean.TRUE.equals(budget.getScreenTimeEnabled());
+            this.controlledBy = budget.getScreenTimeControlledBy() != null ? budget.getScreenTimeControlledBy().getId() : null;
+            this.controllerUsername = budget.getScreenTimeControlledBy() != null ? budget.getScreenTimeControlledBy().getUsername() : null;
+            this.controlLocked = Boolean.TRUE.equals(budget.getScreenTimeControlLocked());
+            this.lastResetDate = budget.getLastResetDate();
+            this.createdAt = budget.getCreatedAt();
+            this.available = budget.getAvailableMinutes();
+            this.locked = budget.getLockedMinutes();
+            this.lostToday = budget.getLostTodayMinutes();
+            this.wonToday = budget.getWonTodayMinutes();
+            this.totalLost = budget.getTotalLostMinutes();
+            this.totalWon = budget.getTotalWonMinutes();
+            this.updatedAt = budget.getUpdatedAt();
+        }
+
+        boolean isFullyLocked() {
+            return available == 0 && locked > 0;
+        }
+
+        void markActivity(LocalDateTime at) {
+            pendingActivityAt = at;
+        }
+
+        private void apply(Change change) {
+            available = Math.max(0, available + change.available());
+            locked = Math.max(0, locked + change.locked());
+            lostToday = Math.max(0, lostToday + change.lostToday());
+            wonToday = Math.max(0, wonToday + change.wonToday());
+            totalLost += change.totalLost();
+            totalWon += change.totalWon();
+            updatedAt = LocalDateTime.now();
+            pending = pending.plus(change);
+        }
+
+        /**
+         * Takes the pending change, or {@code null} if there is nothing to write.
+         */
+        private Delta drain() {
+            if (pending.isEmpty() && pendingActivityAt == null) {
+                return null;
+            }
+            Delta delta = new Delta(userId, budgetId, lastResetDate, pending, pendingActivityAt);
+            pending = Change.NONE;
+            pendingActivityAt = null;
+            return delta;
+        }
+    }
+}
@@ -1,32 +1,46 @@
 package com.my.challenger.service.impl;
 
-import com.my.challenger.entity.ScreenTimeBudget;
 import com.my.challenger.entity.ScreenTimeResetLog;
 import com.my.challenger.repository.ScreenTimeBudgetRepository;
 import com.my.challenger.repository.ScreenTimeResetLogRepository;
 import com.my.challenger.service.ScreenTimeResetService;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.net.InetAddress;
 import java.time.*;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
+/**
+ * Daily screen time reset.
+ * <p>
+ * A timezone is reset in keyset chunks: each chunk reads the next {@code batch-size} ids that
+ * still need a reset and resets that id range with a single set-based UPDATE in its own
+ * transaction, so a failed chunk does not roll back the others and rows changed underneath
+ * the job are simply re-checked by the UPDATE. Independent timezones run concurrently on the
+ * bounded {@code screenTimeResetExecutor}. Progress and chunk throughput are written to the
+ * {@link ScreenTimeResetLog} after every chunk. The timezone's {@link ScreenTimeLedger} accounts
+ * are written and dropped before and after the reset.
+ */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class ScreenTimeResetServiceImpl implements ScreenTimeResetService {
 
     private final ScreenTimeBudgetRepository budgetRepository;
     private final ScreenTimeResetLogRepository resetLogRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor resetExecutor;
+    private final ScreenTimeLedger ledger;
 
     @Value("${screen-time.reset.batch-size:500}")
     private int batchSize;
@@ -34,23 +48,40 @@ public class ScreenTimeResetServiceImpl implements ScreenTimeResetService {
     @Value("${spring.application.name:challenger}")
     private String applicationName;
 
+    public ScreenTimeResetServiceImpl(ScreenTimeBudgetRepository budgetRepository,
+                                      ScreenTimeResetLogRepository resetLogRepository,
+                                      PlatformTransactionManager transactionManager,
+                                      @Qualifier("screenTimeResetExecutor") Executor resetExecutor,
+                                      ScreenTimeLedger ledger) {
+        this.budgetRepository = budgetRepository;
+        this.resetLogRepository = resetLogRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.resetExecutor = resetExecutor;
+        this.ledger = ledger;
+    }
+
     @Override
-    @Transactional
     public int resetBudgetsForTimezone(String timezone, LocalDate resetDate) {
         log.info("Starting screen time reset for timezone: {} on date: {}", timezone, resetDate);
         
         long startTime = System.currentTimeMillis();
         String instanceId = getInstanceId();
+        // Pending changes still carry the previous reset date; written now, they are applied
+        ledger.invalidateTimezone(timezone);
         
         // Create audit log entry
-        ScreenTimeResetLog resetLog = ScreenTimeResetLog.builder()
+        ScreenTimeResetLog resetLog = resetLogRepository.save(ScreenTimeResetLog.builder()
                 .resetDate(resetDate)
                 .timezone(timezone)
                 .startedAt(LocalDateTime.now())
                 .status("IN_PROGRESS")
+                .usersProcessed(0)
+                .usersReset(0)
+                .usersSkipped(0)
+                .usersFailed(0)
+                .chunksProcessed(0)
                 .instanceId(instanceId)
-                .build();
-        resetLog = resetLogRepository.save(resetLog);
+                .build());
 
         int totalReset = 0;
         int totalFailed = 0;
@@ -58,51 +89,73 @@ public class ScreenTimeResetServiceImpl implements ScreenTimeResetService {
         int totalProcessed = 0;
 
         try {
-            // Count total users to process
-            long totalUsers = budgetRepository.countByTimezoneNeedingReset(timezone, resetDate);
-            log.info("Found {} users in timezone {} needing reset", totalUsers, timezone);
-
-            // Process in batches
-            int page = 0;
+            Long afterId = 0L;
+            int chunks = 0;
+            long slowestChunkMs = 0;
             while (true) {
-                List<ScreenTimeBudget> batch = budgetRepository.findByTimezoneNeedingReset(
-                        timezone, resetDate, PageRequest.of(page, batchSize));
-
-                if (batch.isEmpty()) {
+                List<Long> ids = budgetRepository.findIdsNeedingReset(
+                        timezone, resetDate, afterId, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
                     break;
                 }
-
-                // Process this batch
-                BatchResult result = processBatch(batch, resetDate);
-                totalReset += result.reset;
-                totalFailed += result.failed;
-                totalSkipped += result.skipped;
-                totalProcessed += batch.size();
-
-                log.debug("Processed batch {}: reset={}, failed={}, skipped={}", 
-                        page, result.reset, result.failed, result.skipped);
-
-                page++;
+                Long fromId = afterId;
+                Long toId = ids.get(ids.size() - 1);
+
+                long chunkStart = System.nanoTime();
+                int reset;
+                try {
+                    reset = transactionTemplate.execute(tx -> budgetRepository.resetRange(timezone, resetDate, fromId, toId));
+                } catch (RuntimeException e) {
+                    log.error("Reset of budgets ({}, {}] in timezone {} failed: {}", fromId, toId, timezone, e.getMessage());
+                    reset = -1;
+                }
+                long chunkMs = (System.nanoTime() - chunkStart) / 1_000_000;
+
+                if (reset < 0) {
+                    totalFailed += ids.size();
+                } else {
+                    totalReset += reset;
+                    // Selected but no longer due by the time of the UPDATE
+                    totalSkipped += Math.max(0, ids.size() - reset);
+                }
+                totalProcessed += ids.size();
+                chunks++;
+                slowestChunkMs = Math.max(slowestChunkMs, chunkMs);
+                afterId = toId;
+
+                log.debug("Reset chunk {} of timezone {}: selected={}, reset={}, {} ms ({} rows/s)",
+                        chunks, timezone, ids.size(), reset, chunkMs, rowsPerSecond(Math.max(0, reset), chunkMs));
+
+                resetLog.setUsersProcessed(totalProcessed);
+                resetLog.setUsersReset(totalReset);
+                resetLog.setUsersFailed(totalFailed);
+                resetLog.setUsersSkipped(totalSkipped);
+                resetLog.setChunksProcessed(chunks);
+                resetLog.setSlowestChunkMs(slowestChunkMs);
+                resetLog.setDurationMs(System.currentTimeMillis() - startTime);
+                resetLog.setRowsPerSecond(rowsPerSecond(totalReset, resetLog.getDurationMs()));
+                resetLog = resetLogRepository.save(resetLog);
             }
 
             // Update audit log
             long duration = System.currentTimeMillis() - startTime;
-            resetLog.setUsersProcessed(totalProcessed);
-            resetLog.setUsersReset(totalReset);
-            resetLog.setUsersFailed(totalFailed);
-            resetLog.setUsersSkipped(totalSkipped);
             resetLog.setCompletedAt(LocalDateTime.now());
             resetLog.setDurationMs(duration);
+            resetLog.setRowsPerSecond(rowsPerSecond(totalReset, duration));
             resetLog.setStatus(totalFailed == 0 ? "SUCCESS" : "PARTIAL");
             resetLogRepository.save(resetLog);
 
-            log.info("Completed reset for timezone {}: processed={}, reset={}, failed={}, skipped={}, duration={}ms",
-                    timezone, totalProcessed, totalReset, totalFailed, totalSkipped, duration);
+            // Accounts loaded while the reset ran may hold pre-reset balances
+            ledger.invalidateTimezone(timezone);
+
+            log.info("Completed reset for timezone {}: processed={}, reset={}, failed={}, skipped={}, chunks={}, duration={}ms",
+                    timezone, totalProcessed, totalReset, totalFailed, totalSkipped, chunks, duration);
 
             return totalReset;
 
         } catch (Exception e) {
             log.error("Failed to reset budgets for timezone {}: {}", timezone, e.getMessage(), e);
+            ledger.invalidateTimezone(timezone);
             
             resetLog.setCompletedAt(LocalDateTime.now());
             resetLog.setStatus("FAILED");
@@ -114,42 +167,14 @@ public class ScreenTimeResetServiceImpl implements ScreenTimeResetService {
         }
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    protected BatchResult processBatch(List<ScreenTimeBudget> batch, LocalDate resetDate) {
-        int reset = 0;
-        int failed = 0;
-        int skipped = 0;
-
-        List<Long> idsToReset = new ArrayList<>();
-
-        for (ScreenTimeBudget budget : batch) {
-            try {
-                // Skip if already reset today
-                if (budget.getLastResetDate() != null && 
-                    !budget.getLastResetDate().isBefore(resetDate)) {
-                    skipped++;
-                    continue;
-                }
-
-                idsToReset.add(budget.getId());
-            } catch (Exception e) {
-                log.warn("Error checking budget {}: {}", budget.getId(), e.getMessage());
-                failed++;
-            }
-        }
-
-        // Bulk update
-        if (!idsToReset.isEmpty()) {
-            try {
-                int updated = budgetRepository.bulkResetBudgets(idsToReset, resetDate);
-                reset = updated;
-            } catch (Exception e) {
-                log.error("Bulk reset failed for {} budgets: {}", idsToReset.size(), e.getMessage());
-                failed += idsToReset.size();
-            }
-        }
-
-        return new BatchResult(reset, failed, skipped);
+    @Override
+    public int resetTimezones(Collection<String> timezones) {
+        List<CompletableFuture<Integer>> resets = timezones.stream()
+                .map(timezone -> CompletableFuture.supplyAsync(() -> resetTimezone(timezone), resetExecutor))
+                .toList();
+        return resets.stream()
+                .mapToInt(CompletableFuture::join)
+                .sum();
     }
 
     @Override
@@ -159,17 +184,24 @@ public class ScreenTimeResetServiceImpl implements ScreenTimeResetService {
         LocalDate today = LocalDate.now(ZoneId.of("UTC"));
         List<String> timezones = budgetRepository.findDistinctTimezonesNeedingReset(today);
         
-        int totalReset = 0;
-        for (String timezone : timezones) {
-            try {
-                LocalDate tzToday = LocalDate.now(ZoneId.of(timezone != null ? timezone : "UTC"));
-                totalReset += resetBudgetsForTimezone(timezone != null ? timezone : "UTC", tzToday);
-            } catch (Exception e) {
-                log.error("Failed catch-up reset for timezone {}: {}", timezone, e.getMessage());
-            }
+        return resetTimezones(timezones);
+    }
+
+    /**
+     * Resets one timezone at its local date; failures are logged and count as zero resets.
+     */
+    private int resetTimezone(String timezone) {
+        String zone = timezone != null ? timezone : "UTC";
+        try {
+            return resetBudgetsForTimezone(zone, LocalDate.now(ZoneId.of(zone)));
+        } catch (Exception e) {
+            log.error("Failed reset for timezone {}: {}", zone, e.getMessage());
+            return 0;
         }
-        
-        return totalReset;
+    }
+
+    private static double rowsPerSecond(int rows, long millis) {
+        return millis > 0 ? rows * 1000.0 / millis : rows;
     }
 
     @Override
@@ -201,6 +233,4 @@ public class ScreenTimeResetServiceImpl implements ScreenTimeResetService {
             return applicationName + "-unknown";
         }
     }
-
-    private record BatchResult(int reset, int failed, int skipped) {}
 }
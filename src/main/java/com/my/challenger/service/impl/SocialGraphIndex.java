@@ -0,0 +1,405 @@
+package com.my.challenger.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.my.challenger.entity.enums.RelationshipStatus;
+import com.my.challenger.entity.enums.RelationshipType;
+import com.my.challenger.repository.UserRelationshipRepository;
+import com.my.challenger.service.impl.UserRelationshipService.RelationshipChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * In-memory adjacency index over {@code user_relationships}.
+ * <p>
+ * Each user's neighbours are held in a primitive open-addressing table together with a few
+ * flag bits describing the edge, so connection checks are a lookup and mutual connections
+ * and friend-of-friend suggestions are set intersections. Adjacencies are loaded lazily (in
+ * bulk for a user's friends), kept in a bounded cache and updated from
+ * {@link RelationshipChangedEvent}s after commit. Cached adjacencies are immutable; an update
+ * swaps in a modified copy.
+ * <p>
+ * Change events are only published on the node that made the change, so every adjacency
+ * also expires a fixed time after it was loaded, whether or not local changes were applied
+ * to it since. That bounds how long another node keeps serving a removed connection.
+ */
+@Slf4j
+@Component
+public class SocialGraphIndex {
+
+    /** Any relationship in any status; such users are never suggested. */
+    static final int RELATED = 1;
+    /** Accepted relationship of any type. */
+    static final int ACCEPTED = 1 << 1;
+    /** Accepted and not blocked; the edges mutual connections are counted over. */
+    static final int MUTUAL = 1 << 2;
+    /** Accepted friend/family relationship, as used for question visibility. */
+    static final int CONNECTED = 1 << 3;
+
+    private final Function<Collection<Long>, Map<Long, Adjacency>> loader;
+    private final Cache<Long, Adjacency> adjacencies;
+
+    // Guards the check-and-cache step of loads against concurrently applied changes
+    private final Object changeLock = new Object();
+    private long changeSeq;
+
+    @Autowired
+    public SocialGraphIndex(
+            UserRelationshipRepository relationshipRepository,
+            @Value("${app.relationships.graph-cache-size:200000}") long cacheSize,
+            @Value("${app.relationships.graph-cache-ttl-seconds:300}") long ttlSeconds) {
+        this(ids -> build(ids, relationshipRepository.findEdgesForUsers(ids)), cacheSize,
+                Duration.ofSeconds(Math.max(1, ttlSeconds)));
+    }
+
+    SocialGraphIndex(Function<Collection<Long>, Map<Long, Adjacency>> loader, long cacheSize, Duration ttl) {
+        this.loader = loader;
+        this.adjacencies = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(expireAfterLoad(ttl))
+                .build();
+    }
+
+    /**
+     * Expires entries {@code ttl} after they were first cached; applying a change keeps the
+     * remaining lifetime, so local updates cannot keep an adjacency alive indefinitely.
+     */
+    private static Expiry<Long, Adjacency> expireAfterLoad(Duration ttl) {
+        long ttlNanos = ttl.toNanos();
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(Long key, Adjacency value, long currentTime) {
+                return ttlNanos;
+            }
+
+            @Override
+            public long expireAfterUpdate(Long key, Adjacency value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+
+            @Override
+            public long expireAfterRead(Long key, Adjacency value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    public record Suggestion(Long userId, int mutualConnections) {}
+
+    /**
+     * Flags of an edge as stored in the database. Only the {@code 'FRIEND'} and
+     * {@code 'FAMILY'} names count as connected, matching the repository's connection query.
+     */
+    static int flagsOf(RelationshipStatus status, RelationshipType type) {
+        int flags = RELATED;
+        if (status == RelationshipStatus.ACCEPTED) {
+            flags |= ACCEPTED;
+            if (type != RelationshipType.BLOCKED) {
+                flags |= MUTUAL;
+            }
+            if (type != null && (type.name().equals("FRIEND") || type.name().equals("FAMILY"))) {
+                flags |= CONNECTED;
+            }
+        }
+        return flags;
+    }
+
+    public boolean isConnected(Long userId, Long otherUserId) {
+        return adjacency(userId).has(otherUserId, CONNECTED);
+    }
+
+    public Set<Long> connectedIds(Long userId) {
+        Set<Long> ids = new LinkedHashSet<>();
+        adjacency(userId).forEach(CONNECTED, ids::add);
+        return ids;
+    }
+
+    public int mutualCount(Long userId, Long otherUserId) {
+        return Adjacency.intersectionCount(adjacency(userId), adjacency(otherUserId), MUTUAL);
+    }
+
+    public List<Long> mutualIds(Long userId, Long otherUserId) {
+        Adjacency other = adjacency(otherUserId);
+        List<Long> ids = new ArrayList<>();
+        adjacency(userId).forEach(MUTUAL, id -> {
+            if (other.has(id, MUTUAL)) {
+                ids.add(id);
+            }
+        });
+        return ids;
+    }
+
+    /**
+     * Friends of the user's accepted connections that the user has no relationship with,
+     * ranked by number of mutual connections.
+     */
+    public List<Suggestion> suggestions(Long userId, int limit) {
+        Adjacency own = adjacency(userId);
+        List<Long> friendIds = new ArrayList<>();
+        own.forEach(ACCEPTED, friendIds::add);
+        Map<Long, Adjacency> friends = adjacencies(friendIds);
+
+        Map<Long, Integer> mutualCounts = new HashMap<>();
+        for (Long friendId : friendIds) {
+            Adjacency friend = friends.get(friendId);
+            boolean mutualFriend = own.has(friendId, MUTUAL);
+            friend.forEach(ACCEPTED, candidate -> {
+                if (candidate == userId || own.has(candidate, RELATED)) {
+                    return;
+                }
+                // Edges are symmetric, so the friend counts as mutual when both edges are mutual
+                int increment = mutualFriend && friend.has(candidate, MUTUAL) ? 1 : 0;
+                mutualCounts.merge(candidate, increment, Integer::sum);
+            });
+        }
+
+        return mutualCounts.entrySet().stream()
+                .map(e -> new Suggestion(e.getKey(), e.getValue()))
+                .sorted(Comparator.comparingInt(Suggestion::mutualConnections).reversed()
+                        .thenComparing(Suggestion::userId))
+                .limit(Math.max(0, limit))
+                .toList();
+    }
+
+    /**
+     * Applies a committed relationship change to both users' cached adjacencies. Users whose
+     * adjacency is not cached are skipped; their next load reads the committed state.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRelationshipChanged(RelationshipChangedEvent event) {
+        int flags = event.isRemoved() ? 0 : flagsOf(event.getStatus(), event.getRelationshipType());
+        synchronized (changeLock) {
+            changeSeq++;
+            adjacencies.asMap().computeIfPresent(event.getUserId(),
+                    (id, adjacency) -> applyChange(adjacency, event.getRelatedUserId(), flags));
+            adjacencies.asMap().computeIfPresent(event.getRelatedUserId(),
+                    (id, adjacency) -> applyChange(adjacency, event.getUserId(), flags));
+        }
+    }
+
+    /**
+     * A pair can have a row in each direction and the cached edge holds the union of both,
+     * so a change can only be merged when it adds flags. A removal or downgrade may leave
+     * flags that the other row still carries; the adjacency is dropped ({@code null}) and
+     * reloaded from the committed rows instead.
+     */
+    private static Adjacency applyChange(Adjacency adjacency, long otherId, int flags) {
+        int current = adjacency.flags(otherId);
+        if (flags == 0 || (current & ~flags) != 0) {
+            return null;
+        }
+        return current == flags ? adjacency : adjacency.with(otherId, flags);
+    }
+
+    public void invalidateAll() {
+        adjacencies.invalidateAll();
+    }
+
+    private Adjacency adjacency(Long userId) {
+        return adjacencies(List.of(userId)).get(userId);
+    }
+
+    private Map<Long, Adjacency> adjacencies(Collection<Long> userIds) {
+        Map<Long, Adjacency> result = new HashMap<>(adjacencies.getAllPresent(userIds));
+        List<Long> missing = userIds.stream().filter(id -> !result.containsKey(id)).distinct().toList();
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        long seqBefore;
+        synchronized (changeLock) {
+            seqBefore = changeSeq;
+        }
+        Map<Long, Adjacency> loaded = loader.apply(missing);
+        synchronized (changeLock) {
+            // A change committed while loading may be missing from what was read; serve the
+            // result once but leave those users to be loaded again
+            boolean fresh = changeSeq == seqBefore;
+            for (Long id : missing) {
+                Adjacency adjacency = loaded.getOrDefault(id, Adjacency.EMPTY);
+                Adjacency cached = fresh ? adjacencies.asMap().putIfAbsent(id, adjacency) : null;
+                result.put(id, cached != null ? cached : adjacency);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds adjacencies for the requested users from {@code [userId, relatedUserId, status,
+     * type]} rows.
+     */
+    static Map<Long, Adjacency> build(Collection<Long> userIds, List<Object[]> edges) {
+        Map<Long, Adjacency.Builder> builders = new HashMap<>();
+        for (Long id : userIds) {
+            builders.put(id, new Adjacency.Builder());
+        }
+        for (Object[] edge : edges) {
+            Long a = (Long) edge[0];
+            Long b = (Long) edge[1];
+            int flags = flagsOf((RelationshipStatus) edge[2], (RelationshipType) edge[3]);
+            Adjacency.Builder forA = builders.get(a);
+            if (forA != null) {
+                forA.add(b, flags);
+            }
+            Adjacency.Builder forB = builders.get(b);
+            if (forB != null) {
+                forB.add(a, flags);
+            }
+        }
+        Map<Long, Adjacency> result = new HashMap<>();
+        builders.forEach((id, builder) -> result.put(id, builder.build()));
+        return result;
+    }
+
+    /**
+     * Immutable open-addressing table from neighbour id to edge flags. A zero flag byte marks
+     * an empty slot.
+     */
+    static final class Adjacency {
+        static final Adjacency EMPTY = new Builder().build();
+
+        private final long[] keys;
+        private final byte[] flags;
+        private final int size;
+
+        private Adjacency(long[] keys, byte[] flags, int size) {
+            this.keys = keys;
+            this.flags = flags;
+            this.size = size;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int flags(long id) {
+            int mask = keys.length - 1;
+            for (int slot = mix(id) & mask; flags[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == id) {
+                    return flags[slot];
+                }
+            }
+            return 0;
+        }
+
+        boolean has(long id, int flag) {
+            return (flags(id) & flag) != 0;
+        }
+
+        void forEach(int flag, LongConsumer action) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if ((flags[slot] & flag) != 0) {
+                    action.accept(keys[slot]);
+                }
+            }
+        }
+
+        /**
+         * Copy with {@code newFlags} merged into the edge to {@code id}, adding the edge if it
+         * is not present.
+         */
+        Adjacency with(long id, int newFlags) {
+            Builder builder = new Builder(size + 1);
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (flags[slot] != 0) {
+                    builder.add(keys[slot], flags[slot]);
+                }
+            }
+            if (newFlags != 0) {
+                builder.add(id, newFlags);
+            }
+            return builder.build();
+        }
+
+        /**
+         * Number of ids carrying {@code flag} in both adjacencies; probes the larger table
+         * while scanning the smaller one.
+         */
+        static int intersectionCount(Adjacency a, Adjacency b, int flag) {
+            Adjacency small = a.size <= b.size ? a : b;
+            Adjacency large = small == a ? b : a;
+            int count = 0;
+            for (int slot = 0; slot < small.keys.length; slot++) {
+                if ((small.flags[slot] & flag) != 0 && large.has(small.keys[slot], flag)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private static int mix(long id) {
+            long h = id * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        static final class Builder {
+            private long[] keys;
+            private byte[] flags;
+            private int size;
+
+            Builder() {
+                this(4);
+            }
+
+            Builder(int expected) {
+                int capacity = Integer.highestOneBit(Math.max(4, expected * 2) - 1) << 1;
+                keys = new long[capacity];
+                flags = new byte[capacity];
+            }
+
+            /**
+             * Adds an edge, merging flags if the id is already present.
+             */
+            void add(long id, int edgeFlags) {
+                if ((size + 1) * 2 > keys.length) {
+                    grow();
+                }
+                int mask = keys.length - 1;
+                int slot = mix(id) & mask;
+                while (flags[slot] != 0) {
+                    if (keys[slot] == id) {
+                        flags[slot] |= (byte) edgeFlags;
+                        return;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = id;
+                flags[slot] = (byte) edgeFlags;
+                size++;
+            }
+
+            Adjacency build() {
+                return new Adjacency(keys, flags, size);
+            }
+
+            private void grow() {
+                long[] oldKeys = keys;
+                byte[] oldFlags = flags;
+                keys = new long[oldKeys.length * 2];
+                flags = new byte[oldFlags.length * 2];
+                size = 0;
+                for (int slot = 0; slot < oldKeys.length; slot++) {
+                    if (oldFlags[slot] != 0) {
+                        add(oldKeys[slot], oldFlags[slot]);
+                    }
+                }
+            }
+        }
+    }
+}
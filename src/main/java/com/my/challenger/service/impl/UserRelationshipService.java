@@ -10,8 +10,11 @@ import com.my.challenger.exception.ResourceNotFoundException;
 import com.my.challenger.exception.BadRequestException;
 import com.my.challenger.repository.UserRelationshipRepository;
 import com.my.challenger.repository.UserRepository;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -20,6 +23,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -29,6 +35,25 @@ public class UserRelationshipService {
 
     private final UserRelationshipRepository relationshipRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SocialGraphIndex socialGraph;
+
+    @Value("${app.relationships.max-suggestions:50}")
+    private int maxSuggestions;
+
+    /**
+     * Published when a relationship between two users is created, accepted, rejected, changed
+     * or removed. Carries the state after the change.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class RelationshipChangedEvent {
+        private final Long userId;
+        private final Long relatedUserId;
+        private final RelationshipStatus status;
+        private final RelationshipType relationshipType;
+        private final boolean removed;
+    }
 
     /**
      * Create a new relationship request
@@ -62,7 +87,8 @@ public class UserRelationshipService {
             .build();
         
         relationship = relationshipRepository.save(relationship);
-        
+        publishChanged(relationship, false);
+
         return toDTO(relationship, userId);
     }
 
@@ -96,6 +122,7 @@ public class UserRelationshipService {
         }
         
         relationship = relationshipRepository.save(relationship);
+        publishChanged(relationship, false);
         return toDTO(relationship, userId);
     }
 
@@ -143,14 +170,19 @@ public class UserRelationshipService {
      */
     @Transactional(readOnly = true)
     public List<UserSuggestionDTO> getSuggestions(Long userId) {
-        List<User> suggestions = relationshipRepository.findSuggestedConnections(userId);
+        List<SocialGraphIndex.Suggestion> suggestions = socialGraph.suggestions(userId, maxSuggestions);
+        Map<Long, User> users = findUsers(suggestions.stream().map(SocialGraphIndex.Suggestion::userId).toList());
         return suggestions.stream()
-            .map(user -> UserSuggestionDTO.builder()
-                .id(user.getId())
-                .username(user.getUsername())
-                .avatar(user.getProfilePictureUrl())
-                .mutualConnectionsCount(relationshipRepository.countMutualConnections(userId, user.getId()))
-                .build())
+            .filter(suggestion -> users.containsKey(suggestion.userId()))
+            .map(suggestion -> {
+                User user = users.get(suggestion.userId());
+                return UserSuggestionDTO.builder()
+                    .id(user.getId())
+                    .username(user.getUsername())
+                    .avatar(user.getProfilePictureUrl())
+                    .mutualConnectionsCount((long) suggestion.mutualConnections())
+                    .build();
+            })
             .collect(Collectors.toList());
     }
 
@@ -159,8 +191,11 @@ public class UserRelationshipService {
      */
     @Transactional(readOnly = true)
     public List<MutualConnectionDTO> getMutualConnections(Long userId, Long otherUserId) {
-        List<User> mutuals = relationshipRepository.findMutualConnections(userId, otherUserId);
-        return mutuals.stream()
+        List<Long> mutualIds = socialGraph.mutualIds(userId, otherUserId);
+        Map<Long, User> users = findUsers(mutualIds);
+        return mutualIds.stream()
+            .map(users::get)
+            .filter(user -> user != null)
             .map(user -> MutualConnectionDTO.builder()
                 .id(user.getId())
                 .username(user.getUsername())
@@ -186,7 +221,8 @@ public class UserRelationshipService {
         
         relationship.setStatus(RelationshipStatus.ACCEPTED);
         relationship = relationshipRepository.save(relationship);
-        
+        publishChanged(relationship, false);
+
         return toDTO(relationship, userId);
     }
 
@@ -207,6 +243,7 @@ public class UserRelationshipService {
         
         relationship.setStatus(RelationshipStatus.REJECTED);
         relationshipRepository.save(relationship);
+        publishChanged(relationship, false);
     }
 
     /**
@@ -226,6 +263,7 @@ public class UserRelationshipService {
         }
         
         relationshipRepository.delete(relationship);
+        publishChanged(relationship, true);
     }
 
     /**
@@ -253,17 +291,33 @@ public class UserRelationshipService {
     /**
      * Check if two users are connected
      */
-    @Transactional(readOnly = true)
     public boolean areUsersConnected(Long userId1, Long userId2) {
-        return relationshipRepository.areUsersConnected(userId1, userId2);
+        return socialGraph.isConnected(userId1, userId2);
     }
 
     /**
      * Get IDs of all connected users (friends and family)
      */
-    @Transactional(readOnly = true)
     public List<Long> getConnectedUserIds(Long userId) {
-        return relationshipRepository.findConnectedUserIds(userId);
+        return List.copyOf(socialGraph.connectedIds(userId));
+    }
+
+    /**
+     * Connected user ids (friends and family) as a set
+     */
+    public Set<Long> getConnectedUserIdSet(Long userId) {
+        return socialGraph.connectedIds(userId);
+    }
+
+    private Map<Long, User> findUsers(List<Long> userIds) {
+        return userRepository.findAllById(userIds).stream()
+            .collect(Collectors.toMap(User::getId, Function.identity()));
+    }
+
+    private void publishChanged(UserRelationship relationship, boolean removed) {
+        eventPublisher.publishEvent(new RelationshipChangedEvent(
+                relationship.getUser().getId(), relationship.getRelatedUser().getId(),
+                relationship.getStatus(), relationship.getRelationshipType(), removed));
     }
 
     private UserRelationshipDTO toDTO(UserRelationship relationship, Long currentUserId) {
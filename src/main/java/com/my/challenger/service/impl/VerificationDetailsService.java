@@ -8,9 +8,12 @@ import com.my.challenger.entity.challenge.VerificationDetails;
 import com.my.challenger.repository.LocationCoordinatesRepository;
 import com.my.challenger.repository.PhotoVerificationDetailsRepository;
 import com.my.challenger.repository.VerificationDetailsRepository;
+import com.my.challenger.service.impl.location.GeofenceIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Optional;
@@ -22,6 +25,7 @@ public class VerificationDetailsService {
     private final VerificationDetailsRepository verificationDetailsRepository;
     private final LocationCoordinatesRepository locationCoordinatesRepository;
     private final PhotoVerificationDetailsRepository photoVerificationDetailsRepository;
+    private final GeofenceIndex geofenceIndex;
 
     @Transactional
     public VerificationDetails createVerificationDetails(Challenge challenge, String activityType, Double targetValue, Double radius) {
@@ -32,6 +36,7 @@ public class VerificationDetailsService {
                 .radius(radius)
                 .build();
 
+        invalidateAfterCommit(challenge.getId());
         return verificationDetailsRepository.save(verificationDetails);
     }
 
@@ -55,6 +60,7 @@ public class VerificationDetailsService {
                 .locationCoordinates(locationCoordinates)
                 .build();
 
+        invalidateAfterCommit(challenge.getId());
         return verificationDetailsRepository.save(verificationDetails);
     }
 
@@ -80,6 +86,7 @@ public class VerificationDetailsService {
                 .photoDetails(photoDetails)
                 .build();
 
+        invalidateAfterCommit(challenge.getId());
         return verificationDetailsRepository.save(verificationDetails);
     }
 
@@ -118,6 +125,7 @@ public class VerificationDetailsService {
                 .photoDetails(photoDetails)
                 .build();
 
+        invalidateAfterCommit(challenge.getId());
         return verificationDetailsRepository.save(verificationDetails);
     }
 
@@ -145,21 +153,44 @@ public class VerificationDetailsService {
         if (targetValue != null) verificationDetails.setTargetValue(targetValue);
         if (radius != null) verificationDetails.setRadius(radius);
 
-        return verificationDetailsRepository.save(verificationDetails);
+        VerificationDetails saved = verificationDetailsRepository.save(verificationDetails);
+        invalidateAfterCommit(saved.getChallenge().getId());
+        return saved;
     }
 
     @Transactional
     public void deleteVerificationDetails(Long id) {
-        verificationDetailsRepository.deleteById(id);
+        verificationDetailsRepository.findById(id).ifPresent(verificationDetails -> {
+            verificationDetailsRepository.delete(verificationDetails);
+            invalidateAfterCommit(verificationDetails.getChallenge().getId());
+        });
     }
 
     @Transactional
     public void deleteByChallengeId(Long challengeId) {
         verificationDetailsRepository.deleteByChallengeId(challengeId);
+        invalidateAfterCommit(challengeId);
     }
 
     @Transactional(readOnly = true)
     public boolean existsByChallengeId(Long challengeId) {
         return verificationDetailsRepository.existsByChallengeId(challengeId);
     }
+
+    /**
+     * Drops the cached geofence once the change is committed, so a check-in in between cannot
+     * reload the old details into the cache.
+     */
+    private void invalidateAfterCommit(Long challengeId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            geofenceIndex.invalidate(challengeId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                geofenceIndex.invalidate(challengeId);
+            }
+        });
+    }
 }
\ No newline at end of file
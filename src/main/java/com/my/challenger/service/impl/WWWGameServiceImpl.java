@@ -8,6 +8,7 @@ import com.my.challenger.service.WWWGameService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 
@@ -44,70 +45,67 @@ public class WWWGameServiceImpl implements WWWGameService {
     }
 
     @Override
-    public AnswerValidationResult validateAnswerEnhanced(String teamAnswer, String correctAnswer, 
-                                                         boolean enableAiValidation, String language) {
+    public Mono<AnswerValidationResult> validateAnswerEnhancedAsync(String teamAnswer, String correctAnswer,
+                                                                    boolean enableAiValidation, String language) {
         // 1. Run existing validation (Exact + Levenshtein)
         boolean isCorrect = validateAnswer(teamAnswer, correctAnswer);
 
         // 2. If already correct, return immediately
         if (isCorrect) {
-            return AnswerValidationResult.builder()
+            return Mono.just(AnswerValidationResult.builder()
                     .correct(true)
                     .exactMatch(true)
                     .aiUsed(false)
-                    .build();
+                    .build());
         }
 
-        // 3. If incorrect AND AI validation enabled AND AI available
-        if (enableAiValidation && aiValidationService.isAvailable()) {
-            // Check if answers are too long for AI (prevent abuse)
-            if (teamAnswer != null && teamAnswer.length() > 500) {
-                return AnswerValidationResult.builder()
-                        .correct(false)
-                        .aiUsed(false)
-                        .build();
-            }
-            
-            // Check if answers are empty
-            if (teamAnswer == null || teamAnswer.isBlank()) {
-                return AnswerValidationResult.builder()
-                        .correct(false)
-                        .aiUsed(false)
-                        .build();
-            }
+        // 3. If incorrect AND the answer qualifies for AI validation
+        if (isAiValidationApplicable(teamAnswer, enableAiValidation)) {
+            return aiValidationService.validateAnswerWithAiAsync(teamAnswer, correctAnswer, language)
+                    .map(this::fromAiResult);
+        }
 
-            AiValidationResult aiResult = aiValidationService.validateAnswerWithAi(teamAnswer, correctAnswer, language);
+        // 4. Fallback (AI disabled or unavailable)
+        return Mono.just(AnswerValidationResult.builder()
+                .correct(false)
+                .exactMatch(false)
+                .aiUsed(false)
+                .build());
+    }
 
-            if (aiResult.isEquivalent() && aiResult.getConfidence().compareTo(AI_CONFIDENCE_THRESHOLD) >= 0) {
-                return AnswerValidationResult.builder()
-                        .correct(true)
-                        .exactMatch(false)
-                        .aiAccepted(true)
-                        .aiConfidence(aiResult.getConfidence())
-                        .aiExplanation(aiResult.getExplanation())
-                        .aiUsed(true)
-                        .build();
-            }
-            
-            // AI returned result but was not confident enough or answer was not equivalent
+    private AnswerValidationResult fromAiResult(AiValidationResult aiResult) {
+        if (aiResult.isEquivalent() && aiResult.getConfidence().compareTo(AI_CONFIDENCE_THRESHOLD) >= 0) {
             return AnswerValidationResult.builder()
-                    .correct(false)
+                    .correct(true)
                     .exactMatch(false)
-                    .aiAccepted(false)
+                    .aiAccepted(true)
                     .aiConfidence(aiResult.getConfidence())
                     .aiExplanation(aiResult.getExplanation())
                     .aiUsed(true)
                     .build();
         }
 
-        // 4. Fallback (AI disabled or unavailable)
+        // AI returned result but was not confident enough or answer was not equivalent
         return AnswerValidationResult.builder()
                 .correct(false)
                 .exactMatch(false)
-                .aiUsed(false)
+                .aiAccepted(false)
+                .aiConfidence(aiResult.getConfidence())
+                .aiExplanation(aiResult.getExplanation())
+                .aiUsed(true)
                 .build();
     }
 
+    @Override
+    public boolean isAiValidationApplicable(String teamAnswer, boolean enableAiValidation) {
+        // Empty and overly long answers are never sent to the AI (prevents abuse)
+        return enableAiValidation
+                && aiValidationService.isAvailable()
+                && teamAnswer != null
+                && !teamAnswer.isBlank()
+                && teamAnswer.length() <= 500;
+    }
+
     @Override
     public String generateRoundFeedback(QuizRound round, boolean isCorrect) {
         if (round == null) {
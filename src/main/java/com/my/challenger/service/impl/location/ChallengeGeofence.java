@@ -0,0 +1,119 @@
+package com.my.challenger.service.impl.location;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parsed target regions of one location challenge, with a grid index over them.
+ * <p>
+ * The grid cell is as large as the largest region, so a region overlaps at most 2x2 cells and
+ * a check-in is tested exactly only against the regions registered in its own cell.
+ */
+public final class ChallengeGeofence {
+
+    /** Smallest grid cell, about 11 m */
+    private static final double MIN_CELL_DEGREES = 0.0001;
+
+    private final List<GeoRegion> regions;
+    private final int dwellSeconds;
+    private final double cellDegrees;
+    private final Map<Long, int[]> cells = new HashMap<>();
+
+    public ChallengeGeofence(List<GeoRegion> regions, int dwellSeconds) {
+        this.regions = List.copyOf(regions);
+        this.dwellSeconds = Math.max(0, dwellSeconds);
+
+        double largest = MIN_CELL_DEGREES;
+        for (GeoRegion region : this.regions) {
+            largest = Math.max(largest, Math.max(
+                    region.maxLatitude() - region.minLatitude(), region.maxLongitude() - region.minLongitude()));
+        }
+        this.cellDegrees = largest;
+
+        Map<Long, List<Integer>> members = new HashMap<>();
+        for (int i = 0; i < this.regions.size(); i++) {
+            GeoRegion region = this.regions.get(i);
+            for (long row = cell(region.minLatitude()); row <= cell(region.maxLatitude()); row++) {
+                for (long column = cell(region.minLongitude()); column <= cell(region.maxLongitude()); column++) {
+                    members.computeIfAbsent(key(row, column), k -> new ArrayList<>()).add(i);
+                }
+            }
+        }
+        members.forEach((key, indexes) -> cells.put(key, indexes.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * Region containing the point and the distance reported for it; the nearest region if the
+     * point is outside all of them.
+     */
+    public record Match(boolean inside, int regionIndex, GeoRegion region, double distanceMeters) {}
+
+    public static ChallengeGeofence empty() {
+        return new ChallengeGeofence(List.of(), 0);
+    }
+
+    public boolean isEmpty() {
+        return regions.isEmpty();
+    }
+
+    public List<GeoRegion> regions() {
+        return regions;
+    }
+
+    /**
+     * Continuous time a user must stay inside before a check-in is verified; 0 if a single
+     * check-in inside is enough.
+     */
+    public int dwellSeconds() {
+        return dwellSeconds;
+    }
+
+    /**
+     * Index of a region containing the point, or -1.
+     */
+    public int locate(double latitude, double longitude) {
+        int[] candidates = cells.get(key(cell(latitude), cell(longitude)));
+        if (candidates != null) {
+            for (int index : candidates) {
+                if (regions.get(index).contains(latitude, longitude)) {
+                    return index;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Like {@link #locate}, with the distance to report; misses are measured against every
+     * region.
+     */
+    public Match match(double latitude, double longitude) {
+        int inside = locate(latitude, longitude);
+        if (inside >= 0) {
+            GeoRegion region = regions.get(inside);
+            return new Match(true, inside, region, region.distanceMeters(latitude, longitude));
+        }
+        int nearest = -1;
+        double nearestDistance = Double.MAX_VALUE;
+        for (int i = 0; i < regions.size(); i++) {
+            double distance = regions.get(i).distanceMeters(latitude, longitude);
+            if (distance < nearestDistance) {
+                nearest = i;
+                nearestDistance = distance;
+            }
+        }
+        return nearest < 0
+                ? new Match(false, -1, null, Double.NaN)
+                : new Match(false, nearest, regions.get(nearest), nearestDistance);
+    }
+
+    private long cell(double degrees) {
+        return (long) Math.floor(degrees / cellDegrees);
+    }
+
+    private static long key(long row, long column) {
+        return (row << 32) ^ (column & 0xFFFFFFFFL);
+    }
+}
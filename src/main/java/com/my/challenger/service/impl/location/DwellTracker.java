@@ -0,0 +1,200 @@
+package com.my.challenger.service.impl.location;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Continuous time each user has spent inside their location challenge's target, tracked in
+ * memory with write-behind persistence.
+ * <p>
+ * Check-ins move the dwell of a (task, user) pair in memory only; a scheduled flush upserts
+ * the changed ones into {@code location_dwell} in one batch, and a pair that is not in memory
+ * is loaded from there, so restarts and other instances continue an ongoing dwell. A check-in
+ * outside the target, or a gap of more than {@code dwell-max-gap-seconds} between check-ins
+ * inside it, starts the dwell over. Pairs without changes are dropped after
+ * {@code dwell-idle-seconds}.
+ */
+@Slf4j
+@Component
+public class DwellTracker {
+
+    private static final String SELECT_SQL =
+            "SELECT entered_at, last_inside_at FROM location_dwell WHERE task_id = ? AND user_id = ?";
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO location_dwell (task_id, user_id, entered_at, last_inside_at, updated_at) " +
+                    "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP) " +
+                    "ON CONFLICT (task_id, user_id) DO UPDATE SET entered_at = EXCLUDED.entered_at, " +
+                    "last_inside_at = EXCLUDED.last_inside_at, updated_at = CURRENT_TIMESTAMP";
+
+    private static final String DELETE_SQL = "DELETE FROM location_dwell WHERE task_id = ? AND user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long maxGapSeconds;
+    private final long idleMillis;
+    private final Map<Key, Dwell> dwells = new ConcurrentHashMap<>();
+
+    public DwellTracker(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.geofence.dwell-max-gap-seconds:120}") long maxGapSeconds,
+            @Value("${app.geofence.dwell-idle-seconds:900}") long idleSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxGapSeconds = Math.max(1, maxGapSeconds);
+        this.idleMillis = Math.max(1, idleSeconds) * 1000;
+    }
+
+    record Key(long taskId, long userId) {}
+
+    /**
+     * Dwell state as written by a flush.
+     */
+    record Snapshot(Key key, LocalDateTime enteredAt, LocalDateTime lastInsideAt) {}
+
+    private static final class Dwell {
+        LocalDateTime enteredAt;
+        LocalDateTime lastInsideAt;
+        boolean dirty;
+        boolean retired;
+        long lastAccess = System.currentTimeMillis();
+    }
+
+    /**
+     * Records a check-in at {@code at} and returns the continuous seconds spent inside up to
+     * it; 0 if the check-in is outside.
+     */
+    public long record(long taskId, long userId, boolean inside, LocalDateTime at) {
+        Key key = new Key(taskId, userId);
+        while (true) {
+            Dwell dwell = dwells.get(key);
+            if (dwell == null) {
+                dwells.putIfAbsent(key, load(key));
+                continue;
+            }
+            synchronized (dwell) {
+                if (dwell.retired) {
+                    continue;
+                }
+                dwell.lastAccess = System.currentTimeMillis();
+                return inside ? enter(dwell, at) : leave(dwell, at);
+            }
+        }
+    }
+
+    /**
+     * Forgets the pair once its check-in has been verified.
+     */
+    public void clear(long taskId, long userId) {
+        Key key = new Key(taskId, userId);
+        Dwell dwell = dwells.remove(key);
+        if (dwell != null) {
+            synchronized (dwell) {
+                dwell.retired = true;
+            }
+        }
+        transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.update(DELETE_SQL, taskId, userId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.geofence.dwell-flush-interval-ms:5000}")
+    public void flush() {
+        List<Snapshot> changed = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Key, Dwell> entry : dwells.entrySet()) {
+            Dwell dwell = entry.getValue();
+            synchronized (dwell) {
+                if (dwell.dirty) {
+                    dwell.dirty = false;
+                    changed.add(new Snapshot(entry.getKey(), dwell.enteredAt, dwell.lastInsideAt));
+                } else if (now - dwell.lastAccess >= idleMillis) {
+                    dwell.retired = true;
+                    dwells.remove(entry.getKey(), dwell);
+                }
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(tx ->
+                    jdbcTemplate.batchUpdate(UPSERT_SQL, changed, changed.size(), (ps, snapshot) -> {
+                        ps.setLong(1, snapshot.key().taskId());
+                        ps.setLong(2, snapshot.key().userId());
+                        ps.setTimestamp(3, toTimestamp(snapshot.enteredAt()));
+                        ps.setTimestamp(4, toTimestamp(snapshot.lastInsideAt()));
+                    }));
+        } catch (RuntimeException e) {
+            log.warn("Failed to write {} location dwell states, retrying with the next flush: {}",
+                    changed.size(), e.getMessage());
+            for (Snapshot snapshot : changed) {
+                Dwell dwell = dwells.get(snapshot.key());
+                if (dwell != null) {
+                    synchronized (dwell) {
+                        dwell.dirty = true;
+                    }
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    public int size() {
+        return dwells.size();
+    }
+
+    private long enter(Dwell dwell, LocalDateTime at) {
+        if (dwell.enteredAt == null || dwell.lastInsideAt == null
+                || Duration.between(dwell.lastInsideAt, at).getSeconds() > maxGapSeconds) {
+            dwell.enteredAt = at;
+            dwell.dirty = true;
+        }
+        if (dwell.lastInsideAt == null || at.isAfter(dwell.lastInsideAt)) {
+            dwell.lastInsideAt = at;
+            dwell.dirty = true;
+        }
+        return Math.max(0, Duration.between(dwell.enteredAt, dwell.lastInsideAt).getSeconds());
+    }
+
+    private long leave(Dwell dwell, LocalDateTime at) {
+        // A late check-in from before the user was last seen inside does not end the dwell
+        if (dwell.enteredAt != null && (dwell.lastInsideAt == null || !at.isBefore(dwell.lastInsideAt))) {
+            dwell.enteredAt = null;
+            dwell.dirty = true;
+        }
+        return 0;
+    }
+
+    private Dwell load(Key key) {
+        Dwell dwell = new Dwell();
+        jdbcTemplate.query(SELECT_SQL, rs -> {
+            Timestamp enteredAt = rs.getTimestamp("entered_at");
+            Timestamp lastInsideAt = rs.getTimestamp("last_inside_at");
+            dwell.enteredAt = enteredAt != null ? enteredAt.toLocalDateTime() : null;
+            dwell.lastInsideAt = lastInsideAt != null ? lastInsideAt.toLocalDateTime() : null;
+        }, key.taskId(), key.userId());
+        return dwell;
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+}
@@ -0,0 +1,150 @@
+package com.my.challenger.service.impl.location;
+
+/**
+ * Target area of a location challenge, in WGS84 degrees.
+ */
+public sealed interface GeoRegion permits GeoRegion.Circle, GeoRegion.Polygon {
+
+    double EARTH_RADIUS_METERS = 6371000;
+
+    /** Length of one degree of latitude */
+    double METERS_PER_DEGREE = Math.toRadians(1) * EARTH_RADIUS_METERS;
+
+    boolean contains(double latitude, double longitude);
+
+    /**
+     * Distance reported to the user: from the centre of a circle, from the edge of a polygon
+     * (0 inside it).
+     */
+    double distanceMeters(double latitude, double longitude);
+
+    double centerLatitude();
+
+    double centerLongitude();
+
+    double minLatitude();
+
+    double maxLatitude();
+
+    double minLongitude();
+
+    double maxLongitude();
+
+    /**
+     * Circle of {@code radiusMeters} around a point.
+     */
+    record Circle(double centerLatitude, double centerLongitude, double radiusMeters,
+                  double minLatitude, double maxLatitude, double minLongitude, double maxLongitude)
+            implements GeoRegion {
+
+        public static Circle of(double latitude, double longitude, double radiusMeters) {
+            double latitudeSpan = radiusMeters / METERS_PER_DEGREE;
+            double longitudeSpan = radiusMeters / (METERS_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(latitude))));
+            return new Circle(latitude, longitude, radiusMeters,
+                    latitude - latitudeSpan, latitude + latitudeSpan,
+                    longitude - longitudeSpan, longitude + longitudeSpan);
+        }
+
+        @Override
+        public boolean contains(double latitude, double longitude) {
+            return latitude >= minLatitude && latitude <= maxLatitude
+                    && longitude >= minLongitude && longitude <= maxLongitude
+                    && distanceMeters(latitude, longitude) <= radiusMeters;
+        }
+
+        @Override
+        public double distanceMeters(double latitude, double longitude) {
+            return haversineMeters(latitude, longitude, centerLatitude, centerLongitude);
+        }
+    }
+
+    /**
+     * Simple polygon given by its vertices; edges are straight in latitude/longitude, which is
+     * accurate for areas up to a few kilometres across.
+     */
+    record Polygon(double[] latitudes, double[] longitudes,
+                   double minLatitude, double maxLatitude, double minLongitude, double maxLongitude)
+            implements GeoRegion {
+
+        public static Polygon of(double[] latitudes, double[] longitudes) {
+            if (latitudes.length < 3 || latitudes.length != longitudes.length) {
+                throw new IllegalArgumentException("A polygon needs at least 3 vertices");
+            }
+            double minLatitude = Double.MAX_VALUE, maxLatitude = -Double.MAX_VALUE;
+            double minLongitude = Double.MAX_VALUE, maxLongitude = -Double.MAX_VALUE;
+            for (int i = 0; i < latitudes.length; i++) {
+                minLatitude = Math.min(minLatitude, latitudes[i]);
+                maxLatitude = Math.max(maxLatitude, latitudes[i]);
+                minLongitude = Math.min(minLongitude, longitudes[i]);
+                maxLongitude = Math.max(maxLongitude, longitudes[i]);
+            }
+            return new Polygon(latitudes.clone(), longitudes.clone(), minLatitude, maxLatitude, minLongitude, maxLongitude);
+        }
+
+        @Override
+        public boolean contains(double latitude, double longitude) {
+            if (latitude < minLatitude || latitude > maxLatitude || longitude < minLongitude || longitude > maxLongitude) {
+                return false;
+            }
+            // Ray casting along the latitude
+            boolean inside = false;
+            for (int i = 0, j = latitudes.length - 1; i < latitudes.length; j = i++) {
+                if ((latitudes[i] > latitude) != (latitudes[j] > latitude)
+                        && longitude < (longitudes[j] - longitudes[i]) * (latitude - latitudes[i])
+                        / (latitudes[j] - latitudes[i]) + longitudes[i]) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+
+        @Override
+        public double distanceMeters(double latitude, double longitude) {
+            if (contains(latitude, longitude)) {
+                return 0;
+            }
+            // Nearest edge, in a local equirectangular projection around the point
+            double metersPerLongitude = METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+            double nearest = Double.MAX_VALUE;
+            for (int i = 0, j = latitudes.length - 1; i < latitudes.length; j = i++) {
+                nearest = Math.min(nearest, segmentDistance(
+                        (longitudes[j] - longitude) * metersPerLongitude, (latitudes[j] - latitude) * METERS_PER_DEGREE,
+                        (longitudes[i] - longitude) * metersPerLongitude, (latitudes[i] - latitude) * METERS_PER_DEGREE));
+            }
+            return nearest;
+        }
+
+        @Override
+        public double centerLatitude() {
+            return (minLatitude + maxLatitude) / 2;
+        }
+
+        @Override
+        public double centerLongitude() {
+            return (minLongitude + maxLongitude) / 2;
+        }
+
+        /** Distance from the origin to the segment (x1, y1)-(x2, y2) */
+        private static double segmentDistance(double x1, double y1, double x2, double y2) {
+            double dx = x2 - x1;
+            double dy = y2 - y1;
+            double lengthSquared = dx * dx + dy * dy;
+            double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, -(x1 * dx + y1 * dy) / lengthSquared));
+            return Math.hypot(x1 + t * dx, y1 + t * dy);
+        }
+    }
+
+    /**
+     * Great-circle distance between two coordinates using the Haversine formula
+     */
+    static double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+
+        return EARTH_RADIUS_METERS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
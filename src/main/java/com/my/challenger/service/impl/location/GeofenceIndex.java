@@ -0,0 +1,132 @@
+package com.my.challenger.service.impl.location;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.my.challenger.entity.challenge.Challenge;
+import com.my.challenger.entity.challenge.LocationCoordinates;
+import com.my.challenger.entity.challenge.VerificationDetails;
+import com.my.challenger.entity.enums.VerificationMethod;
+import com.my.challenger.repository.ChallengeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parsed geofences of location challenges, built once per challenge and cached for
+ * {@code cache-ttl-seconds}.
+ * <p>
+ * Every verification details row with coordinates or a boundary is one target region: a
+ * polygon if it has a boundary, otherwise a circle of its radius (100 m by default) around its
+ * coordinates. The required dwell time is the longest one configured on the challenge.
+ */
+@Slf4j
+@Component
+public class GeofenceIndex {
+
+    static final double DEFAULT_RADIUS_METERS = 100.0;
+
+    private final ChallengeRepository challengeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final LoadingCache<Long, ChallengeGeofence> geofences;
+
+    public GeofenceIndex(
+            ChallengeRepository challengeRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.geofence.cache-size:10000}") long cacheSize,
+            @Value("${app.geofence.cache-ttl-seconds:300}") long cacheTtlSeconds) {
+        this.challengeRepository = challengeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.geofences = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, cacheSize))
+                .expireAfterWrite(Duration.ofSeconds(Math.max(1, cacheTtlSeconds)))
+                .build(this::load);
+    }
+
+    /**
+     * Geofence of a location challenge; empty if it has no target configured.
+     *
+     * @throws IllegalArgumentException if the challenge does not exist or is not verified by
+     *                                  location
+     */
+    public ChallengeGeofence get(Long challengeId) {
+        return geofences.get(challengeId);
+    }
+
+    /**
+     * Drops the cached geofence after the challenge's verification details changed.
+     */
+    public void invalidate(Long challengeId) {
+        geofences.invalidate(challengeId);
+    }
+
+    private ChallengeGeofence load(Long challengeId) {
+        return transactionTemplate.execute(tx -> {
+            Challenge challenge = challengeRepository.findById(challengeId)
+                    .orElseThrow(() -> new IllegalArgumentException("Challenge not found with ID: " + challengeId));
+
+            // Check if the challenge requires location verification
+            if (challenge.getVerificationMethod() != VerificationMethod.LOCATION) {
+                throw new IllegalArgumentException("This challenge does not support location verification");
+            }
+            return build(challenge.getVerificationDetails());
+        });
+    }
+
+    static ChallengeGeofence build(List<VerificationDetails> verificationDetails) {
+        List<GeoRegion> regions = new ArrayList<>();
+        int dwellSeconds = 0;
+        for (VerificationDetails details : verificationDetails) {
+            GeoRegion region = toRegion(details);
+            if (region == null) {
+                continue;
+            }
+            regions.add(region);
+            if (details.getDwellSeconds() != null) {
+                dwellSeconds = Math.max(dwellSeconds, details.getDwellSeconds());
+            }
+        }
+        return new ChallengeGeofence(regions, dwellSeconds);
+    }
+
+    private static GeoRegion toRegion(VerificationDetails details) {
+        if (details.getBoundary() != null && !details.getBoundary().isBlank()) {
+            return parseBoundary(details.getBoundary());
+        }
+        LocationCoordinates coordinates = details.getLocationCoordinates();
+        if (coordinates == null) {
+            return null;
+        }
+        double radius = details.getRadius() != null ? details.getRadius() : DEFAULT_RADIUS_METERS;
+        return GeoRegion.Circle.of(coordinates.getLatitude(), coordinates.getLongitude(), radius);
+    }
+
+    /**
+     * Parses {@code "lat,lon;lat,lon;..."}; the closing vertex may be repeated.
+     */
+    static GeoRegion.Polygon parseBoundary(String boundary) {
+        String[] vertices = boundary.trim().split("\\s*;\\s*");
+        int count = vertices.length;
+        if (count > 1 && vertices[0].equals(vertices[count - 1])) {
+            count--;
+        }
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                String[] coordinates = vertices[i].split("\\s*,\\s*");
+                latitudes[i] = Double.parseDouble(coordinates[0]);
+                longitudes[i] = Double.parseDouble(coordinates[1]);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid geofence boundary: " + boundary, e);
+        }
+        return GeoRegion.Polygon.of(latitudes, longitudes);
+    }
+}
@@ -1,43 +1,41 @@
 package com.my.challenger.service.impl.location;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.my.challenger.dto.verification.LocationCheckIn;
 import com.my.challenger.entity.Task;
 import com.my.challenger.entity.TaskCompletion;
-import com.my.challenger.entity.User;
-import com.my.challenger.entity.challenge.Challenge;
-import com.my.challenger.entity.challenge.LocationCoordinates;
-import com.my.challenger.entity.challenge.VerificationDetails;
 import com.my.challenger.entity.enums.CompletionStatus;
 import com.my.challenger.entity.enums.TaskStatus;
-import com.my.challenger.entity.enums.VerificationMethod;
-import com.my.challenger.repository.ChallengeRepository;
 import com.my.challenger.repository.TaskCompletionRepository;
 import com.my.challenger.repository.TaskRepository;
-import com.my.challenger.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 /**
- * Service for verifying location-based challenge completions
+ * Service for verifying location-based challenge completions.
+ * <p>
+ * Target regions come parsed from {@link GeofenceIndex}; check-ins may arrive in batches and
+ * are evaluated in time order against them, with the time spent inside tracked by
+ * {@link DwellTracker}.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class LocationVerificationService {
 
-    private final ChallengeRepository challengeRepository;
     private final TaskRepository taskRepository;
     private final TaskCompletionRepository taskCompletionRepository;
-    private final UserRepository userRepository;
-    private final ObjectMapper objectMapper;
+    private final GeofenceIndex geofenceIndex;
+    private final DwellTracker dwellTracker;
+
+    private record TimedCheckIn(double latitude, double longitude, LocalDateTime time) {}
 
     /**
      * Verify a location submission for a challenge task
@@ -50,98 +48,101 @@ public class LocationVerificationService {
      * @return Map containing verification results
      */
     public Map<String, Object> verifyLocation(Long challengeId, Long userId, double latitude, double longitude, String timestamp) {
+        return verifyCheckIns(challengeId, userId, List.of(new LocationCheckIn(latitude, longitude, timestamp)));
+    }
+
+    /**
+     * Verify a batch of check-ins for a challenge task. Check-ins are evaluated in time order
+     * until one verifies the task; the result describes that check-in, or the latest one.
+     *
+     * @param challengeId The ID of the challenge
+     * @param userId      The ID of the user
+     * @param checkIns    GPS fixes collected by the client
+     * @return Map containing verification results
+     */
+    public Map<String, Object> verifyCheckIns(Long challengeId, Long userId, List<LocationCheckIn> checkIns) {
         try {
-            log.info("Verifying location for challenge {} and user {}", challengeId, userId);
+            log.debug("Verifying {} location check-ins for challenge {} and user {}", checkIns.size(), challengeId, userId);
 
-            // 1. Validate inputs and retrieve entities
-            Challenge challenge = challengeRepository.findById(challengeId)
-                    .orElseThrow(() -> new IllegalArgumentException("Challenge not found with ID: " + challengeId));
+            if (checkIns.isEmpty()) {
+                throw new IllegalArgumentException("At least one location check-in is required");
+            }
 
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
+            // 1. Parsed target regions of the challenge
+            ChallengeGeofence geofence = geofenceIndex.get(challengeId);
 
             // Get active task for this challenge
             Task task = taskRepository.findFirstByChallengeIdAndAssignedToAndStatus(
                             challengeId, userId, TaskStatus.IN_PROGRESS)
                     .orElseThrow(() -> new IllegalArgumentException("No active task found for this challenge"));
 
-            // 2. Check if the challenge requires location verification
-            if (challenge.getVerificationMethod() != VerificationMethod.LOCATION) {
-                throw new IllegalArgumentException("This challenge does not support location verification");
-            }
-
-            // 3. Parse verification details from challenge
-            List<VerificationDetails> verificationDetailsList = challenge.getVerificationDetails();
-            Optional<VerificationDetails> verificationDetailsOptional = verificationDetailsList.stream().filter(verificationDetails -> verificationDetails.getLocationCoordinates() != null).findAny();
-            if(verificationDetailsOptional.isEmpty()){
+            if (geofence.isEmpty()) {
                 return new HashMap<>();
             }
 
-            Map<String, Object> verificationDetails = parseVerificationDetails(verificationDetailsOptional.get());
+            // 2. Evaluate check-ins in time order until one meets all requirements
+            List<TimedCheckIn> ordered = checkIns.stream()
+                    .map(checkIn -> new TimedCheckIn(checkIn.getLatitude(), checkIn.getLongitude(),
+                            parseTimestamp(checkIn.getTimestamp())))
+                    .sorted(Comparator.comparing(TimedCheckIn::time))
+                    .toList();
+
+            int requiredDurationSeconds = geofence.dwellSeconds();
+            TimedCheckIn deciding = null;
+            long dwellSeconds = 0;
+            int evaluated = 0;
+            boolean isVerified = false;
+            for (TimedCheckIn checkIn : ordered) {
+                deciding = checkIn;
+                evaluated++;
+                boolean inside = geofence.locate(checkIn.latitude(), checkIn.longitude()) >= 0;
+                if (requiredDurationSeconds > 0) {
+                    dwellSeconds = dwellTracker.record(task.getId(), userId, inside, checkIn.time());
+                }
+                if (inside && dwellSeconds >= requiredDurationSeconds) {
+                    isVerified = true;
+                    break;
+                }
+            }
 
-            // 4. Extract required location data with fallbacks for missing values
-            double targetLatitude = getDoubleValue(verificationDetails, "latitude");
-            double targetLongitude = getDoubleValue(verificationDetails, "longitude");
-            double requiredRadius = getDoubleValue(verificationDetails, "radius", 100.0); // Default 100 meters
-            int requiredDurationSeconds = getIntValue(verificationDetails, "durationSeconds", 0); // Optional duration requirement
+            // 3. Describe the deciding check-in
+            ChallengeGeofence.Match match = geofence.match(deciding.latitude(), deciding.longitude());
+            boolean isWithinRadius = match.inside();
+            boolean meetsTimeRequirement = dwellSeconds >= requiredDurationSeconds;
+            double distance = match.distanceMeters();
 
-            // 4. Check for time requirement - if challenge requires user to be at location for a certain time
-            boolean meetsTimeRequirement = true;
             String timeMessage = "";
-
-            if (requiredDurationSeconds > 0) {
-                // Find previous location check-in
-                Optional<TaskCompletion> previousCheckIn = taskCompletionRepository
-                        .findFirstByTaskIdAndUserIdAndStatusOrderByCompletionDateDesc(
-                                task.getId(), userId, CompletionStatus.PENDING);
-
-                if (previousCheckIn.isPresent()) {
-                    LocalDateTime previousTime = previousCheckIn.get().getCompletionDate();
-                    LocalDateTime currentTime = parseTimestamp(timestamp);
-
-                    long secondsElapsed = java.time.Duration.between(previousTime, currentTime).getSeconds();
-
-                    meetsTimeRequirement = secondsElapsed >= requiredDurationSeconds;
-                    timeMessage = meetsTimeRequirement ?
-                            String.format("Time requirement met (%d seconds)", secondsElapsed) :
-                            String.format("Time requirement not met (need %d seconds, elapsed %d seconds)",
-                                    requiredDurationSeconds, secondsElapsed);
-                } else {
-                    // First check-in
-                    meetsTimeRequirement = false;
+            if (requiredDurationSeconds > 0 && isWithinRadius) {
+                if (dwellSeconds == 0) {
                     timeMessage = "Initial check-in recorded. Please remain at location for "
                             + requiredDurationSeconds + " seconds.";
-
-                    // Save initial check-in with PENDING status
-                    saveCheckIn(task.getId(), userId, latitude, longitude, parseTimestamp(timestamp),
-                            0.0, CompletionStatus.PENDING, "Initial location check-in");
+                } else {
+                    timeMessage = meetsTimeRequirement ?
+                            String.format("Time requirement met (%d seconds)", dwellSeconds) :
+                            String.format("Time requirement not met (need %d seconds, elapsed %d seconds)",
+                                    requiredDurationSeconds, dwellSeconds);
                 }
             }
 
-            // 5. Calculate distance between user location and target location
-            double distance = calculateDistance(latitude, longitude, targetLatitude, targetLongitude);
-
-            // 6. Check if user is within required radius
-            boolean isWithinRadius = distance <= requiredRadius;
-
-            // 7. Final verification result
-            boolean isVerified = isWithinRadius && meetsTimeRequirement;
-
-            // 8. Format result
+            // 4. Format result
             Map<String, Object> result = new HashMap<>();
             result.put("isVerified", isVerified);
             result.put("isWithinRadius", isWithinRadius);
             result.put("meetsTimeRequirement", meetsTimeRequirement);
             result.put("distance", distance);
-            result.put("requiredRadius", requiredRadius);
+            result.put("requiredRadius", match.region() instanceof GeoRegion.Circle circle ? circle.radiusMeters() : null);
+            result.put("targetIndex", match.regionIndex());
+            result.put("dwellSeconds", dwellSeconds);
+            result.put("requiredDurationSeconds", requiredDurationSeconds);
+            result.put("checkInsEvaluated", evaluated);
             result.put("userLocation", Map.of(
-                    "latitude", latitude,
-                    "longitude", longitude,
-                    "timestamp", timestamp
+                    "latitude", deciding.latitude(),
+                    "longitude", deciding.longitude(),
+                    "timestamp", deciding.time().toString()
             ));
             result.put("targetLocation", Map.of(
-                    "latitude", targetLatitude,
-                    "longitude", targetLongitude
+                    "latitude", match.region().centerLatitude(),
+                    "longitude", match.region().centerLongitude()
             ));
 
             StringBuilder messageBuilder = new StringBuilder();
@@ -158,16 +159,12 @@ public class LocationVerificationService {
             String message = messageBuilder.toString();
             result.put("message", message);
 
-            // 9. Save the verification result if verified or if tracking duration
+            // 5. Save the verification result if verified
             if (isVerified) {
-                // Save successful verification
-                saveCheckIn(task.getId(), userId, latitude, longitude, parseTimestamp(timestamp),
+                saveCheckIn(task.getId(), userId, deciding.latitude(), deciding.longitude(), deciding.time(),
                         distance, CompletionStatus.VERIFIED, message);
-
-                // Update task status if needed
-                if (challenge.getType().equals("LOCATION_CHECK_IN")) {
-                    task.setStatus(TaskStatus.COMPLETED);
-                    taskRepository.save(task);
+                if (requiredDurationSeconds > 0) {
+                    dwellTracker.clear(task.getId(), userId);
                 }
             }
 
@@ -205,111 +202,6 @@ public class LocationVerificationService {
         return taskCompletionRepository.save(completion);
     }
 
-    /**
-     * Parse verification details from Challenge entity's VerificationDetails
-     */
-    private Map<String, Object> parseVerificationDetails(VerificationDetails verificationDetails) {
-        try {
-            if (verificationDetails == null) {
-                throw new IllegalArgumentException("Verification details are missing");
-            }
-
-            Map<String, Object> details = new HashMap<>();
-
-            // Extract location data from verificationDetails
-            LocationCoordinates locationCoordinates = verificationDetails.getLocationCoordinates();
-            if (locationCoordinates != null) {
-                details.put("latitude", locationCoordinates.getLatitude());
-                details.put("longitude", locationCoordinates.getLongitude());
-            } else {
-                throw new IllegalArgumentException("Location coordinates are missing in verification details");
-            }
-
-            // Get radius
-            Double radius = verificationDetails.getRadius();
-            if (radius != null) {
-                details.put("radius", radius);
-            }
-
-            // You can add duration seconds if needed
-            // details.put("durationSeconds", ...);
-
-            return details;
-        } catch (Exception e) {
-            log.error("Error parsing verification details", e);
-            throw new IllegalArgumentException("Invalid verification details: " + e.getMessage());
-        }
-    }
-
-    /**
-     * Calculate distance between two coordinates using Haversine formula
-     */
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int EARTH_RADIUS = 6371000; // Earth radius in meters
-
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-
-        return EARTH_RADIUS * c; // Distance in meters
-    }
-
-    /**
-     * Helper method to get double value from map
-     */
-    private double getDoubleValue(Map<String, Object> map, String key) {
-        Object value = map.get(key);
-        if (value == null) {
-            throw new IllegalArgumentException("Required value '" + key + "' not found in verification method");
-        }
-
-        if (value instanceof Number) {
-            return ((Number) value).doubleValue();
-        } else if (value instanceof String) {
-            return Double.parseDouble((String) value);
-        }
-
-        throw new IllegalArgumentException("Value for '" + key + "' is not a number");
-    }
-
-    /**
-     * Helper method to get double value from map with default value
-     */
-    private double getDoubleValue(Map<String, Object> map, String key, double defaultValue) {
-        try {
-            return getDoubleValue(map, key);
-        } catch (Exception e) {
-            return defaultValue;
-        }
-    }
-
-    /**
-     * Helper method to get integer value from map with default value
-     */
-    private int getIntValue(Map<String, Object> map, String key, int defaultValue) {
-        try {
-            Object value = map.get(key);
-            if (value == null) {
-                return defaultValue;
-            }
-
-            if (value instanceof Number) {
-                return ((Number) value).intValue();
-            } else if (value instanceof String) {
-                return Integer.parseInt((String) value);
-            }
-
-            return defaultValue;
-        } catch (Exception e) {
-            return defaultValue;
-        }
-    }
-
     /**
      * Parse timestamp string to LocalDateTime
      */
@@ -1,62 +1,86 @@
 package com.my.challenger.service.impl.photo;
 
-import org.opencv.core.*;
-import org.opencv.features2d.*;
-import org.opencv.imgcodecs.Imgcodecs;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import com.my.challenger.service.impl.photo.PhotoFeatures.Descriptors;
+import com.my.challenger.service.impl.photo.PhotoFeatures.PersonBox;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
 import software.amazon.awssdk.core.SdkBytes;
-import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.rekognition.RekognitionClient;
 import software.amazon.awssdk.services.rekognition.model.*;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * Photo analysis for challenge verification, shared by all verifications.
+ * <p>
+ * A photo is analyzed once, when it is uploaded: one Rekognition label detection provides
+ * both its labels and the person's bounding box, and the shirt's ORB descriptors are computed
+ * from it. The result is stored in {@link PhotoFeatureStore}, so comparing a later photo
+ * against it needs neither the file nor another Rekognition call.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
 public class PhotoAnalysisService {
 
+    /** Fewer good descriptor matches than this means the shirts differ */
+    static final int SIMILAR_SHIRT_MATCHES = 50;
+
     private final RekognitionClient rekognitionClient;
+    private final ShirtFeatureExtractor shirtFeatures;
+    private final PhotoFeatureStore featureStore;
 
-    /** Constructor to initialize the AWS Rekognition client */
-    public PhotoAnalysisService(String awsAccessKey, String awsSecretKey, Region awsRegion) {
-        this.rekognitionClient = RekognitionClient.builder()
-                .region(awsRegion)
-                .credentialsProvider(StaticCredentialsProvider.create(
-                        AwsBasicCredentials.create(awsAccessKey, awsSecretKey)))
-                .build();
+    /**
+     * Analyzes a newly stored photo and persists its features.
+     */
+    public PhotoFeatures analyze(String photoPath, byte[] photoBytes) {
+        List<Label> labels = detectLabels(photoBytes);
+        PersonBox personBox = getPersonBoundingBox(labels);
+        Descriptors descriptors = personBox != null
+                ? shirtFeatures.extract(photoBytes, personBox)
+                : Descriptors.EMPTY;
+
+        PhotoFeatures features = new PhotoFeatures(
+                labels.stream().map(Label::name).map(String::toLowerCase).collect(Collectors.toList()),
+                personBox,
+                descriptors);
+        featureStore.save(photoPath, features);
+        return features;
     }
 
-    /** Load OpenCV native library */
-    static {
-        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    /**
+     * Features of a stored photo. Photos stored before features were cached are analyzed from
+     * disk once.
+     */
+    public PhotoFeatures featuresOf(String photoPath) throws IOException {
+        Optional<PhotoFeatures> stored = featureStore.find(photoPath);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+        log.debug("No stored features for {}, analyzing it now", photoPath);
+        return analyze(photoPath, Files.readAllBytes(Paths.get(photoPath)));
     }
 
     /**
      * Verifies if a photo matches a text description.
-     * @param photoPath Path to the photo file
+     * @param photo Features of the photo
      * @param description Space-separated keywords (e.g., "person shirt")
      * @return Map with success status, result, and message
      */
-    public Map<String, Object> verifyPhotoWithDescription(String photoPath, String description) {
+    public Map<String, Object> verifyPhotoWithDescription(PhotoFeatures photo, String description) {
         try {
-            // Read photo bytes
-            byte[] photoBytes = Files.readAllBytes(Paths.get(photoPath));
-
-            // Detect labels using AWS Rekognition
-            List<String> labels = detectLabels(photoBytes).stream()
-                    .map(Label::name)
-                    .map(String::toLowerCase)
-                    .collect(Collectors.toList());
-
             // Split description into keywords
             String[] descKeywords = description.toLowerCase().split("\\s+");
             List<String> missingKeywords = new ArrayList<>();
 
             // Check if all keywords are present in the labels
             for (String keyword : descKeywords) {
-                if (!labels.contains(keyword)) {
+                if (!photo.labels().contains(keyword)) {
                     missingKeywords.add(keyword);
                 }
             }
@@ -74,80 +98,24 @@ public class PhotoAnalysisService {
 
     /**
      * Compares two photos to determine if the shirts are different.
-     * @param photoPath1 Path to the first photo
-     * @param photoPath2 Path to the second photo
+     * @param photo1 Features of the first photo
+     * @param photo2 Features of the second photo
      * @return Map with success status, result (true if shirts are different), and message
      */
-    public Map<String, Object> compareShirtsInPhotos(String photoPath1, String photoPath2) {
+    public Map<String, Object> compareShirtsInPhotos(PhotoFeatures photo1, PhotoFeatures photo2) {
         try {
-            // Read photo bytes
-            byte[] photoBytes1 = Files.readAllBytes(Paths.get(photoPath1));
-            byte[] photoBytes2 = Files.readAllBytes(Paths.get(photoPath2));
-
-            // Load images with OpenCV
-            Mat image1 = Imgcodecs.imdecode(new MatOfByte(photoBytes1), Imgcodecs.IMREAD_COLOR);
-            Mat image2 = Imgcodecs.imdecode(new MatOfByte(photoBytes2), Imgcodecs.IMREAD_COLOR);
-
-            // Get person's bounding box for both images
-            BoundingBox bbox1 = getPersonBoundingBox(photoBytes1);
-            BoundingBox bbox2 = getPersonBoundingBox(photoBytes2);
-
-            if (bbox1 == null || bbox2 == null) {
+            if (photo1.personBox() == null || photo2.personBox() == null) {
                 return createResult(true, false, "Cannot determine—missing person in one or both photos");
             }
 
-            // Compute crop regions for shirt area (top 40% of person bounding box)
-            int imgHeight1 = image1.rows();
-            int imgWidth1 = image1.cols();
-            int x1 = (int) (bbox1.left() * imgWidth1);
-            int y1 = (int) (bbox1.top() * imgHeight1);
-            int w1 = (int) (bbox1.width() * imgWidth1);
-            int h1 = (int) (bbox1.height() * imgHeight1);
-            int hCrop1 = (int) (0.4 * h1);
-
-            int imgHeight2 = image2.rows();
-            int imgWidth2 = image2.cols();
-            int x2 = (int) (bbox2.left() * imgWidth2);
-            int y2 = (int) (bbox2.top() * imgHeight2);
-            int w2 = (int) (bbox2.width() * imgWidth2);
-            int h2 = (int) (bbox2.height() * imgHeight2);
-            int hCrop2 = (int) (0.4 * h2);
-
-            // Crop shirt areas
-            Mat shirt1 = image1.submat(y1, y1 + hCrop1, x1, x1 + w1);
-            Mat shirt2 = image2.submat(y2, y2 + hCrop2, x2, x2 + w2);
-
-            // Extract ORB features
-            Feature2D orb = ORB.create();
-            MatOfKeyPoint keypoints1 = new MatOfKeyPoint();
-            Mat descriptors1 = new Mat();
-            orb.detectAndCompute(shirt1, new Mat(), keypoints1, descriptors1);
-
-            MatOfKeyPoint keypoints2 = new MatOfKeyPoint();
-            Mat descriptors2 = new Mat();
-            orb.detectAndCompute(shirt2, new Mat(), keypoints2, descriptors2);
-
             // Check if features could be extracted
-            if (descriptors1.empty() || descriptors2.empty()) {
+            if (photo1.descriptors().isEmpty() || photo2.descriptors().isEmpty()) {
                 return createResult(true, false, "Cannot determine—unable to extract features from one or both shirts");
             }
 
-            // Match descriptors
-            DescriptorMatcher matcher = DescriptorMatcher.create(DescriptorMatcher.BRUTEFORCE_HAMMING);
-            MatOfDMatch matches = new MatOfDMatch();
-            matcher.match(descriptors1, descriptors2, matches);
-
-            // Apply ratio test to find good matches
-            List<DMatch> goodMatches = new ArrayList<>();
-            for (DMatch match : matches.toList()) {
-                if (match.distance < 75) { // Threshold for good matches
-                    goodMatches.add(match);
-                }
-            }
-
             // Determine if shirts are different based on number of good matches
-            int numGoodMatches = goodMatches.size();
-            boolean shirtsDifferent = numGoodMatches < 50; // Adjust threshold as needed
+            int numGoodMatches = shirtFeatures.countGoodMatches(photo1.descriptors(), photo2.descriptors());
+            boolean shirtsDifferent = numGoodMatches < SIMILAR_SHIRT_MATCHES;
             String message = shirtsDifferent ?
                     "The shirts in the two photos are different" :
                     "The shirts in the two photos are similar";
@@ -169,19 +137,19 @@ public class PhotoAnalysisService {
         return response.labels();
     }
 
-    /** Helper method to get the bounding box of a person in the photo */
-    private BoundingBox getPersonBoundingBox(byte[] imageBytes) {
-        List<Label> labels = detectLabels(imageBytes);
+    /** Helper method to get the bounding box of a person from detected labels */
+    private static PersonBox getPersonBoundingBox(List<Label> labels) {
         for (Label label : labels) {
             if (label.name().equalsIgnoreCase("Person") && !label.instances().isEmpty()) {
-                return label.instances().get(0).boundingBox();
+                BoundingBox box = label.instances().get(0).boundingBox();
+                return new PersonBox(box.left(), box.top(), box.width(), box.height());
             }
         }
         return null;
     }
 
     /** Helper method to create a successful result map */
-    private Map<String, Object> createResult(boolean success, boolean result, String message) {
+    private static Map<String, Object> createResult(boolean success, boolean result, String message) {
         Map<String, Object> map = new HashMap<>();
         map.put("success", success);
         map.put("result", result);
@@ -190,7 +158,7 @@ public class PhotoAnalysisService {
     }
 
     /** Helper method to create an error result map */
-    private Map<String, Object> createErrorResult(String message) {
+    static Map<String, Object> createErrorResult(String message) {
         Map<String, Object> map = new HashMap<>();
         map.put("success", false);
         map.put("result", null);
@@ -198,4 +166,4 @@ public class PhotoAnalysisService {
         map.put("error", true);
         return map;
     }
-}
\ No newline at end of file
+}
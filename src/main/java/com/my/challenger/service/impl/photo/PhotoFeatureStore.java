@@ -0,0 +1,90 @@
+package com.my.challenger.service.impl.photo;
+
+import com.my.challenger.service.impl.photo.PhotoFeatures.Descriptors;
+import com.my.challenger.service.impl.photo.PhotoFeatures.PersonBox;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Persisted {@link PhotoFeatures}, keyed by the photo's stored path (the task completion's
+ * verification proof). Writes commit on their own, since analysis runs outside any caller
+ * transaction.
+ */
+@Component
+public class PhotoFeatureStore {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO photo_features (photo_path, labels, person_left, person_top, person_width, person_height, " +
+                    "descriptor_rows, descriptor_cols, descriptors) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                    "ON CONFLICT (photo_path) DO UPDATE SET labels = EXCLUDED.labels, " +
+                    "person_left = EXCLUDED.person_left, person_top = EXCLUDED.person_top, " +
+                    "person_width = EXCLUDED.person_width, person_height = EXCLUDED.person_height, " +
+                    "descriptor_rows = EXCLUDED.descriptor_rows, descriptor_cols = EXCLUDED.descriptor_cols, " +
+                    "descriptors = EXCLUDED.descriptors, created_at = CURRENT_TIMESTAMP";
+
+    private static final String SELECT_SQL =
+            "SELECT labels, person_left, person_top, person_width, person_height, " +
+                    "descriptor_rows, descriptor_cols, descriptors FROM photo_features WHERE photo_path = ?";
+
+    private static final String DELETE_SQL = "DELETE FROM photo_features WHERE photo_path = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public PhotoFeatureStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public Optional<PhotoFeatures> find(String photoPath) {
+        List<PhotoFeatures> found = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> map(rs), photoPath);
+        return found.stream().findFirst();
+    }
+
+    public void save(String photoPath, PhotoFeatures features) {
+        PersonBox box = features.personBox();
+        Descriptors descriptors = features.descriptors();
+        transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.update(UPSERT_SQL,
+                photoPath,
+                String.join("\n", features.labels()),
+                box != null ? box.left() : null,
+                box != null ? box.top() : null,
+                box != null ? box.width() : null,
+                box != null ? box.height() : null,
+                descriptors.rows(),
+                descriptors.cols(),
+                descriptors.isEmpty() ? null : descriptors.data()));
+    }
+
+    /**
+     * Drops the features of a photo that is being deleted.
+     */
+    public void delete(String photoPath) {
+        transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.update(DELETE_SQL, photoPath));
+    }
+
+    private static PhotoFeatures map(ResultSet rs) throws SQLException {
+        String labels = rs.getString("labels");
+        float left = rs.getFloat("person_left");
+        PersonBox box = rs.wasNull() ? null : new PersonBox(left,
+                rs.getFloat("person_top"), rs.getFloat("person_width"), rs.getFloat("person_height"));
+        int rows = rs.getInt("descriptor_rows");
+        int cols = rs.getInt("descriptor_cols");
+        byte[] data = rs.getBytes("descriptors");
+        Descriptors descriptors = data == null || rows == 0 || cols == 0
+                ? Descriptors.EMPTY
+                : new Descriptors(rows, cols, data);
+        return new PhotoFeatures(
+                labels == null || labels.isEmpty() ? List.of() : Arrays.asList(labels.split("\n")),
+                box,
+                descriptors);
+    }
+}
@@ -0,0 +1,32 @@
+package com.my.challenger.service.impl.photo;
+
+import java.util.List;
+
+/**
+ * What photo verification needs to know about a stored photo, computed once when it is
+ * uploaded: detected labels (lower case), the first person's bounding box and the ORB
+ * descriptors of that person's shirt area.
+ *
+ * @param labels      label names reported by Rekognition
+ * @param personBox   first detected person, or {@code null} if there is none
+ * @param descriptors shirt descriptors; empty without a person or without features
+ */
+public record PhotoFeatures(List<String> labels, PersonBox personBox, Descriptors descriptors) {
+
+    /**
+     * Bounding box as ratios of the image width and height.
+     */
+    public record PersonBox(float left, float top, float width, float height) {}
+
+    /**
+     * Binary ORB descriptors, one row of {@code cols} bytes per keypoint.
+     */
+    public record Descriptors(int rows, int cols, byte[] data) {
+
+        public static final Descriptors EMPTY = new Descriptors(0, 0, new byte[0]);
+
+        public boolean isEmpty() {
+            return rows == 0 || cols == 0;
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.my.challenger.service.impl.photo;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.my.challenger.dto.verification.PhotoVerificationJobStatus;
+import com.my.challenger.dto.verification.PhotoVerificationJobStatus.State;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Photo verification as a background job.
+ * <p>
+ * A submission is validated and its photo written to the upload directory on the request
+ * thread, so a queued job holds only the photo's path and the queue's memory does not grow
+ * with photo sizes; photos over {@code max-photo-bytes} are refused. The caller gets the job id
+ * right away. A worker of the bounded {@code photoVerificationExecutor} then runs the stages
+ * (detect, compare, persist) in order. A stage failing with a transient error (AWS throttling
+ * or 5xx, I/O, a full analysis pool, a transient database error) is retried from that stage
+ * after an exponential backoff, up to {@code max-attempts} times; other errors fail the job
+ * without recording a completion and delete its photo. When the queue is full, submissions are
+ * rejected with {@link RejectedExecutionException} so clients back off instead of piling up.
+ * <p>
+ * Every state change is pushed to the user's personal STOMP queue and saved to
+ * {@link PhotoVerificationJobStore}, so any node can answer a status request. A job that has
+ * not moved for {@code stale-after-minutes} was lost with its node; it left no completion
+ * behind, is reported as failed and can simply be resubmitted. Saved states are purged
+ * {@code retention-minutes} after their last change.
+ */
+@Slf4j
+@Service
+public class PhotoVerificationJobService {
+
+    static final String PERSONAL_QUEUE = "/queue/personal";
+
+    private enum Stage {
+        DETECT(State.DETECTING), COMPARE(State.COMPARING), PERSIST(State.PERSISTING);
+
+        private final State state;
+
+        Stage(State state) {
+            this.state = state;
+        }
+    }
+
+    private final PhotoVerificationService verificationService;
+    private final PhotoVerificationJobStore jobStore;
+    private final Executor executor;
+    private final TaskScheduler scheduler;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final Duration retention;
+    private final long maxPhotoBytes;
+    private final Duration staleAfter;
+    private final Cache<String, Job> jobs;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private Counter completedCounter;
+    private Counter failedCounter;
+    private Counter rejectedCounter;
+
+    public PhotoVerificationJobService(
+            PhotoVerificationService verificationService,
+            PhotoVerificationJobStore jobStore,
+            @Qualifier("photoVerificationExecutor") Executor executor,
+            @Qualifier("taskScheduler") TaskScheduler scheduler,
+            SimpMessagingTemplate messagingTemplate,
+            @Autowired(required = false) MeterRegistry meterRegistry,
+            @Value("${app.photo-verification.max-attempts:3}") int maxAttempts,
+            @Value("${app.photo-verification.retry-backoff-ms:1000}") long retryBackoffMs,
+            @Value("${app.photo-verification.retention-minutes:30}") long retentionMinutes,
+            @Value("${app.photo-verification.max-photo-bytes:10485760}") long maxPhotoBytes,
+            @Value("${app.photo-verification.stale-after-minutes:10}") long staleAfterMinutes) {
+        this.verificationService = verificationService;
+        this.jobStore = jobStore;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.messagingTemplate = messagingTemplate;
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMs = Math.max(0, retryBackoffMs);
+        this.retention = Duration.ofMinutes(Math.max(1, retentionMinutes));
+        this.maxPhotoBytes = Math.max(1, maxPhotoBytes);
+        this.staleAfter = Duration.ofMinutes(Math.max(1, staleAfterMinutes));
+        // Jobs of this node, so their status is served without a database read
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(retention)
+                .build();
+    }
+
+    /**
+     * A queued verification. Only one thread works on a job at a time; hand-offs go through
+     * the executor or the scheduler.
+     */
+    private static final class Job {
+        final String id;
+        final String username;
+        final PhotoVerificationService.Plan plan;
+        final String photoPath;
+        PhotoFeatures features;
+        Map<String, Object> verificationResult;
+        Stage stage = Stage.DETECT;
+        int attempt = 1;
+        volatile PhotoVerificationJobStatus status;
+
+        Job(String username, PhotoVerificationService.Plan plan, String photoPath) {
+            this.id = UUID.randomUUID().toString();
+            this.username = username;
+            this.plan = plan;
+            this.photoPath = photoPath;
+        }
+    }
+
+    @PostConstruct
+    void initMetrics() {
+        if (meterRegistry == null) {
+            return;
+        }
+        completedCounter = Counter.builder("photo.verification.jobs")
+                .tag("outcome", "completed")
+                .description("Photo verification jobs that recorded a result")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("photo.verification.jobs")
+                .tag("outcome", "failed")
+                .description("Photo verification jobs that failed without a result")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("photo.verification.jobs")
+                .tag("outcome", "rejected")
+                .description("Photo verification submissions rejected because the queue was full")
+                .register(meterRegistry);
+        meterRegistry.gauge("photo.verification.queue.depth", queued);
+    }
+
+    /**
+     * Validates the submission, stores its photo and queues its verification.
+     *
+     * @throws IllegalArgumentException if the submission is invalid or the photo too large
+     * @throws RejectedExecutionException if the queue is full
+     * @throws IOException if the photo could not be stored
+     */
+    public PhotoVerificationJobStatus submit(Long challengeId, Long userId, String username,
+                                             byte[] photoBytes, String contentType, String prompt) throws IOException {
+        if (photoBytes.length > maxPhotoBytes) {
+            throw new IllegalArgumentException("Photo exceeds the maximum size of " + maxPhotoBytes + " bytes");
+        }
+        PhotoVerificationService.Plan plan = verificationService.plan(challengeId, userId, prompt)
+                .orElseThrow(() -> new IllegalArgumentException("This challenge has no photo verification details"));
+
+        String photoPath = verificationService.storePhoto(
+                plan, photoBytes, PhotoVerificationService.contentTypeToExtension(contentType));
+        Job job = new Job(username, plan, photoPath);
+        PhotoVerificationJobStatus queuedStatus = PhotoVerificationJobStatus.builder()
+                .jobId(job.id)
+                .challengeId(challengeId)
+                .state(State.QUEUED)
+                .attempt(job.attempt)
+                .updatedAt(LocalDateTime.now())
+                .build();
+        job.status = queuedStatus;
+        jobs.put(job.id, job);
+        // Saved before queueing so it cannot overwrite a worker's first update
+        save(job);
+        try {
+            enqueue(job);
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(job.id);
+            increment(rejectedCounter);
+            // The caller learns about the rejection from the exception, so it is not pushed
+            job.status = queuedStatus.toBuilder()
+                    .state(State.FAILED)
+                    .message("Verification failed: server is busy, please try again")
+                    .updatedAt(LocalDateTime.now())
+                    .build();
+            save(job);
+            verificationService.deletePhoto(photoPath);
+            throw e;
+        }
+        log.info("Queued photo verification job {} for challenge {} and user {}", job.id, challengeId, userId);
+        return queuedStatus;
+    }
+
+    /**
+     * Current state of a job submitted by {@code username}; empty if it is unknown, expired or
+     * belongs to someone else.
+     */
+    public Optional<PhotoVerificationJobStatus> getStatus(String jobId, String username) {
+        Job job = jobs.getIfPresent(jobId);
+        if (job != null) {
+            return job.username.equals(username) ? Optional.of(job.status) : Optional.empty();
+        }
+        return jobStore.find(jobId, username).map(this::failIfStale);
+    }
+
+    /**
+     * Removes saved states of jobs that have not changed for {@code retention-minutes}.
+     */
+    public int purgeExpired() {
+        return jobStore.deleteUpdatedBefore(LocalDateTime.now().minus(retention));
+    }
+
+    /**
+     * A saved job that stopped changing before it finished was lost with the node running it
+     */
+    private PhotoVerificationJobStatus failIfStale(PhotoVerificationJobStatus status) {
+        if (status.getState().isFinished() || status.getUpdatedAt().isAfter(LocalDateTime.now().minus(staleAfter))) {
+            return status;
+        }
+        return status.toBuilder()
+                .state(State.FAILED)
+                .message("Verification was interrupted, please try again")
+                .build();
+    }
+
+    int queueDepth() {
+        return queued.get();
+    }
+
+    private void enqueue(Job job) {
+        queued.incrementAndGet();
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void run(Job job) {
+        queued.decrementAndGet();
+        while (job.stage != null) {
+            Stage stage = job.stage;
+            update(job, stage.state, null, null);
+            long startTime = System.nanoTime();
+            try {
+                advance(job);
+                recordStage(stage, "success", startTime);
+                job.attempt = 1;
+            } catch (Exception e) {
+                recordStage(stage, "failure", startTime);
+                if (job.attempt < maxAttempts && isRetryable(e)) {
+                    retry(job, e);
+                } else {
+                    log.error("Photo verification job {} failed at stage {}", job.id, stage, e);
+                    fail(job, "Verification failed: " + messageOf(e));
+                }
+                return;
+            }
+        }
+
+        Map<String, Object> result = job.verificationResult;
+        increment(completedCounter);
+        job.status = job.status.toBuilder()
+                .isVerified(Boolean.TRUE.equals(result.get("isVerified")))
+                .build();
+        update(job, State.COMPLETED, (String) result.get("message"), result);
+    }
+
+    private void advance(Job job) throws IOException {
+        switch (job.stage) {
+            case DETECT -> {
+                job.features = verificationService.detect(job.photoPath, verificationService.readPhoto(job.photoPath));
+                job.stage = Stage.COMPARE;
+            }
+            case COMPARE -> {
+                job.verificationResult = verificationService.compare(job.plan, job.features);
+                job.stage = Stage.PERSIST;
+            }
+            case PERSIST -> {
+                job.verificationResult = verificationService.persist(job.plan, job.photoPath, job.verificationResult);
+                job.stage = null;
+            }
+        }
+    }
+
+    private void retry(Job job, Exception cause) {
+        long delayMs = retryBackoffMs << (job.attempt - 1);
+        log.warn("Photo verification job {} stage {} failed (attempt {}/{}), retrying in {} ms: {}",
+                job.id, job.stage, job.attempt, maxAttempts, delayMs, messageOf(cause));
+        job.attempt++;
+        update(job, State.RETRYING, messageOf(cause), null);
+        scheduler.schedule(() -> {
+            try {
+                enqueue(job);
+            } catch (RejectedExecutionException e) {
+                fail(job, "Verification failed: server is busy, please try again");
+            }
+        }, Instant.now().plusMillis(delayMs));
+    }
+
+    /**
+     * Fails a job before its completion was recorded, so nothing refers to its photo any more
+     */
+    private void fail(Job job, String message) {
+        increment(failedCounter);
+        update(job, State.FAILED, message, null);
+        verificationService.deletePhoto(job.photoPath);
+    }
+
+    private void update(Job job, State state, String message, Map<String, Object> details) {
+        job.status = job.status.toBuilder()
+                .state(state)
+                .attempt(job.attempt)
+                .message(message)
+                .details(details)
+                .updatedAt(LocalDateTime.now())
+                .build();
+        // Re-inserted so retention counts from the last change
+        jobs.put(job.id, job);
+        save(job);
+        try {
+            messagingTemplate.convertAndSendToUser(job.username, PERSONAL_QUEUE, job.status);
+        } catch (Exception e) {
+            log.warn("Failed to push photo verification job {} to {}: {}", job.id, job.username, e.getMessage());
+        }
+    }
+
+    private void save(Job job) {
+        try {
+            jobStore.save(job.username, job.status);
+        } catch (RuntimeException e) {
+            log.warn("Failed to save photo verification job {}: {}", job.id, e.getMessage());
+        }
+    }
+
+    /**
+     * Transient failures worth another attempt of the same stage
+     */
+    static boolean isRetryable(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof AwsServiceException aws) {
+            return aws.isThrottlingException() || aws.statusCode() >= 500;
+        }
+        if (cause instanceof NoSuchFileException) {
+            return false;
+        }
+        return cause instanceof SdkClientException
+                || cause instanceof RejectedExecutionException
+                || cause instanceof TransientDataAccessException
+                || cause instanceof IOException
+                || cause instanceof UncheckedIOException;
+    }
+
+    private static String messageOf(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause.getMessage();
+    }
+
+    private void recordStage(Stage stage, String outcome, long startTime) {
+        if (meterRegistry == null) {
+            return;
+        }
+        Timer.builder("photo.verification.stage.latency")
+                .tag("stage", stage.name().toLowerCase())
+                .tag("outcome", outcome)
+                .description("Duration of photo verification job stages")
+                .register(meterRegistry)
+                .record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.my.challenger.service.impl.photo;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.my.challenger.dto.verification.PhotoVerificationJobStatus;
+import com.my.challenger.dto.verification.PhotoVerificationJobStatus.State;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Persisted {@link PhotoVerificationJobStatus}, so a job can be polled from any node and
+ * after the node that ran it restarted. Writes commit on their own, since jobs run outside
+ * any caller transaction.
+ */
+@Component
+public class PhotoVerificationJobStore {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO photo_verification_jobs (job_id, username, challenge_id, state, attempt, is_verified, " +
+                    "message, details, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                    "ON CONFLICT (job_id) DO UPDATE SET state = EXCLUDED.state, attempt = EXCLUDED.attempt, " +
+                    "is_verified = EXCLUDED.is_verified, message = EXCLUDED.message, details = EXCLUDED.details, " +
+                    "updated_at = EXCLUDED.updated_at";
+
+    private static final String SELECT_SQL =
+            "SELECT job_id, challenge_id, state, attempt, is_verified, message, details, updated_at " +
+                    "FROM photo_verification_jobs WHERE job_id = ? AND username = ?";
+
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM photo_verification_jobs WHERE updated_at < ?";
+
+    private static final TypeReference<Map<String, Object>> DETAILS_TYPE = new TypeReference<>() {};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public PhotoVerificationJobStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                     ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+    }
+
+    public void save(String username, PhotoVerificationJobStatus status) {
+        String details = toJson(status.getDetails());
+        transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.update(UPSERT_SQL,
+                status.getJobId(),
+                username,
+                status.getChallengeId(),
+                status.getState().name(),
+                status.getAttempt(),
+                status.getIsVerified(),
+                status.getMessage(),
+                details,
+                Timestamp.valueOf(status.getUpdatedAt())));
+    }
+
+    /**
+     * Last saved state of a job submitted by {@code username}
+     */
+    public Optional<PhotoVerificationJobStatus> find(String jobId, String username) {
+        List<PhotoVerificationJobStatus> found = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> map(rs), jobId, username);
+        return found.stream().findFirst();
+    }
+
+    /**
+     * Removes jobs that have not changed since {@code cutoff}; returns how many were removed.
+     */
+    public int deleteUpdatedBefore(LocalDateTime cutoff) {
+        Integer deleted = transactionTemplate.execute(tx ->
+                jdbcTemplate.update(DELETE_EXPIRED_SQL, Timestamp.valueOf(cutoff)));
+        return deleted != null ? deleted : 0;
+    }
+
+    private PhotoVerificationJobStatus map(ResultSet rs) throws SQLException {
+        boolean verified = rs.getBoolean("is_verified");
+        Boolean isVerified = rs.wasNull() ? null : verified;
+        String details = rs.getString("details");
+        return PhotoVerificationJobStatus.builder()
+                .jobId(rs.getString("job_id"))
+                .challengeId(rs.getLong("challenge_id"))
+                .state(State.valueOf(rs.getString("state")))
+                .attempt(rs.getInt("attempt"))
+                .isVerified(isVerified)
+                .message(rs.getString("message"))
+                .details(details != null ? fromJson(details) : null)
+                .updatedAt(rs.getTimestamp("updated_at").toLocalDateTime())
+                .build();
+    }
+
+    private String toJson(Map<String, Object> details) {
+        if (details == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(details);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize photo verification job details", e);
+        }
+    }
+
+    private Map<String, Object> fromJson(String details) {
+        try {
+            return objectMapper.readValue(details, DETAILS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read photo verification job details", e);
+        }
+    }
+}
@@ -3,7 +3,6 @@ package com.my.challenger.service.impl.photo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.my.challenger.entity.Task;
 import com.my.challenger.entity.TaskCompletion;
-import com.my.challenger.entity.User;
 import com.my.challenger.entity.challenge.Challenge;
 import com.my.challenger.entity.challenge.PhotoVerificationDetails;
 import com.my.challenger.entity.challenge.VerificationDetails;
@@ -18,8 +17,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.regions.Region;
 
 import java.io.File;
 import java.io.IOException;
@@ -42,20 +41,19 @@ public class PhotoVerificationService {
     private final TaskCompletionRepository taskCompletionRepository;
     private final UserRepository userRepository;
     private final ObjectMapper objectMapper;
+    private final PhotoAnalysisService photoAnalysisService;
+    private final PhotoFeatureStore featureStore;
 
     // Directory to store uploaded photos
     @Value("${app.uploads.photo-verification-dir:uploads/verification-photos/}")
     private String uploadDir;
 
-    // AWS credentials from application properties
-    @Value("${aws.access-key:}")
-    private String awsAccessKey;
-
-    @Value("${aws.secret-key:}")
-    private String awsSecretKey;
-
-    @Value("${aws.region:us-east-1}")
-    private String awsRegionName;
+    /**
+     * What a verification needs from the challenge and the user's active task, resolved before
+     * the photo is processed
+     */
+    public record Plan(Long challengeId, Long userId, Long taskId, String prompt,
+                       String previousPhotoPath, boolean requiresPhotoComparison) {}
 
     /**
      * Verify a photo submission for a challenge task
@@ -63,130 +61,10 @@ public class PhotoVerificationService {
     public Map<String, Object> verifyPhoto(Long challengeId, Long userId, MultipartFile photo, String prompt, String aiPrompt) {
         try {
             log.info("Starting photo verification for challenge {} and user {}", challengeId, userId);
-
-            // 1. Validate inputs
-            Challenge challenge = challengeRepository.findById(challengeId)
-                    .orElseThrow(() -> new IllegalArgumentException("Challenge not found with ID: " + challengeId));
-
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
-
-            // Get active task for this challenge
-            Task task = taskRepository.findFirstByChallengeIdAndAssignedToAndStatus(
-                            challengeId, userId, TaskStatus.IN_PROGRESS)
-                    .orElseThrow(() -> new IllegalArgumentException("No active task found for this challenge"));
-
-            // 2. Save the uploaded photo
-            String fileName = savePhoto(photo, challengeId, userId);
-            String photoPath = uploadDir + fileName;
-            log.debug("Saved photo to {}", photoPath);
-
-            // 3. Check if the challenge requires photo verification
-            if (challenge.getVerificationMethod() != VerificationMethod.PHOTO) {
-                throw new IllegalArgumentException("This challenge does not support photo verification");
-            }
-            List<VerificationDetails> verificationDetailsList = challenge.getVerificationDetails();
-            Optional<VerificationDetails> verificationDetailsOptional = verificationDetailsList.stream()
-                    .filter(verificationDetails -> verificationDetails.getPhotoDetails() != null).findAny();
-            if(verificationDetailsOptional.isEmpty()){
-                return new HashMap<>();
-            }
-            // 4. Get verification details from challenge
-            Map<String, Object> verificationDetails = parseVerificationDetails(verificationDetailsOptional.get());
-
-            // 4. Get previous photos for this challenge to compare (for recurring challenges)
-            String previousPhotoPath = null;
-            boolean requiresPhotoComparison = Boolean.parseBoolean(
-                    verificationDetails.getOrDefault("requiresPhotoComparison", "false").toString());
-
-            if (requiresPhotoComparison) {
-                log.debug("Photo comparison required. Fetching previous photos.");
-                List<TaskCompletion> previousCompletions = taskCompletionRepository
-                        .findAllByTaskIdAndUserIdOrderByCompletionDateDesc(task.getId(), userId);
-
-                if (!previousCompletions.isEmpty()) {
-                    previousPhotoPath = previousCompletions.get(0).getVerificationProof();
-                    log.debug("Found previous photo: {}", previousPhotoPath);
-                }
-            }
-
-            // 5. Prepare verification parameters
-            if (prompt == null || prompt.isEmpty()) {
-                // If no prompt is provided, use default from verification details
-                prompt = verificationDetails.getOrDefault("description", "").toString();
-            }
-
-            // 6. Instantiate the new PhotoAnalysisService
-            PhotoAnalysisService photoAnalysisService = createPhotoAnalysisService();
-
-            // 7. Perform verification
-            Map<String, Object> verificationResult;
-
-            if (previousPhotoPath != null && requiresPhotoComparison) {
-                // If this is a recurring challenge with comparison required (e.g., different shirt each day)
-                log.debug("Performing photo comparison verification");
-                verificationResult = photoAnalysisService.compareShirtsInPhotos(photoPath, previousPhotoPath);
-
-                // If that succeeded, also check the content of the current photo
-                if (Boolean.TRUE.equals(verificationResult.get("result"))) {
-                    Map<String, Object> contentCheck = photoAnalysisService.verifyPhotoWithDescription(photoPath, prompt);
-
-                    // Update result with combined checks
-                    boolean finalResult = Boolean.TRUE.equals(contentCheck.get("result"));
-                    verificationResult.put("result", finalResult);
-                    verificationResult.put("message", verificationResult.get("message") +
-                            (finalResult ? ". Photo content verified." : ". But photo content verification failed: " +
-                                    contentCheck.get("message")));
-                }
-            } else {
-                // For regular challenges or first occurrence of recurring challenges
-                log.debug("Performing content-only verification with prompt: {}", prompt);
-                verificationResult = photoAnalysisService.verifyPhotoWithDescription(photoPath, prompt);
-            }
-
-            // 8. Process verification result
-            boolean isVerified = Boolean.TRUE.equals(verificationResult.get("result")) &&
-                    Boolean.TRUE.equals(verificationResult.get("success"));
-            String message = (String) verificationResult.getOrDefault("message", "Photo verification completed");
-
-            // 9. Create a new task completion record
-            TaskCompletion completion = new TaskCompletion();
-            completion.setTaskId(task.getId());
-            completion.setUserId(userId);
-            completion.setStatus(isVerified ? CompletionStatus.VERIFIED : CompletionStatus.REJECTED);
-            completion.setCompletionDate(LocalDateTime.now());
-            completion.setVerificationProof(photoPath);
-            completion.setNotes(message);
-            completion.setCreatedAt(LocalDateTime.now());
-
-            TaskCompletion savedCompletion = taskCompletionRepository.save(completion);
-            log.info("Saved task completion with ID {} and status {}", savedCompletion.getId(), savedCompletion.getStatus());
-
-            // 10. Update task status if verified
-            if (isVerified) {
-                task.setStatus(TaskStatus.COMPLETED);
-                taskRepository.save(task);
-                log.info("Updated task {} status to COMPLETED", task.getId());
-            }
-
-            // 11. Prepare response
-            Map<String, Object> result = new HashMap<>(verificationResult);
-            result.put("isVerified", isVerified);
-            if (!result.containsKey("message")) {
-                result.put("message", message);
-            }
-            result.put("completionId", savedCompletion.getId());
-            result.put("photoPath", photoPath);
-
-            return result;
-
+            return verify(challengeId, userId, photo.getBytes(), getFileExtension(photo.getOriginalFilename()), prompt);
         } catch (Exception e) {
             log.error("Error during photo verification", e);
-            Map<String, Object> errorResult = new HashMap<>();
-            errorResult.put("isVerified", false);
-            errorResult.put("message", "Error during verification: " + e.getMessage());
-            errorResult.put("error", true);
-            return errorResult;
+            return verificationError(e);
         }
     }
 
@@ -206,149 +84,237 @@ public class PhotoVerificationService {
                                                     String prompt, String aiPrompt) {
         try {
             log.info("Starting photo verification from bytes for challenge {} and user {}", challengeId, userId);
+            return verify(challengeId, userId, imageBytes, contentTypeToExtension(contentType), prompt);
+        } catch (Exception e) {
+            log.error("Error during photo verification from bytes", e);
+            return verificationError(e);
+        }
+    }
 
-            // 1. Validate inputs
-            Challenge challenge = challengeRepository.findById(challengeId)
-                    .orElseThrow(() -> new IllegalArgumentException("Challenge not found with ID: " + challengeId));
+    /**
+     * Runs all stages on the calling thread; {@link PhotoVerificationJobService} runs them as
+     * a background job instead
+     */
+    private Map<String, Object> verify(Long challengeId, Long userId, byte[] photoBytes, String extension,
+                                       String prompt) throws IOException {
+        Optional<Plan> plan = plan(challengeId, userId, prompt);
+        if (plan.isEmpty()) {
+            return new HashMap<>();
+        }
 
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
+        String photoPath = storePhoto(plan.get(), photoBytes, extension);
 
-            // Get active task for this challenge
-            Task task = taskRepository.findFirstByChallengeIdAndAssignedToAndStatus(
-                            challengeId, userId, TaskStatus.IN_PROGRESS)
-                    .orElseThrow(() -> new IllegalArgumentException("No active task found for this challenge"));
+        Map<String, Object> verificationResult;
+        try {
+            verificationResult = compare(plan.get(), detect(photoPath, photoBytes));
+        } catch (Exception e) {
+            log.error("Error analyzing photo {}", photoPath, e);
+            verificationResult = PhotoAnalysisService.createErrorResult("Error analyzing photo: " + e.getMessage());
+        }
 
-            // 2. Save the image bytes to a file
-            String extension = contentTypeToExtension(contentType);
-            String fileName = "ch" + challengeId + "_user" + userId + "_" +
-                    LocalDateTime.now().toString().replace(":", "-").replace(".", "-") + extension;
+        try {
+            return persist(plan.get(), photoPath, verificationResult);
+        } catch (RuntimeException e) {
+            // No completion refers to the photo
+            deletePhoto(photoPath);
+            throw e;
+        }
+    }
 
-            // Create directory if it doesn't exist
-            File directory = new File(uploadDir);
-            if (!directory.exists()) {
-                directory.mkdirs();
+    /**
+     * Validates the submission and collects what its verification needs. Empty if the
+     * challenge has no photo verification details.
+     */
+    public Optional<Plan> plan(Long challengeId, Long userId, String prompt) {
+        // 1. Validate inputs
+        Challenge challenge = challengeRepository.findById(challengeId)
+                .orElseThrow(() -> new IllegalArgumentException("Challenge not found with ID: " + challengeId));
+
+        userRepository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
+
+        // Get active task for this challenge
+        Task task = taskRepository.findFirstByChallengeIdAndAssignedToAndStatus(
+                        challengeId, userId, TaskStatus.IN_PROGRESS)
+                .orElseThrow(() -> new IllegalArgumentException("No active task found for this challenge"));
+
+        // 2. Check if the challenge requires photo verification
+        if (challenge.getVerificationMethod() != VerificationMethod.PHOTO) {
+            throw new IllegalArgumentException("This challenge does not support photo verification");
+        }
+        List<VerificationDetails> verificationDetailsList = challenge.getVerificationDetails();
+        Optional<VerificationDetails> verificationDetailsOptional = verificationDetailsList.stream()
+                .filter(verificationDetails -> verificationDetails.getPhotoDetails() != null).findAny();
+        if (verificationDetailsOptional.isEmpty()) {
+            return Optional.empty();
+        }
+        // 3. Get verification details from challenge
+        Map<String, Object> verificationDetails = parseVerificationDetails(verificationDetailsOptional.get());
+
+        // 4. Get previous photos for this challenge to compare (for recurring challenges)
+        String previousPhotoPath = null;
+        boolean requiresPhotoComparison = Boolean.parseBoolean(
+                verificationDetails.getOrDefault("requiresPhotoComparison", "false").toString());
+
+        if (requiresPhotoComparison) {
+            log.debug("Photo comparison required. Fetching previous photos.");
+            List<TaskCompletion> previousCompletions = taskCompletionRepository
+                    .findAllByTaskIdAndUserIdOrderByCompletionDateDesc(task.getId(), userId);
+
+            if (!previousCompletions.isEmpty()) {
+                previousPhotoPath = previousCompletions.get(0).getVerificationProof();
+                log.debug("Found previous photo: {}", previousPhotoPath);
             }
+        }
 
-            // Save the file
-            Path filePath = Paths.get(uploadDir + fileName);
-            Files.write(filePath, imageBytes);
-            String photoPath = uploadDir + fileName;
-            log.debug("Saved photo to {}", photoPath);
+        // 5. Prepare verification parameters
+        if (prompt == null || prompt.isEmpty()) {
+            // If no prompt is provided, use default from verification details
+            prompt = verificationDetails.getOrDefault("description", "").toString();
+        }
 
-            // 3. Check if the challenge requires photo verification
-            if (challenge.getVerificationMethod() != VerificationMethod.PHOTO) {
-                throw new IllegalArgumentException("This challenge does not support photo verification");
-            }
-            List<VerificationDetails> verificationDetailsList = challenge.getVerificationDetails();
-            Optional<VerificationDetails> verificationDetailsOptional = verificationDetailsList.stream()
-                    .filter(verificationDetails -> verificationDetails.getPhotoDetails() != null).findAny();
-            if(verificationDetailsOptional.isEmpty()){
-                return new HashMap<>();
-            }
-            // 4. Get verification details from challenge
-            Map<String, Object> verificationDetails = parseVerificationDetails(verificationDetailsOptional.get());
-
-            // 5. Get previous photos for this challenge to compare (for recurring challenges)
-            String previousPhotoPath = null;
-            boolean requiresPhotoComparison = Boolean.parseBoolean(
-                    verificationDetails.getOrDefault("requiresPhotoComparison", "false").toString());
-
-            if (requiresPhotoComparison) {
-                log.debug("Photo comparison required. Fetching previous photos.");
-                List<TaskCompletion> previousCompletions = taskCompletionRepository
-                        .findAllByTaskIdAndUserIdOrderByCompletionDateDesc(task.getId(), userId);
-
-                if (!previousCompletions.isEmpty()) {
-                    previousPhotoPath = previousCompletions.get(0).getVerificationProof();
-                    log.debug("Found previous photo: {}", previousPhotoPath);
-                }
-            }
+        return Optional.of(new Plan(challengeId, userId, task.getId(), prompt, previousPhotoPath, requiresPhotoComparison));
+    }
 
-            // 6. Prepare verification parameters
-            if (prompt == null || prompt.isEmpty()) {
-                // If no prompt is provided, use default from verification details
-                prompt = verificationDetails.getOrDefault("description", "").toString();
-            }
+    /**
+     * Saves the photo to the upload directory and returns its path
+     */
+    public String storePhoto(Plan plan, byte[] photoBytes, String extension) throws IOException {
+        // Create directory if it doesn't exist
+        File directory = new File(uploadDir);
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
 
-            // 7. Instantiate the new PhotoAnalysisService
-            PhotoAnalysisService photoAnalysisService = createPhotoAnalysisService();
+        // Generate a unique filename
+        String fileName = "ch" + plan.challengeId() + "_user" + plan.userId() + "_" +
+                LocalDateTime.now().toString().replace(":", "-").replace(".", "-") + extension;
 
-            // 8. Perform verification
-            Map<String, Object> verificationResult;
+        // Save the file
+        Path filePath = Paths.get(uploadDir + fileName);
+        Files.write(filePath, photoBytes);
+        String photoPath = uploadDir + fileName;
+        log.debug("Saved photo to {}", photoPath);
+        return photoPath;
+    }
+
+    /**
+     * Reads back a photo saved by {@link #storePhoto}
+     */
+    public byte[] readPhoto(String photoPath) throws IOException {
+        return Files.readAllBytes(Paths.get(photoPath));
+    }
+
+    /**
+     * Deletes a stored photo that no completion refers to, together with its features
+     */
+    public void deletePhoto(String photoPath) {
+        try {
+            Files.deleteIfExists(Paths.get(photoPath));
+        } catch (IOException e) {
+            log.warn("Failed to delete photo {}: {}", photoPath, e.getMessage());
+        }
+        try {
+            featureStore.delete(photoPath);
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete features of photo {}: {}", photoPath, e.getMessage());
+        }
+    }
 
-            if (previousPhotoPath != null && requiresPhotoComparison) {
-                // If this is a recurring challenge with comparison required
-                log.debug("Performing photo comparison verification");
-                verificationResult = photoAnalysisService.compareShirtsInPhotos(photoPath, previousPhotoPath);
+    /**
+     * Analyzes a stored photo; its features are kept for later comparisons
+     */
+    public PhotoFeatures detect(String photoPath, byte[] photoBytes) {
+        return photoAnalysisService.analyze(photoPath, photoBytes);
+    }
 
-                // If that succeeded, also check the content of the current photo
-                if (Boolean.TRUE.equals(verificationResult.get("result"))) {
-                    Map<String, Object> contentCheck = photoAnalysisService.verifyPhotoWithDescription(photoPath, prompt);
+    /**
+     * Checks the photo against the description and, for recurring challenges, against the
+     * previous photo
+     */
+    public Map<String, Object> compare(Plan plan, PhotoFeatures current) throws IOException {
+        if (plan.previousPhotoPath() == null || !plan.requiresPhotoComparison()) {
+            // For regular challenges or first occurrence of recurring challenges
+            log.debug("Performing content-only verification with prompt: {}", plan.prompt());
+            return photoAnalysisService.verifyPhotoWithDescription(current, plan.prompt());
+        }
 
-                    // Update result with combined checks
-                    boolean finalResult = Boolean.TRUE.equals(contentCheck.get("result"));
-                    verificationResult.put("result", finalResult);
-                    verificationResult.put("message", verificationResult.get("message") +
-                            (finalResult ? ". Photo content verified." : ". But photo content verification failed: " +
-                                    contentCheck.get("message")));
-                }
-            } else {
-                // For regular challenges or first occurrence of recurring challenges
-                log.debug("Performing content-only verification with prompt: {}", prompt);
-                verificationResult = photoAnalysisService.verifyPhotoWithDescription(photoPath, prompt);
-            }
+        // If this is a recurring challenge with comparison required (e.g., different shirt each day)
+        log.debug("Performing photo comparison verification");
+        Map<String, Object> verificationResult = photoAnalysisService.compareShirtsInPhotos(
+                current, photoAnalysisService.featuresOf(plan.previousPhotoPath()));
+
+        // If that succeeded, also check the content of the current photo
+        if (Boolean.TRUE.equals(verificationResult.get("result"))) {
+            Map<String, Object> contentCheck = photoAnalysisService.verifyPhotoWithDescription(current, plan.prompt());
+
+            // Update result with combined checks
+            boolean finalResult = Boolean.TRUE.equals(contentCheck.get("result"));
+            verificationResult.put("result", finalResult);
+            verificationResult.put("message", verificationResult.get("message") +
+                    (finalResult ? ". Photo content verified." : ". But photo content verification failed: " +
+                            contentCheck.get("message")));
+        }
+        return verificationResult;
+    }
 
-            // 9. Process verification result
-            boolean isVerified = Boolean.TRUE.equals(verificationResult.get("result")) &&
-                    Boolean.TRUE.equals(verificationResult.get("success"));
-            String message = (String) verificationResult.getOrDefault("message", "Photo verification completed");
-
-            // 10. Create a new task completion record
-            TaskCompletion completion = new TaskCompletion();
-            completion.setTaskId(task.getId());
-            completion.setUserId(userId);
-            completion.setStatus(isVerified ? CompletionStatus.VERIFIED : CompletionStatus.REJECTED);
-            completion.setCompletionDate(LocalDateTime.now());
-            completion.setVerificationProof(photoPath);
-            completion.setNotes(message);
-            completion.setCreatedAt(LocalDateTime.now());
-
-            TaskCompletion savedCompletion = taskCompletionRepository.save(completion);
-            log.info("Saved task completion with ID {} and status {}", savedCompletion.getId(), savedCompletion.getStatus());
-
-            // 11. Update task status if verified
-            if (isVerified) {
+    /**
+     * Records the task completion, completes the task if the photo was verified and returns the
+     * response details
+     */
+    @Transactional
+    public Map<String, Object> persist(Plan plan, String photoPath, Map<String, Object> verificationResult) {
+        // 1. Process verification result
+        boolean isVerified = Boolean.TRUE.equals(verificationResult.get("result")) &&
+                Boolean.TRUE.equals(verificationResult.get("success"));
+        String message = (String) verificationResult.getOrDefault("message", "Photo verification completed");
+
+        // 2. Create a new task completion record
+        TaskCompletion completion = new TaskCompletion();
+        completion.setTaskId(plan.taskId());
+        completion.setUserId(plan.userId());
+        completion.setStatus(isVerified ? CompletionStatus.VERIFIED : CompletionStatus.REJECTED);
+        completion.setCompletionDate(LocalDateTime.now());
+        completion.setVerificationProof(photoPath);
+        completion.setNotes(message);
+        completion.setCreatedAt(LocalDateTime.now());
+
+        TaskCompletion savedCompletion = taskCompletionRepository.save(completion);
+        log.info("Saved task completion with ID {} and status {}", savedCompletion.getId(), savedCompletion.getStatus());
+
+        // 3. Update task status if verified
+        if (isVerified) {
+            taskRepository.findById(plan.taskId()).ifPresent(task -> {
                 task.setStatus(TaskStatus.COMPLETED);
                 taskRepository.save(task);
                 log.info("Updated task {} status to COMPLETED", task.getId());
-            }
+            });
+        }
 
-            // 12. Prepare response
-            Map<String, Object> result = new HashMap<>(verificationResult);
-            result.put("isVerified", isVerified);
-            if (!result.containsKey("message")) {
-                result.put("message", message);
-            }
-            result.put("completionId", savedCompletion.getId());
-            result.put("photoPath", photoPath);
+        // 4. Prepare response
+        Map<String, Object> result = new HashMap<>(verificationResult);
+        result.put("isVerified", isVerified);
+        if (!result.containsKey("message")) {
+            result.put("message", message);
+        }
+        result.put("completionId", savedCompletion.getId());
+        result.put("photoPath", photoPath);
 
-            return result;
+        return result;
+    }
 
-        } catch (Exception e) {
-            log.error("Error during photo verification from bytes", e);
-            Map<String, Object> errorResult = new HashMap<>();
-            errorResult.put("isVerified", false);
-            errorResult.put("message", "Error during verification: " + e.getMessage());
-            errorResult.put("error", true);
-            return errorResult;
-        }
+    private static Map<String, Object> verificationError(Exception e) {
+        Map<String, Object> errorResult = new HashMap<>();
+        errorResult.put("isVerified", false);
+        errorResult.put("message", "Error during verification: " + e.getMessage());
+        errorResult.put("error", true);
+        return errorResult;
     }
 
     /**
      * Convert content type to file extension
      */
-    private String contentTypeToExtension(String contentType) {
+    static String contentTypeToExtension(String contentType) {
         if (contentType == null) {
             return ".jpg";
         }
@@ -369,14 +335,6 @@ public class PhotoVerificationService {
         }
     }
 
-    /**
-     * Create an instance of PhotoAnalysisService with AWS credentials
-     */
-    private PhotoAnalysisService createPhotoAnalysisService() {
-        Region awsRegion = Region.of(awsRegionName);
-        return new PhotoAnalysisService(awsAccessKey, awsSecretKey, awsRegion);
-    }
-
     /**
      * Parse verification details from Challenge entity's VerificationDetails
      * Extracts only the photo-specific information
@@ -441,32 +399,10 @@ public class PhotoVerificationService {
         }
     }
 
-    /**
-     * Save the uploaded photo to disk
-     */
-    private String savePhoto(MultipartFile file, Long challengeId, Long userId) throws IOException {
-        // Create directory if it doesn't exist
-        File directory = new File(uploadDir);
-        if (!directory.exists()) {
-            directory.mkdirs();
-        }
-
-        // Generate a unique filename
-        String fileName = "ch" + challengeId + "_user" + userId + "_" +
-                LocalDateTime.now().toString().replace(":", "-").replace(".", "-") +
-                getFileExtension(file.getOriginalFilename());
-
-        // Save the file
-        Path filePath = Paths.get(uploadDir + fileName);
-        Files.write(filePath, file.getBytes());
-
-        return fileName;
-    }
-
     /**
      * Get file extension from filename
      */
-    private String getFileExtension(String filename) {
+    static String getFileExtension(String filename) {
         if (filename == null) return ".jpg";
         int lastDotIndex = filename.lastIndexOf(".");
         if (lastDotIndex == -1) return ".jpg";
@@ -0,0 +1,188 @@
+package com.my.challenger.service.impl.photo;
+
+import com.my.challenger.service.impl.photo.PhotoFeatures.Descriptors;
+import com.my.challenger.service.impl.photo.PhotoFeatures.PersonBox;
+import lombok.extern.slf4j.Slf4j;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.DMatch;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.MatOfDMatch;
+import org.opencv.core.MatOfKeyPoint;
+import org.opencv.core.Rect;
+import org.opencv.features2d.DescriptorMatcher;
+import org.opencv.features2d.ORB;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * ORB features of the shirt area of a photo (top 40% of the person's bounding box).
+ * <p>
+ * OpenCV work runs on the bounded {@code photoAnalysisExecutor}, so at most one decoded image
+ * per worker is held off-heap at a time, and every {@link Mat} a stage allocates is released
+ * when the stage ends. ORB detectors and matchers are created once per worker thread. The
+ * native library is loaded on first use, not at startup.
+ */
+@Slf4j
+@Component
+public class ShirtFeatureExtractor {
+
+    /** Maximum Hamming distance of a good descriptor match */
+    static final int GOOD_MATCH_DISTANCE = 75;
+
+    /** Part of the person's bounding box, from the top, that is taken as the shirt */
+    private static final double SHIRT_HEIGHT_RATIO = 0.4;
+
+    private final Executor executor;
+    private final ThreadLocal<ORB> orb = ThreadLocal.withInitial(ORB::create);
+    private final ThreadLocal<DescriptorMatcher> matcher =
+            ThreadLocal.withInitial(() -> DescriptorMatcher.create(DescriptorMatcher.BRUTEFORCE_HAMMING));
+
+    public ShirtFeatureExtractor(@Qualifier("photoAnalysisExecutor") Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Descriptors of the shirt area of the person in {@code imageBytes}; empty if the image
+     * cannot be decoded or the area has no features.
+     */
+    public Descriptors extract(byte[] imageBytes, PersonBox personBox) {
+        return onWorker(() -> {
+            try (NativeMats mats = new NativeMats()) {
+                Mat image = mats.track(Imgcodecs.imdecode(mats.track(new MatOfByte(imageBytes)), Imgcodecs.IMREAD_COLOR));
+                if (image.empty()) {
+                    return Descriptors.EMPTY;
+                }
+                Rect area = shirtArea(personBox, image.cols(), image.rows());
+                if (area == null) {
+                    return Descriptors.EMPTY;
+                }
+
+                Mat shirt = mats.track(image.submat(area));
+                MatOfKeyPoint keypoints = mats.track(new MatOfKeyPoint());
+                Mat descriptors = mats.track(new Mat());
+                orb.get().detectAndCompute(shirt, mats.track(new Mat()), keypoints, descriptors);
+                return toDescriptors(descriptors);
+            }
+        });
+    }
+
+    /**
+     * Number of matches between the two descriptor sets closer than
+     * {@link #GOOD_MATCH_DISTANCE}.
+     */
+    public int countGoodMatches(Descriptors first, Descriptors second) {
+        return onWorker(() -> {
+            try (NativeMats mats = new NativeMats()) {
+                MatOfDMatch matches = mats.track(new MatOfDMatch());
+                matcher.get().match(mats.track(toMat(first)), mats.track(toMat(second)), matches);
+                int good = 0;
+                for (DMatch match : matches.toArray()) {
+                    if (match.distance < GOOD_MATCH_DISTANCE) {
+                        good++;
+                    }
+                }
+                return good;
+            }
+        });
+    }
+
+    /**
+     * Shirt area in pixels, clamped to the image; {@code null} if nothing of it is inside.
+     */
+    static Rect shirtArea(PersonBox box, int imageWidth, int imageHeight) {
+        int x = clamp((int) (box.left() * imageWidth), imageWidth);
+        int y = clamp((int) (box.top() * imageHeight), imageHeight);
+        int width = Math.min((int) (box.width() * imageWidth), imageWidth - x);
+        int height = Math.min((int) (SHIRT_HEIGHT_RATIO * (int) (box.height() * imageHeight)), imageHeight - y);
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        return new Rect(x, y, width, height);
+    }
+
+    private static int clamp(int value, int limit) {
+        return Math.max(0, Math.min(value, limit));
+    }
+
+    private static Descriptors toDescriptors(Mat descriptors) {
+        if (descriptors.empty()) {
+            return Descriptors.EMPTY;
+        }
+        byte[] data = new byte[(int) (descriptors.total() * descriptors.channels())];
+        descriptors.get(0, 0, data);
+        return new Descriptors(descriptors.rows(), descriptors.cols(), data);
+    }
+
+    private static Mat toMat(Descriptors descriptors) {
+        Mat mat = new Mat(descriptors.rows(), descriptors.cols(), CvType.CV_8U);
+        mat.put(0, 0, descriptors.data());
+        return mat;
+    }
+
+    private <T> T onWorker(Supplier<T> stage) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                NativeLibrary.ensureLoaded();
+                return stage.get();
+            }, executor).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Mats allocated by one stage; released together when the stage ends.
+     */
+    private static final class NativeMats implements AutoCloseable {
+        private final List<Mat> mats = new ArrayList<>();
+
+        <T extends Mat> T track(T mat) {
+            mats.add(mat);
+            return mat;
+        }
+
+        @Override
+        public void close() {
+            mats.forEach(Mat::release);
+        }
+    }
+
+    private static final class NativeLibrary {
+        private static final RuntimeException LOAD_FAILURE = load();
+
+        private static RuntimeException load() {
+            try {
+                System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+                return null;
+            } catch (UnsatisfiedLinkError e) {
+                try {
+                    // Library bundled with the openpnp artifact
+                    nu.pattern.OpenCV.loadLocally();
+                    return null;
+                } catch (RuntimeException | LinkageError bundled) {
+                    log.error("OpenCV native library could not be loaded", bundled);
+                    return new IllegalStateException("OpenCV is not available: " + e.getMessage());
+                }
+            }
+        }
+
+        static void ensureLoaded() {
+            if (LOAD_FAILURE != null) {
+                throw LOAD_FAILURE;
+            }
+        }
+    }
+}
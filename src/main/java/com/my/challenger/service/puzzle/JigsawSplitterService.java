@@ -12,13 +12,15 @@ import com.my.challenger.repository.MediaFileRepository;
 import com.my.challenger.service.BucketResolver;
 import com.my.challenger.service.impl.MinioMediaStorageService;
 import com.my.challenger.util.S3KeyGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
 import javax.imageio.ImageIO;
@@ -28,31 +30,94 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
 
+/**
+ * Cuts a puzzle source image into jigsaw pieces.
+ * <p>
+ * Pieces are rendered and PNG-encoded in parallel on a dedicated fork-join pool and
+ * uploaded through the async S3 client as soon as they are encoded. A semaphore caps
+ * the number of pieces between rendering and upload completion, which bounds heap use
+ * on large grids. With {@code app.puzzle.piece-output=atlas} all pieces are packed into
+ * a single sprite sheet instead, and each piece records its cell in that sheet.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class JigsawSplitterService {
 
-    private final S3Client s3Client;
+    private static final String ATLAS_OUTPUT = "atlas";
+
+    private final S3AsyncClient s3AsyncClient;
     private final MediaFileRepository mediaFileRepository;
     private final MinioMediaStorageService storageService;
     private final S3KeyGenerator s3KeyGenerator;
     private final BucketResolver bucketResolver;
     private final StorageProperties storageProperties;
 
+    @Value("${app.puzzle.piece-output:pieces}")
+    private String pieceOutput;
+
+    @Value("${app.puzzle.split-parallelism:0}")
+    private int splitParallelism;
+
+    @Value("${app.puzzle.max-in-flight-pieces:32}")
+    private int maxInFlightPieces;
+
     private final Random random = new Random();
 
+    private ForkJoinPool renderPool;
+
+    private record PieceGeometry(int cellWidth, int cellHeight, int offsetX, int offsetY,
+                                 int pieceWidth, int pieceHeight) {
+
+        static PieceGeometry of(int cellWidth, int cellHeight) {
+            // Tab size is approx 20% of cell size; the piece image is larger than the cell
+            // to accommodate tabs protruding outward
+            int offset = (int) (Math.min(cellWidth, cellHeight) * 0.2);
+            return new PieceGeometry(cellWidth, cellHeight, offset, offset,
+                    cellWidth + 2 * offset, cellHeight + 2 * offset);
+        }
+    }
+
+    private record EdgeLayout(PuzzleEdgeType[][] horizontal, PuzzleEdgeType[][] vertical) {}
+
+    private record PieceShape(int row, int col, PuzzleEdgeType top, PuzzleEdgeType right,
+                              PuzzleEdgeType bottom, PuzzleEdgeType left, String svgClipPath) {}
+
+    private record RenderedPiece(PieceShape shape, BufferedImage image) {}
+
+    private record EncodedPiece(PieceShape shape, byte[] png) {}
+
+    private record UploadedPiece(PieceShape shape, String s3Key, long fileSize) {}
+
+    @PostConstruct
+    void initRenderPool() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int parallelism = splitParallelism > 0 ? Math.min(splitParallelism, cores) : cores;
+        renderPool = new ForkJoinPool(parallelism);
+        log.info("Jigsaw render pool started with parallelism {} ({} output)", parallelism, pieceOutput);
+    }
+
+    @PreDestroy
+    void shutdownRenderPool() {
+        renderPool.shutdownNow();
+    }
+
+    // Not transactional: rendering and uploads take seconds, so the media rows are written
+    // in a single saveAll at the end instead of holding a connection for the whole split
     @Async
-    @Transactional
     public CompletableFuture<List<PuzzlePiece>> splitImage(PuzzleGame game) {
         log.info("Starting jigsaw split for game {} | Grid: {}x{}", game.getId(), game.getGridRows(), game.getGridCols());
-        
+        long started = System.currentTimeMillis();
+
         try {
             byte[] imageBytes = storageService.downloadFromMinio(game.getSourceImage());
             BufferedImage sourceImage = ImageIO.read(new ByteArrayInputStream(imageBytes));
@@ -63,76 +128,191 @@ public class JigsawSplitterService {
 
             int rows = game.getGridRows();
             int cols = game.getGridCols();
-            int imgWidth = sourceImage.getWidth();
-            int imgHeight = sourceImage.getHeight();
-            
-            int cellWidth = imgWidth / cols;
-            int cellHeight = imgHeight / rows;
-            
-            // Generate edges
-            PuzzleEdgeType[][] horizontalEdges = new PuzzleEdgeType[rows + 1][cols];
-            PuzzleEdgeType[][] verticalEdges = new PuzzleEdgeType[rows][cols + 1];
-            
-            // Fill horizontal edges (top and bottom are FLAT, internal are TAB/BLANK)
-            for (int r = 0; r <= rows; r++) {
-                for (int c = 0; c < cols; c++) {
-                    if (r == 0 || r == rows) {
-                        horizontalEdges[r][c] = PuzzleEdgeType.FLAT;
-                    } else {
-                        horizontalEdges[r][c] = random.nextBoolean() ? PuzzleEdgeType.TAB : PuzzleEdgeType.BLANK;
-                    }
+            PieceGeometry geometry = PieceGeometry.of(sourceImage.getWidth() / cols, sourceImage.getHeight() / rows);
+            EdgeLayout edges = generateEdges(rows, cols);
+            String bucket = bucketResolver.getBucket(MediaType.IMAGE);
+
+            List<PuzzlePiece> pieces = ATLAS_OUTPUT.equalsIgnoreCase(pieceOutput)
+                    ? splitToAtlas(game, sourceImage, geometry, edges, bucket)
+                    : splitToPieces(game, sourceImage, geometry, edges, bucket);
+
+            log.info("Successfully split image into {} pieces for game {} in {} ms",
+                    pieces.size(), game.getId(), System.currentTimeMillis() - started);
+            return CompletableFuture.completedFuture(pieces);
+
+        } catch (Exception e) {
+            log.error("Failed to split image for game {}", game.getId(), e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private EdgeLayout generateEdges(int rows, int cols) {
+        PuzzleEdgeType[][] horizontalEdges = new PuzzleEdgeType[rows + 1][cols];
+        PuzzleEdgeType[][] verticalEdges = new PuzzleEdgeType[rows][cols + 1];
+
+        // Fill horizontal edges (top and bottom are FLAT, internal are TAB/BLANK)
+        for (int r = 0; r <= rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (r == 0 || r == rows) {
+                    horizontalEdges[r][c] = PuzzleEdgeType.FLAT;
+                } else {
+                    horizontalEdges[r][c] = random.nextBoolean() ? PuzzleEdgeType.TAB : PuzzleEdgeType.BLANK;
                 }
             }
-            
-            // Fill vertical edges (left and right are FLAT, internal are TAB/BLANK)
-            for (int r = 0; r < rows; r++) {
-                for (int c = 0; c <= cols; c++) {
-                    if (c == 0 || c == cols) {
-                        verticalEdges[r][c] = PuzzleEdgeType.FLAT;
-                    } else {
-                        verticalEdges[r][c] = random.nextBoolean() ? PuzzleEdgeType.TAB : PuzzleEdgeType.BLANK;
-                    }
+        }
+
+        // Fill vertical edges (left and right are FLAT, internal are TAB/BLANK)
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c <= cols; c++) {
+                if (c == 0 || c == cols) {
+                    verticalEdges[r][c] = PuzzleEdgeType.FLAT;
+                } else {
+                    verticalEdges[r][c] = random.nextBoolean() ? PuzzleEdgeType.TAB : PuzzleEdgeType.BLANK;
                 }
             }
+        }
+        return new EdgeLayout(horizontalEdges, verticalEdges);
+    }
 
-            List<PuzzlePiece> pieces = new ArrayList<>();
-            String bucket = bucketResolver.getBucket(MediaType.IMAGE);
+    /**
+     * One PNG object per piece. Each piece is rendered and encoded on the render pool and
+     * its upload starts as soon as the bytes are ready; the submitting thread blocks once
+     * {@code maxInFlightPieces} pieces are between rendering and upload completion.
+     */
+    private List<PuzzlePiece> splitToPieces(PuzzleGame game, BufferedImage sourceImage, PieceGeometry geometry,
+                                            EdgeLayout edges, String bucket) throws InterruptedException {
+        int rows = game.getGridRows();
+        int cols = game.getGridCols();
+        Long creatorId = game.getCreator().getId();
+        Semaphore inFlight = new Semaphore(Math.max(1, maxInFlightPieces));
+        List<CompletableFuture<UploadedPiece>> uploads = new ArrayList<>(rows * cols);
+
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int row = r;
+                int col = c;
+                String s3Key = s3KeyGenerator.generateKey(
+                        storageProperties.getEnvironment(),
+                        creatorId,
+                        "user",
+                        game.getId(),
+                        (long) (row * cols + col),
+                        MediaType.IMAGE,
+                        "png"
+                );
 
+                inFlight.acquire();
+                CompletableFuture<UploadedPiece> upload = CompletableFuture
+                        .supplyAsync(() -> {
+                            RenderedPiece rendered = renderPiece(sourceImage, row, col, geometry, edges);
+                            return new EncodedPiece(rendered.shape(), encodePng(rendered.image()));
+                        }, renderPool)
+                        .thenCompose(encoded -> putPng(bucket, s3Key, encoded.png())
+                                .thenApply(v -> new UploadedPiece(encoded.shape(), s3Key, encoded.png().length)));
+                upload.whenComplete((result, error) -> inFlight.release());
+                uploads.add(upload);
+            }
+        }
+
+        CompletableFuture.allOf(uploads.toArray(new CompletableFuture[0])).join();
+
+        List<MediaFile> mediaFiles = new ArrayList<>(uploads.size());
+        for (CompletableFuture<UploadedPiece> upload : uploads) {
+            UploadedPiece uploaded = upload.join();
+            PieceShape shape = uploaded.shape();
+            mediaFiles.add(pieceMediaFile(game, bucket, uploaded.s3Key(), uploaded.fileSize(),
+                    "piece_" + shape.row() + "_" + shape.col() + ".png",
+                    geometry.pieceWidth(), geometry.pieceHeight()));
+        }
+        mediaFiles = mediaFileRepository.saveAll(mediaFiles);
+
+        List<PuzzlePiece> pieces = new ArrayList<>(uploads.size());
+        for (int i = 0; i < uploads.size(); i++) {
+            pieces.add(toPuzzlePiece(game, uploads.get(i).join().shape(), mediaFiles.get(i), geometry, null, null));
+        }
+        return pieces;
+    }
+
+    /**
+     * All pieces packed into one sprite sheet with one cell per piece. Cells are assigned
+     * in shuffled order so the atlas itself does not give away the solved picture.
+     */
+    private List<PuzzlePiece> splitToAtlas(PuzzleGame game, BufferedImage sourceImage, PieceGeometry geometry,
+                                           EdgeLayout edges, String bucket) throws IOException {
+        int rows = game.getGridRows();
+        int cols = game.getGridCols();
+        int pieceWidth = geometry.pieceWidth();
+        int pieceHeight = geometry.pieceHeight();
+
+        List<Integer> cells = new ArrayList<>(rows * cols);
+        for (int i = 0; i < rows * cols; i++) {
+            cells.add(i);
+        }
+        Collections.shuffle(cells, random);
+
+        BufferedImage atlas = new BufferedImage(cols * pieceWidth, rows * pieceHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D atlasGraphics = atlas.createGraphics();
+        List<CompletableFuture<PieceShape>> renders = new ArrayList<>(rows * cols);
+        try {
             for (int r = 0; r < rows; r++) {
                 for (int c = 0; c < cols; c++) {
-                    PuzzlePiece piece = createPiece(game, sourceImage, r, c, cellWidth, cellHeight, 
-                                                  horizontalEdges, verticalEdges, bucket);
-                    pieces.add(piece);
+                    int row = r;
+                    int col = c;
+                    int cell = cells.get(row * cols + col);
+                    renders.add(CompletableFuture.supplyAsync(() -> {
+                        RenderedPiece rendered = renderPiece(sourceImage, row, col, geometry, edges);
+                        // Pieces render concurrently, compositing into the shared sheet is serialized
+                        synchronized (atlasGraphics) {
+                            atlasGraphics.drawImage(rendered.image(),
+                                    (cell % cols) * pieceWidth, (cell / cols) * pieceHeight, null);
+                        }
+                        return rendered.shape();
+                    }, renderPool));
                 }
             }
+            CompletableFuture.allOf(renders.toArray(new CompletableFuture[0])).join();
+        } finally {
+            atlasGraphics.dispose();
+        }
 
-            log.info("Successfully split image into {} pieces for game {}", pieces.size(), game.getId());
-            return CompletableFuture.completedFuture(pieces);
+        byte[] atlasBytes = encodePng(atlas);
+        String s3Key = s3KeyGenerator.generateKey(
+                storageProperties.getEnvironment(),
+                game.getCreator().getId(),
+                "user",
+                game.getId(),
+                null,
+                MediaType.IMAGE,
+                "png"
+        );
+        putPng(bucket, s3Key, atlasBytes).join();
 
-        } catch (Exception e) {
-            log.error("Failed to split image for game {}", game.getId(), e);
-            return CompletableFuture.failedFuture(e);
+        MediaFile atlasFile = mediaFileRepository.save(pieceMediaFile(game, bucket, s3Key, atlasBytes.length,
+                "atlas_" + rows + "x" + cols + ".png", atlas.getWidth(), atlas.getHeight()));
+
+        List<PuzzlePiece> pieces = new ArrayList<>(renders.size());
+        for (CompletableFuture<PieceShape> render : renders) {
+            PieceShape shape = render.join();
+            int cell = cells.get(shape.row() * cols + shape.col());
+            pieces.add(toPuzzlePiece(game, shape, atlasFile, geometry,
+                    (cell % cols) * pieceWidth, (cell / cols) * pieceHeight));
         }
+        return pieces;
     }
 
-    private PuzzlePiece createPiece(PuzzleGame game, BufferedImage sourceImage, int row, int col, 
-                                   int cellWidth, int cellHeight, 
-                                   PuzzleEdgeType[][] hEdges, PuzzleEdgeType[][] vEdges,
-                                   String bucket) throws IOException {
-        
-        PuzzleEdgeType top = hEdges[row][col];
-        PuzzleEdgeType bottom = hEdges[row + 1][col];
-        PuzzleEdgeType left = vEdges[row][col];
-        PuzzleEdgeType right = vEdges[row][col + 1];
-        
-        // Tab size is approx 20% of cell size
-        double tabSize = Math.min(cellWidth, cellHeight) * 0.2;
-        
-        // The piece image needs to be larger than the cell to accommodate tabs protruding outward
-        int offsetX = (int) tabSize;
-        int offsetY = (int) tabSize;
-        int pieceWidth = cellWidth + 2 * offsetX;
-        int pieceHeight = cellHeight + 2 * offsetY;
+    private RenderedPiece renderPiece(BufferedImage sourceImage, int row, int col,
+                                      PieceGeometry geometry, EdgeLayout edges) {
+        PuzzleEdgeType top = edges.horizontal()[row][col];
+        PuzzleEdgeType bottom = edges.horizontal()[row + 1][col];
+        PuzzleEdgeType left = edges.vertical()[row][col];
+        PuzzleEdgeType right = edges.vertical()[row][col + 1];
+
+        int cellWidth = geometry.cellWidth();
+        int cellHeight = geometry.cellHeight();
+        int offsetX = geometry.offsetX();
+        int offsetY = geometry.offsetY();
+        int pieceWidth = geometry.pieceWidth();
+        int pieceHeight = geometry.pieceHeight();
         
         BufferedImage pieceImage = new BufferedImage(pieceWidth, pieceHeight, BufferedImage.TYPE_INT_ARGB);
         Graphics2D g2 = pieceImage.createGraphics();
@@ -169,63 +349,70 @@ public class JigsawSplitterService {
                      srcX, srcY, srcX + pieceWidth, srcY + pieceHeight, null);
         
         g2.dispose();
-        
-        // Upload piece to MinIO
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(pieceImage, "png", baos);
-        byte[] pieceBytes = baos.toByteArray();
-        
-        String s3Key = s3KeyGenerator.generateKey(
-            storageProperties.getEnvironment(),
-            game.getCreator().getId(),
-            "user",
-            game.getId(),
-            (long) (row * game.getGridCols() + col),
-            MediaType.IMAGE,
-            "png"
-        );
-        
+
+        PieceShape shape = new PieceShape(row, col, top, right, bottom, left, toSvgPath(path, offsetX, offsetY));
+        return new RenderedPiece(shape, pieceImage);
+    }
+
+    private byte[] encodePng(BufferedImage image) {
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", baos);
+            return baos.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode puzzle piece", e);
+        }
+    }
+
+    private CompletableFuture<Void> putPng(String bucket, String s3Key, byte[] bytes) {
         PutObjectRequest putRequest = PutObjectRequest.builder()
                 .bucket(bucket)
                 .key(s3Key)
                 .contentType("image/png")
+                .contentLength((long) bytes.length)
                 .build();
-        s3Client.putObject(putRequest, RequestBody.fromBytes(pieceBytes));
-        
-        // Create MediaFile
+        return s3AsyncClient.putObject(putRequest, AsyncRequestBody.fromBytes(bytes)).thenApply(response -> null);
+    }
+
+    private MediaFile pieceMediaFile(PuzzleGame game, String bucket, String s3Key, long fileSize,
+                                     String originalFilename, int width, int height) {
         MediaFile mediaFile = MediaFile.builder()
-                .originalFilename("piece_" + row + "_" + col + ".png")
+                .originalFilename(originalFilename)
                 .filename(s3Key.substring(s3Key.lastIndexOf('/') + 1))
                 .bucketName(bucket)
                 .s3Key(s3Key)
                 .filePath(s3Key)
-                .fileSize((long) pieceBytes.length)
+                .fileSize(fileSize)
                 .contentType("image/png")
                 .mediaType(MediaType.IMAGE)
                 .mediaCategory(MediaCategory.PUZZLE_PIECE)
                 .processingStatus(ProcessingStatus.COMPLETED)
-                .width(pieceWidth)
-                .height(pieceHeight)
+                .width(width)
+                .height(height)
                 .uploadedBy(game.getCreator().getId())
                 .entityId(game.getId())
                 .build();
         mediaFile.generateStorageKey();
-        mediaFile = mediaFileRepository.save(mediaFile);
-        
-        // Create PuzzlePiece entity
+        return mediaFile;
+    }
+
+    private PuzzlePiece toPuzzlePiece(PuzzleGame game, PieceShape shape, MediaFile image, PieceGeometry geometry,
+                                      Integer atlasX, Integer atlasY) {
         return PuzzlePiece.builder()
                 .puzzleGame(game)
-                .pieceIndex(row * game.getGridCols() + col)
-                .gridRow(row)
-                .gridCol(col)
-                .pieceImage(mediaFile)
-                .edgeTop(top)
-                .edgeRight(right)
-                .edgeBottom(bottom)
-                .edgeLeft(left)
-                .svgClipPath(toSvgPath(path, offsetX, offsetY))
-                .widthPx(pieceWidth)
-                .heightPx(pieceHeight)
+                .pieceIndex(shape.row() * game.getGridCols() + shape.col())
+                .gridRow(shape.row())
+                .gridCol(shape.col())
+                .pieceImage(image)
+                .edgeTop(shape.top())
+                .edgeRight(shape.right())
+                .edgeBottom(shape.bottom())
+                .edgeLeft(shape.left())
+                .svgClipPath(shape.svgClipPath())
+                .widthPx(geometry.pieceWidth())
+                .heightPx(geometry.pieceHeight())
+                .atlasX(atlasX)
+                .atlasY(atlasY)
                 .build();
     }
 
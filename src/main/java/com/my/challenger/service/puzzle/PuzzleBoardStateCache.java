@@ -0,0 +1,390 @@
+package com.my.challenger.service.puzzle;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.my.challenger.dto.puzzle.PiecePlacement;
+import com.my.challenger.entity.enums.PuzzleSessionStatus;
+import com.my.challenger.entity.puzzle.PuzzleGame;
+import com.my.challenger.entity.puzzle.PuzzleParticipant;
+import com.my.challenger.entity.puzzle.PuzzlePiece;
+import com.my.challenger.repository.puzzle.PuzzleParticipantRepository;
+import com.my.challenger.repository.puzzle.PuzzlePieceRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Live puzzle boards kept as primitive arrays indexed by piece.
+ * <p>
+ * Piece moves only touch memory: the participant's board is loaded once, the target
+ * grid position of every piece is cached per game, and the correct-piece count is
+ * maintained incrementally. Dirty boards are checkpointed to
+ * {@code puzzle_participants} periodically and when a game ends.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PuzzleBoardStateCache {
+
+    private static final int UNPLACED = -1;
+    private static final Duration IDLE_BOARD_TTL = Duration.ofHours(1);
+    private static final Duration CLOSED_GAME_TTL = Duration.ofMinutes(10);
+
+    private final PuzzlePieceRepository pieceRepository;
+    private final PuzzleParticipantRepository participantRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, PieceTargets> targetsByGame = new ConcurrentHashMap<>();
+    private final Map<BoardKey, ParticipantBoard> boards = new ConcurrentHashMap<>();
+    // Short-lived guard against moves racing with completion; once it expires, loadBoard
+    // recognises finished games from the persisted game again
+    private final Cache<Long, Boolean> closedGames = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(CLOSED_GAME_TTL)
+            .build();
+
+    record BoardKey(Long gameId, Long userId) {}
+
+    public record BoardView(List<PiecePlacement> placements, int piecesPlacedCorrectly, int totalMoves) {}
+
+    record Checkpoint(Long participantId, String boardState, int piecesPlacedCorrectly, int totalMoves) {}
+
+    /**
+     * Applies a single piece move to the participant's live board.
+     */
+    public void applyMove(Long gameId, Long userId, int pieceIndex, int row, int col) {
+        if (isClosed(gameId)) {
+            throw new IllegalStateException("Game already completed");
+        }
+
+        PieceTargets targets = targets(gameId);
+        if (pieceIndex < 0 || pieceIndex >= targets.size()) {
+            throw new IllegalArgumentException("Unknown piece index: " + pieceIndex);
+        }
+
+        BoardKey key = new BoardKey(gameId, userId);
+        while (true) {
+            ParticipantBoard board = liveBoard(key, targets);
+            if (isClosed(gameId)) {
+                throw new IllegalStateException("Game already completed");
+            }
+            // A board retired by the idle sweep after we looked it up takes no moves; the
+            // next lookup reloads it from its last checkpoint
+            if (board.move(pieceIndex, row, col, targets)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the live board of a participant if it is held in memory. Readers should
+     * prefer it over the persisted columns, which lag by up to one checkpoint interval.
+     */
+    public Optional<BoardView> view(Long gameId, Long userId) {
+        ParticipantBoard board = boards.get(new BoardKey(gameId, userId));
+        return board != null ? Optional.of(board.view()) : Optional.empty();
+    }
+
+    /**
+     * Correct-piece count of a live board, without copying its placements.
+     */
+    public Optional<Integer> correctCount(Long gameId, Long userId) {
+        ParticipantBoard board = boards.get(new BoardKey(gameId, userId));
+        return board != null ? Optional.of(board.correctCount()) : Optional.empty();
+    }
+
+    /**
+     * Copies the live board into an entity that is about to be saved, so the save does
+     * not overwrite newer moves with the stale persisted values.
+     */
+    public void applyLiveState(Long gameId, PuzzleParticipant participant) {
+        view(gameId, participant.getUser().getId()).ifPresent(view -> {
+            participant.setCurrentBoardState(toJson(view.placements()));
+            participant.setPiecesPlacedCorrectly(view.piecesPlacedCorrectly());
+            participant.setTotalMoves(view.totalMoves());
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.puzzle.board-checkpoint-interval-ms:2000}")
+    public void checkpointDirtyBoards() {
+        checkpoint(boards.values().stream().toList());
+
+        long cutoff = System.currentTimeMillis() - IDLE_BOARD_TTL.toMillis();
+        for (BoardKey key : boards.keySet()) {
+            boards.computeIfPresent(key, (k, board) -> board.retireIfIdleSince(cutoff) ? null : board);
+        }
+    }
+
+    // Runs before the completion broadcast so the final leaderboard reads checkpointed boards
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void handleGameCompleted(PuzzleGameLifecycleListener.PuzzleGameCompletedEvent event) {
+        closeGame(event.getPuzzleGameId());
+    }
+
+    @EventListener
+    public void handleGameAbandoned(PuzzleGameLifecycleListener.PuzzleGameAbandonedEvent event) {
+        closeGame(event.getPuzzleGameId());
+    }
+
+    @PreDestroy
+    public void checkpointOnShutdown() {
+        log.info("Checkpointing {} live puzzle boards before shutdown", boards.size());
+        checkpoint(boards.values().stream().toList());
+    }
+
+    private boolean isClosed(Long gameId) {
+        return closedGames.getIfPresent(gameId) != null;
+    }
+
+    private void closeGame(Long gameId) {
+        closedGames.put(gameId, Boolean.TRUE);
+        List<ParticipantBoard> gameBoards = boards.entrySet().stream()
+                .filter(e -> e.getKey().gameId().equals(gameId))
+                .map(Map.Entry::getValue)
+                .toList();
+        checkpoint(gameBoards);
+
+        boards.keySet().removeIf(key -> key.gameId().equals(gameId));
+        targetsByGame.remove(gameId);
+        log.debug("Closed puzzle game {} and released {} boards", gameId, gameBoards.size());
+    }
+
+    private void checkpoint(List<ParticipantBoard> candidates) {
+        List<ParticipantBoard> taken = new ArrayList<>();
+        List<Checkpoint> checkpoints = new ArrayList<>();
+        for (ParticipantBoard board : candidates) {
+            Checkpoint checkpoint = board.takeCheckpoint(this::toJson);
+            if (checkpoint != null) {
+                taken.add(board);
+                checkpoints.add(checkpoint);
+            }
+        }
+        if (checkpoints.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(tx -> checkpoints.forEach(c ->
+                    participantRepository.updateBoardProgress(
+                            c.participantId(), c.boardState(), c.piecesPlacedCorrectly(), c.totalMoves())));
+            log.debug("Checkpointed {} puzzle boards", checkpoints.size());
+        } catch (RuntimeException e) {
+            log.error("Failed to checkpoint {} puzzle boards, will retry: {}", checkpoints.size(), e.getMessage());
+            taken.forEach(ParticipantBoard::markDirty);
+        }
+    }
+
+    private PieceTargets targets(Long gameId) {
+        PieceTargets cached = targetsByGame.get(gameId);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<PuzzlePiece> pieces = pieceRepository.findByPuzzleGameIdOrderByPieceIndex(gameId);
+        if (pieces.isEmpty()) {
+            throw new IllegalStateException("Puzzle pieces are not ready for game " + gameId);
+        }
+        PieceTargets targets = PieceTargets.of(pieces);
+        PieceTargets existing = targetsByGame.putIfAbsent(gameId, targets);
+        return existing != null ? existing : targets;
+    }
+
+    private ParticipantBoard liveBoard(BoardKey key, PieceTargets targets) {
+        ParticipantBoard board = boards.get(key);
+        if (board != null) {
+            return board;
+        }
+        // Loaded outside the map so the repository round trip never holds a map bin lock;
+        // a concurrent load of the same board loses to whichever was installed first
+        ParticipantBoard loaded = loadBoard(key, targets);
+        ParticipantBoard existing = boards.putIfAbsent(key, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private ParticipantBoard loadBoard(BoardKey key, PieceTargets targets) {
+        return transactionTemplate.execute(tx -> {
+            PuzzleParticipant participant = participantRepository.findByPuzzleGameIdAndUserId(key.gameId(), key.userId())
+                    .orElseThrow(() -> new IllegalArgumentException("Participant not found"));
+            PuzzleGame game = participant.getPuzzleGame();
+            if (game.getCompletedAt() != null || game.getStatus() == PuzzleSessionStatus.ABANDONED) {
+                closedGames.put(key.gameId(), Boolean.TRUE);
+            }
+
+            ParticipantBoard board = new ParticipantBoard(participant.getId(), targets.size(), participant.getTotalMoves());
+            if (participant.getCurrentBoardState() != null) {
+                try {
+                    List<PiecePlacement> placements = objectMapper.readValue(
+                            participant.getCurrentBoardState(), new TypeReference<List<PiecePlacement>>() {});
+                    board.restore(placements, targets);
+                } catch (JsonProcessingException e) {
+                    log.error("Failed to parse board state for participant {}, starting empty", participant.getId(), e);
+                }
+            }
+            return board;
+        });
+    }
+
+    private String toJson(List<PiecePlacement> placements) {
+        try {
+            return objectMapper.writeValueAsString(placements);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize board state", e);
+        }
+    }
+
+    /**
+     * Target grid position of each piece, indexed by piece index.
+     */
+    static final class PieceTargets {
+        private final int[] rows;
+        private final int[] cols;
+
+        private PieceTargets(int[] rows, int[] cols) {
+            this.rows = rows;
+            this.cols = cols;
+        }
+
+        static PieceTargets of(List<PuzzlePiece> pieces) {
+            int size = pieces.stream().mapToInt(PuzzlePiece::getPieceIndex).max().orElse(-1) + 1;
+            int[] rows = new int[size];
+            int[] cols = new int[size];
+            Arrays.fill(rows, UNPLACED);
+            Arrays.fill(cols, UNPLACED);
+            for (PuzzlePiece piece : pieces) {
+                rows[piece.getPieceIndex()] = piece.getGridRow();
+                cols[piece.getPieceIndex()] = piece.getGridCol();
+            }
+            return new PieceTargets(rows, cols);
+        }
+
+        int size() {
+            return rows.length;
+        }
+
+        boolean isCorrect(int pieceIndex, int row, int col) {
+            return row != UNPLACED && rows[pieceIndex] == row && cols[pieceIndex] == col;
+        }
+    }
+
+    /**
+     * One participant's board. All access is synchronized on the board itself, so moves
+     * from different participants never contend.
+     */
+    static final class ParticipantBoard {
+        private final Long participantId;
+        private final int[] rows;
+        private final int[] cols;
+        private int correctCount;
+        private int totalMoves;
+        private boolean dirty;
+        private boolean retired;
+        private long lastMoveAt = System.currentTimeMillis();
+
+        ParticipantBoard(Long participantId, int size, int totalMoves) {
+            this.participantId = participantId;
+            this.rows = new int[size];
+            this.cols = new int[size];
+            this.totalMoves = totalMoves;
+            Arrays.fill(rows, UNPLACED);
+            Arrays.fill(cols, UNPLACED);
+        }
+
+        synchronized void restore(List<PiecePlacement> placements, PieceTargets targets) {
+            for (PiecePlacement placement : placements) {
+                int index = placement.getPieceIndex();
+                if (index >= 0 && index < rows.length) {
+                    rows[index] = placement.getCurrentRow();
+                    cols[index] = placement.getCurrentCol();
+                }
+            }
+            correctCount = 0;
+            for (int i = 0; i < rows.length; i++) {
+                if (targets.isCorrect(i, rows[i], cols[i])) {
+                    correctCount++;
+                }
+            }
+        }
+
+        /**
+         * Applies a move; returns false if the board was already retired from the cache.
+         */
+        synchronized boolean move(int pieceIndex, int row, int col, PieceTargets targets) {
+            if (retired) {
+                return false;
+            }
+            boolean wasCorrect = targets.isCorrect(pieceIndex, rows[pieceIndex], cols[pieceIndex]);
+            rows[pieceIndex] = row;
+            cols[pieceIndex] = col;
+            boolean isCorrect = targets.isCorrect(pieceIndex, row, col);
+            if (wasCorrect != isCorrect) {
+                correctCount += isCorrect ? 1 : -1;
+            }
+            totalMoves++;
+            dirty = true;
+            lastMoveAt = System.currentTimeMillis();
+            return true;
+        }
+
+        synchronized BoardView view() {
+            return new BoardView(placements(), correctCount, totalMoves);
+        }
+
+        synchronized int correctCount() {
+            return correctCount;
+        }
+
+        synchronized Checkpoint takeCheckpoint(Function<List<PiecePlacement>, String> serializer) {
+            if (!dirty) {
+                return null;
+            }
+            dirty = false;
+            return new Checkpoint(participantId, serializer.apply(placements()), correctCount, totalMoves);
+        }
+
+        synchronized void markDirty() {
+            dirty = true;
+        }
+
+        /**
+         * Retires a clean board that has not moved since {@code cutoffMillis}, so a move that
+         * raced with its eviction is retried on a fresh board instead of being lost.
+         */
+        synchronized boolean retireIfIdleSince(long cutoffMillis) {
+            if (dirty || lastMoveAt >= cutoffMillis) {
+                return false;
+            }
+            retired = true;
+            return true;
+        }
+
+        private List<PiecePlacement> placements() {
+            List<PiecePlacement> placements = new ArrayList<>();
+            for (int i = 0; i < rows.length; i++) {
+                if (rows[i] != UNPLACED) {
+                    placements.add(new PiecePlacement(i, rows[i], cols[i]));
+                }
+            }
+            return placements;
+        }
+    }
+}
@@ -45,6 +45,7 @@ public class PuzzleGameService {
     private final MinioMediaStorageService storageService;
     private final ObjectMapper objectMapper;
     private final ApplicationEventPublisher eventPublisher;
+    private final PuzzleBoardStateCache boardStateCache;
 
     @Transactional
     public PuzzleGameDTO createPuzzleGame(CreatePuzzleGameRequest request, Long creatorId) {
@@ -266,58 +267,12 @@ public class PuzzleGameService {
         }
     }
 
-    @Transactional
+    /**
+     * Hot path for piece drags: the move is applied to the in-memory board and
+     * checkpointed to the database by {@link PuzzleBoardStateCache}.
+     */
     public void updateBoardState(Long gameId, Long userId, BoardStateUpdate update) {
-        PuzzleParticipant participant = participantRepository.findByPuzzleGameIdAndUserId(gameId, userId)
-                .orElseThrow(() -> new IllegalArgumentException("Participant not found"));
-
-        PuzzleGame game = participant.getPuzzleGame();
-        if (game.getCompletedAt() != null) {
-            throw new IllegalStateException("Game already completed");
-        }
-
-        List<PiecePlacement> boardState;
-        try {
-            if (participant.getCurrentBoardState() == null) {
-                boardState = new ArrayList<>();
-            } else {
-                boardState = objectMapper.readValue(participant.getCurrentBoardState(), new TypeReference<List<PiecePlacement>>() {});
-            }
-
-            // Update or add piece placement
-            Optional<PiecePlacement> existing = boardState.stream()
-                    .filter(p -> p.getPieceIndex() == update.getPieceIndex())
-                    .findFirst();
-            
-            if (existing.isPresent()) {
-                existing.get().setCurrentRow(update.getNewRow());
-                existing.get().setCurrentCol(update.getNewCol());
-            } else {
-                boardState.add(new PiecePlacement(update.getPieceIndex(), update.getNewRow(), update.getNewCol()));
-            }
-
-            participant.setCurrentBoardState(objectMapper.writeValueAsString(boardState));
-            participant.setTotalMoves(participant.getTotalMoves() + 1);
-            
-            // Calculate correctly placed pieces
-            List<PuzzlePiece> pieces = puzzlePieceRepository.findByPuzzleGameIdOrderByPieceIndex(gameId);
-            Map<Integer, PuzzlePiece> pieceMap = pieces.stream()
-                    .collect(Collectors.toMap(PuzzlePiece::getPieceIndex, p -> p));
-            
-            int correctCount = 0;
-            for (PiecePlacement p : boardState) {
-                PuzzlePiece target = pieceMap.get(p.getPieceIndex());
-                if (target != null && target.getGridRow() == p.getCurrentRow() && target.getGridCol() == p.getCurrentCol()) {
-                    correctCount++;
-                }
-            }
-            participant.setPiecesPlacedCorrectly(correctCount);
-            
-            participantRepository.save(participant);
-
-        } catch (JsonProcessingException e) {
-            log.error("Failed to process board state JSON", e);
-        }
+        boardStateCache.applyMove(gameId, userId, update.getPieceIndex(), update.getNewRow(), update.getNewCol());
     }
 
     @Transactional
@@ -330,6 +285,7 @@ public class PuzzleGameService {
             throw new IllegalStateException("Answer already submitted");
         }
 
+        boardStateCache.applyLiveState(gameId, participant);
         participant.setTextAnswer(answer);
         participant.setAnswerSubmittedAt(LocalDateTime.now());
 
@@ -452,8 +408,11 @@ public class PuzzleGameService {
         
         List<SpectatorPlayerState> players = game.getParticipants().stream()
                 .map(p -> {
+                    Optional<PuzzleBoardStateCache.BoardView> live = boardStateCache.view(gameId, p.getUser().getId());
                     List<PiecePlacement> boardState = Collections.emptyList();
-                    if (p.getCurrentBoardState() != null) {
+                    if (live.isPresent()) {
+                        boardState = live.get().placements();
+                    } else if (p.getCurrentBoardState() != null) {
                         try {
                             boardState = objectMapper.readValue(p.getCurrentBoardState(), new TypeReference<List<PiecePlacement>>() {});
                         } catch (JsonProcessingException e) {
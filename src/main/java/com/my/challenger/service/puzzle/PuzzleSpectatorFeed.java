@@ -0,0 +1,213 @@
+package com.my.challenger.service.puzzle;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.my.challenger.websocket.dto.PuzzleSpectatorMessages.PiecePlacement;
+import com.my.challenger.websocket.dto.PuzzleSpectatorMessages.PlayerBoardDelta;
+import com.my.challenger.websocket.dto.PuzzleSpectatorMessages.SpectatorDelta;
+import com.my.challenger.websocket.service.RoomBroadcaster;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Change feed of active puzzle rooms for spectators.
+ * <p>
+ * Piece moves only mark their room dirty and remember the latest placement per player and
+ * piece. A short tick on the dedicated {@code puzzleSpectatorScheduler} sends every dirty room
+ * one {@link SpectatorDelta} with the placements changed since its previous delta, at most
+ * once per {@code min-interval-ms}; idle rooms send nothing.
+ * <p>
+ * Players of one room may be connected to different nodes, and each node feeds the moves it
+ * receives. Every room feed is therefore its own delta stream with a random source id and
+ * consecutive sequence numbers, so spectators track a sequence per source and see a gap only
+ * when they really missed a delta. Snapshots carry the source and sequence of the node that
+ * built them, so a joining spectator skips that stream's older deltas. Placements are absolute
+ * positions, so applying one twice is harmless. Rooms this node never started are fed from
+ * their first move here; feeds without moves for {@code idle-seconds} are dropped, and moves
+ * in rooms that ended on this node are ignored.
+ */
+@Slf4j
+@Component
+public class PuzzleSpectatorFeed {
+
+    private static final Duration CLOSED_ROOM_TTL = Duration.ofMinutes(10);
+
+    private final RoomBroadcaster roomBroadcaster;
+    private final PuzzleBoardStateCache boardStateCache;
+    private final TaskScheduler scheduler;
+    private final long flushIntervalMillis;
+    private final long minIntervalMillis;
+    private final long idleMillis;
+    private final Map<String, RoomFeed> rooms = new ConcurrentHashMap<>();
+    // Rooms whose game ended here, so late moves do not start a new feed
+    private final Cache<String, Boolean> closedRooms = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(CLOSED_ROOM_TTL)
+            .build();
+    private ScheduledFuture<?> tick;
+
+    public PuzzleSpectatorFeed(
+            RoomBroadcaster roomBroadcaster,
+            PuzzleBoardStateCache boardStateCache,
+            @Qualifier("puzzleSpectatorScheduler") TaskScheduler scheduler,
+            @Value("${app.puzzle-spectator.flush-interval-ms:100}") long flushIntervalMillis,
+            @Value("${app.puzzle-spectator.min-interval-ms:500}") long minIntervalMillis,
+            @Value("${app.puzzle-spectator.idle-seconds:600}") long idleSeconds) {
+        this.roomBroadcaster = roomBroadcaster;
+        this.boardStateCache = boardStateCache;
+        this.scheduler = scheduler;
+        this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+        this.minIntervalMillis = Math.max(0, minIntervalMillis);
+        this.idleMillis = Math.max(1, idleSeconds) * 1000;
+    }
+
+    record PieceKey(Long userId, int pieceIndex) {}
+
+    /**
+     * Where a room's delta stream on this node stands; {@code source} is null if this node
+     * does not feed the room.
+     */
+    public record Position(String source, long sequence) {}
+
+    private static final class RoomFeed {
+        final String source = UUID.randomUUID().toString();
+        final Long gameId;
+        long sequence;
+        long lastSentAt;
+        long lastMoveAt = System.currentTimeMillis();
+        Map<PieceKey, PiecePlacement> pending = new LinkedHashMap<>();
+
+        RoomFeed(Long gameId) {
+            this.gameId = gameId;
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        tick = scheduler.scheduleWithFixedDelay(this::flush, Duration.ofMillis(flushIntervalMillis));
+    }
+
+    @PreDestroy
+    void stop() {
+        if (tick != null) {
+            tick.cancel(false);
+        }
+    }
+
+    public void register(String roomCode, Long gameId) {
+        closedRooms.invalidate(roomCode);
+        rooms.putIfAbsent(roomCode, new RoomFeed(gameId));
+    }
+
+    public void unregister(String roomCode) {
+        closedRooms.put(roomCode, Boolean.TRUE);
+        rooms.remove(roomCode);
+    }
+
+    /**
+     * Remembers a piece move for the room's next delta, starting the room's feed on this node
+     * if needed. Moves in rooms that ended on this node are ignored.
+     */
+    public void recordMove(String roomCode, Long gameId, Long userId, int pieceIndex, int row, int col) {
+        if (closedRooms.getIfPresent(roomCode) != null) {
+            return;
+        }
+        while (true) {
+            RoomFeed feed = rooms.computeIfAbsent(roomCode, code -> new RoomFeed(gameId));
+            synchronized (feed) {
+                // Dropped as idle since it was looked up
+                if (rooms.get(roomCode) != feed) {
+                    continue;
+                }
+                feed.pending.put(new PieceKey(userId, pieceIndex), new PiecePlacement(pieceIndex, row, col));
+                feed.lastMoveAt = System.currentTimeMillis();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Source and sequence number of the last delta sent to the room; sequence 0 before the
+     * first one.
+     */
+    public Position position(String roomCode) {
+        RoomFeed feed = rooms.get(roomCode);
+        if (feed == null) {
+            return new Position(null, 0);
+        }
+        synchronized (feed) {
+            return new Position(feed.source, feed.sequence);
+        }
+    }
+
+    public void flush() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, RoomFeed> entry : rooms.entrySet()) {
+            RoomFeed feed = entry.getValue();
+            Map<PieceKey, PiecePlacement> changes;
+            long sequence;
+            synchronized (feed) {
+                if (feed.pending.isEmpty()) {
+                    if (now - feed.lastMoveAt >= idleMillis) {
+                        rooms.remove(entry.getKey(), feed);
+                    }
+                    continue;
+                }
+                if (now - feed.lastSentAt < minIntervalMillis) {
+                    continue;
+                }
+                changes = feed.pending;
+                feed.pending = new LinkedHashMap<>();
+                sequence = ++feed.sequence;
+                feed.lastSentAt = now;
+            }
+
+            try {
+                roomBroadcaster.broadcast("/topic/room/" + entry.getKey() + "/puzzle-delta",
+                        buildDelta(entry.getKey(), feed.gameId, feed.source, sequence, changes));
+            } catch (Exception e) {
+                log.error("Failed to broadcast spectator delta {} for room {}: {}",
+                        sequence, entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    public int size() {
+        return rooms.size();
+    }
+
+    private SpectatorDelta buildDelta(String roomCode, Long gameId, String source, long sequence,
+                                      Map<PieceKey, PiecePlacement> changes) {
+        Map<Long, List<PiecePlacement>> byPlayer = new LinkedHashMap<>();
+        changes.forEach((key, placement) ->
+                byPlayer.computeIfAbsent(key.userId(), k -> new ArrayList<>()).add(placement));
+
+        List<PlayerBoardDelta> players = new ArrayList<>(byPlayer.size());
+        byPlayer.forEach((userId, placements) -> players.add(PlayerBoardDelta.builder()
+                .userId(userId)
+                .placements(placements)
+                .piecesPlacedCorrectly(boardStateCache.correctCount(gameId, userId).orElse(null))
+                .build()));
+
+        return SpectatorDelta.builder()
+                .roomCode(roomCode)
+                .source(source)
+                .sequence(sequence)
+                .players(players)
+                .build();
+    }
+}
@@ -11,16 +11,14 @@ import com.my.challenger.repository.puzzle.PuzzleParticipantRepository;
 import com.my.challenger.repository.puzzle.PuzzlePieceRepository;
 import com.my.challenger.service.impl.MinioMediaStorageService;
 import com.my.challenger.websocket.dto.PuzzleSpectatorMessages.*;
+import com.my.challenger.websocket.service.RoomBroadcaster;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,47 +30,39 @@ public class PuzzleSpectatorService {
     private final PuzzlePieceRepository pieceRepository;
     private final PuzzleParticipantRepository participantRepository;
     private final MinioMediaStorageService storageService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final RoomBroadcaster roomBroadcaster;
     private final ObjectMapper objectMapper;
+    private final PuzzleBoardStateCache boardStateCache;
 
-    // Track active rooms for periodic broadcasts: roomCode -> gameId
-    private final Map<String, Long> activePuzzleRooms = new ConcurrentHashMap<>();
+    private final PuzzleSpectatorFeed spectatorFeed;
 
     public void registerActiveRoom(String roomCode, Long gameId) {
-        activePuzzleRooms.put(roomCode, gameId);
+        spectatorFeed.register(roomCode, gameId);
         log.info("Registered active puzzle room: {} for game {}", roomCode, gameId);
     }
 
     public void unregisterRoom(String roomCode) {
-        activePuzzleRooms.remove(roomCode);
+        spectatorFeed.unregister(roomCode);
         log.info("Unregistered puzzle room: {}", roomCode);
     }
 
-    @Scheduled(fixedDelay = 3000)
-    public void broadcastActiveRoomSnapshots() {
-        if (activePuzzleRooms.isEmpty()) return;
-
-        for (Map.Entry<String, Long> entry : activePuzzleRooms.entrySet()) {
-            String roomCode = entry.getKey();
-            Long gameId = entry.getValue();
-            
-            try {
-                broadcastSpectatorSnapshot(roomCode, gameId);
-            } catch (Exception e) {
-                log.error("Failed to broadcast snapshot for room {}: {}", roomCode, e.getMessage());
-                // Optional: remove if game is completed
-            }
-        }
+    /**
+     * Queues a piece move for the room's next spectator delta.
+     */
+    public void recordMove(String roomCode, Long gameId, Long userId, int pieceIndex, int row, int col) {
+        spectatorFeed.recordMove(roomCode, gameId, userId, pieceIndex, row, col);
     }
 
     @Transactional(readOnly = true)
     public void broadcastSpectatorSnapshot(String roomCode, Long gameId) {
         SpectatorSnapshot snapshot = buildSpectatorSnapshot(gameId, roomCode);
-        messagingTemplate.convertAndSend("/topic/room/" + roomCode + "/puzzle-snapshot", snapshot);
+        roomBroadcaster.broadcast("/topic/room/" + roomCode + "/puzzle-snapshot", snapshot);
     }
 
     @Transactional(readOnly = true)
     public SpectatorSnapshot buildSpectatorSnapshot(Long gameId, String roomCode) {
+        // Read before the boards, so any move missing from the snapshot is in a later delta
+        PuzzleSpectatorFeed.Position position = spectatorFeed.position(roomCode);
         PuzzleGame game = gameRepository.findById(gameId)
                 .orElseThrow(() -> new IllegalArgumentException("Game not found"));
 
@@ -80,6 +70,8 @@ public class PuzzleSpectatorService {
                 .state(buildStateMessage(game, roomCode))
                 .players(buildPlayerSnapshots(game))
                 .pieces(null) // Pieces are usually sent once on connect or via request
+                .source(position.source())
+                .sequence(position.sequence())
                 .build();
     }
 
@@ -87,7 +79,9 @@ public class PuzzleSpectatorService {
         int teamCorrect = 0;
         if (game.getGameMode() == com.my.challenger.entity.enums.PuzzleGameMode.SHARED) {
             teamCorrect = game.getParticipants().stream()
-                    .mapToInt(PuzzleParticipant::getPiecesPlacedCorrectly)
+                    .mapToInt(p -> boardStateCache.view(game.getId(), p.getUser().getId())
+                            .map(PuzzleBoardStateCache.BoardView::piecesPlacedCorrectly)
+                            .orElse(p.getPiecesPlacedCorrectly()))
                     .sum();
         }
 
@@ -107,8 +101,14 @@ public class PuzzleSpectatorService {
     public List<PlayerBoardSnapshot> buildPlayerSnapshots(PuzzleGame game) {
         return game.getParticipants().stream()
                 .map(p -> {
+                    Optional<PuzzleBoardStateCache.BoardView> live = boardStateCache.view(game.getId(), p.getUser().getId());
                     List<PiecePlacement> board = new ArrayList<>();
-                    if (p.getCurrentBoardState() != null) {
+                    if (live.isPresent()) {
+                        board = live.get().placements().stream()
+                                .map(placement -> new PiecePlacement(
+                                        placement.getPieceIndex(), placement.getCurrentRow(), placement.getCurrentCol()))
+                                .collect(Collectors.toList());
+                    } else if (p.getCurrentBoardState() != null) {
                         try {
                             board = objectMapper.readValue(p.getCurrentBoardState(), new TypeReference<List<PiecePlacement>>() {});
                         } catch (JsonProcessingException e) {
@@ -119,7 +119,8 @@ public class PuzzleSpectatorService {
                             .userId(p.getUser().getId())
                             .username(p.getUser().getUsername())
                             .boardState(board)
-                            .piecesPlacedCorrectly(p.getPiecesPlacedCorrectly())
+                            .piecesPlacedCorrectly(live.map(PuzzleBoardStateCache.BoardView::piecesPlacedCorrectly)
+                                    .orElse(p.getPiecesPlacedCorrectly()))
                             .hasAnswered(p.getTextAnswer() != null)
                             .build();
                 })
@@ -140,6 +141,8 @@ public class PuzzleSpectatorService {
                         .edgeLeft(p.getEdgeLeft())
                         .widthPx(p.getWidthPx())
                         .heightPx(p.getHeightPx())
+                        .atlasX(p.getAtlasX())
+                        .atlasY(p.getAtlasY())
                         .build())
                 .collect(Collectors.toList());
     }
@@ -15,6 +15,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/quiz/sessions/{sessionId}/rounds/{roundId}")
@@ -42,7 +43,7 @@ public class BrainRingController {
 
     @PostMapping("/brain-ring-answer")
     @Operation(summary = "Submit an answer for Brain Ring mode")
-    public ResponseEntity<BrainRingAnswerResponse> submitBrainRingAnswer(
+    public Mono<ResponseEntity<BrainRingAnswerResponse>> submitBrainRingAnswer(
             @PathVariable Long sessionId,
             @PathVariable Long roundId,
             @RequestBody BrainRingAnswerRequest request,
@@ -51,8 +52,9 @@ public class BrainRingController {
         Long userId = ((UserPrincipal) userDetails).getId();
         log.info("Brain Ring answer submission from user {} for round {}", userId, roundId);
         
-        BrainRingAnswerResponse response = brainRingService.submitAnswer(sessionId, roundId, userId, request.getAnswer());
-        return ResponseEntity.ok(response);
+        // Completes asynchronously, so the request thread is released while the answer is validated
+        return brainRingService.submitAnswer(sessionId, roundId, userId, request.getAnswer())
+                .map(ResponseEntity::ok);
     }
 
     @GetMapping("/brain-ring-state")
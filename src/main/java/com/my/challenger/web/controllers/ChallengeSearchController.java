@@ -7,6 +7,7 @@ import com.my.challenger.entity.enums.ChallengeType;
 import com.my.challenger.entity.enums.PaymentType;
 import com.my.challenger.repository.UserRepository;
 import com.my.challenger.service.impl.ChallengeSearchService;
+import com.my.challenger.service.impl.ChallengeSearchService.ChallengeSearchPage;
 import com.my.challenger.service.impl.ChallengeSearchService.ChallengeSearchRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +27,8 @@ import java.util.List;
 @Slf4j
 public class ChallengeSearchController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final ChallengeSearchService searchService;
     private final UserRepository userRepository;
 
@@ -42,6 +45,7 @@ public class ChallengeSearchController {
             @RequestParam(required = false) Boolean paidOnly,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
             @RequestParam(required = false) String sortBy,
             @RequestParam(defaultValue = "desc") String sortDirection,
             @AuthenticationPrincipal UserDetails userDetails) {
@@ -59,9 +63,9 @@ public class ChallengeSearchController {
         request.setSize(size);
         request.setSortBy(sortBy);
         request.setSortDirection(sortDirection);
+        request.setCursor(cursor);
 
-        List<ChallengeDTO> results = searchService.searchChallenges(request, user.getId());
-        return ResponseEntity.ok(results);
+        return toResponse(searchService.searchChallenges(request, user.getId()));
     }
 
     /**
@@ -71,11 +75,11 @@ public class ChallengeSearchController {
     public ResponseEntity<List<ChallengeDTO>> searchPublicChallenges(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
             @AuthenticationPrincipal UserDetails userDetails) {
 
         User user = getUserFromUserDetails(userDetails);
-        List<ChallengeDTO> results = searchService.getPublicChallenges(page, size, user.getId());
-        return ResponseEntity.ok(results);
+        return toResponse(searchService.getPublicChallenges(cursor, page, size, user.getId()));
     }
 
     /**
@@ -85,12 +89,12 @@ public class ChallengeSearchController {
     public ResponseEntity<List<ChallengeDTO>> getPrivateChallenges(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
             @AuthenticationPrincipal UserDetails userDetails) {
 
         User user = getUserFromUserDetails(userDetails);
-        List<ChallengeDTO> results = searchService.getPrivateChallengesForUser(
-                user.getId(), page, size);
-        return ResponseEntity.ok(results);
+        return toResponse(searchService.getPrivateChallengesForUser(
+                user.getId(), cursor, page, size));
     }
 
     /**
@@ -101,12 +105,12 @@ public class ChallengeSearchController {
             @RequestParam(required = false) String keyword,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
             @AuthenticationPrincipal UserDetails userDetails) {
 
         User user = getUserFromUserDetails(userDetails);
-        List<ChallengeDTO> results = searchService.searchFreeChallenges(
-                keyword, user.getId(), page, size);
-        return ResponseEntity.ok(results);
+        return toResponse(searchService.searchFreeChallenges(
+                keyword, user.getId(), cursor, page, size));
     }
 
     /**
@@ -117,12 +121,12 @@ public class ChallengeSearchController {
             @RequestParam(required = false) String keyword,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
             @AuthenticationPrincipal UserDetails userDetails) {
 
         User user = getUserFromUserDetails(userDetails);
-        List<ChallengeDTO> results = searchService.searchPaidChallenges(
-                keyword, user.getId(), page, size);
-        return ResponseEntity.ok(results);
+        return toResponse(searchService.searchPaidChallenges(
+                keyword, user.getId(), cursor, page, size));
     }
 
     /**
@@ -147,21 +151,33 @@ public class ChallengeSearchController {
             @PathVariable String type,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
             @AuthenticationPrincipal UserDetails userDetails) {
 
         User user = getUserFromUserDetails(userDetails);
         
         try {
             ChallengeType challengeType = ChallengeType.valueOf(type.toUpperCase());
-            List<ChallengeDTO> results = searchService.searchByType(
-                    challengeType, user.getId(), page, size);
-            return ResponseEntity.ok(results);
+            return toResponse(searchService.searchByType(
+                    challengeType, user.getId(), cursor, page, size));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
-    // Helper method
+    // Helper methods
+
+    /**
+     * Results go in the body; the cursor for the next page, if any, in {@code X-Next-Cursor}.
+     */
+    private ResponseEntity<List<ChallengeDTO>> toResponse(ChallengeSearchPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+
     private User getUserFromUserDetails(UserDetails userDetails) {
         return userRepository.findByUsername(userDetails.getUsername())
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
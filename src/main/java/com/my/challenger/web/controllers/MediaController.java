@@ -2,12 +2,8 @@
 package com.my.challenger.web.controllers;
 
 import com.my.challenger.entity.MediaFile;
-import com.my.challenger.entity.quiz.QuizQuestion;
 import com.my.challenger.exception.MediaProcessingException;
-import com.my.challenger.exception.ResourceNotFoundException;
 import com.my.challenger.exception.UnauthorizedException;
-import com.my.challenger.repository.MediaFileRepository;
-import com.my.challenger.repository.QuizQuestionRepository;
 import com.my.challenger.service.MediaService;
 import com.my.challenger.service.impl.MediaStreamingService;
 import com.my.challenger.service.impl.MinioMediaStorageService;
@@ -28,8 +24,6 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.core.ResponseInputStream;
-import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 
 import java.io.InputStream;
@@ -45,8 +39,6 @@ public class MediaController {
 
     private final MediaService mediaService;
     private final MediaStreamingService streamingService;
-    private final QuizQuestionRepository quizQuestionRepository;
-    private final MediaFileRepository mediaFileRepository;
     private final MinioMediaStorageService storageService; // Keep for backward compatibility
 
     @PostMapping("/upload/quiz-media")
@@ -258,26 +250,13 @@ public class MediaController {
 
         log.debug("Stream request for questionId={}, range={}", questionId, rangeHeader);
 
-        // Look up the question's media
-        QuizQuestion question = quizQuestionRepository.findById(questionId)
-                .orElseThrow(() -> new ResourceNotFoundException("Question not found: " + questionId));
-
-        // Use questionMediaId if available, as it's more robust for bucket resolution
-        if (question.getQuestionMediaId() != null) {
-            MediaFile mediaFile = mediaFileRepository.findById(question.getQuestionMediaId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Media file not found for ID: " + question.getQuestionMediaId()));
-            
-            return streamMediaByS3Key(mediaFile.getS3Key(), rangeHeader, question.getQuestionMediaType());
-        }
-
-        // Fallback to S3 key if media ID is not set
-        String s3Key = question.getQuestionMediaUrl();
-        if (s3Key == null || s3Key.isEmpty()) {
+        // Question -> media file -> bucket resolution is cached by the streaming service
+        MediaStreamingService.QuestionMedia media = streamingService.getQuestionMedia(questionId);
+        if (media.s3Key() == null) {
             return ResponseEntity.notFound().build();
         }
 
-        // Delegate to existing stream logic
-        return streamMediaByS3Key(s3Key, rangeHeader, question.getQuestionMediaType());
+        return streamMediaByS3Key(media.s3Key(), rangeHeader, media.mediaType());
     }
 
     @GetMapping("/question/{questionId}/thumbnail")
@@ -288,11 +267,8 @@ public class MediaController {
 
         log.debug("Thumbnail request for questionId={}", questionId);
 
-        QuizQuestion question = quizQuestionRepository.findById(questionId)
-                .orElseThrow(() -> new ResourceNotFoundException("Question not found: " + questionId));
-
-        String thumbnailKey = question.getQuestionThumbnailUrl();
-        if (thumbnailKey == null || thumbnailKey.isEmpty()) {
+        String thumbnailKey = streamingService.getQuestionMedia(questionId).thumbnailKey();
+        if (thumbnailKey == null) {
             return ResponseEntity.notFound().build();
         }
 
@@ -429,10 +405,8 @@ public class MediaController {
 
             long contentRangeLength = rangeEnd - rangeStart + 1;
 
-            // Stream partial content from S3
-            String s3Range = String.format("bytes=%d-%d", rangeStart, rangeEnd);
-            ResponseInputStream<GetObjectResponse> responseStream =
-                    streamingService.streamMediaRange(s3Key, s3Range);
+            // Stream partial content from the media cache or S3
+            InputStream responseStream = streamingService.streamMediaRange(s3Key, rangeStart, rangeEnd);
 
             headers.setContentLength(contentRangeLength);
             headers.set(HttpHeaders.CONTENT_RANGE,
@@ -1,15 +1,20 @@
 package com.my.challenger.web.controllers;
 
+import com.my.challenger.dto.verification.LocationBatchVerificationRequest;
 import com.my.challenger.dto.verification.LocationVerificationRequest;
+import com.my.challenger.dto.verification.PhotoVerificationJobStatus;
 import com.my.challenger.dto.verification.PhotoVerificationRequest;
 import com.my.challenger.dto.verification.VerificationResponse;
 import com.my.challenger.entity.User;
 import com.my.challenger.repository.UserRepository;
 import com.my.challenger.service.impl.location.LocationVerificationService;
+import com.my.challenger.service.impl.photo.PhotoVerificationJobService;
 import com.my.challenger.service.impl.photo.PhotoVerificationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -18,6 +23,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controller for handling verification requests for challenges
@@ -29,6 +35,7 @@ import java.util.Map;
 public class VerificationController {
 
     private final PhotoVerificationService photoVerificationService;
+    private final PhotoVerificationJobService photoVerificationJobService;
     private final LocationVerificationService locationVerificationService;
     private final UserRepository userRepository;
 
@@ -75,6 +82,68 @@ public class VerificationController {
         }
     }
 
+    /**
+     * Queues a photo verification and returns its job right away. Progress and the result are
+     * pushed to the user's personal queue and can be polled from {@code /photo-jobs/{jobId}}.
+     */
+    @PostMapping(value = "/photo-jobs", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> submitPhotoJob(
+            @RequestBody @Valid PhotoVerificationRequest request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        try {
+            log.info("Received photo verification job for challenge {}", request.getChallengeId());
+
+            Long userId = getUserIdFromUserDetails(userDetails);
+            String fileName = request.getFileName() != null ? request.getFileName() : "image.jpg";
+
+            PhotoVerificationJobStatus job = photoVerificationJobService.submit(
+                    request.getChallengeId(),
+                    userId,
+                    userDetails.getUsername(),
+                    decodeBase64Image(request.getBase64Image()),
+                    determineContentType(fileName),
+                    request.getPrompt());
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+
+        } catch (RejectedExecutionException e) {
+            log.warn("Photo verification queue is full, rejecting job for challenge {}", request.getChallengeId());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(VerificationResponse.builder()
+                            .success(false)
+                            .isVerified(false)
+                            .message("Too many verifications in progress, please try again shortly")
+                            .build());
+        } catch (Exception e) {
+            log.error("Error submitting photo verification job", e);
+            return ResponseEntity.badRequest().body(
+                    VerificationResponse.builder()
+                            .success(false)
+                            .isVerified(false)
+                            .message("Error: " + e.getMessage())
+                            .build()
+            );
+        }
+    }
+
+    /**
+     * Current state of a photo verification job submitted by the user
+     */
+    @GetMapping("/photo-jobs/{jobId}")
+    public ResponseEntity<PhotoVerificationJobStatus> getPhotoJob(
+            @PathVariable String jobId,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return photoVerificationJobService.getStatus(jobId, userDetails.getUsername())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     /**
      * Endpoint to verify a location for a challenge
      */
@@ -120,6 +189,44 @@ public class VerificationController {
         }
     }
 
+    /**
+     * Endpoint to verify a batch of GPS check-ins collected by the client for a challenge
+     */
+    @PostMapping("/location/batch")
+    public ResponseEntity<VerificationResponse> verifyLocationBatch(
+            @RequestBody @Valid LocationBatchVerificationRequest request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        try {
+            log.debug("Received {} location check-ins for challenge {}",
+                    request.getCheckIns().size(), request.getChallengeId());
+
+            Long userId = getUserIdFromUserDetails(userDetails);
+
+            Map<String, Object> result = locationVerificationService.verifyCheckIns(
+                    request.getChallengeId(), userId, request.getCheckIns());
+
+            VerificationResponse response = VerificationResponse.builder()
+                    .success(true)
+                    .isVerified((Boolean) result.getOrDefault("isVerified", false))
+                    .message((String) result.getOrDefault("message", "Location verification processed"))
+                    .details(result)
+                    .build();
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("Error in batch location verification", e);
+            return ResponseEntity.badRequest().body(
+                    VerificationResponse.builder()
+                            .success(false)
+                            .isVerified(false)
+                            .message("Error: " + e.getMessage())
+                            .build()
+            );
+        }
+    }
+
     /**
      * API endpoint to check verification status of a task
      */
@@ -175,22 +282,7 @@ public class VerificationController {
         }
 
         try {
-            // Remove data URL prefix if present
-            String base64Data = base64Image;
-            if (base64Image.contains(";base64,")) {
-                base64Data = base64Image.split(";base64,")[1];
-            } else if (base64Image.contains(",")) {
-                base64Data = base64Image.split(",")[1];
-            }
-
-            // Trim and validate
-            base64Data = base64Data.trim();
-            if (base64Data.isEmpty()) {
-                throw new IllegalArgumentException("Base64 image data is empty");
-            }
-
-            // Decode the base64 string
-            byte[] imageBytes = java.util.Base64.getDecoder().decode(base64Data);
+            byte[] imageBytes = decodeBase64Image(base64Image);
 
             // Use a default filename if none is provided
             String finalFileName = (fileName != null) ? fileName : "image.jpg";
@@ -209,6 +301,32 @@ public class VerificationController {
         }
     }
 
+    /**
+     * Decode a base64 image, with or without a data URL prefix
+     */
+    private byte[] decodeBase64Image(String base64Image) {
+        if (base64Image == null) {
+            throw new IllegalArgumentException("Base64 image data cannot be null");
+        }
+
+        // Remove data URL prefix if present
+        String base64Data = base64Image;
+        if (base64Image.contains(";base64,")) {
+            base64Data = base64Image.split(";base64,")[1];
+        } else if (base64Image.contains(",")) {
+            base64Data = base64Image.split(",")[1];
+        }
+
+        // Trim and validate
+        base64Data = base64Data.trim();
+        if (base64Data.isEmpty()) {
+            throw new IllegalArgumentException("Base64 image data is empty");
+        }
+
+        // Decode the base64 string
+        return java.util.Base64.getDecoder().decode(base64Data);
+    }
+
     /**
      * Determine content type based on file extension
      */
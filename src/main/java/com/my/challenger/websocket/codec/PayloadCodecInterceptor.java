@@ -0,0 +1,183 @@
+package com.my.challenger.websocket.codec;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Negotiates a {@link StompPayloadCodec} per connection and re-encodes outbound JSON
+ * payloads with it.
+ * <p>
+ * A client opts in with a {@code payload-codec} header on CONNECT, e.g. {@code cbor}; every
+ * other connection keeps receiving JSON. Encoded MESSAGE frames go out as
+ * {@code application/octet-stream}, which makes STOMP send them as binary WebSocket frames,
+ * and name the codec in the same header. SockJS only carries text, so clients must request a
+ * codec only over a raw WebSocket connection.
+ * <p>
+ * The simple broker hands the same payload array to every subscriber of a destination, so
+ * encodings are cached by payload identity and a room broadcast is encoded once, not once per
+ * subscriber.
+ */
+@Slf4j
+@Component
+public class PayloadCodecInterceptor implements ChannelInterceptor {
+
+    public static final String CODEC_HEADER = "payload-codec";
+
+    private final Map<String, StompPayloadCodec> codecsByName = new HashMap<>();
+    private final Map<String, StompPayloadCodec> sessionCodecs = new ConcurrentHashMap<>();
+    private final Map<StompPayloadCodec, Cache<byte[], byte[]>> encoded = new HashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, DistributionSummary> payloadBytes = new ConcurrentHashMap<>();
+    private final Map<String, Timer> encodeTimers = new ConcurrentHashMap<>();
+
+    public PayloadCodecInterceptor(
+            List<StompPayloadCodec> codecs,
+            @Autowired(required = false) MeterRegistry meterRegistry,
+            @Value("${app.websocket.codec-cache-size:1024}") long cacheSize) {
+        this.meterRegistry = meterRegistry;
+        for (StompPayloadCodec codec : codecs) {
+            codecsByName.put(codec.name(), codec);
+            // Weak keys compare by identity, which is exactly the broker's payload sharing
+            encoded.put(codec, Caffeine.newBuilder()
+                    .weakKeys()
+                    .maximumSize(Math.max(1, cacheSize))
+                    .build());
+        }
+    }
+
+    @PostConstruct
+    void initMetrics() {
+        if (meterRegistry == null) {
+            return;
+        }
+        meterRegistry.gauge("websocket.codec.sessions", sessionCodecs, Map::size);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (type == null || sessionId == null) {
+            return message;
+        }
+
+        switch (type) {
+            case CONNECT -> negotiate(message, sessionId);
+            case DISCONNECT -> sessionCodecs.remove(sessionId);
+            case MESSAGE -> {
+                return encode(message, sessionId);
+            }
+            default -> {
+            }
+        }
+        return message;
+    }
+
+    /**
+     * Codec negotiated by a connection, or {@code null} for JSON.
+     */
+    StompPayloadCodec codecOf(String sessionId) {
+        return sessionCodecs.get(sessionId);
+    }
+
+    private void negotiate(Message<?> message, String sessionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        String requested = accessor.getFirstNativeHeader(CODEC_HEADER);
+        if (requested == null) {
+            return;
+        }
+        StompPayloadCodec codec = codecsByName.get(requested.trim().toLowerCase());
+        if (codec == null) {
+            log.debug("Session {} requested unknown payload codec '{}', using JSON", sessionId, requested);
+            return;
+        }
+        sessionCodecs.put(sessionId, codec);
+    }
+
+    private Message<?> encode(Message<?> message, String sessionId) {
+        if (!(message.getPayload() instanceof byte[] json)) {
+            return message;
+        }
+        StompPayloadCodec codec = sessionCodecs.get(sessionId);
+        MimeType contentType = SimpMessageHeaderAccessor.getContentType(message.getHeaders());
+        if (codec == null || contentType == null || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            recordBytes("json", json.length);
+            return message;
+        }
+
+        byte[] payload;
+        try {
+            payload = encoded.get(codec).get(json, key -> encodeTimed(codec, key));
+        } catch (EncodingException e) {
+            log.warn("Failed to encode payload as {} for session {}, sending JSON: {}",
+                    codec.name(), sessionId, e.getMessage());
+            recordBytes("json", json.length);
+            return message;
+        }
+        recordBytes(codec.name(), payload.length);
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setNativeHeader(StompHeaderAccessor.STOMP_CONTENT_TYPE_HEADER, MimeTypeUtils.APPLICATION_OCTET_STREAM_VALUE);
+        accessor.setNativeHeader(CODEC_HEADER, codec.name());
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private byte[] encodeTimed(StompPayloadCodec codec, byte[] json) {
+        long start = System.nanoTime();
+        try {
+            return codec.encode(json);
+        } catch (IOException e) {
+            throw new EncodingException(e);
+        } finally {
+            if (meterRegistry != null) {
+                encodeTimers.computeIfAbsent(codec.name(), name -> Timer.builder("websocket.codec.encode")
+                                .tag("codec", name)
+                                .register(meterRegistry))
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private void recordBytes(String codec, int bytes) {
+        if (meterRegistry == null) {
+            return;
+        }
+        payloadBytes.computeIfAbsent(codec, name -> DistributionSummary.builder("websocket.payload.bytes")
+                        .tag("codec", name)
+                        .baseUnit("bytes")
+                        .register(meterRegistry))
+                .record(bytes);
+    }
+
+    private static final class EncodingException extends RuntimeException {
+        EncodingException(IOException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+}
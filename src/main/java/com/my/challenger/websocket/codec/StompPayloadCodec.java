@@ -0,0 +1,20 @@
+package com.my.challenger.websocket.codec;
+
+import java.io.IOException;
+
+/**
+ * Alternative encoding of outbound STOMP payloads, selected per connection by the
+ * {@code payload-codec} header of the client's CONNECT frame.
+ * <p>
+ * The broker serializes every payload to JSON once; a codec re-encodes those bytes for the
+ * connections that asked for it.
+ */
+public interface StompPayloadCodec {
+
+    /**
+     * Value of the {@code payload-codec} header that selects this codec.
+     */
+    String name();
+
+    byte[] encode(byte[] json) throws IOException;
+}
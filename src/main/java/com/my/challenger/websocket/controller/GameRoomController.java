@@ -6,6 +6,7 @@ import com.my.challenger.websocket.model.GamePhase;
 import com.my.challenger.websocket.model.GameRoom;
 import com.my.challenger.websocket.model.RoomPlayer;
 import com.my.challenger.websocket.service.GameRoomService;
+import com.my.challenger.websocket.service.RoomBroadcaster;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
@@ -17,6 +18,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.stereotype.Controller;
 
 import java.security.Principal;
+import java.util.List;
 
 @Controller
 @RequiredArgsConstructor
@@ -25,18 +27,13 @@ public class GameRoomController {
 
     private final GameRoomService gameRoomService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final RoomBroadcaster roomBroadcaster;
 
     @MessageMapping("/room/{roomCode}/join")
     public void joinRoom(@DestinationVariable String roomCode, @Payload JoinRoomMessage message, SimpMessageHeaderAccessor headerAccessor, Principal principal) {
         UserPrincipal userPrincipal = getUserPrincipal(principal);
         if (userPrincipal == null) return;
 
-        GameRoom room = gameRoomService.getRoom(roomCode);
-        if (room == null) {
-            sendErrorMessage(principal.getName(), "Room not found");
-            return;
-        }
-
         RoomPlayer player = RoomPlayer.builder()
                 .userId(userPrincipal.getId())
                 .username(userPrincipal.getUsername())
@@ -46,16 +43,26 @@ public class GameRoomController {
                 .score(0)
                 .build();
 
-        gameRoomService.joinRoom(roomCode, player);
+        GameRoom room = gameRoomService.joinRoom(roomCode, player);
+        if (room == null) {
+            sendErrorMessage(principal.getName(), "Room not found");
+            return;
+        }
 
         // Store roomCode in session attributes for disconnect handling
         if (headerAccessor.getSessionAttributes() != null) {
             headerAccessor.getSessionAttributes().put("room_code", roomCode);
         }
 
-        // Broadcast player list
-        messagingTemplate.convertAndSend("/topic/room/" + roomCode + "/players", new PlayerListMessage(room.getPlayers().values()));
-        
+        // Delta subscribers only get the joined player; the joiner gets the full list it applies
+        // later deltas to. Clients that predate deltas still subscribe to the full list.
+        roomBroadcaster.broadcast("/topic/room/" + roomCode + "/players-delta",
+            new PlayerListDelta(roomCode, room.getPlayerListVersion(), List.of(room.getPlayers().get(player.getUserId()))));
+        roomBroadcaster.broadcast("/topic/room/" + roomCode + "/players",
+            new PlayerListMessage(room.getPlayers().values(), room.getPlayerListVersion()));
+        messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/personal",
+            new PlayerListMessage(room.getPlayers().values(), room.getPlayerListVersion()));
+
         // Send current state to user
         messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/personal", 
             GameStateMessage.builder()
@@ -79,9 +86,10 @@ public class GameRoomController {
              return;
         }
 
+        GamePhase nextPhase = null;
         switch (message.getAction()) {
             case START:
-                room.setCurrentPhase(GamePhase.READING);
+                nextPhase = GamePhase.READING;
                 break;
             case NEXT:
                 // Implement next question logic
@@ -90,12 +98,11 @@ public class GameRoomController {
                 // Implement pause logic
                 break;
             case END:
-                room.setCurrentPhase(GamePhase.COMPLETED);
+                nextPhase = GamePhase.COMPLETED;
                 break;
         }
-        room.updateActivity();
 
-        broadcastState(room);
+        gameRoomService.updatePhase(roomCode, nextPhase).ifPresent(this::broadcastState);
     }
 
     @MessageMapping("/room/{roomCode}/answer")
@@ -106,13 +113,13 @@ public class GameRoomController {
         gameRoomService.submitAnswer(roomCode, userPrincipal.getId(), message.getQuestionId(), message.getAnswer());
 
         // Notify presenter
-        messagingTemplate.convertAndSend("/topic/room/" + roomCode + "/answers", 
+        roomBroadcaster.broadcast("/topic/room/" + roomCode + "/answers", 
             new AnswerBroadcastMessage(userPrincipal.getId(), userPrincipal.getUsername(), true)
         );
     }
 
     private void broadcastState(GameRoom room) {
-        messagingTemplate.convertAndSend("/topic/room/" + room.getRoomCode() + "/state", 
+        roomBroadcaster.broadcast("/topic/room/" + room.getRoomCode() + "/state", 
             GameStateMessage.builder()
                 .roomCode(room.getRoomCode())
                 .phase(room.getCurrentPhase())
@@ -122,7 +129,7 @@ public class GameRoomController {
     }
 
     private void sendErrorMessage(String username, String message) {
-        messagingTemplate.convertAndSendToUser(username, "/queue/personal", message); 
+        messagingTemplate.convertAndSendToUser(username, "/queue/personal", new ErrorMessage(message));
     }
 
     private UserPrincipal getUserPrincipal(Principal principal) {
@@ -9,6 +9,7 @@ import com.my.challenger.service.puzzle.PuzzleSpectatorService;
 import com.my.challenger.websocket.dto.PuzzleSpectatorMessages.*;
 import com.my.challenger.websocket.model.GameRoom;
 import com.my.challenger.websocket.service.GameRoomService;
+import com.my.challenger.websocket.service.RoomBroadcaster;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
@@ -30,6 +31,7 @@ public class PuzzleRoomController {
     private final PuzzleGameService puzzleService;
     private final PuzzleSpectatorService spectatorService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final RoomBroadcaster roomBroadcaster;
 
     @MessageMapping("/room/{roomCode}/puzzle/place-piece")
     public void handlePlacePiece(@DestinationVariable String roomCode, @Payload BoardStateUpdate update, Principal principal) {
@@ -40,9 +42,11 @@ public class PuzzleRoomController {
         if (room == null || room.getPuzzleGameId() == null) return;
 
         puzzleService.updateBoardState(room.getPuzzleGameId(), userPrincipal.getId(), update);
+        spectatorService.recordMove(roomCode, room.getPuzzleGameId(), userPrincipal.getId(),
+                update.getPieceIndex(), update.getNewRow(), update.getNewCol());
 
         // Broadcast placement event
-        messagingTemplate.convertAndSend("/topic/room/" + roomCode + "/puzzle-piece", 
+        roomBroadcaster.broadcast("/topic/room/" + roomCode + "/puzzle-piece", 
             PiecePlacedMessage.builder()
                 .userId(userPrincipal.getId())
                 .username(userPrincipal.getUsername())
@@ -65,7 +69,7 @@ public class PuzzleRoomController {
         AnswerResult result = puzzleService.submitAnswer(room.getPuzzleGameId(), userPrincipal.getId(), answer);
 
         // Broadcast answer event
-        messagingTemplate.convertAndSend("/topic/room/" + roomCode + "/puzzle-answer", 
+        roomBroadcaster.broadcast("/topic/room/" + roomCode + "/puzzle-answer", 
             AnswerSubmittedMessage.builder()
                 .userId(userPrincipal.getId())
                 .username(userPrincipal.getUsername())
@@ -89,7 +93,7 @@ public class PuzzleRoomController {
 
     // Broadcast methods called by services
     public void broadcastPuzzleState(String roomCode, PuzzleGame game) {
-        messagingTemplate.convertAndSend("/topic/room/" + roomCode + "/puzzle-state", 
+        roomBroadcaster.broadcast("/topic/room/" + roomCode + "/puzzle-state", 
             spectatorService.buildStateMessage(game, roomCode));
     }
 
@@ -98,7 +102,7 @@ public class PuzzleRoomController {
     }
 
     public void broadcastGameCompleted(String roomCode, Long gameId) {
-        messagingTemplate.convertAndSend("/topic/room/" + roomCode + "/puzzle-completed", 
+        roomBroadcaster.broadcast("/topic/room/" + roomCode + "/puzzle-completed", 
             spectatorService.buildCompletedMessage(gameId));
     }
 
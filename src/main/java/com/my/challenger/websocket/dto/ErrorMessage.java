@@ -0,0 +1,17 @@
+package com.my.challenger.websocket.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Error reported to a single user on their personal queue
+ */
+@Data
+@AllArgsConstructor
+public class ErrorMessage {
+    private String message;
+
+    public String getType() {
+        return "ERROR";
+    }
+}
@@ -8,6 +8,8 @@ import java.time.LocalDateTime;
 @Data
 @Builder
 public class GameStateMessage {
+    @Builder.Default
+    private String type = "GAME_STATE";
     private String roomCode;
     private GamePhase phase;
     private Long currentQuestionId;
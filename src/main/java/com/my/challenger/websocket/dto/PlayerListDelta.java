@@ -0,0 +1,23 @@
+package com.my.challenger.websocket.dto;
+
+import com.my.challenger.websocket.model.RoomPlayer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Players whose entry changed, replacing the client's entries with the same user id.
+ * Applies on top of a {@link PlayerListMessage} with a lower version.
+ */
+@Data
+@AllArgsConstructor
+public class PlayerListDelta {
+    private String roomCode;
+    private long version;
+    private List<RoomPlayer> players;
+
+    public String getType() {
+        return "PLAYER_LIST_DELTA";
+    }
+}
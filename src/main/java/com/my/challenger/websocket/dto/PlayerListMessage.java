@@ -9,4 +9,9 @@ import java.util.Collection;
 @AllArgsConstructor
 public class PlayerListMessage {
     private Collection<RoomPlayer> players;
+    private long version;
+
+    public String getType() {
+        return "PLAYER_LIST";
+    }
 }
@@ -69,9 +69,34 @@ public class PuzzleSpectatorMessages {
     @NoArgsConstructor
     @AllArgsConstructor
     public static class SpectatorSnapshot {
+        @Builder.Default
+        private String type = "SPECTATOR_SNAPSHOT";
         private PuzzleStateMessage state;
         private List<PlayerBoardSnapshot> players;
         private List<PieceMetadata> pieces; // Only sent once or on request
+        private String source; // Delta stream of the node that built this snapshot; null if it has none
+        private long sequence; // Last delta of that stream reflected in this snapshot
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SpectatorDelta {
+        private String roomCode;
+        private String source; // Delta stream this delta belongs to, one per node feeding the room
+        private long sequence; // Consecutive within its source
+        private List<PlayerBoardDelta> players;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PlayerBoardDelta {
+        private Long userId;
+        private List<PiecePlacement> placements; // Only pieces moved since the previous delta
+        private Integer piecesPlacedCorrectly;
     }
 
     @Data
@@ -88,6 +113,8 @@ public class PuzzleSpectatorMessages {
         private PuzzleEdgeType edgeLeft;
         private int widthPx;
         private int heightPx;
+        private Integer atlasX;
+        private Integer atlasY;
     }
 
     @Data
@@ -0,0 +1,28 @@
+package com.my.challenger.websocket.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Final evaluation of a quiz round, pushed to the session host once deferred AI validation
+ * and feedback have finished
+ */
+@Data
+@Builder
+public class QuizRoundEvaluatedMessage {
+    @Builder.Default
+    private String type = "QUIZ_ROUND_EVALUATED";
+    private Long sessionId;
+    private Long roundId;
+    private Integer roundNumber;
+    private Boolean isCorrect;
+    private Boolean aiValidationUsed;
+    private Boolean aiAccepted;
+    private BigDecimal aiConfidence;
+    private String aiExplanation;
+    private String feedback;
+    private Integer sessionScore;
+    private Boolean isSessionComplete;
+}
@@ -1,19 +1,22 @@
 package com.my.challenger.websocket.listener;
 
 import com.my.challenger.security.UserPrincipal;
+import com.my.challenger.websocket.dto.PlayerListDelta;
 import com.my.challenger.websocket.dto.PlayerListMessage;
 import com.my.challenger.websocket.model.GameRoom;
+import com.my.challenger.websocket.model.RoomPlayer;
 import com.my.challenger.websocket.service.GameRoomService;
+import com.my.challenger.websocket.service.RoomBroadcaster;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
 import java.security.Principal;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
@@ -21,7 +24,7 @@ import java.security.Principal;
 public class WebSocketEventListener {
 
     private final GameRoomService gameRoomService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final RoomBroadcaster roomBroadcaster;
 
     @EventListener
     public void handleWebSocketDisconnectListener(SessionDisconnectEvent event) {
@@ -37,12 +40,15 @@ public class WebSocketEventListener {
                 Long userId = userPrincipal.getId();
                 log.info("User {} disconnected from room {}", userPrincipal.getUsername(), roomCode);
                 
-                gameRoomService.disconnectPlayer(roomCode, userId);
-                
-                GameRoom room = gameRoomService.getRoom(roomCode);
-                if (room != null) {
-                    messagingTemplate.convertAndSend("/topic/room/" + roomCode + "/players", 
-                        new PlayerListMessage(room.getPlayers().values())
+                GameRoom room = gameRoomService.disconnectPlayer(roomCode, userId);
+                RoomPlayer player = room != null ? room.getPlayers().get(userId) : null;
+                if (player != null) {
+                    roomBroadcaster.broadcast("/topic/room/" + roomCode + "/players-delta",
+                        new PlayerListDelta(roomCode, room.getPlayerListVersion(), List.of(player))
+                    );
+                    // Clients that predate deltas still subscribe to the full list
+                    roomBroadcaster.broadcast("/topic/room/" + roomCode + "/players",
+                        new PlayerListMessage(room.getPlayers().values(), room.getPlayerListVersion())
                     );
                 }
             }
@@ -1,7 +1,9 @@
 package com.my.challenger.websocket.model;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 import java.util.Map;
@@ -9,6 +11,8 @@ import java.util.concurrent.ConcurrentHashMap;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class GameRoom {
     private String roomCode;
     private Long hostUserId;
@@ -18,6 +22,8 @@ public class GameRoom {
     @Builder.Default
     private Map<Long, RoomPlayer> players = new ConcurrentHashMap<>(); // Key: userId
     private LocalDateTime lastActivity;
+    // Bumped on every player list change; clients apply player deltas with a higher version
+    private long playerListVersion;
     
     // Additional state for game
     private Long currentQuestionId;
@@ -26,4 +32,8 @@ public class GameRoom {
     public void updateActivity() {
         this.lastActivity = LocalDateTime.now();
     }
+
+    public void playerListChanged() {
+        this.playerListVersion++;
+    }
 }
@@ -1,10 +1,14 @@
 package com.my.challenger.websocket.model;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class RoomPlayer {
     private Long userId;
     private String username;
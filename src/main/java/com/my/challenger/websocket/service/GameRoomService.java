@@ -3,104 +3,109 @@ package com.my.challenger.websocket.service;
 import com.my.challenger.websocket.model.GamePhase;
 import com.my.challenger.websocket.model.GameRoom;
 import com.my.challenger.websocket.model.RoomPlayer;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
 
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class GameRoomService {
 
-    private final Map<String, GameRoom> activeRooms = new ConcurrentHashMap<>();
+    private final GameRoomStore roomStore;
 
     public GameRoom createRoom(Long quizSessionId, Long hostUserId) {
-        String roomCode = generateRoomCode();
         GameRoom room = GameRoom.builder()
-                .roomCode(roomCode)
                 .quizSessionId(quizSessionId)
                 .hostUserId(hostUserId)
                 .currentPhase(GamePhase.LOBBY)
                 .lastActivity(LocalDateTime.now())
                 .build();
-        activeRooms.put(roomCode, room);
-        log.info("Created game room {} for session {}", roomCode, quizSessionId);
+        storeWithUniqueCode(room);
+        log.info("Created game room {} for session {}", room.getRoomCode(), quizSessionId);
         return room;
     }
 
     public GameRoom createPuzzleRoom(Long puzzleGameId, Long hostUserId) {
-        String roomCode = generateRoomCode();
         GameRoom room = GameRoom.builder()
-                .roomCode(roomCode)
                 .puzzleGameId(puzzleGameId)
                 .hostUserId(hostUserId)
                 .currentPhase(GamePhase.LOBBY)
                 .lastActivity(LocalDateTime.now())
                 .build();
-        activeRooms.put(roomCode, room);
-        log.info("Created puzzle game room {} for game {}", roomCode, puzzleGameId);
+        storeWithUniqueCode(room);
+        log.info("Created puzzle game room {} for game {}", room.getRoomCode(), puzzleGameId);
         return room;
     }
 
     public GameRoom getRoom(String roomCode) {
-        return activeRooms.get(roomCode);
+        return roomStore.find(roomCode).orElse(null);
     }
 
-    public void joinRoom(String roomCode, RoomPlayer player) {
-        GameRoom room = getRoom(roomCode);
-        if (room != null) {
+    /**
+     * Adds the player to the room.
+     *
+     * @return the room after the join, or {@code null} if it does not exist
+     */
+    public GameRoom joinRoom(String roomCode, RoomPlayer player) {
+        return roomStore.update(roomCode, room -> {
             room.getPlayers().put(player.getUserId(), player);
+            room.playerListChanged();
             room.updateActivity();
-        }
+        }).orElse(null);
     }
-    
-    public void disconnectPlayer(String roomCode, Long userId) {
-        GameRoom room = getRoom(roomCode);
-        if (room != null) {
-             RoomPlayer player = room.getPlayers().get(userId);
-             if (player != null) {
-                 player.setConnected(false);
-                 room.updateActivity();
-             }
-        }
+
+    public GameRoom disconnectPlayer(String roomCode, Long userId) {
+        return roomStore.update(roomCode, room -> {
+            RoomPlayer player = room.getPlayers().get(userId);
+            if (player != null) {
+                player.setConnected(false);
+                room.playerListChanged();
+                room.updateActivity();
+            }
+        }).orElse(null);
+    }
+
+    public Optional<GameRoom> updatePhase(String roomCode, GamePhase phase) {
+        return roomStore.update(roomCode, room -> {
+            if (phase != null) {
+                room.setCurrentPhase(phase);
+            }
+            room.updateActivity();
+        });
     }
 
     public void removeRoom(String roomCode) {
-        activeRooms.remove(roomCode);
+        roomStore.remove(roomCode);
     }
-    
+
     public void submitAnswer(String roomCode, Long userId, Long questionId, String answer) {
-        GameRoom room = getRoom(roomCode);
-        if (room != null && room.getCurrentPhase() == GamePhase.ANSWERING) {
-            RoomPlayer player = room.getPlayers().get(userId);
-            if (player != null) {
-                player.setLastAnswer(answer);
-                room.updateActivity();
+        roomStore.update(roomCode, room -> {
+            if (room.getCurrentPhase() == GamePhase.ANSWERING) {
+                RoomPlayer player = room.getPlayers().get(userId);
+                if (player != null) {
+                    player.setLastAnswer(answer);
+                    room.updateActivity();
+                }
             }
-        }
+        });
     }
 
     @Scheduled(fixedRate = 300000) // 5 mins
     public void cleanupInactiveRooms() {
-        LocalDateTime now = LocalDateTime.now();
-        activeRooms.entrySet().removeIf(entry -> {
-            boolean inactive = entry.getValue().getLastActivity().plusHours(2).isBefore(now);
-            if (inactive) {
-                log.info("Removing inactive room: {}", entry.getKey());
-            }
-            return inactive;
-        });
+        for (String roomCode : roomStore.removeInactive(LocalDateTime.now().minusHours(2))) {
+            log.info("Removing inactive room: {}", roomCode);
+        }
     }
 
-    private String generateRoomCode() {
-        String code;
+    private void storeWithUniqueCode(GameRoom room) {
         do {
-            code = RandomStringUtils.randomAlphanumeric(6).toUpperCase();
-        } while (activeRooms.containsKey(code));
-        return code;
+            room.setRoomCode(RandomStringUtils.randomAlphanumeric(6).toUpperCase());
+        } while (!roomStore.createIfAbsent(room));
     }
 }
@@ -0,0 +1,44 @@
+package com.my.challenger.websocket.service;
+
+import com.my.challenger.websocket.model.GameRoom;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Storage for live game rooms. Implementations decide whether rooms are visible to a
+ * single node ({@link InMemoryGameRoomStore}) or to every node of the cluster
+ * ({@link JdbcGameRoomStore}).
+ * <p>
+ * Rooms returned by {@link #find} may be detached copies, so all mutations must go
+ * through {@link #update} to be visible to other nodes.
+ */
+public interface GameRoomStore {
+
+    /**
+     * Stores the room unless its code is already taken.
+     *
+     * @return {@code true} if the room was created
+     */
+    boolean createIfAbsent(GameRoom room);
+
+    Optional<GameRoom> find(String roomCode);
+
+    /**
+     * Applies the mutation atomically with respect to other updates of the same room.
+     *
+     * @return the updated room, or empty if the room does not exist
+     */
+    Optional<GameRoom> update(String roomCode, Consumer<GameRoom> mutation);
+
+    void remove(String roomCode);
+
+    /**
+     * Removes rooms whose last activity is before the cutoff.
+     *
+     * @return codes of the removed rooms
+     */
+    List<String> removeInactive(LocalDateTime cutoff);
+}
@@ -0,0 +1,60 @@
+package com.my.challenger.websocket.service;
+
+import com.my.challenger.websocket.model.GameRoom;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Single-node room store. Rooms live only in this JVM, so every player of a room must be
+ * routed to the same instance.
+ */
+@Component
+@ConditionalOnProperty(name = "app.game-rooms.mode", havingValue = "local", matchIfMissing = true)
+public class InMemoryGameRoomStore implements GameRoomStore {
+
+    private final Map<String, GameRoom> activeRooms = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean createIfAbsent(GameRoom room) {
+        return activeRooms.putIfAbsent(room.getRoomCode(), room) == null;
+    }
+
+    @Override
+    public Optional<GameRoom> find(String roomCode) {
+        return Optional.ofNullable(activeRooms.get(roomCode));
+    }
+
+    @Override
+    public Optional<GameRoom> update(String roomCode, Consumer<GameRoom> mutation) {
+        return Optional.ofNullable(activeRooms.computeIfPresent(roomCode, (code, room) -> {
+            mutation.accept(room);
+            return room;
+        }));
+    }
+
+    @Override
+    public void remove(String roomCode) {
+        activeRooms.remove(roomCode);
+    }
+
+    @Override
+    public List<String> removeInactive(LocalDateTime cutoff) {
+        List<String> removed = new ArrayList<>();
+        activeRooms.entrySet().removeIf(entry -> {
+            boolean inactive = entry.getValue().getLastActivity().isBefore(cutoff);
+            if (inactive) {
+                removed.add(entry.getKey());
+            }
+            return inactive;
+        });
+        return removed;
+    }
+}
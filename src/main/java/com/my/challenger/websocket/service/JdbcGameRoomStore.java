@@ -0,0 +1,97 @@
+package com.my.challenger.websocket.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.my.challenger.websocket.model.GameRoom;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Cluster-wide room store backed by the {@code game_rooms} table. Each room is kept as a
+ * JSONB document; updates take a row lock so concurrent joins on different nodes do not
+ * overwrite each other.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.game-rooms.mode", havingValue = "postgres")
+public class JdbcGameRoomStore implements GameRoomStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional
+    public boolean createIfAbsent(GameRoom room) {
+        int inserted = jdbcTemplate.update(
+                "INSERT INTO game_rooms (room_code, state, last_activity) VALUES (?, CAST(? AS jsonb), ?) " +
+                        "ON CONFLICT (room_code) DO NOTHING",
+                room.getRoomCode(), toJson(room), Timestamp.valueOf(room.getLastActivity()));
+        return inserted == 1;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<GameRoom> find(String roomCode) {
+        List<String> rows = jdbcTemplate.queryForList(
+                "SELECT state FROM game_rooms WHERE room_code = ?", String.class, roomCode);
+        return rows.stream().findFirst().map(this::fromJson);
+    }
+
+    @Override
+    @Transactional
+    public Optional<GameRoom> update(String roomCode, Consumer<GameRoom> mutation) {
+        List<String> rows = jdbcTemplate.queryForList(
+                "SELECT state FROM game_rooms WHERE room_code = ? FOR UPDATE", String.class, roomCode);
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+
+        GameRoom room = fromJson(rows.get(0));
+        mutation.accept(room);
+        jdbcTemplate.update(
+                "UPDATE game_rooms SET state = CAST(? AS jsonb), last_activity = ? WHERE room_code = ?",
+                toJson(room), Timestamp.valueOf(room.getLastActivity()), roomCode);
+        return Optional.of(room);
+    }
+
+    @Override
+    @Transactional
+    public void remove(String roomCode) {
+        jdbcTemplate.update("DELETE FROM game_rooms WHERE room_code = ?", roomCode);
+    }
+
+    @Override
+    @Transactional
+    public List<String> removeInactive(LocalDateTime cutoff) {
+        return jdbcTemplate.queryForList(
+                "DELETE FROM game_rooms WHERE last_activity < ? RETURNING room_code",
+                String.class, Timestamp.valueOf(cutoff));
+    }
+
+    private String toJson(GameRoom room) {
+        try {
+            return objectMapper.writeValueAsString(room);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize game room " + room.getRoomCode(), e);
+        }
+    }
+
+    private GameRoom fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, GameRoom.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to deserialize game room", e);
+        }
+    }
+}
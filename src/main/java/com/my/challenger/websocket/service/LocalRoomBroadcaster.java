@@ -0,0 +1,22 @@
+package com.my.challenger.websocket.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Delivers room messages through this node's simple broker only.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.game-rooms.mode", havingValue = "local", matchIfMissing = true)
+public class LocalRoomBroadcaster implements RoomBroadcaster {
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @Override
+    public void broadcast(String destination, Object payload) {
+        messagingTemplate.convertAndSend(destination, payload);
+    }
+}
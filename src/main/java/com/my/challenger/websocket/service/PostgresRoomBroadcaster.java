@@ -0,0 +1,209 @@
+package com.my.challenger.websocket.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Cluster broadcaster built on PostgreSQL LISTEN/NOTIFY.
+ * <p>
+ * Messages are delivered to the local simple broker immediately and published on the
+ * {@code game_room_events} channel; every other node re-publishes them to its own
+ * subscribers. Payloads above the NOTIFY size limit are parked in the
+ * {@code game_room_events} table and the notification only carries the row id.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.game-rooms.mode", havingValue = "postgres")
+public class PostgresRoomBroadcaster implements RoomBroadcaster {
+
+    private static final String CHANNEL = "game_room_events";
+    private static final String TABLE_REFERENCE_PREFIX = "@";
+    // PostgreSQL rejects NOTIFY payloads of 8000 bytes or more
+    private static final int MAX_NOTIFY_BYTES = 7900;
+    private static final long POLL_TIMEOUT_MS = 500;
+    private static final long RECONNECT_DELAY_MS = 2000;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final DataSource dataSource;
+    private final DataSourceProperties dataSourceProperties;
+    private final ObjectMapper objectMapper;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    record ClusterMessage(String origin, String destination, JsonNode payload) {}
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listen, "game-room-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+        log.info("Game room cluster broadcaster started on node {}", nodeId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public void broadcast(String destination, Object payload) {
+        messagingTemplate.convertAndSend(destination, payload);
+
+        try {
+            publish(envelope(destination, payload));
+        } catch (JsonProcessingException | SQLException e) {
+            log.error("Failed to publish room message for {} to other nodes: {}", destination, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedRate = 300000) // 5 mins
+    public void cleanupParkedMessages() {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM game_room_events WHERE created_at < NOW() - INTERVAL '5 minutes'");
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to clean up parked room messages: {}", e.getMessage());
+        }
+    }
+
+    private void publish(String message) throws SQLException {
+        // The pool runs with auto-commit disabled; NOTIFY is only delivered on commit
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            String notification = message;
+
+            if (message.getBytes(StandardCharsets.UTF_8).length >= MAX_NOTIFY_BYTES) {
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO game_room_events (payload) VALUES (?) RETURNING id")) {
+                    insert.setString(1, message);
+                    try (ResultSet rs = insert.executeQuery()) {
+                        rs.next();
+                        notification = TABLE_REFERENCE_PREFIX + rs.getLong(1);
+                    }
+                }
+            }
+
+            try (PreparedStatement notify = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+                notify.setString(1, CHANNEL);
+                notify.setString(2, notification);
+                notify.execute();
+            }
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            // A dedicated connection: LISTEN holds it for the lifetime of the node, which
+            // would otherwise starve the pool and trip leak detection
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) POLL_TIMEOUT_MS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        dispatch(connection, notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Game room listener connection lost, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Wraps a room message with this node's id for publication on the cluster channel.
+     */
+    String envelope(String destination, Object payload) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(
+                new ClusterMessage(nodeId, destination, objectMapper.valueToTree(payload)));
+    }
+
+    /**
+     * Re-publishes a message received from the cluster channel to local subscribers.
+     * Messages this node published itself were already delivered locally and are skipped.
+     *
+     * @return {@code true} if the message was delivered
+     */
+    boolean deliver(String message) throws JsonProcessingException {
+        ClusterMessage clusterMessage = objectMapper.readValue(message, ClusterMessage.class);
+        if (nodeId.equals(clusterMessage.origin())) {
+            return false;
+        }
+        messagingTemplate.convertAndSend(clusterMessage.destination(), clusterMessage.payload());
+        return true;
+    }
+
+    private void dispatch(Connection connection, String notification) {
+        try {
+            String message = notification;
+            if (notification.startsWith(TABLE_REFERENCE_PREFIX)) {
+                message = loadParkedMessage(connection, Long.parseLong(notification.substring(1)));
+                if (message == null) {
+                    return;
+                }
+            }
+            deliver(message);
+        } catch (Exception e) {
+            log.error("Failed to dispatch room message from another node: {}", e.getMessage());
+        }
+    }
+
+    private String loadParkedMessage(Connection connection, long id) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT payload FROM game_room_events WHERE id = ?")) {
+            select.setLong(1, id);
+            try (ResultSet rs = select.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+}
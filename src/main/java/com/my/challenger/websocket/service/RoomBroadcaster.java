@@ -0,0 +1,10 @@
+package com.my.challenger.websocket.service;
+
+/**
+ * Fans room topic messages out to every subscriber of a room, regardless of which node
+ * the subscriber's WebSocket session is attached to.
+ */
+public interface RoomBroadcaster {
+
+    void broadcast(String destination, Object payload);
+}
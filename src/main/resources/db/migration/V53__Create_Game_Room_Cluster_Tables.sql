@@ -0,0 +1,19 @@
+-- V53__Create_Game_Room_Cluster_Tables.sql
+-- Shared game room state and oversized cross-node broadcast payloads (app.game-rooms.mode=postgres)
+CREATE TABLE game_rooms (
+    room_code       VARCHAR(6) PRIMARY KEY,
+    state           JSONB NOT NULL,
+    last_activity   TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_game_rooms_last_activity ON game_rooms(last_activity);
+
+-- NOTIFY payloads are capped at 8000 bytes; larger room messages are parked here
+-- and the notification carries only the row id
+CREATE TABLE game_room_events (
+    id              BIGSERIAL PRIMARY KEY,
+    payload         TEXT NOT NULL,
+    created_at      TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_game_room_events_created_at ON game_room_events(created_at);
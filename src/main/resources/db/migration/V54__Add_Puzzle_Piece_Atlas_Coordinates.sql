@@ -0,0 +1,6 @@
+-- V54__Add_Puzzle_Piece_Atlas_Coordinates.sql
+-- Sprite-atlas output (app.puzzle.piece-output=atlas): all pieces of a game share one
+-- image and each piece records the top-left corner of its cell in that image.
+-- Both columns stay NULL for games split into one image per piece.
+ALTER TABLE puzzle_pieces ADD COLUMN atlas_x INTEGER;
+ALTER TABLE puzzle_pieces ADD COLUMN atlas_y INTEGER;
@@ -0,0 +1,73 @@
+-- V55__Add_Quiz_Question_Full_Text_Search.sql
+-- Ranked full-text search over quiz questions (Russian + English stemming) with a
+-- trigram index on the question text for typo-tolerant fallback matching.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE quiz_questions ADD COLUMN IF NOT EXISTS search_vector TSVECTOR;
+
+-- Question text ranks above the answer, which ranks above topic/source/extra info.
+-- Each field is indexed with both stemmers so queries in either language match.
+CREATE OR REPLACE FUNCTION quiz_question_search_vector(
+    p_question TEXT,
+    p_answer TEXT,
+    p_topic TEXT,
+    p_source TEXT,
+    p_additional_info TEXT
+) RETURNS TSVECTOR AS $$
+    SELECT setweight(to_tsvector('russian', coalesce(p_question, '')), 'A')
+        || setweight(to_tsvector('english', coalesce(p_question, '')), 'A')
+        || setweight(to_tsvector('russian', coalesce(p_answer, '')), 'B')
+        || setweight(to_tsvector('english', coalesce(p_answer, '')), 'B')
+        || setweight(to_tsvector('simple', coalesce(p_topic, '')), 'B')
+        || setweight(to_tsvector('simple', coalesce(p_source, '') || ' ' || coalesce(p_additional_info, '')), 'C');
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION update_quiz_question_search_vector()
+RETURNS TRIGGER AS $$
+BEGIN
+    NEW.search_vector := quiz_question_search_vector(
+        NEW.question,
+        NEW.answer,
+        (SELECT name FROM topics WHERE id = NEW.topic_id),
+        NEW.source,
+        NEW.additional_info);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_quiz_question_search_vector ON quiz_questions;
+CREATE TRIGGER trg_quiz_question_search_vector
+    BEFORE INSERT OR UPDATE OF question, answer, topic_id, source, additional_info ON quiz_questions
+    FOR EACH ROW
+    EXECUTE FUNCTION update_quiz_question_search_vector();
+
+-- Renaming a topic re-indexes its questions (touching topic_id fires the row trigger)
+CREATE OR REPLACE FUNCTION reindex_questions_on_topic_rename()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF OLD.name IS DISTINCT FROM NEW.name THEN
+        UPDATE quiz_questions SET topic_id = topic_id WHERE topic_id = NEW.id;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_topic_rename_reindex_questions ON topics;
+CREATE TRIGGER trg_topic_rename_reindex_questions
+    AFTER UPDATE OF name ON topics
+    FOR EACH ROW
+    EXECUTE FUNCTION reindex_questions_on_topic_rename();
+
+-- Backfill existing questions
+UPDATE quiz_questions q
+SET search_vector = quiz_question_search_vector(q.question, q.answer, t.name, q.source, q.additional_info)
+FROM quiz_questions q2
+LEFT JOIN topics t ON t.id = q2.topic_id
+WHERE q2.id = q.id;
+
+CREATE INDEX IF NOT EXISTS idx_quiz_questions_search_vector
+    ON quiz_questions USING GIN (search_vector);
+
+CREATE INDEX IF NOT EXISTS idx_quiz_questions_question_trgm
+    ON quiz_questions USING GIN (lower(question) gin_trgm_ops);
@@ -0,0 +1,69 @@
+-- V56__Add_Quiz_Question_Counters.sql
+-- Question counts per difficulty, topic and media type, kept current by a trigger so
+-- statistics endpoints read a handful of rows instead of scanning quiz_questions.
+
+CREATE TABLE IF NOT EXISTS quiz_question_counters (
+    dimension      VARCHAR(20)  NOT NULL,  -- total | difficulty | topic | media_type
+    bucket         VARCHAR(100) NOT NULL,  -- enum name, topic id, or 'all' for total
+    question_count BIGINT       NOT NULL DEFAULT 0,
+    PRIMARY KEY (dimension, bucket)
+);
+
+CREATE OR REPLACE FUNCTION bump_quiz_question_counter(p_dimension TEXT, p_bucket TEXT, p_delta BIGINT)
+RETURNS VOID AS $$
+BEGIN
+    IF p_bucket IS NULL OR p_delta = 0 THEN
+        RETURN;
+    END IF;
+    INSERT INTO quiz_question_counters (dimension, bucket, question_count)
+    VALUES (p_dimension, p_bucket, p_delta)
+    ON CONFLICT (dimension, bucket)
+        DO UPDATE SET question_count = quiz_question_counters.question_count + EXCLUDED.question_count;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION maintain_quiz_question_counters()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM bump_quiz_question_counter('difficulty', OLD.difficulty::TEXT, -1);
+        PERFORM bump_quiz_question_counter('topic', OLD.topic_id::TEXT, -1);
+        PERFORM bump_quiz_question_counter('media_type', OLD.question_media_type::TEXT, -1);
+    END IF;
+    IF TG_OP IN ('UPDATE', 'INSERT') THEN
+        PERFORM bump_quiz_question_counter('difficulty', NEW.difficulty::TEXT, 1);
+        PERFORM bump_quiz_question_counter('topic', NEW.topic_id::TEXT, 1);
+        PERFORM bump_quiz_question_counter('media_type', NEW.question_media_type::TEXT, 1);
+    END IF;
+    IF TG_OP = 'INSERT' THEN
+        PERFORM bump_quiz_question_counter('total', 'all', 1);
+    ELSIF TG_OP = 'DELETE' THEN
+        PERFORM bump_quiz_question_counter('total', 'all', -1);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_quiz_question_counters ON quiz_questions;
+CREATE TRIGGER trg_quiz_question_counters
+    AFTER INSERT OR DELETE OR UPDATE OF difficulty, topic_id, question_media_type ON quiz_questions
+    FOR EACH ROW
+    EXECUTE FUNCTION maintain_quiz_question_counters();
+
+-- Backfill from the current contents
+TRUNCATE quiz_question_counters;
+
+INSERT INTO quiz_question_counters (dimension, bucket, question_count)
+SELECT 'total', 'all', COUNT(*) FROM quiz_questions;
+
+INSERT INTO quiz_question_counters (dimension, bucket, question_count)
+SELECT 'difficulty', difficulty::TEXT, COUNT(*) FROM quiz_questions
+WHERE difficulty IS NOT NULL GROUP BY difficulty;
+
+INSERT INTO quiz_question_counters (dimension, bucket, question_count)
+SELECT 'topic', topic_id::TEXT, COUNT(*) FROM quiz_questions
+WHERE topic_id IS NOT NULL GROUP BY topic_id;
+
+INSERT INTO quiz_question_counters (dimension, bucket, question_count)
+SELECT 'media_type', question_media_type::TEXT, COUNT(*) FROM quiz_questions
+WHERE question_media_type IS NOT NULL GROUP BY question_media_type;
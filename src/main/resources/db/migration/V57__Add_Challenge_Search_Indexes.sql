@@ -0,0 +1,45 @@
+-- V57__Add_Challenge_Search_Indexes.sql
+-- Full-text search over challenges and indexes for access-aware keyset pagination
+-- ordered by (start date, id), newest first.
+
+ALTER TABLE challenges ADD COLUMN IF NOT EXISTS search_vector TSVECTOR;
+
+CREATE OR REPLACE FUNCTION challenge_search_vector(p_title TEXT, p_description TEXT)
+RETURNS TSVECTOR AS $$
+    SELECT setweight(to_tsvector('russian', coalesce(p_title, '')), 'A')
+        || setweight(to_tsvector('english', coalesce(p_title, '')), 'A')
+        || setweight(to_tsvector('russian', coalesce(p_description, '')), 'B')
+        || setweight(to_tsvector('english', coalesce(p_description, '')), 'B');
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION update_challenge_search_vector()
+RETURNS TRIGGER AS $$
+BEGIN
+    NEW.search_vector := challenge_search_vector(NEW.title, NEW.description);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_challenge_search_vector ON challenges;
+CREATE TRIGGER trg_challenge_search_vector
+    BEFORE INSERT OR UPDATE OF title, description ON challenges
+    FOR EACH ROW
+    EXECUTE FUNCTION update_challenge_search_vector();
+
+UPDATE challenges SET search_vector = challenge_search_vector(title, description);
+
+CREATE INDEX IF NOT EXISTS idx_challenges_search_vector
+    ON challenges USING GIN (search_vector);
+
+-- Seek key: challenges without a start date sort last
+CREATE INDEX IF NOT EXISTS idx_challenges_seek
+    ON challenges ((COALESCE(start_date, '-infinity'::TIMESTAMPTZ)) DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_challenges_public_seek
+    ON challenges ((COALESCE(start_date, '-infinity'::TIMESTAMPTZ)) DESC, id DESC)
+    WHERE is_public = TRUE;
+
+-- Visibility check for private challenges
+CREATE INDEX IF NOT EXISTS idx_challenge_access_active_user
+    ON challenge_access (user_id, challenge_id)
+    WHERE status = 'ACTIVE';
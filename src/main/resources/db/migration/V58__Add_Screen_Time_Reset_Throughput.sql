@@ -0,0 +1,11 @@
+-- V58__Add_Screen_Time_Reset_Throughput.sql
+-- Chunked screen time resets: per-run chunk statistics on the audit log and a seek index
+-- for walking a timezone's budgets in id order.
+
+ALTER TABLE screen_time_reset_logs ADD COLUMN IF NOT EXISTS chunks_processed INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE screen_time_reset_logs ADD COLUMN IF NOT EXISTS slowest_chunk_ms BIGINT;
+ALTER TABLE screen_time_reset_logs ADD COLUMN IF NOT EXISTS rows_per_second DOUBLE PRECISION;
+
+CREATE INDEX IF NOT EXISTS idx_screen_time_reset_seek
+    ON screen_time_budgets (timezone, id)
+    WHERE screen_time_enabled = TRUE;
@@ -0,0 +1,19 @@
+-- V59__Create_Photo_Features.sql
+-- Analysis results of uploaded verification photos (labels, person bounding box and shirt ORB
+-- descriptors), so a later comparison never re-reads, re-decodes or re-labels a stored photo.
+
+CREATE TABLE IF NOT EXISTS photo_features (
+    photo_path       VARCHAR(1000) PRIMARY KEY,
+    labels           TEXT NOT NULL DEFAULT '',
+    person_left      REAL,
+    person_top       REAL,
+    person_width     REAL,
+    person_height    REAL,
+    descriptor_rows  INTEGER NOT NULL DEFAULT 0,
+    descriptor_cols  INTEGER NOT NULL DEFAULT 0,
+    descriptors      BYTEA,
+    created_at       TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE photo_features IS 'Cached analysis of stored verification photos, keyed by task completion proof path';
+COMMENT ON COLUMN photo_features.labels IS 'Lower-case Rekognition label names, one per line';
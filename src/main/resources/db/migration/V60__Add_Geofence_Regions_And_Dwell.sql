@@ -0,0 +1,20 @@
+-- V60__Add_Geofence_Regions_And_Dwell.sql
+-- Location challenges: polygon target areas and a required dwell time per verification
+-- details row, and the persisted dwell state of users currently inside a target.
+
+ALTER TABLE verification_details ADD COLUMN IF NOT EXISTS boundary TEXT;
+ALTER TABLE verification_details ADD COLUMN IF NOT EXISTS dwell_seconds INTEGER;
+
+COMMENT ON COLUMN verification_details.boundary IS 'Polygon target area as "lat,lon;lat,lon;..."; overrides the coordinates and radius when set';
+COMMENT ON COLUMN verification_details.dwell_seconds IS 'Continuous time a user must stay inside the target before the check-in is verified';
+
+CREATE TABLE IF NOT EXISTS location_dwell (
+    task_id         BIGINT NOT NULL,
+    user_id         BIGINT NOT NULL,
+    entered_at      TIMESTAMP,
+    last_inside_at  TIMESTAMP,
+    updated_at      TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (task_id, user_id)
+);
+
+COMMENT ON TABLE location_dwell IS 'Write-behind copy of in-memory geofence dwell tracking; entered_at is NULL while the user is outside';
@@ -0,0 +1,34 @@
+-- V61__Guard_Quiz_Question_Search_Vector_Trigger.sql
+-- Hibernate issues full-column UPDATEs (e.g. usage-count bumps), which listed every
+-- indexed column and recomputed to_tsvector on each question use. The UPDATE trigger now
+-- only fires when an indexed value actually changes.
+
+DROP TRIGGER IF EXISTS trg_quiz_question_search_vector ON quiz_questions;
+
+CREATE TRIGGER trg_quiz_question_search_vector_insert
+    BEFORE INSERT ON quiz_questions
+    FOR EACH ROW
+    EXECUTE FUNCTION update_quiz_question_search_vector();
+
+CREATE TRIGGER trg_quiz_question_search_vector_update
+    BEFORE UPDATE OF question, answer, topic_id, source, additional_info ON quiz_questions
+    FOR EACH ROW
+    WHEN (OLD.question IS DISTINCT FROM NEW.question
+        OR OLD.answer IS DISTINCT FROM NEW.answer
+        OR OLD.topic_id IS DISTINCT FROM NEW.topic_id
+        OR OLD.source IS DISTINCT FROM NEW.source
+        OR OLD.additional_info IS DISTINCT FROM NEW.additional_info)
+    EXECUTE FUNCTION update_quiz_question_search_vector();
+
+-- A no-op topic_id update no longer fires the row trigger, so renames re-index directly
+CREATE OR REPLACE FUNCTION reindex_questions_on_topic_rename()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF OLD.name IS DISTINCT FROM NEW.name THEN
+        UPDATE quiz_questions
+        SET search_vector = quiz_question_search_vector(question, answer, NEW.name, source, additional_info)
+        WHERE topic_id = NEW.id;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,56 @@
+-- V62__Guard_Quiz_Question_Counter_Trigger.sql
+-- The counter trigger bumped -1/+1 on every UPDATE that merely listed the classified
+-- columns (Hibernate writes full rows), and every insert/delete locked the single
+-- 'total' row, serializing all question writes. Updates now only touch the dimensions
+-- whose value changed, and the total is the sum of the per-difficulty rows; questions
+-- without a difficulty are counted under the 'UNSPECIFIED' bucket so the sum is exact.
+
+CREATE OR REPLACE FUNCTION maintain_quiz_question_counters()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM bump_quiz_question_counter('difficulty', COALESCE(NEW.difficulty::TEXT, 'UNSPECIFIED'), 1);
+        PERFORM bump_quiz_question_counter('topic', NEW.topic_id::TEXT, 1);
+        PERFORM bump_quiz_question_counter('media_type', NEW.question_media_type::TEXT, 1);
+    ELSIF TG_OP = 'DELETE' THEN
+        PERFORM bump_quiz_question_counter('difficulty', COALESCE(OLD.difficulty::TEXT, 'UNSPECIFIED'), -1);
+        PERFORM bump_quiz_question_counter('topic', OLD.topic_id::TEXT, -1);
+        PERFORM bump_quiz_question_counter('media_type', OLD.question_media_type::TEXT, -1);
+    ELSE
+        IF OLD.difficulty IS DISTINCT FROM NEW.difficulty THEN
+            PERFORM bump_quiz_question_counter('difficulty', COALESCE(OLD.difficulty::TEXT, 'UNSPECIFIED'), -1);
+            PERFORM bump_quiz_question_counter('difficulty', COALESCE(NEW.difficulty::TEXT, 'UNSPECIFIED'), 1);
+        END IF;
+        IF OLD.topic_id IS DISTINCT FROM NEW.topic_id THEN
+            PERFORM bump_quiz_question_counter('topic', OLD.topic_id::TEXT, -1);
+            PERFORM bump_quiz_question_counter('topic', NEW.topic_id::TEXT, 1);
+        END IF;
+        IF OLD.question_media_type IS DISTINCT FROM NEW.question_media_type THEN
+            PERFORM bump_quiz_question_counter('media_type', OLD.question_media_type::TEXT, -1);
+            PERFORM bump_quiz_question_counter('media_type', NEW.question_media_type::TEXT, 1);
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_quiz_question_counters ON quiz_questions;
+
+CREATE TRIGGER trg_quiz_question_counters
+    AFTER INSERT OR DELETE ON quiz_questions
+    FOR EACH ROW
+    EXECUTE FUNCTION maintain_quiz_question_counters();
+
+CREATE TRIGGER trg_quiz_question_counters_update
+    AFTER UPDATE OF difficulty, topic_id, question_media_type ON quiz_questions
+    FOR EACH ROW
+    WHEN (OLD.difficulty IS DISTINCT FROM NEW.difficulty
+        OR OLD.topic_id IS DISTINCT FROM NEW.topic_id
+        OR OLD.question_media_type IS DISTINCT FROM NEW.question_media_type)
+    EXECUTE FUNCTION maintain_quiz_question_counters();
+
+DELETE FROM quiz_question_counters WHERE dimension = 'total';
+
+INSERT INTO quiz_question_counters (dimension, bucket, question_count)
+SELECT 'difficulty', 'UNSPECIFIED', COUNT(*) FROM quiz_questions WHERE difficulty IS NULL
+ON CONFLICT (dimension, bucket) DO UPDATE SET question_count = EXCLUDED.question_count;
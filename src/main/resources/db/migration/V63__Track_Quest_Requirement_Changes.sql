@@ -0,0 +1,40 @@
+-- V63__Track_Quest_Requirement_Changes.sql
+-- Challenge score requirements are cached per node and were only dropped when a quest changed
+-- through JPA on the same node. Links in challenge_quests are not mapped and are written
+-- directly, so they never triggered an eviction. Every statement that changes a link or a
+-- quest's minimum score now bumps a single version row, which each node polls.
+
+CREATE TABLE IF NOT EXISTS quest_requirement_version
+(
+    id      SMALLINT PRIMARY KEY DEFAULT 1 CHECK (id = 1),
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+COMMENT ON TABLE quest_requirement_version IS 'Change counter of challenge_quests links and quest minimum scores';
+
+INSERT INTO quest_requirement_version (id, version)
+VALUES (1, 0)
+ON CONFLICT (id) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION bump_quest_requirement_version()
+RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE quest_requirement_version SET version = version + 1 WHERE id = 1;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_challenge_quests_requirement_version ON challenge_quests;
+
+-- Statement level: a bulk relink bumps the version once
+CREATE TRIGGER trg_challenge_quests_requirement_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON challenge_quests
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION bump_quest_requirement_version();
+
+DROP TRIGGER IF EXISTS trg_quests_requirement_version ON quests;
+
+CREATE TRIGGER trg_quests_requirement_version
+    AFTER INSERT OR DELETE OR UPDATE OF minimum_score_percentage ON quests
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION bump_quest_requirement_version();
@@ -0,0 +1,21 @@
+-- V64__Create_Photo_Verification_Jobs.sql
+-- Last known state of every asynchronous photo verification job. Jobs run on the node that
+-- accepted them, but their state is read from any node and must outlive a restart, so each
+-- state change is written here as well as pushed to the user.
+
+CREATE TABLE IF NOT EXISTS photo_verification_jobs (
+    job_id        VARCHAR(36) PRIMARY KEY,
+    username      VARCHAR(255) NOT NULL,
+    challenge_id  BIGINT NOT NULL,
+    state         VARCHAR(20) NOT NULL,
+    attempt       INTEGER NOT NULL DEFAULT 1,
+    is_verified   BOOLEAN,
+    message       TEXT,
+    details       TEXT,
+    updated_at    TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_photo_verification_jobs_updated_at ON photo_verification_jobs (updated_at);
+
+COMMENT ON TABLE photo_verification_jobs IS 'State of asynchronous photo verification jobs, kept for the retention period';
+COMMENT ON COLUMN photo_verification_jobs.details IS 'Verification result of a completed job as JSON';
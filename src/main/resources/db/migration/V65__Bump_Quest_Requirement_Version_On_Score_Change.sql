@@ -0,0 +1,20 @@
+-- V65__Bump_Quest_Requirement_Version_On_Score_Change.sql
+-- The V63 trigger on quests fired for every UPDATE that listed minimum_score_percentage,
+-- and Hibernate lists every column, so any quest save invalidated the requirement caches of
+-- all nodes. Updates now bump the version only for rows whose minimum score actually
+-- changed; inserts and deletes keep the statement-level trigger.
+
+DROP TRIGGER IF EXISTS trg_quests_requirement_version ON quests;
+
+CREATE TRIGGER trg_quests_requirement_version
+    AFTER INSERT OR DELETE ON quests
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION bump_quest_requirement_version();
+
+DROP TRIGGER IF EXISTS trg_quests_minimum_score_version ON quests;
+
+CREATE TRIGGER trg_quests_minimum_score_version
+    AFTER UPDATE OF minimum_score_percentage ON quests
+    FOR EACH ROW
+    WHEN (OLD.minimum_score_percentage IS DISTINCT FROM NEW.minimum_score_percentage)
+    EXECUTE FUNCTION bump_quest_requirement_version();
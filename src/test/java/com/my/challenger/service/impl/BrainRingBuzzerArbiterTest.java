@@ -0,0 +1,120 @@
+package com.my.challenger.service.impl;
+
+import com.my.challenger.entity.enums.BrainRingRoundStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BrainRingBuzzerArbiterTest {
+
+    private final BrainRingBuzzerArbiter arbiter = new BrainRingBuzzerArbiter();
+
+    @Test
+    void buzz_ShouldElectExactlyOneWinnerUnderContention() throws Exception {
+        BrainRingBuzzerArbiter.RoundBuzzer buzzer = arbiter.register(1L, 20);
+        int players = 12;
+        ExecutorService pool = Executors.newFixedThreadPool(players);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<BrainRingBuzzerArbiter.BuzzResult>> results = new ArrayList<>();
+
+        try {
+            for (long userId = 1; userId <= players; userId++) {
+                long id = userId;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return buzzer.buzz(id, Instant.now());
+                }));
+            }
+            start.countDown();
+
+            int winners = 0;
+            for (Future<BrainRingBuzzerArbiter.BuzzResult> result : results) {
+                if (result.get(5, TimeUnit.SECONDS).outcome() == BrainRingBuzzerArbiter.BuzzOutcome.FIRST_BUZZER) {
+                    winners++;
+                }
+            }
+            assertEquals(1, winners);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        BrainRingBuzzerArbiter.RoundSnapshot snapshot = buzzer.snapshot();
+        assertEquals(BrainRingRoundStatus.PLAYER_ANSWERING, snapshot.status());
+        assertNotNull(snapshot.claim());
+        assertTrue(snapshot.buzzOrder().stream().anyMatch(e -> e.userId().equals(snapshot.claim().userId())));
+        assertTrue(arbiter.drainDirtyRounds().contains(1L));
+    }
+
+    @Test
+    void lockOut_ShouldReopenRoundAndRejectLockedPlayer() {
+        BrainRingBuzzerArbiter.RoundBuzzer buzzer = arbiter.register(2L, 20);
+
+        assertEquals(BrainRingBuzzerArbiter.BuzzOutcome.FIRST_BUZZER, buzzer.buzz(7L, Instant.now()).outcome());
+        assertEquals(BrainRingBuzzerArbiter.BuzzOutcome.ROUND_NOT_OPEN, buzzer.buzz(8L, Instant.now()).outcome());
+
+        buzzer.lockOut(7L);
+
+        assertEquals(BrainRingRoundStatus.WAITING_FOR_BUZZ, buzzer.status());
+        assertEquals(BrainRingBuzzerArbiter.BuzzOutcome.LOCKED_OUT, buzzer.buzz(7L, Instant.now()).outcome());
+        assertEquals(BrainRingBuzzerArbiter.BuzzOutcome.FIRST_BUZZER, buzzer.buzz(8L, Instant.now()).outcome());
+    }
+
+    @Test
+    void complete_ShouldCloseRoundAndAllowEvictionOnceFlushed() {
+        BrainRingBuzzerArbiter.RoundBuzzer buzzer = arbiter.register(3L, 20);
+        buzzer.buzz(5L, Instant.now());
+        buzzer.complete(5L);
+
+        assertEquals(BrainRingRoundStatus.CORRECT_ANSWER, buzzer.status());
+        assertEquals(BrainRingBuzzerArbiter.BuzzOutcome.ROUND_NOT_OPEN, buzzer.buzz(6L, Instant.now()).outcome());
+
+        // Dirty rounds are kept until they have been persisted
+        assertEquals(0, arbiter.evictInactive(Instant.now().minusSeconds(60)));
+        arbiter.drainDirtyRounds();
+        assertEquals(1, arbiter.evictInactive(Instant.now().minusSeconds(60)));
+        assertTrue(arbiter.find(3L).isEmpty());
+    }
+
+    @Test
+    void restore_ShouldNotMarkRoundDirty() {
+        BrainRingBuzzerArbiter.RoundSnapshot persisted = new BrainRingBuzzerArbiter.RoundSnapshot(
+                BrainRingRoundStatus.WAITING_FOR_BUZZ, null, null, List.of(4L), List.of());
+
+        BrainRingBuzzerArbiter.RoundBuzzer buzzer = arbiter.installIfAbsent(arbiter.restore(4L, 20, persisted));
+
+        assertTrue(buzzer.isLockedOut(4L));
+        assertTrue(arbiter.drainDirtyRounds().isEmpty());
+    }
+
+    @Test
+    void installIfAbsent_ShouldKeepTheBuzzerThatWonTheRace() {
+        BrainRingBuzzerArbiter.RoundBuzzer live = arbiter.register(5L, 20);
+        BrainRingBuzzerArbiter.RoundSnapshot persisted = new BrainRingBuzzerArbiter.RoundSnapshot(
+                BrainRingRoundStatus.WAITING_FOR_BUZZ, null, null, List.of(), List.of());
+
+        assertSame(live, arbiter.installIfAbsent(arbiter.restore(5L, 20, persisted)));
+    }
+
+    @Test
+    void withRound_ShouldReportEvictedRoundsAsAbsent() {
+        BrainRingBuzzerArbiter.RoundBuzzer buzzer = arbiter.register(6L, 20);
+        buzzer.complete(null);
+        arbiter.drainDirtyRounds();
+        assertEquals(1, arbiter.evictInactive(Instant.now().minusSeconds(60)));
+
+        // A buzz that raced with eviction sees no live round and must restore before retrying
+        assertTrue(arbiter.withRound(6L, b -> b.buzz(9L, Instant.now())).isEmpty());
+        // Mutating the stale instance must not resurrect write-behind for a round it no longer owns
+        buzzer.lockOut(9L);
+        assertTrue(arbiter.drainDirtyRounds().isEmpty());
+    }
+}
@@ -0,0 +1,197 @@
+package com.my.challenger.service.impl;
+
+import com.my.challenger.entity.enums.AudioChallengeType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchmakingEngineTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T12:00:00Z");
+
+    private final MatchmakingEngine engine = new MatchmakingEngine(100, 20, 1000, 30);
+
+    private static MatchmakingEngine.Ticket ticket(long userId, AudioChallengeType type, int rounds,
+                                                   int rating, Instant queuedAt) {
+        return new MatchmakingEngine.Ticket(userId * 10, userId, type, rounds, rating,
+                queuedAt, queuedAt.plus(Duration.ofHours(1)));
+    }
+
+    @Test
+    void enqueue_ShouldPairImmediatelyWithinRatingWindow() {
+        assertTrue(engine.enqueue(ticket(1, AudioChallengeType.SINGING, 3, 1000, T0), T0).isEmpty());
+
+        Optional<MatchmakingEngine.Pair> pair = engine.enqueue(ticket(2, AudioChallengeType.SINGING, 3, 1050, T0), T0);
+
+        assertTrue(pair.isPresent());
+        assertEquals(1L, pair.get().first().userId());
+        assertEquals(2L, pair.get().second().userId());
+        assertEquals(0, engine.size());
+    }
+
+    @Test
+    void enqueue_ShouldNotPairAcrossBuckets() {
+        engine.enqueue(ticket(1, AudioChallengeType.SINGING, 3, 1000, T0), T0);
+
+        assertTrue(engine.enqueue(ticket(2, AudioChallengeType.SINGING, 5, 1000, T0), T0).isEmpty());
+        assertTrue(engine.enqueue(ticket(3, AudioChallengeType.SOUND_MATCH, 3, 1000, T0), T0).isEmpty());
+        assertEquals(3, engine.size());
+    }
+
+    @Test
+    void requeue_ShouldWaitForTheNextSweepInsteadOfPairing() {
+        MatchmakingEngine.Ticket first = ticket(1, AudioChallengeType.SINGING, 3, 1000, T0);
+        MatchmakingEngine.Ticket second = ticket(2, AudioChallengeType.SINGING, 3, 1000, T0);
+
+        engine.requeue(first);
+        engine.requeue(second);
+
+        assertEquals(2, engine.size());
+        assertEquals(1, engine.sweep(T0.plusSeconds(1)).size());
+    }
+
+    @Test
+    void enqueue_ShouldPreferClosestRating() {
+        engine.enqueue(ticket(1, AudioChallengeType.SINGING, 1, 900, T0), T0);
+        engine.enqueue(ticket(2, AudioChallengeType.SINGING, 1, 1080, T0), T0);
+
+        MatchmakingEngine.Pair pair = engine.enqueue(ticket(3, AudioChallengeType.SINGING, 1, 1060, T0), T0).orElseThrow();
+
+        assertEquals(2L, pair.first().userId());
+    }
+
+    @Test
+    void sweep_ShouldPairDistantRatingsOnceWindowsWiden() {
+        engine.enqueue(ticket(1, AudioChallengeType.RHYTHM_REPEAT, 1, 1000, T0), T0);
+        engine.enqueue(ticket(2, AudioChallengeType.RHYTHM_REPEAT, 1, 1400, T0), T0);
+
+        assertTrue(engine.sweep(T0.plusSeconds(5)).isEmpty());
+        // 100 + 15s * 20 = 400
+        List<MatchmakingEngine.Pair> pairs = engine.sweep(T0.plusSeconds(15));
+
+        assertEquals(1, pairs.size());
+        assertEquals(0, engine.size());
+    }
+
+    @Test
+    void sweep_ShouldDropExpiredTickets() {
+        engine.enqueue(ticket(1, AudioChallengeType.SINGING, 1, 1000, T0), T0);
+
+        engine.sweep(T0.plus(Duration.ofHours(2)));
+
+        assertFalse(engine.contains(1L));
+    }
+
+    @Test
+    void standing_ShouldReflectArrivalOrderAfterRemovals() {
+        for (long userId = 1; userId <= 5; userId++) {
+            engine.enqueue(ticket(userId, AudioChallengeType.SINGING, 1, (int) (userId * 5000), T0.plusSeconds(userId)), T0);
+        }
+
+        assertEquals(5, engine.standing(5L, T0).orElseThrow().position());
+        engine.remove(2L);
+        engine.remove(3L);
+
+        MatchmakingEngine.Standing standing = engine.standing(5L, T0).orElseThrow();
+        assertEquals(3, standing.position());
+        assertEquals(3, standing.queueSize());
+        assertEquals(1, engine.standing(1L, T0).orElseThrow().position());
+    }
+
+    @Test
+    void standing_ShouldSurviveIndexCompaction() {
+        // Far-apart ratings never pair, so every enqueue consumes a new arrival slot
+        for (long userId = 1; userId <= 200; userId++) {
+            engine.enqueue(ticket(userId, AudioChallengeType.SINGING, 1, (int) (userId * 5000), T0), T0);
+            if (userId % 2 == 0) {
+                engine.remove(userId - 1);
+            }
+        }
+
+        assertEquals(100, engine.standing(200L, T0).orElseThrow().position());
+        assertEquals(1, engine.standing(2L, T0).orElseThrow().position());
+    }
+
+    /**
+     * Load simulation: players arrive over ten simulated minutes with normally distributed
+     * ratings across all buckets; the sweep runs every simulated second. Everyone must end up
+     * matched exactly once, and typical waits should stay short.
+     */
+    @Test
+    void simulation_ShouldMatchEveryoneExactlyOnceWithShortWaits() {
+        // Ratings are clamped into the maximum window so long waiters can always pair
+        MatchmakingEngine engine = new MatchmakingEngine(100, 20, 2000, 30);
+        Random random = new Random(7);
+        AudioChallengeType[] types = AudioChallengeType.values();
+        int[] roundOptions = {1, 3, 5};
+        int players = 20_000;
+        int simulatedSeconds = 600;
+
+        Set<Long> matched = new HashSet<>();
+        List<Long> waitsMillis = new ArrayList<>();
+        long nextUser = 1;
+
+        for (int second = 0; second <= simulatedSeconds + 120; second++) {
+            Instant now = T0.plusSeconds(second);
+            int arrivals = second < simulatedSeconds ? players / simulatedSeconds : 0;
+            for (int i = 0; i < arrivals; i++) {
+                int rating = (int) Math.max(0, Math.min(2000, Math.round(1000 + random.nextGaussian() * 250)));
+                MatchmakingEngine.Ticket ticket = ticket(nextUser++, types[random.nextInt(types.length)],
+                        roundOptions[random.nextInt(roundOptions.length)], rating,
+                        now.plusMillis(i * 1000L / arrivals));
+                engine.enqueue(ticket, ticket.queuedAt()).ifPresent(pair -> record(pair, ticket.queuedAt(), matched, waitsMillis));
+            }
+            engine.sweep(now.plusSeconds(1)).forEach(pair -> record(pair, now.plusSeconds(1), matched, waitsMillis));
+        }
+
+        long total = nextUser - 1;
+        assertEquals(total, matched.size() + engine.size());
+        assertTrue(engine.size() <= types.length * roundOptions.length,
+                "At most one player per bucket may be left without an opponent");
+
+        long[] sorted = waitsMillis.stream().mapToLong(Long::longValue).sorted().toArray();
+        long p50 = sorted[sorted.length / 2];
+        long p99 = sorted[(int) (sorted.length * 0.99)];
+        assertTrue(p50 < 2_000, "median wait " + p50 + " ms");
+        assertTrue(p99 < 30_000, "p99 wait " + p99 + " ms");
+        assertTrue(Arrays.stream(sorted).allMatch(w -> w >= 0));
+    }
+
+    @Test
+    void avoid_ShouldKeepAFailedPairApartUntilTheBackoffEnds() {
+        MatchmakingEngine.Ticket first = ticket(1, AudioChallengeType.SINGING, 3, 1000, T0);
+        MatchmakingEngine.Ticket second = ticket(2, AudioChallengeType.SINGING, 3, 1000, T0);
+        engine.avoid(new MatchmakingEngine.Pair(first, second), T0.plusSeconds(30));
+
+        engine.requeue(first);
+        engine.requeue(second);
+        assertTrue(engine.sweep(T0.plusSeconds(1)).isEmpty());
+
+        Optional<MatchmakingEngine.Pair> other = engine.enqueue(
+                ticket(3, AudioChallengeType.SINGING, 3, 1000, T0.plusSeconds(2)), T0.plusSeconds(2));
+        assertTrue(other.isPresent());
+        assertEquals(1, engine.size());
+
+        engine.requeue(first);
+        assertEquals(1, engine.sweep(T0.plusSeconds(31)).size());
+    }
+
+    private static void record(MatchmakingEngine.Pair pair, Instant at, Set<Long> matched, List<Long> waits) {
+        for (MatchmakingEngine.Ticket t : List.of(pair.first(), pair.second())) {
+            assertTrue(matched.add(t.userId()), "user " + t.userId() + " matched twice");
+            waits.add(Duration.between(t.queuedAt(), at).toMillis());
+        }
+        assertEquals(pair.first().type(), pair.second().type());
+        assertEquals(pair.first().rounds(), pair.second().rounds());
+    }
+}
@@ -0,0 +1,68 @@
+package com.my.challenger.service.impl;
+
+import com.my.challenger.entity.listener.QuestEntityListener.QuestChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestRequirementResolverTest {
+
+    @Test
+    void find_ShouldCacheRequirementsPerChallenge() {
+        AtomicInteger loads = new AtomicInteger();
+        QuestRequirementResolver resolver = new QuestRequirementResolver(challengeId -> {
+            loads.incrementAndGet();
+            return challengeId == 1L
+                    ? Optional.of(new QuestRequirementResolver.Requirement(10L, 70))
+                    : Optional.empty();
+        }, () -> 0L, 100, 30);
+
+        assertEquals(70, resolver.find(1L).orElseThrow().minimumScorePercentage());
+        assertEquals(70, resolver.find(1L).orElseThrow().minimumScorePercentage());
+        assertTrue(resolver.find(2L).isEmpty());
+        assertTrue(resolver.find(2L).isEmpty());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void onQuestChanged_ShouldReloadRequirements() {
+        int[] minScore = {50};
+        QuestRequirementResolver resolver = new QuestRequirementResolver(
+                challengeId -> Optional.of(new QuestRequirementResolver.Requirement(10L, minScore[0])), () -> 0L, 100, 30);
+        assertEquals(50, resolver.find(1L).orElseThrow().minimumScorePercentage());
+
+        minScore[0] = 80;
+        assertEquals(50, resolver.find(1L).orElseThrow().minimumScorePercentage());
+        resolver.onQuestChanged(new QuestChangedEvent(10L));
+
+        assertEquals(80, resolver.find(1L).orElseThrow().minimumScorePercentage());
+    }
+
+    @Test
+    void pollVersion_ShouldReloadRequirementsWhenLinksChange() {
+        long[] version = {5};
+        int[] minScore = {50};
+        AtomicInteger loads = new AtomicInteger();
+        QuestRequirementResolver resolver = new QuestRequirementResolver(challengeId -> {
+            loads.incrementAndGet();
+            return Optional.of(new QuestRequirementResolver.Requirement(10L, minScore[0]));
+        }, () -> version[0], 100, 30);
+        resolver.pollVersion();
+        assertEquals(50, resolver.find(1L).orElseThrow().minimumScorePercentage());
+
+        // Unchanged version keeps the cached requirement
+        minScore[0] = 80;
+        resolver.pollVersion();
+        assertEquals(50, resolver.find(1L).orElseThrow().minimumScorePercentage());
+        assertEquals(1, loads.get());
+
+        // A relink through challenge_quests bumps the version
+        version[0]++;
+        resolver.pollVersion();
+        assertEquals(80, resolver.find(1L).orElseThrow().minimumScorePercentage());
+        assertEquals(2, loads.get());
+    }
+}
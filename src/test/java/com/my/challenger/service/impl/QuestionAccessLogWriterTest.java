@@ -0,0 +1,108 @@
+package com.my.challenger.service.impl;
+
+import com.my.challenger.entity.enums.QuestionAccessType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuestionAccessLogWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+    }
+
+    private QuestionAccessLogWriter writer(int capacity, int batchSize) {
+        QuestionAccessLogWriter writer = new QuestionAccessLogWriter(
+                jdbcTemplate, transactionManager, meterRegistry, capacity, batchSize);
+        writer.initMetrics();
+        return writer;
+    }
+
+    private double counter(String name) {
+        return meterRegistry.counter(name).count();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldWriteBufferedEntriesInTransactionalBatches() {
+        QuestionAccessLogWriter writer = writer(100, 2);
+        for (long questionId = 1; questionId <= 5; questionId++) {
+            assertTrue(writer.enqueue(questionId, 7L, QuestionAccessType.VIEW));
+        }
+
+        writer.flush();
+
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        verify(transactionManager, times(3)).commit(any());
+        assertEquals(0, writer.pending());
+        assertEquals(5, counter("question.access.log.written"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldRetryFailedBatchRowByRowInsideTransactions() {
+        QuestionAccessLogWriter writer = writer(100, 10);
+        writer.enqueue(1L, 7L, QuestionAccessType.VIEW);
+        writer.enqueue(2L, 7L, QuestionAccessType.VIEW);
+        writer.enqueue(3L, 7L, QuestionAccessType.VIEW);
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataIntegrityViolationException("question 2 was deleted"));
+        when(jdbcTemplate.update(anyString(), eq(2L), any(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("question 2 was deleted"));
+
+        writer.flush();
+
+        verify(jdbcTemplate, times(3)).update(anyString(), any(), any(), any(), any());
+        // One transaction for the failed batch, one per retried row; only written rows commit
+        verify(transactionManager, times(4)).getTransaction(any());
+        verify(transactionManager, times(2)).commit(any());
+        verify(transactionManager, times(2)).rollback(any());
+        assertEquals(2, counter("question.access.log.written"));
+        assertEquals(1, counter("question.access.log.failed"));
+    }
+
+    @Test
+    void enqueue_ShouldDropAndCountEntriesWhenBufferIsFull() {
+        QuestionAccessLogWriter writer = writer(2, 10);
+
+        assertTrue(writer.enqueue(1L, 7L, QuestionAccessType.VIEW));
+        assertTrue(writer.enqueue(2L, 7L, QuestionAccessType.VIEW));
+        assertFalse(writer.enqueue(3L, 7L, QuestionAccessType.VIEW));
+
+        assertEquals(2, writer.pending());
+        assertEquals(1, writer.droppedCount());
+        assertEquals(1, counter("question.access.log.dropped"));
+        assertEquals(2, counter("question.access.log.enqueued"));
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,84 @@
+package com.my.challenger.service.impl;
+
+import com.my.challenger.entity.User;
+import com.my.challenger.entity.enums.QuestionVisibility;
+import com.my.challenger.entity.quiz.QuizQuestion;
+import com.my.challenger.repository.QuestionAccessLogRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuestionAccessServiceTest {
+
+    private static final Long USER_ID = 1L;
+
+    @Mock
+    private QuestionAccessLogRepository accessLogRepository;
+
+    @Mock
+    private UserRelationshipService relationshipService;
+
+    @Mock
+    private QuestionAccessLogWriter accessLogWriter;
+
+    @InjectMocks
+    private QuestionAccessService accessService;
+
+    private static QuizQuestion question(long creatorId, QuestionVisibility visibility) {
+        return QuizQuestion.builder()
+                .creator(User.builder().id(creatorId).build())
+                .visibility(visibility)
+                .build();
+    }
+
+    @Test
+    void canAccessQuestions_ShouldResolveConnectionsOnceForBatch() {
+        when(relationshipService.getConnectedUserIdSet(USER_ID)).thenReturn(Set.of(2L));
+        List<QuizQuestion> questions = List.of(
+                question(2L, QuestionVisibility.FRIENDS_FAMILY),
+                question(3L, QuestionVisibility.FRIENDS_FAMILY),
+                question(3L, QuestionVisibility.PUBLIC),
+                question(3L, QuestionVisibility.PRIVATE),
+                question(USER_ID, QuestionVisibility.PRIVATE),
+                question(2L, QuestionVisibility.FRIENDS_FAMILY));
+
+        BitSet visible = accessService.canAccessQuestions(questions, USER_ID);
+
+        BitSet expected = new BitSet();
+        expected.set(0);
+        expected.set(2);
+        expected.set(4);
+        expected.set(5);
+        assertEquals(expected, visible);
+        verify(relationshipService, times(1)).getConnectedUserIdSet(USER_ID);
+    }
+
+    @Test
+    void canAccessQuestions_ShouldSkipConnectionLookupWithoutFriendsQuestions() {
+        BitSet visible = accessService.canAccessQuestions(
+                List.of(question(3L, QuestionVisibility.PUBLIC), question(3L, QuestionVisibility.PRIVATE)), USER_ID);
+
+        assertTrue(visible.get(0));
+        assertFalse(visible.get(1));
+        verifyNoInteractions(relationshipService);
+    }
+
+    @Test
+    void filterAccessible_ShouldKeepOrder() {
+        QuizQuestion first = question(3L, QuestionVisibility.PUBLIC);
+        QuizQuestion hidden = question(3L, QuestionVisibility.PRIVATE);
+        QuizQuestion last = question(USER_ID, QuestionVisibility.PRIVATE);
+
+        assertEquals(List.of(first, last), accessService.filterAccessible(List.of(first, hidden, last), USER_ID));
+    }
+}
@@ -0,0 +1,136 @@
+package com.my.challenger.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuizAnswerPipelineTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    private final List<Runnable> submitted = new ArrayList<>();
+    private QuizAnswerPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new QuizAnswerPipeline(submitted::add, transactionManager, messagingTemplate, null, 120);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void afterCommit_ShouldSubmitOnlyOnceCommitted() {
+        TransactionSynchronizationManager.initSynchronization();
+        pipeline.afterCommit(() -> {});
+        assertTrue(submitted.isEmpty());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(1, submitted.size());
+    }
+
+    @Test
+    void afterCommit_ShouldSubmitImmediatelyWithoutTransaction() {
+        pipeline.afterCommit(() -> {});
+
+        assertEquals(1, submitted.size());
+    }
+
+    @Test
+    void afterCommit_ShouldContainTaskFailures() {
+        pipeline.afterCommit(() -> {
+            throw new IllegalStateException("AI unavailable");
+        });
+
+        assertDoesNotThrow(() -> submitted.get(0).run());
+    }
+
+    @Test
+    void afterCommitCall_ShouldRunContinuationOnExecutor() {
+        List<String> results = new ArrayList<>();
+        TransactionSynchronizationManager.initSynchronization();
+        pipeline.afterCommit(() -> Mono.just("verdict"), results::add);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertTrue(results.isEmpty());
+
+        submitted.get(0).run();
+        assertEquals(List.of("verdict"), results);
+    }
+
+    @Test
+    void afterCommitCall_ShouldRunNothingWhenCallFails() {
+        pipeline.afterCommit(() -> Mono.error(new IllegalStateException("AI unavailable")), result -> fail());
+
+        assertTrue(submitted.isEmpty());
+    }
+
+    @Test
+    void afterCommit_ShouldCountRejectedTasksWithoutRunningThem() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        QuizAnswerPipeline full = new QuizAnswerPipeline(task -> {
+            throw new RejectedExecutionException("full");
+        }, transactionManager, messagingTemplate, registry, 120);
+        full.initMetrics();
+        List<String> ran = new ArrayList<>();
+
+        assertDoesNotThrow(() -> full.afterCommit(() -> ran.add("task")));
+
+        assertTrue(ran.isEmpty());
+        assertEquals(1.0, registry.get("quiz.answers.deferred.rejected").counter().count());
+    }
+
+    @Test
+    void pushAfterCommit_ShouldSkipRolledBackTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        pipeline.pushAfterCommit("host", "payload");
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @Test
+    void pushAfterCommit_ShouldSendToPersonalQueue() {
+        pipeline.pushAfterCommit("host", "payload");
+
+        verify(messagingTemplate).convertAndSendToUser(eq("host"), eq(QuizAnswerPipeline.PERSONAL_QUEUE), eq("payload"));
+    }
+
+    @Test
+    void pendingCutoff_ShouldLagByTimeout() {
+        LocalDateTime cutoff = pipeline.pendingCutoff();
+
+        assertTrue(cutoff.isBefore(LocalDateTime.now().minusSeconds(119)));
+        assertTrue(cutoff.isAfter(LocalDateTime.now().minusSeconds(130)));
+    }
+}
@@ -0,0 +1,67 @@
+package com.my.challenger.service.impl;
+
+import com.my.challenger.entity.enums.QuizDifficulty;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomQuestionSamplerTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    void sampleIds_ShouldReturnDistinctIdsFromLargePool() {
+        long[] pool = LongStream.rangeClosed(1, 10_000).toArray();
+
+        long[] sampled = RandomQuestionSampler.sampleIds(List.of(pool), 50, Set.of(), random);
+
+        assertEquals(50, sampled.length);
+        assertEquals(50, Arrays.stream(sampled).distinct().count());
+        assertTrue(Arrays.stream(sampled).allMatch(id -> id >= 1 && id <= 10_000));
+    }
+
+    @Test
+    void sampleIds_ShouldSkipExcludedIds() {
+        long[] pool = LongStream.rangeClosed(1, 20).toArray();
+        Set<Long> excluded = Set.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L, 13L, 14L, 15L);
+
+        long[] sampled = RandomQuestionSampler.sampleIds(List.of(pool), 10, excluded, random);
+
+        assertEquals(5, sampled.length);
+        assertTrue(Arrays.stream(sampled).allMatch(id -> id > 15));
+        assertEquals(5, Arrays.stream(sampled).distinct().count());
+    }
+
+    @Test
+    void sampleIds_ShouldDrawAcrossSegments() {
+        long[] easy = {1, 2, 3};
+        long[] hard = {100, 200};
+
+        long[] sampled = RandomQuestionSampler.sampleIds(List.of(easy, hard), 10, Set.of(), random);
+
+        assertEquals(Set.of(1L, 2L, 3L, 100L, 200L),
+                Set.copyOf(Arrays.stream(sampled).boxed().toList()));
+    }
+
+    @Test
+    void group_ShouldIndexByDifficultyTopicAndCombination() {
+        List<Object[]> rows = List.of(
+                new Object[]{1L, QuizDifficulty.EASY, "History"},
+                new Object[]{2L, QuizDifficulty.EASY, null},
+                new Object[]{3L, QuizDifficulty.HARD, "history"});
+
+        Map<RandomQuestionSampler.PoolKey, long[]> pools = RandomQuestionSampler.group(rows);
+
+        assertArrayEquals(new long[]{1, 2, 3}, pools.get(RandomQuestionSampler.PoolKey.of(null, null)));
+        assertArrayEquals(new long[]{1, 2}, pools.get(RandomQuestionSampler.PoolKey.of(QuizDifficulty.EASY, null)));
+        assertArrayEquals(new long[]{1, 3}, pools.get(RandomQuestionSampler.PoolKey.of(null, " HISTORY ")));
+        assertArrayEquals(new long[]{3}, pools.get(RandomQuestionSampler.PoolKey.of(QuizDifficulty.HARD, "History")));
+    }
+}
@@ -0,0 +1,63 @@
+package com.my.challenger.service.impl;
+
+import com.my.challenger.entity.enums.ChallengeDifficulty;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecommendationFeatureStoreTest {
+
+    @Test
+    void snapshot_ShouldSummarizeCompletedChallenges() {
+        RecommendationFeatureStore.Features features = new RecommendationFeatureStore.Features();
+        features.apply(1L, ChallengeDifficulty.EASY, true);
+        features.apply(2L, ChallengeDifficulty.HARD, true);
+        features.apply(3L, ChallengeDifficulty.EXPERT, false);
+
+        RecommendationFeatureStore.UserSkillProfile profile = features.snapshot();
+
+        assertTrue(profile.hasCompleted());
+        assertEquals(2, profile.completedCount());
+        assertEquals(3.0, profile.averageDifficulty(), 1e-9);
+        assertEquals(ChallengeDifficulty.HARD, profile.highestCompleted());
+        assertEquals(Map.of(ChallengeDifficulty.EASY, 1, ChallengeDifficulty.HARD, 1), profile.completedByDifficulty());
+        assertTrue(features.hasJoined(3L));
+    }
+
+    @Test
+    void apply_ShouldBeIdempotent() {
+        RecommendationFeatureStore.Features features = new RecommendationFeatureStore.Features();
+        features.apply(1L, ChallengeDifficulty.MEDIUM, true);
+        features.apply(1L, ChallengeDifficulty.MEDIUM, true);
+        // A later non-completing update does not undo the completion
+        features.apply(1L, null, false);
+
+        RecommendationFeatureStore.UserSkillProfile profile = features.snapshot();
+
+        assertEquals(1, profile.completedCount());
+        assertEquals(3.0, profile.averageDifficulty(), 1e-9);
+    }
+
+    @Test
+    void snapshot_ShouldBeEmptyForNewUser() {
+        RecommendationFeatureStore.UserSkillProfile profile = new RecommendationFeatureStore.Features().snapshot();
+
+        assertFalse(profile.hasCompleted());
+        assertNull(profile.highestCompleted());
+        assertEquals(0.0, profile.averageDifficulty());
+    }
+
+    @Test
+    void group_ShouldKeepRowOrderPerDifficulty() {
+        Map<ChallengeDifficulty, long[]> pools = RecommendationFeatureStore.group(List.of(
+                new Object[]{5L, ChallengeDifficulty.EASY},
+                new Object[]{3L, ChallengeDifficulty.HARD},
+                new Object[]{2L, ChallengeDifficulty.EASY}));
+
+        assertArrayEquals(new long[]{5L, 2L}, pools.get(ChallengeDifficulty.EASY));
+        assertArrayEquals(new long[]{3L}, pools.get(ChallengeDifficulty.HARD));
+    }
+}
@@ -0,0 +1,186 @@
+package com.my.challenger.service.impl;
+
+import com.my.challenger.entity.ScreenTimeBudget;
+import com.my.challenger.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScreenTimeLedgerTest {
+
+    private static final Long USER_ID = 7L;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ScreenTimeLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new ScreenTimeLedger(jdbcTemplate, transactionManager, 4, 120, 600);
+    }
+
+    private static ScreenTimeLedger.Account account(int available, int locked) {
+        return account(available, locked, "UTC");
+    }
+
+    private static ScreenTimeLedger.Account account(int available, int locked, String timezone) {
+        return new ScreenTimeLedger.Account(ScreenTimeBudget.builder()
+                .id(70L)
+                .user(User.builder().id(USER_ID).build())
+                .dailyBudgetMinutes(180)
+                .availableMinutes(available)
+                .lockedMinutes(locked)
+                .lostTodayMinutes(0)
+                .wonTodayMinutes(0)
+                .totalLostMinutes(0L)
+                .totalWonMinutes(0L)
+                .lastResetDate(LocalDate.now(ZoneId.of(timezone)))
+                .timezone(timezone)
+                .screenTimeEnabled(true)
+                .screenTimeControlLocked(false)
+                .build());
+    }
+
+    @Test
+    void withAccount_ShouldBeEmptyUntilRegistered() {
+        assertTrue(ledger.withAccount(USER_ID, account -> account.available).isEmpty());
+
+        assertTrue(ledger.register(account(100, 0), ledger.epoch(), false));
+
+        assertEquals(100, ledger.withAccount(USER_ID, account -> account.available).orElseThrow());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldWriteCoalescedDelta() {
+        ledger.register(account(100, 0), ledger.epoch(), false);
+        ledger.withAccount(USER_ID, account -> {
+            ledger.apply(account, new ScreenTimeLedger.Change(-10, 0, 0, 0, 0, 0));
+            ledger.apply(account, new ScreenTimeLedger.Change(-20, 20, 0, 0, 0, 0));
+            return account;
+        });
+
+        ledger.flush();
+
+        ArgumentCaptor<List<ScreenTimeLedger.Delta>> deltas = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), deltas.capture(), eq(1), any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(new ScreenTimeLedger.Change(-30, 20, 0, 0, 0, 0), deltas.getValue().get(0).change());
+        assertEquals(70, ledger.withAccount(USER_ID, account -> account.available).orElseThrow());
+
+        // Nothing pending, so the next flush writes nothing
+        ledger.flush();
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void register_ShouldRejectLoadOverlappingWrite() {
+        long loadEpoch = ledger.epoch();
+        ledger.register(account(100, 0), loadEpoch, false);
+        ledger.withAccount(USER_ID, account -> {
+            ledger.apply(account, new ScreenTimeLedger.Change(-5, 0, 0, 0, 0, 0));
+            return account;
+        });
+
+        ledger.invalidate(USER_ID);
+
+        assertFalse(ledger.register(account(100, 0), loadEpoch, false));
+        assertTrue(ledger.withAccount(USER_ID, account -> account).isEmpty());
+        assertTrue(ledger.register(account(95, 0), loadEpoch, true));
+        assertEquals(95, ledger.withAccount(USER_ID, account -> account.available).orElseThrow());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void invalidate_ShouldRejectReloadWhileRetiredChangeIsWritten() {
+        ledger.register(account(100, 0), ledger.epoch(), false);
+        ledger.withAccount(USER_ID, account -> {
+            ledger.apply(account, new ScreenTimeLedger.Change(-5, 0, 0, 0, 0, 0));
+            return account;
+        });
+        doAnswer(invocation -> {
+            // A load that starts while the delta is written must not be cached
+            assertFalse(ledger.register(account(100, 0), ledger.epoch(), false));
+            return new int[][]{{1}};
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList(), eq(1), any(ParameterizedPreparedStatementSetter.class));
+
+        ledger.invalidate(USER_ID);
+
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList(), eq(1), any(ParameterizedPreparedStatementSetter.class));
+        assertTrue(ledger.register(account(95, 0), ledger.epoch(), false));
+    }
+
+    @Test
+    void account_ShouldBeLoadedOnTheUsersDate() {
+        ScreenTimeLedger.Account account = account(100, 0, "Pacific/Kiritimati");
+
+        assertEquals(LocalDate.now(ZoneId.of("Pacific/Kiritimati")), account.loadedOn);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void invalidateTimezone_ShouldWriteAndDropOnlyThatTimezone() {
+        ledger.register(account(100, 0, "Asia/Tokyo"), ledger.epoch(), false);
+        ledger.withAccount(USER_ID, account -> {
+            ledger.apply(account, new ScreenTimeLedger.Change(-5, 0, 0, 0, 0, 0));
+            return account;
+        });
+
+        ledger.invalidateTimezone("Europe/Berlin");
+        assertEquals(1, ledger.size());
+
+        ledger.invalidateTimezone("Asia/Tokyo");
+
+        ArgumentCaptor<List<ScreenTimeLedger.Delta>> deltas = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), deltas.capture(), eq(1), any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(new ScreenTimeLedger.Change(-5, 0, 0, 0, 0, 0), deltas.getValue().get(0).change());
+        assertEquals(0, ledger.size());
+    }
+
+    @Test
+    void writeDetached_ShouldWriteChangeOfUnregisteredAccount() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ScreenTimeLedger.Account account = account(100, 0);
+            ledger.apply(account, new ScreenTimeLedger.Change(-10, 0, 0, 0, 0, 0));
+
+            // The caller's transaction undoes a detached change, so no revert is registered
+            assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+
+            ledger.writeDetached(account);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(jdbcTemplate).update(anyString(), any(PreparedStatementSetter.class));
+        assertEquals(0, ledger.size());
+    }
+
+    @Test
+    void change_ShouldCombineAndNegate() {
+        ScreenTimeLedger.Change lose = new ScreenTimeLedger.Change(-10, 0, 15, 0, 15, 0);
+
+        assertTrue(lose.plus(lose.negate()).isEmpty());
+        assertEquals(new ScreenTimeLedger.Change(-20, 0, 30, 0, 30, 0), lose.plus(lose));
+    }
+}
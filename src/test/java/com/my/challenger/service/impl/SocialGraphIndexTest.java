@@ -0,0 +1,225 @@
+package com.my.challenger.service.impl;
+
+import com.my.challenger.entity.enums.RelationshipStatus;
+import com.my.challenger.entity.enums.RelationshipType;
+import com.my.challenger.service.impl.UserRelationshipService.RelationshipChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SocialGraphIndexTest {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    private static Object[] edge(long userId, long relatedUserId, RelationshipStatus status, RelationshipType type) {
+        return new Object[]{userId, relatedUserId, status, type};
+    }
+
+    private static SocialGraphIndex indexOf(List<Object[]> edges) {
+        return new SocialGraphIndex(ids -> SocialGraphIndex.build(ids, edges), 1000, TTL);
+    }
+
+    @Test
+    void flagsOf_ShouldOnlyConnectAcceptedFriends() {
+        int friend = SocialGraphIndex.flagsOf(RelationshipStatus.ACCEPTED, RelationshipType.FRIEND);
+        int colleague = SocialGraphIndex.flagsOf(RelationshipStatus.ACCEPTED, RelationshipType.COLLEAGUE);
+        int blocked = SocialGraphIndex.flagsOf(RelationshipStatus.ACCEPTED, RelationshipType.BLOCKED);
+        int pending = SocialGraphIndex.flagsOf(RelationshipStatus.PENDING, RelationshipType.FRIEND);
+
+        assertNotEquals(0, friend & SocialGraphIndex.CONNECTED);
+        assertEquals(0, colleague & SocialGraphIndex.CONNECTED);
+        assertNotEquals(0, colleague & SocialGraphIndex.MUTUAL);
+        assertEquals(0, blocked & SocialGraphIndex.MUTUAL);
+        assertEquals(SocialGraphIndex.RELATED, pending);
+    }
+
+    @Test
+    void connections_ShouldBeSymmetric() {
+        SocialGraphIndex index = indexOf(List.of(
+                edge(1, 2, RelationshipStatus.ACCEPTED, RelationshipType.FRIEND),
+                edge(3, 1, RelationshipStatus.ACCEPTED, RelationshipType.FRIEND),
+                edge(1, 4, RelationshipStatus.PENDING, RelationshipType.FRIEND)));
+
+        assertTrue(index.isConnected(1L, 2L));
+        assertTrue(index.isConnected(2L, 1L));
+        assertFalse(index.isConnected(1L, 4L));
+        assertEquals(Set.of(2L, 3L), index.connectedIds(1L));
+        assertEquals(Set.of(1L), index.connectedIds(3L));
+    }
+
+    @Test
+    void mutualConnections_ShouldIntersectAcceptedNeighbours() {
+        SocialGraphIndex index = indexOf(List.of(
+                edge(1, 10, RelationshipStatus.ACCEPTED, RelationshipType.FRIEND),
+                edge(1, 11, RelationshipStatus.ACCEPTED, RelationshipType.COLLEAGUE),
+                edge(1, 12, RelationshipStatus.ACCEPTED, RelationshipType.FRIEND),
+                edge(2, 10, RelationshipStatus.ACCEPTED, RelationshipType.FRIEND),
+                edge(11, 2, RelationshipStatus.ACCEPTED, RelationshipType.CLASSMATE),
+                edge(2, 12, RelationshipStatus.PENDING, RelationshipType.FRIEND)));
+
+        assertEquals(2, index.mutualCount(1L, 2L));
+        assertEquals(Set.of(10L, 11L), Set.copyOf(index.mutualIds(1L, 2L)));
+    }
+
+    @Test
+    void suggestions_ShouldRankFriendsOfFriendsByMutualCount() {
+        SocialGraphIndex index = indexOf(List.of(
+                edge(1, 10, RelationshipStatus.ACCEPTED, RelationshipType.FRIEND),
+                edge(1, 11, RelationshipStatus.ACCEPTED, RelationshipType.FRIEND),
+                edge(10, 20, RelationshipStatus.ACCEPTED, RelationshipType.FRIEND),
+                edge(11, 20, RelationshipStatus.ACCEPTED, RelationshipType.FRIEND),
+                edge(10, 21, RelationshipStatus.ACCEPTED, RelationshipType.FRIEND),
+                // Already related to 1, so never suggested
+                edge(11, 22, RelationshipStatus.ACCEPTED, RelationshipType.FRIEND),
+                edge(22, 1, RelationshipStatus.PENDING, RelationshipType.FRIEND)));
+
+        List<SocialGraphIndex.Suggestion> suggestions = index.suggestions(1L, 10);
+
+        assertEquals(List.of(
+                new SocialGraphIndex.Suggestion(20L, 2),
+                new SocialGraphIndex.Suggestion(21L, 1)), suggestions);
+        assertEquals(1, index.suggestions(1L, 1).size());
+    }
+
+    @Test
+    void onRelationshipChanged_ShouldUpdateCachedAdjacencies() {
+        AtomicInteger loads = new AtomicInteger();
+        List<Object[]> edges = new ArrayList<>();
+        edges.add(edge(1, 2, RelationshipStatus.PENDING, RelationshipType.FRIEND));
+        SocialGraphIndex index = new SocialGraphIndex(ids -> {
+            loads.incrementAndGet();
+            return SocialGraphIndex.build(ids, edges);
+        }, 1000, TTL);
+        assertFalse(index.isConnected(1L, 2L));
+        assertFalse(index.isConnected(2L, 1L));
+
+        edges.set(0, edge(1, 2, RelationshipStatus.ACCEPTED, RelationshipType.FRIEND));
+        index.onRelationshipChanged(new RelationshipChangedEvent(
+                1L, 2L, RelationshipStatus.ACCEPTED, RelationshipType.FRIEND, false));
+        assertTrue(index.isConnected(1L, 2L));
+        assertTrue(index.isConnected(2L, 1L));
+        assertEquals(2, loads.get());
+
+        // A removal cannot be applied in place; both users are reloaded from the committed rows
+        edges.clear();
+        index.onRelationshipChanged(new RelationshipChangedEvent(
+                1L, 2L, RelationshipStatus.ACCEPTED, RelationshipType.FRIEND, true));
+        assertFalse(index.isConnected(1L, 2L));
+        assertTrue(index.suggestions(2L, 10).isEmpty());
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void onRelationshipChanged_ShouldKeepFlagsOfReverseRow() {
+        List<Object[]> edges = new ArrayList<>();
+        edges.add(edge(1, 2, RelationshipStatus.ACCEPTED, RelationshipType.FRIEND));
+        edges.add(edge(2, 1, RelationshipStatus.PENDING, RelationshipType.COLLEAGUE));
+        SocialGraphIndex index = indexOf(edges);
+        assertTrue(index.isConnected(1L, 2L));
+
+        // 2 -> 1 is accepted as a colleague; the friend row 1 -> 2 still connects the pair
+        edges.set(1, edge(2, 1, RelationshipStatus.ACCEPTED, RelationshipType.COLLEAGUE));
+        index.onRelationshipChanged(new RelationshipChangedEvent(
+                2L, 1L, RelationshipStatus.ACCEPTED, RelationshipType.COLLEAGUE, false));
+        assertTrue(index.isConnected(1L, 2L));
+        assertTrue(index.isConnected(2L, 1L));
+
+        // Removing the colleague row leaves the friend row in place
+        edges.remove(1);
+        index.onRelationshipChanged(new RelationshipChangedEvent(
+                2L, 1L, RelationshipStatus.ACCEPTED, RelationshipType.COLLEAGUE, true));
+        assertTrue(index.isConnected(1L, 2L));
+        assertTrue(index.isConnected(2L, 1L));
+
+        // Removing the friend row drops the connection
+        edges.clear();
+        index.onRelationshipChanged(new RelationshipChangedEvent(
+                1L, 2L, RelationshipStatus.ACCEPTED, RelationshipType.FRIEND, true));
+        assertFalse(index.isConnected(1L, 2L));
+        assertFalse(index.isConnected(2L, 1L));
+    }
+
+    @Test
+    void adjacency_ShouldGrowAndMergeEntries() {
+        SocialGraphIndex.Adjacency.Builder builder = new SocialGraphIndex.Adjacency.Builder();
+        for (long id = 1; id <= 1000; id++) {
+            builder.add(id, SocialGraphIndex.RELATED);
+        }
+        builder.add(7, SocialGraphIndex.ACCEPTED);
+        SocialGraphIndex.Adjacency adjacency = builder.build();
+
+        assertEquals(1000, adjacency.size());
+        assertTrue(adjacency.has(7, SocialGraphIndex.ACCEPTED));
+        assertTrue(adjacency.has(7, SocialGraphIndex.RELATED));
+
+        SocialGraphIndex.Adjacency merged = adjacency.with(7, SocialGraphIndex.MUTUAL);
+        assertEquals(1000, merged.size());
+        assertEquals(SocialGraphIndex.RELATED | SocialGraphIndex.ACCEPTED | SocialGraphIndex.MUTUAL, merged.flags(7));
+        assertEquals(SocialGraphIndex.RELATED | SocialGraphIndex.ACCEPTED, adjacency.flags(7));
+
+        SocialGraphIndex.Adjacency added = adjacency.with(1001, SocialGraphIndex.RELATED);
+        assertEquals(1001, added.size());
+        assertEquals(1000, adjacency.size());
+    }
+
+    /**
+     * Synthetic graph of 100k users with degree 20 (1M edges); warms the index and measures
+     * suggestion, mutual-count and connection queries. Bounds are loose so the test stays
+     * stable on slow build machines.
+     */
+    @Test
+    void syntheticMillionEdgeGraph_ShouldAnswerQueriesFromMemory() {
+        int users = 100_000;
+        int degree = 20;
+        Random random = new Random(42);
+        List<List<Object[]>> edgesByUser = new ArrayList<>(users + 1);
+        for (int i = 0; i <= users; i++) {
+            edgesByUser.add(new ArrayList<>());
+        }
+        for (long user = 1; user <= users; user++) {
+            for (int i = 0; i < degree / 2; i++) {
+                long other = 1 + random.nextInt(users);
+                if (other == user) {
+                    continue;
+                }
+                Object[] e = edge(user, other, RelationshipStatus.ACCEPTED, RelationshipType.FRIEND);
+                edgesByUser.get((int) user).add(e);
+                edgesByUser.get((int) other).add(e);
+            }
+        }
+        SocialGraphIndex index = new SocialGraphIndex((Collection<Long> ids) -> {
+            List<Object[]> edges = new ArrayList<>();
+            ids.forEach(id -> edges.addAll(edgesByUser.get(id.intValue())));
+            return SocialGraphIndex.build(ids, edges);
+        }, users, TTL);
+
+        for (long user = 1; user <= users; user++) {
+            index.connectedIds(user);
+        }
+
+        int queries = 10_000;
+        long queryStart = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            long user = 1 + random.nextInt(users);
+            long other = 1 + random.nextInt(users);
+            List<SocialGraphIndex.Suggestion> suggestions = index.suggestions(user, 20);
+            assertEquals(index.mutualIds(user, other).size(), index.mutualCount(user, other));
+            index.isConnected(user, other);
+            for (SocialGraphIndex.Suggestion suggestion : suggestions) {
+                assertEquals(index.mutualCount(user, suggestion.userId()), suggestion.mutualConnections());
+            }
+        }
+        long queryMillis = (System.nanoTime() - queryStart) / 1_000_000;
+
+        assertFalse(index.connectedIds(1L).isEmpty());
+        assertTrue(queryMillis < 30_000, "queries took " + queryMillis + " ms");
+    }
+}
@@ -0,0 +1,106 @@
+package com.my.challenger.service.impl.location;
+
+import com.my.challenger.entity.challenge.LocationCoordinates;
+import com.my.challenger.entity.challenge.VerificationDetails;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChallengeGeofenceTest {
+
+    // Around Red Square; 0.001 degrees of latitude is about 111 m
+    private static final double LAT = 55.7539;
+    private static final double LON = 37.6208;
+
+    private static VerificationDetails circle(double latitude, double longitude, Double radius, Integer dwellSeconds) {
+        return VerificationDetails.builder()
+                .locationCoordinates(LocationCoordinates.builder().latitude(latitude).longitude(longitude).build())
+                .radius(radius)
+                .dwellSeconds(dwellSeconds)
+                .build();
+    }
+
+    @Test
+    void circle_ShouldContainPointsWithinRadius() {
+        GeoRegion.Circle circle = GeoRegion.Circle.of(LAT, LON, 100);
+
+        assertTrue(circle.contains(LAT + 0.0008, LON));
+        assertFalse(circle.contains(LAT + 0.0010, LON));
+        assertEquals(111.2, circle.distanceMeters(LAT + 0.001, LON), 0.5);
+    }
+
+    @Test
+    void polygon_ShouldContainInteriorAndMeasureDistanceToEdge() {
+        GeoRegion.Polygon square = GeofenceIndex.parseBoundary(
+                LAT + "," + LON + "; " + (LAT + 0.001) + "," + LON + "; "
+                        + (LAT + 0.001) + "," + (LON + 0.001) + "; " + LAT + "," + (LON + 0.001) + "; " + LAT + "," + LON);
+
+        assertEquals(4, square.latitudes().length);
+        assertTrue(square.contains(LAT + 0.0005, LON + 0.0005));
+        assertEquals(0, square.distanceMeters(LAT + 0.0005, LON + 0.0005));
+        assertFalse(square.contains(LAT + 0.002, LON + 0.0005));
+        assertEquals(111.2, square.distanceMeters(LAT + 0.002, LON + 0.0005), 0.5);
+    }
+
+    @Test
+    void parseBoundary_ShouldRejectMalformedInput() {
+        assertThrows(IllegalArgumentException.class, () -> GeofenceIndex.parseBoundary("55.75,37.62;55.76"));
+        assertThrows(IllegalArgumentException.class, () -> GeofenceIndex.parseBoundary("55.75,37.62;55.76,37.62"));
+    }
+
+    @Test
+    void build_ShouldCreateOneRegionPerTargetWithLongestDwell() {
+        VerificationDetails polygon = VerificationDetails.builder()
+                .boundary("0,0;0,0.001;0.001,0.001")
+                .dwellSeconds(60)
+                .build();
+        VerificationDetails photoOnly = VerificationDetails.builder().activityType("photo").build();
+
+        ChallengeGeofence geofence = GeofenceIndex.build(List.of(
+                circle(LAT, LON, null, 300), polygon, photoOnly));
+
+        assertEquals(2, geofence.regions().size());
+        assertEquals(300, geofence.dwellSeconds());
+        GeoRegion.Circle defaultCircle = (GeoRegion.Circle) geofence.regions().get(0);
+        assertEquals(GeofenceIndex.DEFAULT_RADIUS_METERS, defaultCircle.radiusMeters());
+        assertTrue(GeofenceIndex.build(List.of(photoOnly)).isEmpty());
+    }
+
+    @Test
+    void match_ShouldFindContainingTargetOrNearestOne() {
+        ChallengeGeofence geofence = GeofenceIndex.build(List.of(
+                circle(LAT, LON, 50.0, null),
+                circle(LAT + 0.01, LON + 0.01, 50.0, null)));
+
+        assertEquals(1, geofence.locate(LAT + 0.01, LON + 0.0101));
+        ChallengeGeofence.Match miss = geofence.match(LAT + 0.002, LON);
+        assertFalse(miss.inside());
+        assertEquals(0, miss.regionIndex());
+        assertEquals(222.4, miss.distanceMeters(), 1.0);
+    }
+
+    @Test
+    void locate_ShouldAgreeWithExhaustiveSearch() {
+        Random random = new Random(42);
+        List<GeoRegion> regions = List.of(
+                GeoRegion.Circle.of(LAT, LON, 80),
+                GeoRegion.Circle.of(LAT + 0.003, LON - 0.002, 150),
+                GeofenceIndex.parseBoundary("55.750,37.615;55.752,37.615;55.752,37.618;55.750,37.618"));
+        ChallengeGeofence geofence = new ChallengeGeofence(regions, 0);
+
+        for (int i = 0; i < 100_000; i++) {
+            double latitude = LAT - 0.006 + random.nextDouble() * 0.012;
+            double longitude = LON - 0.008 + random.nextDouble() * 0.016;
+            int expected = -1;
+            for (int r = 0; r < regions.size() && expected < 0; r++) {
+                if (regions.get(r).contains(latitude, longitude)) {
+                    expected = r;
+                }
+            }
+            assertEquals(expected >= 0, geofence.locate(latitude, longitude) >= 0);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.my.challenger.service.impl.location;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DwellTrackerTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 5, 1, 12, 0);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DwellTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new DwellTracker(jdbcTemplate, transactionManager, 120, 900);
+    }
+
+    @Test
+    void record_ShouldAccumulateWhileInside() {
+        assertEquals(0, tracker.record(1, 2, true, T0));
+        assertEquals(30, tracker.record(1, 2, true, T0.plusSeconds(30)));
+        assertEquals(90, tracker.record(1, 2, true, T0.plusSeconds(90)));
+    }
+
+    @Test
+    void record_ShouldRestartAfterLeavingOrLongGap() {
+        tracker.record(1, 2, true, T0);
+        tracker.record(1, 2, true, T0.plusSeconds(30));
+        assertEquals(0, tracker.record(1, 2, false, T0.plusSeconds(40)));
+        assertEquals(0, tracker.record(1, 2, true, T0.plusSeconds(50)));
+        assertEquals(60, tracker.record(1, 2, true, T0.plusSeconds(110)));
+
+        assertEquals(0, tracker.record(1, 2, true, T0.plusSeconds(400)));
+    }
+
+    @Test
+    void record_ShouldIgnoreLateCheckInOutside() {
+        tracker.record(1, 2, true, T0);
+        tracker.record(1, 2, true, T0.plusSeconds(60));
+        tracker.record(1, 2, false, T0.plusSeconds(30));
+
+        assertEquals(70, tracker.record(1, 2, true, T0.plusSeconds(70)));
+    }
+
+    @Test
+    void record_ShouldContinuePersistedDwell() throws Exception {
+        ResultSet row = mock(ResultSet.class);
+        when(row.getTimestamp("entered_at")).thenReturn(Timestamp.valueOf(T0));
+        when(row.getTimestamp("last_inside_at")).thenReturn(Timestamp.valueOf(T0.plusSeconds(60)));
+        doAnswer(invocation -> {
+            ((RowCallbackHandler) invocation.getArgument(1)).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(1L), eq(2L));
+
+        assertEquals(120, tracker.record(1, 2, true, T0.plusSeconds(120)));
+    }
+
+    @Test
+    void flush_ShouldWriteOnlyChangedDwells() {
+        tracker.record(1, 2, true, T0);
+        tracker.record(3, 4, true, T0);
+
+        tracker.flush();
+        tracker.flush();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), argThat(changed -> changed.size() == 2), eq(2),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void flush_ShouldRewriteDwellsWhoseCommitFailed() {
+        tracker.record(1, 2, true, T0);
+        doThrow(new TransactionSystemException("commit failed")).doNothing().when(transactionManager).commit(any());
+
+        tracker.flush();
+        tracker.flush();
+        tracker.flush();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), argThat(changed -> changed.size() == 1), eq(1),
+                any(ParameterizedPreparedStatementSetter.class));
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void clear_ShouldForgetDwell() {
+        tracker.record(1, 2, true, T0);
+        tracker.record(1, 2, true, T0.plusSeconds(30));
+
+        tracker.clear(1, 2);
+
+        assertEquals(0, tracker.size());
+        verify(jdbcTemplate).update(anyString(), eq(1L), eq(2L));
+        verify(transactionManager).commit(any());
+        assertEquals(0, tracker.record(1, 2, true, T0.plusSeconds(40)));
+    }
+}
@@ -0,0 +1,127 @@
+package com.my.challenger.service.impl.photo;
+
+import com.my.challenger.service.impl.photo.PhotoFeatures.Descriptors;
+import com.my.challenger.service.impl.photo.PhotoFeatures.PersonBox;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.Rect;
+import software.amazon.awssdk.services.rekognition.RekognitionClient;
+import software.amazon.awssdk.services.rekognition.model.BoundingBox;
+import software.amazon.awssdk.services.rekognition.model.DetectLabelsRequest;
+import software.amazon.awssdk.services.rekognition.model.DetectLabelsResponse;
+import software.amazon.awssdk.services.rekognition.model.Instance;
+import software.amazon.awssdk.services.rekognition.model.Label;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PhotoAnalysisServiceTest {
+
+    private static final byte[] PHOTO = {1, 2, 3};
+    private static final PersonBox BOX = new PersonBox(0.1f, 0.1f, 0.5f, 0.8f);
+    private static final Descriptors DESCRIPTORS = new Descriptors(1, 32, new byte[32]);
+
+    private final AtomicInteger detectLabelsCalls = new AtomicInteger();
+    private final ShirtFeatureExtractor shirtFeatures = mock(ShirtFeatureExtractor.class);
+    private final PhotoFeatureStore featureStore = mock(PhotoFeatureStore.class);
+    private PhotoAnalysisService service;
+
+    @BeforeEach
+    void setUp() {
+        RekognitionClient rekognition = new RekognitionClient() {
+            @Override
+            public DetectLabelsResponse detectLabels(DetectLabelsRequest request) {
+                detectLabelsCalls.incrementAndGet();
+                return DetectLabelsResponse.builder()
+                        .labels(Label.builder().name("Person").instances(Instance.builder()
+                                        .boundingBox(BoundingBox.builder()
+                                                .left(BOX.left()).top(BOX.top()).width(BOX.width()).height(BOX.height())
+                                                .build())
+                                        .build())
+                                        .build(),
+                                Label.builder().name("Shirt").build())
+                        .build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "rekognition";
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        service = new PhotoAnalysisService(rekognition, shirtFeatures, featureStore);
+    }
+
+    @Test
+    void analyze_ShouldDetectLabelsOnceAndStoreFeatures() {
+        when(shirtFeatures.extract(PHOTO, BOX)).thenReturn(DESCRIPTORS);
+
+        PhotoFeatures features = service.analyze("photo.jpg", PHOTO);
+
+        assertEquals(1, detectLabelsCalls.get());
+        assertEquals(List.of("person", "shirt"), features.labels());
+        assertEquals(BOX, features.personBox());
+        verify(featureStore).save("photo.jpg", features);
+    }
+
+    @Test
+    void featuresOf_ShouldUseStoredFeaturesWithoutRekognition() throws Exception {
+        PhotoFeatures stored = new PhotoFeatures(List.of("person"), BOX, DESCRIPTORS);
+        when(featureStore.find("previous.jpg")).thenReturn(Optional.of(stored));
+
+        assertSame(stored, service.featuresOf("previous.jpg"));
+        assertEquals(0, detectLabelsCalls.get());
+        verify(featureStore, never()).save(any(), any());
+    }
+
+    @Test
+    void compareShirtsInPhotos_ShouldReportDifferentBelowThreshold() {
+        PhotoFeatures photo = new PhotoFeatures(List.of("person"), BOX, DESCRIPTORS);
+        when(shirtFeatures.countGoodMatches(DESCRIPTORS, DESCRIPTORS))
+                .thenReturn(PhotoAnalysisService.SIMILAR_SHIRT_MATCHES - 1);
+
+        Map<String, Object> result = service.compareShirtsInPhotos(photo, photo);
+
+        assertEquals(true, result.get("success"));
+        assertEquals(true, result.get("result"));
+    }
+
+    @Test
+    void compareShirtsInPhotos_ShouldNotDecideWithoutPerson() {
+        PhotoFeatures withPerson = new PhotoFeatures(List.of("person"), BOX, DESCRIPTORS);
+        PhotoFeatures withoutPerson = new PhotoFeatures(List.of("shirt"), null, Descriptors.EMPTY);
+
+        Map<String, Object> result = service.compareShirtsInPhotos(withPerson, withoutPerson);
+
+        assertEquals(false, result.get("result"));
+        assertTrue(result.get("message").toString().startsWith("Cannot determine"));
+        verifyNoInteractions(shirtFeatures);
+    }
+
+    @Test
+    void verifyPhotoWithDescription_ShouldListMissingKeywords() {
+        PhotoFeatures photo = new PhotoFeatures(List.of("person", "shirt"), BOX, DESCRIPTORS);
+
+        assertEquals(true, service.verifyPhotoWithDescription(photo, "Person shirt").get("result"));
+        Map<String, Object> result = service.verifyPhotoWithDescription(photo, "person dog");
+        assertEquals(false, result.get("result"));
+        assertEquals("Photo does not match description: missing dog", result.get("message"));
+    }
+
+    @Test
+    void shirtArea_ShouldClampToImage() {
+        Rect area = ShirtFeatureExtractor.shirtArea(new PersonBox(0.8f, -0.1f, 0.5f, 1.0f), 100, 200);
+
+        assertEquals(new Rect(80, 0, 20, 80), area);
+        assertNull(ShirtFeatureExtractor.shirtArea(new PersonBox(1.2f, 0.1f, 0.5f, 0.5f), 100, 200));
+    }
+}
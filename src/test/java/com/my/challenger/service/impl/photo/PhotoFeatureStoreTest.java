@@ -0,0 +1,158 @@
+package com.my.challenger.service.impl.photo;
+
+import com.my.challenger.service.impl.photo.PhotoFeatures.Descriptors;
+import com.my.challenger.service.impl.photo.PhotoFeatures.PersonBox;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import software.amazon.awssdk.services.rekognition.RekognitionClient;
+import software.amazon.awssdk.services.rekognition.model.BoundingBox;
+import software.amazon.awssdk.services.rekognition.model.DetectLabelsRequest;
+import software.amazon.awssdk.services.rekognition.model.DetectLabelsResponse;
+import software.amazon.awssdk.services.rekognition.model.Instance;
+import software.amazon.awssdk.services.rekognition.model.Label;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the store against an in-memory stand-in for the {@code photo_features} table that only
+ * keeps rows written inside a committed transaction.
+ */
+class PhotoFeatureStoreTest {
+
+    private static final byte[] PHOTO = {1, 2, 3};
+    private static final PersonBox BOX = new PersonBox(0.1f, 0.2f, 0.5f, 0.7f);
+    private static final Descriptors DESCRIPTORS = new Descriptors(2, 32, new byte[64]);
+    private static final List<String> COLUMNS = List.of("photo_path", "labels", "person_left", "person_top",
+            "person_width", "person_height", "descriptor_rows", "descriptor_cols", "descriptors");
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final Map<String, Map<String, Object>> table = new HashMap<>();
+    private final List<Map<String, Object>> uncommitted = new ArrayList<>();
+    private PhotoFeatureStore store;
+    private PhotoAnalysisService analysisService;
+
+    @BeforeEach
+    void setUp() {
+        // Rows reach the table only when the surrounding transaction commits
+        doAnswer(invocation -> {
+            uncommitted.forEach(row -> table.put((String) row.get("photo_path"), row));
+            uncommitted.clear();
+            return null;
+        }).when(transactionManager).commit(any());
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+            @Override
+            public int update(String sql, Object... args) {
+                if (sql.startsWith("DELETE")) {
+                    table.remove((String) args[0]);
+                    return 1;
+                }
+                Map<String, Object> row = new HashMap<>();
+                for (int i = 0; i < COLUMNS.size(); i++) {
+                    row.put(COLUMNS.get(i), args[i]);
+                }
+                uncommitted.add(row);
+                return 1;
+            }
+
+            @Override
+            public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+                Map<String, Object> row = table.get((String) args[0]);
+                if (row == null) {
+                    return List.of();
+                }
+                try {
+                    return List.of(rowMapper.mapRow(resultSet(row), 0));
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        store = new PhotoFeatureStore(jdbcTemplate, transactionManager);
+
+        ShirtFeatureExtractor shirtFeatures = mock(ShirtFeatureExtractor.class);
+        when(shirtFeatures.extract(PHOTO, BOX)).thenReturn(DESCRIPTORS);
+        analysisService = new PhotoAnalysisService(rekognition(), shirtFeatures, store);
+    }
+
+    @Test
+    void analyze_ShouldCommitFeaturesThatReadBackUnchanged() {
+        PhotoFeatures analyzed = analysisService.analyze("uploads/photo.jpg", PHOTO);
+
+        verify(transactionManager).commit(any());
+        PhotoFeatures stored = store.find("uploads/photo.jpg").orElseThrow();
+        assertEquals(analyzed.labels(), stored.labels());
+        assertEquals(BOX, stored.personBox());
+        assertEquals(DESCRIPTORS.rows(), stored.descriptors().rows());
+        assertEquals(DESCRIPTORS.cols(), stored.descriptors().cols());
+        assertArrayEquals(DESCRIPTORS.data(), stored.descriptors().data());
+    }
+
+    @Test
+    void delete_ShouldRemoveStoredFeatures() {
+        analysisService.analyze("uploads/photo.jpg", PHOTO);
+
+        store.delete("uploads/photo.jpg");
+
+        assertTrue(store.find("uploads/photo.jpg").isEmpty());
+    }
+
+    private static RekognitionClient rekognition() {
+        return new RekognitionClient() {
+            @Override
+            public DetectLabelsResponse detectLabels(DetectLabelsRequest request) {
+                return DetectLabelsResponse.builder()
+                        .labels(Label.builder().name("Person").instances(Instance.builder()
+                                        .boundingBox(BoundingBox.builder()
+                                                .left(BOX.left()).top(BOX.top()).width(BOX.width()).height(BOX.height())
+                                                .build())
+                                        .build())
+                                        .build(),
+                                Label.builder().name("Shirt").build())
+                        .build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "rekognition";
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * Result set over one row; {@code wasNull} reports on the last column read.
+     */
+    private static ResultSet resultSet(Map<String, Object> row) {
+        Object[] last = new Object[1];
+        return mock(ResultSet.class, invocation -> {
+            String method = invocation.getMethod().getName();
+            if (invocation.getArguments().length != 1 || !(invocation.getArgument(0) instanceof String)) {
+                return method.equals("wasNull") ? last[0] == null : RETURNS_DEFAULTS.answer(invocation);
+            }
+            Object value = row.get((String) invocation.getArgument(0));
+            last[0] = value;
+            return switch (method) {
+                case "getString", "getBytes" -> value;
+                case "getFloat" -> value == null ? 0f : ((Number) value).floatValue();
+                case "getInt" -> value == null ? 0 : ((Number) value).intValue();
+                default -> throw new UnsupportedOperationException(method);
+            };
+        });
+    }
+}
@@ -0,0 +1,217 @@
+package com.my.challenger.service.impl.photo;
+
+import com.my.challenger.dto.verification.PhotoVerificationJobStatus;
+import com.my.challenger.dto.verification.PhotoVerificationJobStatus.State;
+import com.my.challenger.service.impl.photo.PhotoFeatures.Descriptors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import software.amazon.awssdk.core.exception.SdkClientException;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PhotoVerificationJobServiceTest {
+
+    private static final byte[] PHOTO = {1, 2, 3};
+    private static final PhotoVerificationService.Plan PLAN =
+            new PhotoVerificationService.Plan(1L, 2L, 3L, "person", null, false);
+    private static final PhotoFeatures FEATURES = new PhotoFeatures(List.of("person"), null, Descriptors.EMPTY);
+
+    @Mock
+    private PhotoVerificationService verificationService;
+
+    @Mock
+    private PhotoVerificationJobStore jobStore;
+
+    @Mock
+    private TaskScheduler scheduler;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    private final List<Runnable> queue = new ArrayList<>();
+    private Executor executor = queue::add;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(verificationService.plan(1L, 2L, "person")).thenReturn(Optional.of(PLAN));
+    }
+
+    private PhotoVerificationJobService service() {
+        return new PhotoVerificationJobService(verificationService, jobStore, command -> executor.execute(command),
+                scheduler, messagingTemplate, null, 3, 1000, 30, 1024, 10);
+    }
+
+    private void drain() {
+        while (!queue.isEmpty()) {
+            queue.remove(0).run();
+        }
+    }
+
+    private List<State> pushedStates() {
+        ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, atLeastOnce())
+                .convertAndSendToUser(eq("alice"), eq(PhotoVerificationJobService.PERSONAL_QUEUE), payloads.capture());
+        return payloads.getAllValues().stream()
+                .map(payload -> ((PhotoVerificationJobStatus) payload).getState())
+                .toList();
+    }
+
+    @Test
+    void submit_ShouldStorePhotoAndRunStagesInBackground() throws Exception {
+        when(verificationService.storePhoto(PLAN, PHOTO, ".jpg")).thenReturn("uploads/p.jpg");
+        when(verificationService.readPhoto("uploads/p.jpg")).thenReturn(PHOTO);
+        when(verificationService.detect("uploads/p.jpg", PHOTO)).thenReturn(FEATURES);
+        Map<String, Object> comparison = Map.of("success", true, "result", true, "message", "Photo matches description");
+        when(verificationService.compare(PLAN, FEATURES)).thenReturn(comparison);
+        when(verificationService.persist(PLAN, "uploads/p.jpg", comparison))
+                .thenReturn(Map.of("isVerified", true, "message", "Photo matches description", "completionId", 7L));
+        PhotoVerificationJobService service = service();
+
+        PhotoVerificationJobStatus queued = service.submit(1L, 2L, "alice", PHOTO, "image/jpeg", "person");
+        assertEquals(State.QUEUED, queued.getState());
+        assertEquals(1, service.queueDepth());
+        verify(verificationService).storePhoto(PLAN, PHOTO, ".jpg");
+        verify(jobStore).save("alice", queued);
+        verifyNoInteractions(messagingTemplate);
+
+        drain();
+
+        PhotoVerificationJobStatus finished = service.getStatus(queued.getJobId(), "alice").orElseThrow();
+        assertEquals(State.COMPLETED, finished.getState());
+        assertTrue(finished.getIsVerified());
+        assertEquals(7L, finished.getDetails().get("completionId"));
+        assertEquals(0, service.queueDepth());
+        assertEquals(List.of(State.DETECTING, State.COMPARING, State.PERSISTING, State.COMPLETED),
+                pushedStates());
+        verify(jobStore).save("alice", finished);
+        verify(verificationService, never()).deletePhoto(any());
+    }
+
+    @Test
+    void transientFailure_ShouldRetryFromFailedStage() throws Exception {
+        when(verificationService.storePhoto(PLAN, PHOTO, ".png")).thenReturn("uploads/p.png");
+        when(verificationService.readPhoto("uploads/p.png")).thenReturn(PHOTO);
+        when(verificationService.detect("uploads/p.png", PHOTO))
+                .thenThrow(SdkClientException.builder().message("Connection reset").build())
+                .thenReturn(FEATURES);
+        when(verificationService.compare(PLAN, FEATURES)).thenReturn(Map.of("success", true, "result", false));
+        when(verificationService.persist(eq(PLAN), eq("uploads/p.png"), anyMap())).thenReturn(Map.of("isVerified", false));
+        PhotoVerificationJobService service = service();
+
+        String jobId = service.submit(1L, 2L, "alice", PHOTO, "image/png", "person").getJobId();
+        drain();
+
+        PhotoVerificationJobStatus retrying = service.getStatus(jobId, "alice").orElseThrow();
+        assertEquals(State.RETRYING, retrying.getState());
+        assertEquals(2, retrying.getAttempt());
+        ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(retry.capture(), any(Instant.class));
+
+        retry.getValue().run();
+        drain();
+
+        assertEquals(State.COMPLETED, service.getStatus(jobId, "alice").orElseThrow().getState());
+        verify(verificationService, times(1)).storePhoto(any(), any(), any());
+        verify(verificationService, times(2)).detect(any(), any());
+    }
+
+    @Test
+    void permanentFailure_ShouldFailJobWithoutPersistingAndDeletePhoto() throws Exception {
+        when(verificationService.storePhoto(PLAN, PHOTO, ".jpg")).thenReturn("uploads/p.jpg");
+        when(verificationService.readPhoto("uploads/p.jpg")).thenReturn(PHOTO);
+        when(verificationService.detect("uploads/p.jpg", PHOTO)).thenThrow(new IllegalStateException("OpenCV is not available"));
+        PhotoVerificationJobService service = service();
+
+        String jobId = service.submit(1L, 2L, "alice", PHOTO, "image/jpeg", "person").getJobId();
+        drain();
+
+        PhotoVerificationJobStatus failed = service.getStatus(jobId, "alice").orElseThrow();
+        assertEquals(State.FAILED, failed.getState());
+        assertEquals("Verification failed: OpenCV is not available", failed.getMessage());
+        verify(verificationService, never()).persist(any(), any(), any());
+        verify(verificationService).deletePhoto("uploads/p.jpg");
+        verifyNoInteractions(scheduler);
+    }
+
+    @Test
+    void fullQueue_ShouldRejectSubmissionAndDeletePhoto() throws Exception {
+        when(verificationService.storePhoto(PLAN, PHOTO, ".jpg")).thenReturn("uploads/p.jpg");
+        executor = command -> {
+            throw new RejectedExecutionException("queue full");
+        };
+        PhotoVerificationJobService service = service();
+
+        assertThrows(RejectedExecutionException.class,
+                () -> service.submit(1L, 2L, "alice", PHOTO, "image/jpeg", "person"));
+        assertEquals(0, service.queueDepth());
+        verify(verificationService).deletePhoto("uploads/p.jpg");
+        ArgumentCaptor<PhotoVerificationJobStatus> saved = ArgumentCaptor.forClass(PhotoVerificationJobStatus.class);
+        verify(jobStore, times(2)).save(eq("alice"), saved.capture());
+        assertEquals(State.FAILED, saved.getValue().getState());
+    }
+
+    @Test
+    void oversizedPhoto_ShouldBeRejectedBeforeStoring() throws Exception {
+        PhotoVerificationJobService service = service();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.submit(1L, 2L, "alice", new byte[2048], "image/jpeg", "person"));
+        verify(verificationService, never()).storePhoto(any(), any(), any());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void getStatus_ShouldFallBackToSavedStateOfOtherNodes() {
+        PhotoVerificationJobStatus running = PhotoVerificationJobStatus.builder()
+                .jobId("running").challengeId(1L).state(State.COMPARING).attempt(1)
+                .updatedAt(LocalDateTime.now().minusMinutes(1)).build();
+        PhotoVerificationJobStatus lost = running.toBuilder()
+                .jobId("lost").updatedAt(LocalDateTime.now().minusMinutes(11)).build();
+        when(jobStore.find("running", "alice")).thenReturn(Optional.of(running));
+        when(jobStore.find("lost", "alice")).thenReturn(Optional.of(lost));
+        PhotoVerificationJobService service = service();
+
+        assertEquals(State.COMPARING, service.getStatus("running", "alice").orElseThrow().getState());
+        // Not updated for longer than stale-after-minutes, so its node is gone
+        assertEquals(State.FAILED, service.getStatus("lost", "alice").orElseThrow().getState());
+    }
+
+    @Test
+    void getStatus_ShouldHideJobsOfOtherUsers() throws Exception {
+        PhotoVerificationJobService service = service();
+
+        String jobId = service.submit(1L, 2L, "alice", PHOTO, "image/jpeg", "person").getJobId();
+
+        assertTrue(service.getStatus(jobId, "alice").isPresent());
+        assertTrue(service.getStatus(jobId, "bob").isEmpty());
+        assertTrue(service.getStatus("unknown", "alice").isEmpty());
+    }
+
+    @Test
+    void isRetryable_ShouldOnlyAcceptTransientErrors() {
+        assertTrue(PhotoVerificationJobService.isRetryable(new RejectedExecutionException()));
+        assertTrue(PhotoVerificationJobService.isRetryable(new IOException("disk")));
+        assertFalse(PhotoVerificationJobService.isRetryable(new NoSuchFileException("old.jpg")));
+        assertFalse(PhotoVerificationJobService.isRetryable(new IllegalArgumentException("bad")));
+    }
+}
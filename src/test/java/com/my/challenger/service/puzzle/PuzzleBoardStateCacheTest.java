@@ -0,0 +1,88 @@
+package com.my.challenger.service.puzzle;
+
+import com.my.challenger.dto.puzzle.PiecePlacement;
+import com.my.challenger.entity.puzzle.PuzzlePiece;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PuzzleBoardStateCacheTest {
+
+    private final PuzzleBoardStateCache.PieceTargets targets = PuzzleBoardStateCache.PieceTargets.of(grid(2, 2));
+
+    @Test
+    void move_ShouldMaintainCorrectCountIncrementally() {
+        PuzzleBoardStateCache.ParticipantBoard board = new PuzzleBoardStateCache.ParticipantBoard(1L, targets.size(), 0);
+
+        board.move(0, 0, 0, targets);
+        board.move(3, 1, 1, targets);
+        assertEquals(2, board.view().piecesPlacedCorrectly());
+
+        // Moving a correct piece away and onto another correct slot's position
+        board.move(0, 1, 1, targets);
+        assertEquals(1, board.view().piecesPlacedCorrectly());
+
+        board.move(0, 0, 0, targets);
+        assertEquals(2, board.view().piecesPlacedCorrectly());
+        assertEquals(4, board.view().totalMoves());
+        assertEquals(2, board.view().placements().size());
+    }
+
+    @Test
+    void restore_ShouldRecomputeCorrectCountFromPersistedPlacements() {
+        PuzzleBoardStateCache.ParticipantBoard board = new PuzzleBoardStateCache.ParticipantBoard(1L, targets.size(), 7);
+
+        board.restore(List.of(
+                new PiecePlacement(1, 0, 1),
+                new PiecePlacement(2, 0, 0),
+                new PiecePlacement(99, 0, 0)), targets);
+
+        assertEquals(1, board.view().piecesPlacedCorrectly());
+        assertEquals(7, board.view().totalMoves());
+        assertEquals(2, board.view().placements().size());
+    }
+
+    @Test
+    void takeCheckpoint_ShouldOnlyReturnDirtyBoards() {
+        PuzzleBoardStateCache.ParticipantBoard board = new PuzzleBoardStateCache.ParticipantBoard(1L, targets.size(), 0);
+        board.move(2, 1, 0, targets);
+        List<String> written = new ArrayList<>();
+        assertNotNull(board.takeCheckpoint(placements -> {
+            written.add("board");
+            return "[]";
+        }));
+        assertNull(board.takeCheckpoint(placements -> "[]"));
+        assertEquals(1, written.size());
+    }
+
+    @Test
+    void retireIfIdleSince_ShouldKeepDirtyBoardsAndRejectMovesOnceRetired() {
+        PuzzleBoardStateCache.ParticipantBoard board = new PuzzleBoardStateCache.ParticipantBoard(1L, targets.size(), 0);
+        board.move(1, 0, 1, targets);
+        long future = System.currentTimeMillis() + 60_000;
+
+        assertFalse(board.retireIfIdleSince(future));
+
+        board.takeCheckpoint(placements -> "[]");
+        assertTrue(board.retireIfIdleSince(future));
+        assertFalse(board.move(2, 1, 0, targets));
+        assertEquals(1, board.view().totalMoves());
+    }
+
+    private static List<PuzzlePiece> grid(int rows, int cols) {
+        List<PuzzlePiece> pieces = new ArrayList<>();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                pieces.add(PuzzlePiece.builder()
+                        .pieceIndex(r * cols + c)
+                        .gridRow(r)
+                        .gridCol(c)
+                        .build());
+            }
+        }
+        return pieces;
+    }
+}
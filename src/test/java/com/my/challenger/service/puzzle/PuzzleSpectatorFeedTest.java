@@ -0,0 +1,149 @@
+package com.my.challenger.service.puzzle;
+
+import com.my.challenger.websocket.dto.PuzzleSpectatorMessages.PlayerBoardDelta;
+import com.my.challenger.websocket.dto.PuzzleSpectatorMessages.SpectatorDelta;
+import com.my.challenger.websocket.service.RoomBroadcaster;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PuzzleSpectatorFeedTest {
+
+    private static final String ROOM = "ABC123";
+    private static final String DELTA_TOPIC = "/topic/room/ABC123/puzzle-delta";
+
+    @Mock
+    private RoomBroadcaster roomBroadcaster;
+
+    @Mock
+    private PuzzleBoardStateCache boardStateCache;
+
+    @Mock
+    private TaskScheduler scheduler;
+
+    private PuzzleSpectatorFeed feed(long minIntervalMillis) {
+        return new PuzzleSpectatorFeed(roomBroadcaster, boardStateCache, scheduler, 100, minIntervalMillis, 600);
+    }
+
+    @Test
+    void flush_ShouldSendNothingForIdleRooms() {
+        PuzzleSpectatorFeed feed = feed(0);
+        feed.register(ROOM, 10L);
+
+        feed.flush();
+
+        verifyNoInteractions(roomBroadcaster);
+        assertEquals(0, feed.position(ROOM).sequence());
+    }
+
+    @Test
+    void flush_ShouldSendOnlyLatestPlacementPerPiece() {
+        when(boardStateCache.correctCount(10L, 1L)).thenReturn(Optional.of(3));
+        when(boardStateCache.correctCount(10L, 2L)).thenReturn(Optional.empty());
+        PuzzleSpectatorFeed feed = feed(0);
+        feed.register(ROOM, 10L);
+
+        feed.recordMove(ROOM, 10L, 1L, 4, 0, 0);
+        feed.recordMove(ROOM, 10L, 1L, 4, 2, 1);
+        feed.recordMove(ROOM, 10L, 1L, 5, 1, 1);
+        feed.recordMove(ROOM, 10L, 2L, 4, 3, 3);
+        feed.flush();
+
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(roomBroadcaster).broadcast(eq(DELTA_TOPIC), sent.capture());
+        SpectatorDelta delta = (SpectatorDelta) sent.getValue();
+        assertEquals(1, delta.getSequence());
+        assertEquals(2, delta.getPlayers().size());
+
+        PlayerBoardDelta first = delta.getPlayers().get(0);
+        assertEquals(1L, first.getUserId());
+        assertEquals(2, first.getPlacements().size());
+        assertEquals(2, first.getPlacements().get(0).getCurrentRow());
+        assertEquals(3, first.getPiecesPlacedCorrectly());
+        assertNull(delta.getPlayers().get(1).getPiecesPlacedCorrectly());
+        assertEquals(1, feed.position(ROOM).sequence());
+
+        feed.flush();
+        verifyNoMoreInteractions(roomBroadcaster);
+    }
+
+    @Test
+    void flush_ShouldRateLimitEachRoom() {
+        when(boardStateCache.correctCount(anyLong(), anyLong())).thenReturn(Optional.empty());
+        PuzzleSpectatorFeed feed = feed(60_000);
+        feed.register(ROOM, 10L);
+        feed.register("OTHER", 11L);
+
+        feed.recordMove(ROOM, 10L, 1L, 0, 0, 0);
+        feed.flush();
+        feed.recordMove(ROOM, 10L, 1L, 1, 0, 1);
+        feed.recordMove("OTHER", 11L, 2L, 0, 0, 0);
+        feed.flush();
+
+        verify(roomBroadcaster, times(1)).broadcast(eq(DELTA_TOPIC), any());
+        verify(roomBroadcaster, times(1)).broadcast(eq("/topic/room/OTHER/puzzle-delta"), any());
+        assertEquals(1, feed.position(ROOM).sequence());
+    }
+
+    @Test
+    void recordMove_ShouldIgnoreInactiveRooms() {
+        PuzzleSpectatorFeed feed = feed(0);
+        feed.register(ROOM, 10L);
+        feed.unregister(ROOM);
+
+        feed.recordMove(ROOM, 10L, 1L, 0, 0, 0);
+        feed.flush();
+
+        verifyNoInteractions(roomBroadcaster);
+        assertEquals(0, feed.size());
+    }
+
+    @Test
+    void recordMove_ShouldFeedRoomsStartedOnOtherNodes() {
+        when(boardStateCache.correctCount(10L, 1L)).thenReturn(Optional.empty());
+        PuzzleSpectatorFeed feed = feed(0);
+
+        feed.recordMove(ROOM, 10L, 1L, 0, 0, 0);
+        feed.flush();
+
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(roomBroadcaster).broadcast(eq(DELTA_TOPIC), sent.capture());
+        SpectatorDelta delta = (SpectatorDelta) sent.getValue();
+        assertEquals(feed.position(ROOM).source(), delta.getSource());
+        assertEquals(1, delta.getSequence());
+    }
+
+    @Test
+    void flush_ShouldNumberDeltasPerSource() {
+        when(boardStateCache.correctCount(anyLong(), anyLong())).thenReturn(Optional.empty());
+        // Two nodes feeding the same room
+        PuzzleSpectatorFeed first = feed(0);
+        PuzzleSpectatorFeed second = feed(0);
+        first.register(ROOM, 10L);
+
+        first.recordMove(ROOM, 10L, 1L, 0, 0, 0);
+        second.recordMove(ROOM, 10L, 2L, 0, 1, 1);
+        first.flush();
+        second.flush();
+        first.recordMove(ROOM, 10L, 1L, 0, 2, 2);
+        first.flush();
+
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(roomBroadcaster, times(3)).broadcast(eq(DELTA_TOPIC), sent.capture());
+        List<SpectatorDelta> deltas = sent.getAllValues().stream().map(SpectatorDelta.class::cast).toList();
+        assertNotEquals(deltas.get(0).getSource(), deltas.get(1).getSource());
+        assertEquals(deltas.get(0).getSource(), deltas.get(2).getSource());
+        assertEquals(List.of(1L, 1L, 2L), deltas.stream().map(SpectatorDelta::getSequence).toList());
+    }
+}
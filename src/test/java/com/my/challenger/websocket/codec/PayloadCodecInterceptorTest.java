@@ -0,0 +1,148 @@
+package com.my.challenger.websocket.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.my.challenger.websocket.dto.PlayerListMessage;
+import com.my.challenger.websocket.model.PlayerRole;
+import com.my.challenger.websocket.model.RoomPlayer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayloadCodecInterceptorTest {
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+    private final AtomicInteger encodes = new AtomicInteger();
+
+    private PayloadCodecInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        CborPayloadCodec cbor = new CborPayloadCodec();
+        StompPayloadCodec counting = new StompPayloadCodec() {
+            @Override
+            public String name() {
+                return cbor.name();
+            }
+
+            @Override
+            public byte[] encode(byte[] json) throws IOException {
+                encodes.incrementAndGet();
+                return cbor.encode(json);
+            }
+        };
+        interceptor = new PayloadCodecInterceptor(List.of(counting), null, 16);
+    }
+
+    private static Message<byte[]> connect(String sessionId, String codec) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        if (codec != null) {
+            accessor.setNativeHeader(PayloadCodecInterceptor.CODEC_HEADER, codec);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> disconnect(String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.DISCONNECT);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> outbound(String sessionId, byte[] payload, MimeType contentType) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setContentType(contentType);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private byte[] playerListJson(int players) throws IOException {
+        List<RoomPlayer> list = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            list.add(RoomPlayer.builder()
+                    .userId(1000L + i)
+                    .username("viewer" + i)
+                    .role(PlayerRole.PLAYER)
+                    .connected(true)
+                    .score(i * 10)
+                    .sessionId("session-" + i)
+                    .build());
+        }
+        return jsonMapper.writeValueAsBytes(new PlayerListMessage(list, 42));
+    }
+
+    @Test
+    void preSend_ShouldEncodeForNegotiatedSessionsOnly() throws IOException {
+        interceptor.preSend(connect("tv", "CBOR"), null);
+        interceptor.preSend(connect("phone", null), null);
+        byte[] json = playerListJson(3);
+
+        Message<?> encoded = interceptor.preSend(outbound("tv", json, MimeTypeUtils.APPLICATION_JSON), null);
+        Message<?> plain = interceptor.preSend(outbound("phone", json, MimeTypeUtils.APPLICATION_JSON), null);
+
+        assertSame(json, plain.getPayload());
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(encoded);
+        assertEquals(MimeTypeUtils.APPLICATION_OCTET_STREAM, headers.getContentType());
+        assertEquals("cbor", headers.getFirstNativeHeader(PayloadCodecInterceptor.CODEC_HEADER));
+        assertEquals(jsonMapper.readTree(json), cborMapper.readTree((byte[]) encoded.getPayload()));
+    }
+
+    @Test
+    void preSend_ShouldEncodeSharedBroadcastPayloadOnce() throws IOException {
+        byte[] json = playerListJson(5);
+        for (int i = 0; i < 50; i++) {
+            interceptor.preSend(connect("s" + i, "cbor"), null);
+        }
+
+        for (int i = 0; i < 50; i++) {
+            interceptor.preSend(outbound("s" + i, json, MimeTypeUtils.APPLICATION_JSON), null);
+        }
+
+        assertEquals(1, encodes.get());
+    }
+
+    @Test
+    void preSend_ShouldLeaveNonJsonPayloadsAndUnknownCodecs() {
+        interceptor.preSend(connect("a", "cbor"), null);
+        interceptor.preSend(connect("b", "msgpack"), null);
+        byte[] text = "Room not found".getBytes();
+
+        assertSame(text, interceptor.preSend(outbound("a", text, MimeTypeUtils.TEXT_PLAIN), null).getPayload());
+        assertNull(interceptor.codecOf("b"));
+        assertEquals(0, encodes.get());
+    }
+
+    @Test
+    void preSend_ShouldForgetSessionOnDisconnect() {
+        interceptor.preSend(connect("a", "cbor"), null);
+        assertNotNull(interceptor.codecOf("a"));
+
+        interceptor.preSend(disconnect("a"), null);
+
+        assertNull(interceptor.codecOf("a"));
+    }
+
+    @Test
+    void encode_ShouldBeSmallerThanJsonForLargeRooms() throws IOException {
+        byte[] json = playerListJson(50);
+
+        byte[] cbor = new CborPayloadCodec().encode(json);
+
+        assertTrue(cbor.length < json.length, "cbor " + cbor.length + " vs json " + json.length);
+    }
+}
@@ -0,0 +1,78 @@
+package com.my.challenger.websocket.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Exercises the cluster envelope without a database: the in-process channel below stands in
+ * for LISTEN/NOTIFY and hands every published message to each node's listener.
+ */
+class PostgresRoomBroadcasterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private SimpMessagingTemplate templateA;
+    private SimpMessagingTemplate templateB;
+    private PostgresRoomBroadcaster nodeA;
+    private PostgresRoomBroadcaster nodeB;
+
+    @BeforeEach
+    void setUp() {
+        templateA = mock(SimpMessagingTemplate.class);
+        templateB = mock(SimpMessagingTemplate.class);
+        nodeA = new PostgresRoomBroadcaster(templateA, mock(DataSource.class), new DataSourceProperties(), objectMapper);
+        nodeB = new PostgresRoomBroadcaster(templateB, mock(DataSource.class), new DataSourceProperties(), objectMapper);
+    }
+
+    @Test
+    void envelope_ShouldRoundTripDestinationAndPayloadToOtherNodes() throws Exception {
+        Map<String, Object> payload = Map.of("roomCode", "ABC123", "phase", "QUESTION", "round", 3);
+
+        assertTrue(nodeB.deliver(nodeA.envelope("/topic/room/ABC123/state", payload)));
+
+        ArgumentCaptor<Object> delivered = ArgumentCaptor.forClass(Object.class);
+        verify(templateB).convertAndSend(eq("/topic/room/ABC123/state"), delivered.capture());
+        assertEquals(objectMapper.valueToTree(payload), delivered.getValue());
+    }
+
+    @Test
+    void deliver_ShouldSuppressMessagesPublishedByTheSameNode() throws Exception {
+        List<String> channel = new ArrayList<>();
+        channel.add(nodeA.envelope("/topic/room/ABC123/players", Map.of("count", 2)));
+        channel.add(nodeB.envelope("/topic/room/ABC123/players", Map.of("count", 3)));
+
+        // Every node listens on the channel, including the one that published
+        int deliveredToA = 0;
+        int deliveredToB = 0;
+        for (String message : channel) {
+            deliveredToA += nodeA.deliver(message) ? 1 : 0;
+            deliveredToB += nodeB.deliver(message) ? 1 : 0;
+        }
+
+        assertEquals(1, deliveredToA);
+        assertEquals(1, deliveredToB);
+        assertEquals(3, deliveredCount(templateA));
+        assertEquals(2, deliveredCount(templateB));
+    }
+
+    private int deliveredCount(SimpMessagingTemplate template) {
+        ArgumentCaptor<Object> delivered = ArgumentCaptor.forClass(Object.class);
+        verify(template, times(1)).convertAndSend(anyString(), delivered.capture());
+        return ((JsonNode) delivered.getValue()).get("count").asInt();
+    }
+}